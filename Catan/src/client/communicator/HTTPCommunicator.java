@@ -7,6 +7,9 @@ import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLDecoder;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.*;
 
 import client.data.UserPlayerInfo;
@@ -31,9 +34,19 @@ public class HTTPCommunicator {
 	 */
 	private static String userCookie;
 	private static String gameCookie;
+	/**
+	 * The token the server knows this player by, set along with the user
+	 * cookie
+	 */
+	private static String sessionCookie;
 	@SuppressWarnings("unused")
 	private static Logger logger;
 
+	/**
+	 * The ETag of the last answer to each url fetched with doCachedGet
+	 */
+	private final Map<String, String> etags = new ConcurrentHashMap<String, String>();
+
 	static {
 		logger = Logger.getLogger("CatanClient");
 	}
@@ -52,7 +65,19 @@ public class HTTPCommunicator {
 	 */
 	public String doGet(String urlString, String gsonString)
 			throws ServerResponseException {
-		return communicate(urlString, gsonString, GET);
+		return communicate(urlString, gsonString, GET, false);
+	}
+
+	/**
+	 * Gets a url, asking the server to send it only if it has changed since
+	 * the last time it was fetched this way
+	 * 
+	 * @throws ServerResponseException
+	 * @Pre url is valid
+	 * @Post the body if it changed, otherwise null
+	 */
+	public String doCachedGet(String urlString) throws ServerResponseException {
+		return communicate(urlString, null, GET, true);
 	}
 
 	/**
@@ -62,11 +87,12 @@ public class HTTPCommunicator {
 	 */
 	public String doPost(String url, String gsonString)
 			throws ServerResponseException {
-		return communicate(url, gsonString, POST);
+		return communicate(url, gsonString, POST, false);
 	}
 
 	private String communicate(String urlString, String gsonString,
-			int requestType) throws ServerResponseException {
+			int requestType, boolean conditional)
+			throws ServerResponseException {
 		try {
 			URL url = new URL(URL_PREFIX + urlString);
 
@@ -81,10 +107,18 @@ public class HTTPCommunicator {
 				cookieValue += "; ";
 				cookieValue += gameCookie;
 			}
+			if (sessionCookie != null) {
+				cookieValue += "; ";
+				cookieValue += sessionCookie;
+			}
 
 			if (cookieValue != "")
 				connection.setRequestProperty("Cookie", cookieValue);
 
+			String etag = conditional ? etags.get(urlString) : null;
+			if (etag != null)
+				connection.setRequestProperty("If-None-Match", etag);
+
 			if (requestType == POST)
 				connection.setRequestMethod(HTTP_POST);
 			else if (requestType == GET)
@@ -98,11 +132,24 @@ public class HTTPCommunicator {
 				connection.getOutputStream().close();
 			}
 
-			if (connection.getResponseCode() == HttpURLConnection.HTTP_OK) {
+			if (conditional
+					&& connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+				return null;
+			} else if (connection.getResponseCode() == HttpURLConnection.HTTP_OK) {
+				if (conditional) {
+					String newTag = connection.getHeaderField("ETag");
+					if (newTag != null)
+						etags.put(urlString, newTag);
+					else
+						etags.remove(urlString);
+				}
+
 				// Look for cookies
-				String cookie = connection.getHeaderField("Set-Cookie");
-				if (cookie != null)
-					parseSetCookie(cookie, connection);
+				for (Map.Entry<String, List<String>> header : connection
+						.getHeaderFields().entrySet())
+					if ("Set-Cookie".equalsIgnoreCase(header.getKey()))
+						for (String cookie : header.getValue())
+							parseSetCookie(cookie, connection);
 
 				BufferedReader br = new BufferedReader(new InputStreamReader(
 						connection.getInputStream()));
@@ -129,7 +176,7 @@ public class HTTPCommunicator {
 	}
 
 	/**
-	 * will only set cookie if they aren't set already
+	 * stores a cookie the server set, by its name
 	 * 
 	 * @param cookieString
 	 * @param connection
@@ -144,7 +191,10 @@ public class HTTPCommunicator {
 		// strip ;Path=/; and catan.****
 		cookieString = cookieString.replace("~Path=/~", "");
 		cookieString = cookieString.replace(";Path=/;", "");
-		if (userCookie == null) {
+		if (cookieString.startsWith("catan.session=")) {
+			sessionCookie = cookieString;
+			return 3;
+		} else if (cookieString.startsWith("catan.user=")) {
 			String decodedCookie = URLDecoder.decode(cookieString);
 			decodedCookie = decodedCookie.replace("catan.user=", "");
 			decodedCookie = decodedCookie.replace("catan.user=", "");
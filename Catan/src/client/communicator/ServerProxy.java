@@ -5,6 +5,7 @@ import java.util.logging.Logger;
 
 import shared.communication.*;
 import shared.data.GameInfo;
+import shared.model.ModelPatch;
 import shared.utils.*;
 import client.data.UserPlayerInfo;
 import client.model.ClientModel;
@@ -36,6 +37,12 @@ public class ServerProxy implements IServer {
 	/** used to send data over the network */
 	private HTTPCommunicator httpCommunicator;
 
+	/** the game list as the server last sent it */
+	private GameSummary[] gameList = null;
+
+	/** the legal moves as the server last sent them */
+	private LegalMoves legalMoves = null;
+
 	/**
 	 * Default constructor.
 	 * 
@@ -79,19 +86,58 @@ public class ServerProxy implements IServer {
 	public ClientModel updateModel(int version) throws ServerResponseException {
 		// logger.info("client/communicator/ServerProxy - entering updateModel");
 		String jsonResponseString = httpCommunicator.doGet(
-				"/game/model?version=" + version, null);
-		//
+				"/game/model?version=" + version + "&patch=true", null);
+		// logger.info("client/communicator/ServerProxy - exiting updateModel");
+		return this.toClientModel(jsonResponseString);
+	}
+
+	/**
+	 * Like updateModel, but the server holds the request until the model
+	 * changes or waitSeconds pass, so the client hears about a move as soon as
+	 * it happens without asking every second
+	 * 
+	 * @param version
+	 *            - the version of the client's model
+	 * @param waitSeconds
+	 *            - how long the server may hold the request
+	 * @return the new model, or null if nothing changed in time
+	 * @throws ServerResponseException
+	 *             if the server could not be reached
+	 */
+	public ClientModel waitForModel(int version, int waitSeconds)
+			throws ServerResponseException {
+		String jsonResponseString = httpCommunicator.doGet(
+				"/game/model?version=" + version + "&patch=true&wait="
+						+ waitSeconds, null);
+		if (jsonResponseString == null) {
+			throw new ServerResponseException("No response from server");
+		}
+		return this.toClientModel(jsonResponseString);
+	}
+
+	/**
+	 * Turns a /game/model response into a ClientModel, applying it to the
+	 * current model if it is a patch
+	 */
+	private ClientModel toClientModel(String jsonResponseString)
+			throws ServerResponseException {
 		ClientModel model = null; // Returns null if current model is already
 									// correct or there was an error
 		if (jsonResponseString != null) {
 			if (!jsonResponseString.equals("")) {
-				if (!jsonResponseString.equals("\"true\"")) {
+				ModelPatch patch = ModelPatch.fromJson(jsonResponseString);
+				if (patch != null) {
+					model = ClientModel.getSingleton().applyPatch(patch);
+					if (model == null) {
+						// the patch was for a different version than ours
+						model = this.updateModelNoVersionCheck();
+					}
+				} else if (!jsonResponseString.equals("\"true\"")) {
 					model = Serializer
 							.deserializeClientModel(jsonResponseString);
 				}
 			}
 		}
-		// logger.info("client/communicator/ServerProxy - entering updateModel");
 		return model;
 	}
 
@@ -158,13 +204,17 @@ public class ServerProxy implements IServer {
 	 * @post A valid CurrentGames returned
 	 */
 	public GameSummary[] getGameList() throws ServerResponseException {
-		String response = httpCommunicator.doGet("/games/list", null);
-		if (response != null && !response.equals("\"[]\"")) {
-			return (GameSummary[]) Serializer.deserialize(response,
+		String response = httpCommunicator.doCachedGet("/games/list");
+		if (response == null) {
+			// unchanged since the last call
+			return gameList;
+		} else if (!response.equals("\"[]\"")) {
+			gameList = (GameSummary[]) Serializer.deserialize(response,
 					GameSummary[].class);
 		} else {
-			return null;
+			gameList = null;
 		}
+		return gameList;
 	}
 
 	/**
@@ -286,6 +336,23 @@ public class ServerProxy implements IServer {
 		}
 	}
 
+	/**
+	 * Retrieves every legal move the user has in the current game, found by
+	 * the server once per model version
+	 *
+	 * @pre user has logged on and joined a game, and therefore has cookies
+	 * @post the moves for the latest model version returned
+	 */
+	public LegalMoves getLegalMoves() throws ServerResponseException {
+		String response = httpCommunicator.doCachedGet("/game/legalMoves");
+		if (response != null) {
+			legalMoves = (LegalMoves) Serializer.deserialize(response,
+					LegalMoves.class);
+		}
+		// a null response is unchanged since the last call
+		return legalMoves;
+	}
+
 	/**
 	 * Prepares commands to be sent over network, then sends them to server to
 	 * apply to current game
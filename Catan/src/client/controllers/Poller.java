@@ -21,10 +21,15 @@ import java.util.TimerTask;
  */
 
 public class Poller {
+	/**
+	 * How long the server may hold a long poll before answering "no change"
+	 */
+	private static final int LONG_POLL_SECONDS = 30;
 
 	private IServer server;
 	private Timer timer;
 	private Timer hackyTimer;
+	private volatile Thread longPollThread;
 	private boolean normalTimerRunning = false;
 
 	public Poller(IServer server) {
@@ -74,10 +79,15 @@ public class Poller {
 
 	/**
 	 * @pre an actual game has started
-	 * @post a java timer is set that calls updateModel() every second
+	 * @post a java timer is set that calls updateModel() every second, or,
+	 *       when talking to a real server, a thread long polls it for changes
 	 */
 	public void setTimer() {
 		normalTimerRunning = true;
+		if (server instanceof ServerProxy) {
+			startLongPolling((ServerProxy) server);
+			return;
+		}
 		TimerTask timerTask = new PollerTimerTask(this);
 		timer = new Timer(true);
 		timer.scheduleAtFixedRate(timerTask, 0, 1000);
@@ -127,6 +137,42 @@ public class Poller {
 		// means 1/second)
 	}
 
+	/**
+	 * Keeps one request waiting on the server at all times. The server
+	 * answers as soon as the model changes, or with nothing after
+	 * LONG_POLL_SECONDS, and the thread asks again straight away.
+	 */
+	private void startLongPolling(final ServerProxy proxy) {
+		Thread thread = new Thread("Poller") {
+			@Override
+			public void run() {
+				while (longPollThread == this) {
+					try {
+						ClientModel updatedClientModel = proxy.waitForModel(
+								ClientModel.getSingleton().getVersion(),
+								LONG_POLL_SECONDS);
+						if (updatedClientModel != null
+								&& longPollThread == this) {
+							ClientModel.getSingleton().setClientModel(
+									updatedClientModel);
+						}
+					} catch (ServerResponseException e) {
+						e.printStackTrace();
+						// don't hammer a server that is down
+						try {
+							Thread.sleep(1000);
+						} catch (InterruptedException ie) {
+							return;
+						}
+					}
+				}
+			}
+		};
+		thread.setDaemon(true);
+		longPollThread = thread;
+		thread.start();
+	}
+
 	/**
 	 * @pre the game has ended or been temporarily exited
 	 * @post the java timer no longer
@@ -135,6 +181,8 @@ public class Poller {
 		if (timer != null) {
 			timer.cancel();
 		}
+		// the thread finishes once its current request comes back
+		longPollThread = null;
 	}
 
 	public void stopPlayerWaitingTimer() {
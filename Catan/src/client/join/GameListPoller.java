@@ -25,6 +25,12 @@ public class GameListPoller {
 	private Timer timer;
 	private boolean timerRunning = false;
 	private JoinGameController joinGameController;
+	/*
+	 * The list last shown, which the server hands back as the same array
+	 * while it has not changed
+	 */
+	private GameSummary[] lastList = null;
+	private boolean shown = false;
 
 	public GameListPoller(IServer server, JoinGameController joinGameController) {
 		this.server = server;
@@ -43,6 +49,11 @@ public class GameListPoller {
 		try {
 			GameInfo[] newGameInfoList = null;
 			GameSummary[] newGameSummaryList = server.getGameList();
+			if (shown && newGameSummaryList == lastList) {
+				return;
+			}
+			lastList = newGameSummaryList;
+			shown = true;
 			if (newGameSummaryList != null) {
 				newGameInfoList = new GameInfo[newGameSummaryList.length];
 
@@ -66,6 +77,7 @@ public class GameListPoller {
 	 */
 	public void setTimer() {
 		timerRunning = true;
+		shown = false;
 		TimerTask timerTask = new GameListPollerTimeTask(this);
 		timer = new Timer(true);
 		timer.scheduleAtFixedRate(timerTask, 0, 2500);
@@ -113,7 +113,6 @@ public class MapController extends Controller implements IMapController,
 	public void populatePorts() {
 		for (Port port : ClientModel.getSingleton().getMap().getPorts()) {
 			if (port != null) {
-				port.convertFromPrimitives();
 				PortType portType = clientModelController.stringToPortType(port
 						.getResource());
 				EdgeLocation edgeLocation = new EdgeLocation(
@@ -192,16 +191,7 @@ public class MapController extends Controller implements IMapController,
 				// sendRoadToServer(firstEdge);
 				Road road = new Road(UserPlayerInfo.getSingleton()
 						.getPlayerIndex(), firstEdge);
-				Road[] oldRoads = ClientModel.getSingleton().getMap()
-						.getRoads();
-				Road[] newRoads = new Road[oldRoads.length + 1];
-				int i = 0;
-				for (Road tempRoad : oldRoads) {
-					newRoads[i] = tempRoad;
-					i += 1;
-				}
-				newRoads[oldRoads.length] = road;
-				ClientModel.getSingleton().getMap().setRoads(newRoads);
+				ClientModel.getSingleton().getMap().getRoads().add(road);
 				this.update(null, null);
 				this.startMove(PieceType.ROAD, true, false);
 			} else {
@@ -309,13 +299,9 @@ public class MapController extends Controller implements IMapController,
 		if (playingRoadBuildingCard && firstRoadPlaced) {
 			firstRoadPlaced = false;
 			MapView mapView = (MapView) this.getView();
-			Road[] currentRoads = ClientModel.getSingleton().getMap()
+			List<Road> currentRoads = ClientModel.getSingleton().getMap()
 					.getRoads();
-			Road[] newRoads = new Road[currentRoads.length - 1];
-			for (int i = 0; i < newRoads.length; i++) {
-				newRoads[i] = currentRoads[i];
-			}
-			ClientModel.getSingleton().getMap().setRoads(newRoads);
+			currentRoads.remove(currentRoads.size() - 1);
 			mapView.removeMap();
 			this.populateHexes();
 			this.populatePorts();
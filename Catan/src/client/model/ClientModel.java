@@ -2,6 +2,7 @@ package client.model;
 
 import client.data.UserPlayerInfo;
 import shared.model.AbstractModel;
+import shared.model.ModelPatch;
 import shared.model.Notifier;
 import shared.model.Player;
 import shared.utils.Serializer;
@@ -68,6 +69,19 @@ public class ClientModel extends AbstractModel {
 			notifier.modelUpdated();
 	}
 
+	/**
+	 * Builds the model a patch from the server describes on top of this one.
+	 * This model is left as it is so observers never see it half updated.
+	 * 
+	 * @param patch
+	 *            - the changes since this model's version
+	 * @return the updated model, or null if the patch is not for this
+	 *         model's version and the whole model has to be fetched instead
+	 */
+	public ClientModel applyPatch(ModelPatch patch) {
+		return patch.applyTo(this, new ClientModel());
+	}
+
 	public String toString() {
 		return Serializer.serializeClientModel(this);
 	}
@@ -12,6 +12,14 @@ public interface IGameDAO {
 	 */
 	public List<ServerModel> getGames();
 
+	/**
+	 * Lists the ids of the games stored on the hard disk without reading the
+	 * games themselves.
+	 * 
+	 * @return ids of every stored game, in no particular order.
+	 */
+	public List<Integer> getGameIDs();
+
 	/**
 	 * This function will create a new game within server's persistence files
 	 * given the server model input parameter.
@@ -1,45 +1,270 @@
 package server.DAO;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import server.model.ServerModel;
+import shared.utils.ByteSerializer;
+import shared.utils.Serializer;
 
+/**
+ * Keeps each game's latest snapshot in the games table and the commands run
+ * on it since in the commands table, each row holding one or more commands,
+ * one per line. The statements are prepared once and reused. Commands and
+ * snapshots can be queued with the addToBatch methods and written together
+ * by executeBatch inside one transaction; the driver cannot run a statement
+ * singly once it has been batched, so batching has statements of its own.
+ * Callers share the connection under SQLPersistance's lock.
+ */
 public class SQLGameDAO implements IGameDAO {
+	private static Logger logger = Logger.getLogger("CatanServer");
+
+	private PreparedStatement insertGame;
+	private PreparedStatement saveGame;
+	private PreparedStatement selectGame;
+	private PreparedStatement selectGames;
+	private PreparedStatement selectGameIDs;
+	private PreparedStatement deleteGames;
+	private PreparedStatement insertCommand;
+	private PreparedStatement selectCommands;
+	private PreparedStatement deleteCommands;
+	private PreparedStatement deleteAllCommands;
+	private PreparedStatement batchSaveGame;
+	private PreparedStatement batchDeleteCommands;
+	private int batchedCommands;
+	private int batchedSnapshots;
+
+	public SQLGameDAO(Connection connection) throws SQLException {
+		Statement statement = connection.createStatement();
+		statement.executeUpdate("CREATE TABLE IF NOT EXISTS games ("
+				+ "id INTEGER PRIMARY KEY, model BLOB NOT NULL)");
+		statement.executeUpdate("CREATE TABLE IF NOT EXISTS commands ("
+				+ "seq INTEGER PRIMARY KEY AUTOINCREMENT, "
+				+ "game INTEGER NOT NULL, commands BLOB NOT NULL)");
+		statement.executeUpdate("CREATE INDEX IF NOT EXISTS commands_game "
+				+ "ON commands (game, seq)");
+		statement.close();
+		insertGame = connection
+				.prepareStatement("INSERT OR IGNORE INTO games (id, model) VALUES (?, ?)");
+		saveGame = connection
+				.prepareStatement("INSERT OR REPLACE INTO games (id, model) VALUES (?, ?)");
+		selectGame = connection
+				.prepareStatement("SELECT model FROM games WHERE id = ?");
+		selectGames = connection.prepareStatement("SELECT model FROM games");
+		selectGameIDs = connection.prepareStatement("SELECT id FROM games");
+		deleteGames = connection.prepareStatement("DELETE FROM games");
+		insertCommand = connection
+				.prepareStatement("INSERT INTO commands (game, commands) VALUES (?, ?)");
+		selectCommands = connection
+				.prepareStatement("SELECT commands FROM commands WHERE game = ? ORDER BY seq");
+		deleteCommands = connection
+				.prepareStatement("DELETE FROM commands WHERE game = ?");
+		deleteAllCommands = connection
+				.prepareStatement("DELETE FROM commands");
+		batchSaveGame = connection
+				.prepareStatement("INSERT OR REPLACE INTO games (id, model) VALUES (?, ?)");
+		batchDeleteCommands = connection
+				.prepareStatement("DELETE FROM commands WHERE game = ?");
+	}
 
 	@Override
 	public List<ServerModel> getGames() {
-		// TODO Auto-generated method stub
-		return null;
+		List<ServerModel> games = new ArrayList<ServerModel>();
+		try {
+			ResultSet rows = selectGames.executeQuery();
+			try {
+				while (rows.next()) {
+					games.add(readModel(rows));
+				}
+			} finally {
+				rows.close();
+			}
+		} catch (SQLException e) {
+			logger.log(Level.SEVERE, "server/DAO/SQLGameDAO - getGames failed",
+					e);
+		}
+		return games;
+	}
+
+	@Override
+	public List<Integer> getGameIDs() {
+		List<Integer> ids = new ArrayList<Integer>();
+		try {
+			ResultSet rows = selectGameIDs.executeQuery();
+			try {
+				while (rows.next()) {
+					ids.add(rows.getInt(1));
+				}
+			} finally {
+				rows.close();
+			}
+		} catch (SQLException e) {
+			logger.log(Level.SEVERE,
+					"server/DAO/SQLGameDAO - getGameIDs failed", e);
+		}
+		return ids;
 	}
 
 	@Override
 	public boolean createGame(ServerModel newGame) {
-		// TODO Auto-generated method stub
-		return false;
+		try {
+			insertGame.setInt(1, newGame.getGameID());
+			insertGame.setBytes(2, ByteSerializer.serializeToBytes(newGame));
+			return insertGame.executeUpdate() == 1;
+		} catch (SQLException e) {
+			logger.log(Level.SEVERE,
+					"server/DAO/SQLGameDAO - could not create game "
+							+ newGame.getGameID(), e);
+			return false;
+		}
 	}
 
 	@Override
 	public ServerModel getGame(int gameID) {
-		// TODO Auto-generated method stub
-		return null;
+		try {
+			selectGame.setInt(1, gameID);
+			ResultSet rows = selectGame.executeQuery();
+			try {
+				return rows.next() ? readModel(rows) : null;
+			} finally {
+				rows.close();
+			}
+		} catch (SQLException e) {
+			logger.log(Level.SEVERE, "server/DAO/SQLGameDAO - could not read game "
+					+ gameID, e);
+			return null;
+		}
 	}
 
 	@Override
 	public boolean saveGame(int gameID, ServerModel game) {
-		// TODO Auto-generated method stub
-		return false;
+		try {
+			saveGame.setInt(1, gameID);
+			saveGame.setBytes(2, ByteSerializer.serializeToBytes(game));
+			saveGame.executeUpdate();
+			deleteCommands.setInt(1, gameID);
+			deleteCommands.executeUpdate();
+			return true;
+		} catch (SQLException e) {
+			logger.log(Level.SEVERE, "server/DAO/SQLGameDAO - could not save game "
+					+ gameID, e);
+			return false;
+		}
 	}
 
 	@Override
 	public List<ServerModel> queryGame() {
-		// TODO Auto-generated method stub
-		return null;
+		return getGames();
 	}
 
 	@Override
 	public boolean clear() {
-		// TODO Auto-generated method stub
-		return false;
+		try {
+			deleteGames.executeUpdate();
+			deleteAllCommands.executeUpdate();
+			return true;
+		} catch (SQLException e) {
+			logger.log(Level.SEVERE, "server/DAO/SQLGameDAO - clear failed", e);
+			return false;
+		}
+	}
+
+	/**
+	 * Queues commands run on a game, to be written by executeBatch as one row
+	 * 
+	 * @param commandLines
+	 *            - UTF-8 JSON commands, each ended by a newline
+	 */
+	public void addCommandsToBatch(int gameID, byte[] commandLines)
+			throws SQLException {
+		insertCommand.setInt(1, gameID);
+		insertCommand.setBytes(2, commandLines);
+		insertCommand.addBatch();
+		batchedCommands++;
 	}
 
+	/**
+	 * Queues a game's snapshot, to be written by executeBatch. The commands
+	 * stored for the game so far are dropped with it, since the snapshot holds
+	 * them all, so commands already queued are written first.
+	 */
+	public void addSnapshotToBatch(int gameID, byte[] modelJSON)
+			throws SQLException {
+		if (batchedCommands > 0) {
+			executeBatch();
+		}
+		batchSaveGame.setInt(1, gameID);
+		batchSaveGame.setBytes(2, modelJSON);
+		batchSaveGame.addBatch();
+		batchDeleteCommands.setInt(1, gameID);
+		batchDeleteCommands.addBatch();
+		batchedSnapshots++;
+	}
+
+	/**
+	 * Writes everything queued since the last call. Queued snapshots are always
+	 * older than queued commands, so they go first.
+	 */
+	public void executeBatch() throws SQLException {
+		if (batchedSnapshots > 0) {
+			batchSaveGame.executeBatch();
+			batchDeleteCommands.executeBatch();
+			batchedSnapshots = 0;
+		}
+		if (batchedCommands > 0) {
+			insertCommand.executeBatch();
+			batchedCommands = 0;
+		}
+	}
+
+	/**
+	 * Drops everything queued since the last executeBatch, after a failed
+	 * transaction
+	 */
+	public void clearBatch() throws SQLException {
+		batchSaveGame.clearBatch();
+		batchDeleteCommands.clearBatch();
+		insertCommand.clearBatch();
+		batchedSnapshots = 0;
+		batchedCommands = 0;
+	}
+
+	/**
+	 * @return the commands stored for a game since its last snapshot, oldest
+	 *         first
+	 */
+	public List<String> getCommands(int gameID) throws SQLException {
+		List<String> commands = new ArrayList<String>();
+		selectCommands.setInt(1, gameID);
+		ResultSet rows = selectCommands.executeQuery();
+		try {
+			while (rows.next()) {
+				byte[] lines = rows.getBytes(1);
+				int start = 0;
+				for (int i = 0; i < lines.length; i++) {
+					if (lines[i] == '\n') {
+						commands.add(new String(lines, start, i - start,
+								StandardCharsets.UTF_8));
+						start = i + 1;
+					}
+				}
+			}
+		} finally {
+			rows.close();
+		}
+		return commands;
+	}
+
+	private static ServerModel readModel(ResultSet rows) throws SQLException {
+		return Serializer.deserializeServerModel(new String(rows.getBytes(1),
+				StandardCharsets.UTF_8));
+	}
 }
@@ -1,29 +1,83 @@
 package server.DAO;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import shared.communication.UserCredentials;
 
+/**
+ * Keeps the registered users in the users table. The statements are prepared
+ * once and reused; callers share the connection under SQLPersistance's lock.
+ */
 public class SQLUserDAO implements IUserDAO {
+	private static Logger logger = Logger.getLogger("CatanServer");
+
+	private PreparedStatement insertUser;
+	private PreparedStatement selectUsers;
+	private PreparedStatement deleteUsers;
+
+	public SQLUserDAO(Connection connection) throws SQLException {
+		Statement statement = connection.createStatement();
+		statement.executeUpdate("CREATE TABLE IF NOT EXISTS users ("
+				+ "username TEXT PRIMARY KEY, password TEXT NOT NULL)");
+		statement.close();
+		insertUser = connection
+				.prepareStatement("INSERT OR REPLACE INTO users (username, password) VALUES (?, ?)");
+		selectUsers = connection
+				.prepareStatement("SELECT username, password FROM users ORDER BY rowid");
+		deleteUsers = connection.prepareStatement("DELETE FROM users");
+	}
 
 	@Override
 	public List<UserCredentials> getUsers() {
-		// TODO Auto-generated method stub
-		return null;
+		List<UserCredentials> users = new ArrayList<UserCredentials>();
+		try {
+			ResultSet rows = selectUsers.executeQuery();
+			try {
+				while (rows.next()) {
+					users.add(new UserCredentials(rows.getString(1), rows
+							.getString(2)));
+				}
+			} finally {
+				rows.close();
+			}
+		} catch (SQLException e) {
+			logger.log(Level.SEVERE, "server/DAO/SQLUserDAO - getUsers failed",
+					e);
+		}
+		return users;
 	}
 
 	@Override
 	public boolean createUser(UserCredentials newUser) {
-		return false;
-		// TODO Auto-generated method stub
-
+		try {
+			insertUser.setString(1, newUser.getUsername());
+			insertUser.setString(2, newUser.getPassword());
+			insertUser.executeUpdate();
+			return true;
+		} catch (SQLException e) {
+			logger.log(Level.SEVERE, "server/DAO/SQLUserDAO - could not add "
+					+ newUser.getUsername(), e);
+			return false;
+		}
 	}
 
 	@Override
 	public boolean clear() {
-		return false;
-		// TODO Auto-generated method stub
-
+		try {
+			deleteUsers.executeUpdate();
+			return true;
+		} catch (SQLException e) {
+			logger.log(Level.SEVERE, "server/DAO/SQLUserDAO - clear failed", e);
+			return false;
+		}
 	}
 
 }
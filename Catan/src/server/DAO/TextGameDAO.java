@@ -1,45 +1,147 @@
 package server.DAO;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import server.model.ServerModel;
+import shared.utils.Serializer;
 
+/**
+ * Keeps each game as a JSON file named after its id. A save is written to a
+ * temporary file, forced to disk and renamed over the old one, so a crash
+ * leaves either the old game or the new one, never half of each.
+ */
 public class TextGameDAO implements IGameDAO {
+	private static Logger logger = Logger.getLogger("CatanServer");
+
+	private File directory;
+
+	/**
+	 * @param directory
+	 *            - where the game files are kept, created if missing
+	 */
+	public TextGameDAO(File directory) {
+		this.directory = directory;
+		directory.mkdirs();
+	}
 
 	@Override
 	public List<ServerModel> getGames() {
-		// TODO Auto-generated method stub
-		return null;
+		List<ServerModel> games = new ArrayList<ServerModel>();
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if (file.getName().startsWith("game")
+						&& file.getName().endsWith(".json")) {
+					ServerModel game = read(file);
+					if (game != null) {
+						games.add(game);
+					}
+				}
+			}
+		}
+		return games;
+	}
+
+	@Override
+	public List<Integer> getGameIDs() {
+		List<Integer> ids = new ArrayList<Integer>();
+		String[] names = directory.list();
+		if (names != null) {
+			for (String name : names) {
+				if (name.startsWith("game") && name.endsWith(".json")) {
+					try {
+						ids.add(Integer.parseInt(name.substring(4,
+								name.length() - 5)));
+					} catch (NumberFormatException e) {
+						logger.warning("server/DAO/TextGameDAO - skipping "
+								+ name);
+					}
+				}
+			}
+		}
+		return ids;
 	}
 
 	@Override
 	public boolean createGame(ServerModel newGame) {
-		// TODO Auto-generated method stub
-		return false;
+		if (fileFor(newGame.getGameID()).exists()) {
+			return false;
+		}
+		return saveGame(newGame.getGameID(), newGame);
 	}
 
 	@Override
 	public ServerModel getGame(int gameID) {
-		// TODO Auto-generated method stub
-		return null;
+		File file = fileFor(gameID);
+		return file.exists() ? read(file) : null;
+	}
+
+	@Override
+	public boolean saveGame(int gameID, ServerModel game) {
+		File file = fileFor(gameID);
+		File temp = new File(directory, file.getName() + ".tmp");
+		byte[] json = Serializer.serializeServerModel(game).getBytes(
+				StandardCharsets.UTF_8);
+		try {
+			FileOutputStream out = new FileOutputStream(temp);
+			try {
+				out.write(json);
+				out.getFD().sync();
+			} finally {
+				out.close();
+			}
+			Files.move(temp.toPath(), file.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		} catch (IOException e) {
+			logger.log(Level.SEVERE, "server/DAO/TextGameDAO - could not save "
+					+ file, e);
+			return false;
+		}
 	}
 
 	@Override
 	public List<ServerModel> queryGame() {
-		// TODO Auto-generated method stub
-		return null;
+		return getGames();
 	}
 
 	@Override
 	public boolean clear() {
-		// TODO Auto-generated method stub
-		return false;
+		boolean cleared = true;
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if (file.getName().startsWith("game")
+						&& file.getName().contains(".json")) {
+					cleared &= file.delete();
+				}
+			}
+		}
+		return cleared;
 	}
 
-	@Override
-	public boolean saveGame(int GameID, ServerModel game) {
-		// TODO Auto-generated method stub
-		return false;
+	private ServerModel read(File file) {
+		try {
+			return Serializer.deserializeServerModel(new String(Files
+					.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			logger.log(Level.SEVERE, "server/DAO/TextGameDAO - could not read "
+					+ file, e);
+			return null;
+		}
 	}
 
+	private File fileFor(int gameID) {
+		return new File(directory, "game" + gameID + ".json");
+	}
 }
@@ -1,28 +1,80 @@
 package server.DAO;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import shared.communication.UserCredentials;
+import shared.utils.Serializer;
 
+/**
+ * Keeps the registered users in one file, one user's JSON per line, added to
+ * as users register.
+ */
 public class TextUserDAO implements IUserDAO {
+	private static Logger logger = Logger.getLogger("CatanServer");
+
+	private File file;
+
+	/**
+	 * @param directory
+	 *            - where the users file is kept, created if missing
+	 */
+	public TextUserDAO(File directory) {
+		directory.mkdirs();
+		this.file = new File(directory, "users.txt");
+	}
 
 	@Override
 	public List<UserCredentials> getUsers() {
-		// TODO Auto-generated method stub
-		return null;
+		List<UserCredentials> users = new ArrayList<UserCredentials>();
+		if (!file.exists()) {
+			return users;
+		}
+		try {
+			for (String line : Files.readAllLines(file.toPath(),
+					StandardCharsets.UTF_8)) {
+				if (!line.isEmpty()) {
+					users.add((UserCredentials) Serializer.deserialize(line,
+							UserCredentials.class));
+				}
+			}
+		} catch (IOException e) {
+			logger.log(Level.SEVERE, "server/DAO/TextUserDAO - could not read "
+					+ file, e);
+		}
+		return users;
 	}
 
 	@Override
-	public boolean createUser(UserCredentials newUser) {
-		// TODO Auto-generated method stub
-		return false;
+	public synchronized boolean createUser(UserCredentials newUser) {
+		byte[] line = (Serializer.serialize(newUser) + "\n")
+				.getBytes(StandardCharsets.UTF_8);
+		try {
+			FileOutputStream out = new FileOutputStream(file, true);
+			try {
+				out.write(line);
+				out.getFD().sync();
+			} finally {
+				out.close();
+			}
+			return true;
+		} catch (IOException e) {
+			logger.log(Level.SEVERE, "server/DAO/TextUserDAO - could not add "
+					+ newUser.getUsername(), e);
+			return false;
+		}
 	}
 
 	@Override
-	public boolean clear() {
-		return false;
-		// TODO Auto-generated method stub
-
+	public synchronized boolean clear() {
+		return !file.exists() || file.delete();
 	}
 
 }
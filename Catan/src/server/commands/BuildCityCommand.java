@@ -60,7 +60,6 @@ public class BuildCityCommand extends ICommand {
 		settlementVertexLocation.setDirection(location.getDirection());
 		settlementVertexLocation.setX(location.getX());
 		settlementVertexLocation.setY(location.getY());
-		settlementVertexLocation.convertFromPrimitives();
 		VertexObject city = new VertexObject(playerIndex,
 				settlementVertexLocation);
 
@@ -88,9 +87,9 @@ public class BuildCityCommand extends ICommand {
 			player.setSettlements(player.getSettlements() + 1);
 
 			/*
-			 * Add an additional victory point to the player for playing a city.
+			 * Count the additional victory point the city is worth.
 			 */
-			player.setVictoryPoints(player.getVictoryPoints() + 1);
+			model.updateVictoryPoints();
 
 			/*
 			 * Update game history
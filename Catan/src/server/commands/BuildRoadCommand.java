@@ -49,7 +49,6 @@ public class BuildRoadCommand extends ICommand {
 		roadEdgeLocation.setDirection(roadLocation.getDirection());
 		roadEdgeLocation.setX(roadLocation.getX());
 		roadEdgeLocation.setY(roadLocation.getY());
-		roadEdgeLocation.convertFromPrimitives();
 		Road road = new Road(playerIndex, roadEdgeLocation);
 
 		if (controller.canBuildRoad(playerIndex, road, free, free)) {
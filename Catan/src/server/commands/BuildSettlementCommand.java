@@ -63,7 +63,6 @@ public class BuildSettlementCommand extends ICommand {
 				.setDirection(settlementLocation.getDirection());
 		settlementVertexLocation.setX(settlementLocation.getX());
 		settlementVertexLocation.setY(settlementLocation.getY());
-		settlementVertexLocation.convertFromPrimitives();
 		VertexObject settlement = new VertexObject(playerIndex,
 				settlementVertexLocation);
 
@@ -73,6 +72,11 @@ public class BuildSettlementCommand extends ICommand {
 			 */
 			model.addSettlement(settlement);
 
+			/*
+			 * The settlement may cut another player's road in two.
+			 */
+			model.reallocateLongestRoad();
+
 			/*
 			 * Decrement from the player's resources the appropriate amount of
 			 * resources. In addition, add the appropriate amount of resources
@@ -88,11 +92,11 @@ public class BuildSettlementCommand extends ICommand {
 			}
 
 			/*
-			 * Remove one settlement piece from the player's hand and add an
-			 * additional victory point for the settlement.
+			 * Remove one settlement piece from the player's hand and count
+			 * the point the settlement is worth.
 			 */
 			player.setSettlements(player.getSettlements() - 1);
-			player.setVictoryPoints(player.getVictoryPoints() + 1);
+			model.updateVictoryPoints();
 
 			/*
 			 * Update game history
@@ -54,7 +54,7 @@ public class BuyDevCardCommand extends ICommand {
 			 * card list if the card is a monument. Else add the card to the new
 			 * card list.
 			 */
-			model.getDeck().drawFromDeck(player);
+			model.getDeck().drawFromDeck(player, model.getRandom());
 
 			/*
 			 * Remove from the player's resources 1 ore, 1 wheat, and 1 sheep.
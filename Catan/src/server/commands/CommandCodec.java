@@ -0,0 +1,134 @@
+package server.commands;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Turns commands into JSON and back, picking the command class by its type
+ * field.
+ *
+ * The type is read with a streaming reader that skips every other value
+ * without building it, and the command is then bound by a Gson adapter made
+ * the first time its class is seen, so a journal line or /game/commands post
+ * is neither matched against every command name nor bound by a fresh Gson.
+ */
+public class CommandCodec {
+	/*
+	 * Gson and its adapters are thread safe, so every caller shares them
+	 */
+	private static final Gson gson = new Gson();
+	private static final Map<String, Class<? extends ICommand>> types = new HashMap<String, Class<? extends ICommand>>();
+	private static final ConcurrentHashMap<Class<? extends ICommand>, TypeAdapter<? extends ICommand>> adapters = new ConcurrentHashMap<Class<? extends ICommand>, TypeAdapter<? extends ICommand>>();
+
+	static {
+		register("AcceptTrade", AcceptTradeCommand.class);
+		register("BuildCity", BuildCityCommand.class);
+		register("BuildRoad", BuildRoadCommand.class);
+		register("BuildSettlement", BuildSettlementCommand.class);
+		register("BuyDevCard", BuyDevCardCommand.class);
+		register("ChangeLogLevel", ChangeLogLevelCommand.class);
+		register("CreateGame", CreateGameCommand.class);
+		register("DiscardCards", DiscardCardsCommand.class);
+		register("FinishTurn", FinishTurnCommand.class);
+		register("GetCommands", GetCommandsCommand.class);
+		register("JoinGame", JoinGameCommand.class);
+		register("LoadGame", LoadGameCommand.class);
+		register("Login", LoginCommand.class);
+		register("MaritimeTrade", MaritimeTradeCommand.class);
+		register("OfferTrade", OfferTradeCommand.class);
+		register("PlayMonopoly", PlayMonopolyCommand.class);
+		register("PlayMonument", PlayMonumentCommand.class);
+		register("PlayRoadBuilding", PlayRoadBuildingCommand.class);
+		register("PlaySoldier", PlaySoldierCommand.class);
+		register("PlayYearOfPlenty", PlayYearOfPlentyCommand.class);
+		register("PostCommands", PostCommandsCommand.class);
+		register("Register", RegisterCommand.class);
+		register("ResetGame", ResetGameCommand.class);
+		register("RobPlayer", RobPlayerCommand.class);
+		register("RollNumber", RollNumberCommand.class);
+		register("SaveGame", SaveGameCommand.class);
+		register("SendChat", SendChatCommand.class);
+	}
+
+	private CommandCodec() {
+
+	}
+
+	private static void register(String type,
+			Class<? extends ICommand> commandClass) {
+		types.put(type, commandClass);
+	}
+
+	/**
+	 * @return the command as JSON, with its type as the last field
+	 */
+	public static String encode(ICommand command) {
+		return gson.toJson(command);
+	}
+
+	/**
+	 * @param json
+	 *            - a command as written by {@link #encode(ICommand)}
+	 * @return the command, or null if the JSON is not an object or its type
+	 *         is not a known command
+	 */
+	public static ICommand decode(String json) {
+		Class<? extends ICommand> commandClass = types.get(readType(json));
+		if (commandClass == null) {
+			return null;
+		}
+		try {
+			return adapterFor(commandClass).fromJson(json);
+		} catch (IOException e) {
+			throw new JsonParseException(e);
+		}
+	}
+
+	/*
+	 * Made on first use, as some commands can only be bound on some JVMs
+	 */
+	private static TypeAdapter<? extends ICommand> adapterFor(
+			Class<? extends ICommand> commandClass) {
+		TypeAdapter<? extends ICommand> adapter = adapters.get(commandClass);
+		if (adapter == null) {
+			adapter = gson.getAdapter(commandClass);
+			adapters.put(commandClass, adapter);
+		}
+		return adapter;
+	}
+
+	/**
+	 * Finds the type field among the top level fields of a JSON object
+	 *
+	 * @return the type, or null if the JSON is not an object with a string
+	 *         type
+	 */
+	private static String readType(String json) {
+		JsonReader reader = new JsonReader(new StringReader(json));
+		try {
+			if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+				return null;
+			}
+			reader.beginObject();
+			while (reader.hasNext()) {
+				if (reader.nextName().equals("type")
+						&& reader.peek() == JsonToken.STRING) {
+					return reader.nextString();
+				}
+				reader.skipValue();
+			}
+			return null;
+		} catch (IOException | IllegalStateException e) {
+			return null;
+		}
+	}
+}
@@ -1,7 +1,6 @@
 package server.commands;
 
 import java.util.Arrays;
-import java.util.Random;
 
 import server.facade.FacadeSwitch;
 import server.model.GameList;
@@ -9,6 +8,7 @@ import server.model.ServerModel;
 import shared.communication.CreateGameParams;
 import shared.communication.GameSummary;
 import shared.locations.HexLocation;
+import shared.model.GameRandom;
 import shared.model.Hex;
 import shared.model.Port;
 import shared.utils.IDGenerator;
@@ -22,6 +22,12 @@ import shared.utils.ServerResponseException;
 public class CreateGameCommand extends ICommand {
 	private CreateGameParams params;
 	private ServerModel serverModel;
+	/*
+	 * Picked once and stored with the command, so replaying it lays out the
+	 * same board and gives the game the same generator
+	 */
+	private long seed;
+	private transient GameRandom boardRandom;
 
 	/**
 	 * 
@@ -32,6 +38,7 @@ public class CreateGameCommand extends ICommand {
 	public CreateGameCommand(CreateGameParams params) {
 		this.params = params;
 		serverModel = new ServerModel();
+		seed = GameRandom.newSeed();
 		this.setType("CreateGame");
 	}
 
@@ -57,6 +64,11 @@ public class CreateGameCommand extends ICommand {
 
 		GameList.getSingleton().addGame(gameSummary);
 		serverModel = new ServerModel();
+		serverModel.setGameID(gameID);
+		serverModel.setTitle(params.getname());
+		GameRandom random = new GameRandom(seed);
+		boardRandom = random.split();
+		serverModel.setRandom(random.split());
 		this.addPorts();
 		this.addHexes();
 		FacadeSwitch.getSingleton().getModelMap().put(gameID, serverModel);
@@ -95,7 +107,7 @@ public class CreateGameCommand extends ICommand {
 	}
 
 	public Object[] randomize(Object[] resources) {
-		Random rand = new Random();
+		GameRandom rand = boardRandom;
 		Object[] tempArray = new Object[resources.length];
 		// int j = 0;
 		for (int i = resources.length - 1; i >= 0; i--) {
@@ -57,15 +57,14 @@ public class JoinGameCommand extends ICommand {
 							0), 15, 0, 0);
 			model.setPlayers(players);
 			FacadeSwitch.getSingleton().getModelMap().put(gameID, model);
-			for (GameSummary game : GameList.getSingleton().getGames()) {
-				if (game.getId() == gameID) {
-					PlayerSummary playerSummary = new PlayerSummary(color,
-							playerName, playerID);
-					PlayerSummary[] playerSummaries = new PlayerSummary[4];
-					playerSummaries[0] = playerSummary;
-					game.setPlayers(playerSummaries);
-					break;
-				}
+			GameSummary game = GameList.getSingleton().getGameByID(gameID);
+			if (game != null) {
+				PlayerSummary playerSummary = new PlayerSummary(color,
+						playerName, playerID);
+				PlayerSummary[] playerSummaries = new PlayerSummary[4];
+				playerSummaries[0] = playerSummary;
+				game.setPlayers(playerSummaries);
+				GameList.getSingleton().changed();
 			}
 		} else {
 			if (players.length != 4) {
@@ -94,12 +93,12 @@ public class JoinGameCommand extends ICommand {
 							new DevCardList(0, 0, 0, 0, 0), false,
 							new ResourceList(0, 0, 0, 0, 0), 15, 0, 0);
 					model.setPlayers(players);
-					for (GameSummary game : GameList.getSingleton().getGames()) {
-						if (game.getId() == gameID) {
-							game.getPlayers()[i] = new PlayerSummary(color,
-									playerName, playerID);
-							break;
-						}
+					GameSummary game = GameList.getSingleton().getGameByID(
+							gameID);
+					if (game != null) {
+						game.getPlayers()[i] = new PlayerSummary(color,
+								playerName, playerID);
+						GameList.getSingleton().changed();
 					}
 					model.incrementVersion();
 					return;
@@ -124,12 +123,10 @@ public class JoinGameCommand extends ICommand {
 			 */
 			if (playerIsInTheGame_Index != -1) {
 				players[playerIsInTheGame_Index].setColor(color);
-				for (GameSummary game : GameList.getSingleton().getGames()) {
-					if (game.getId() == gameID) {
-						game.getPlayers()[playerIsInTheGame_Index]
-								.setColor(color);
-						break;
-					}
+				GameSummary game = GameList.getSingleton().getGameByID(gameID);
+				if (game != null) {
+					game.getPlayers()[playerIsInTheGame_Index].setColor(color);
+					GameList.getSingleton().changed();
 				}
 				return;
 			}
@@ -1,12 +1,14 @@
 package server.commands;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 
 import server.facade.FacadeSwitch;
 import server.model.GameList;
 import server.model.ServerModel;
+import server.model.SnapshotCodec;
 import shared.communication.GameSummary;
 import shared.communication.LoadGameParams;
 import shared.utils.Serializer;
@@ -42,6 +44,24 @@ public class LoadGameCommand extends ICommand {
 		 * not be found or the ServerModel class does not work with the object,
 		 * throw an exception.
 		 */
+		File snapshot = new File("./saves/" + fileName + ".snapshot");
+		if (snapshot.exists()) {
+			try {
+				ServerModel model = SnapshotCodec.read(snapshot);
+				FacadeSwitch.getSingleton().getModelMap()
+						.put(model.getGameID(), model);
+				GameList.getSingleton().addGame(model.toGameSummary());
+			} catch (IOException ex) {
+				ex.printStackTrace();
+				throw new ServerResponseException("Could not access the file "
+						+ fileName);
+			}
+			return;
+		}
+		/*
+		 * Games saved before snapshots are two lines of JSON, the model and
+		 * its summary
+		 */
 		String fullName = "./saves/" + fileName + ".txt";
 		try {
 			FileReader reader = new FileReader(fullName);
@@ -45,13 +45,10 @@ public class PlayMonumentCommand extends ICommand {
 					postMonumentCount);
 
 			/*
-			 * Update the player's points, by adding one for the monument just
-			 * played.
+			 * Count the monument and the point it is worth.
 			 */
-			int preVictoryPoints = model.getPlayers()[playerIndex]
-					.getVictoryPoints();
-			int postVictoryPoints = preVictoryPoints + 1;
-			model.getPlayers()[playerIndex].setVictoryPoints(postVictoryPoints);
+			model.addMonument(playerIndex);
+			model.updateVictoryPoints();
 
 			/*
 			 * Update game history
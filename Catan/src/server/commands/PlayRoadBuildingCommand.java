@@ -49,14 +49,12 @@ public class PlayRoadBuildingCommand extends ICommand {
 			roadEdgeLocation1.setDirection(location_1.getDirection());
 			roadEdgeLocation1.setX(location_1.getX());
 			roadEdgeLocation1.setY(location_1.getY());
-			roadEdgeLocation1.convertFromPrimitives();
 			Road road1 = new Road(playerIndex, roadEdgeLocation1);
 
 			EdgeLocation roadEdgeLocation2 = new EdgeLocation();
 			roadEdgeLocation2.setDirection(location_2.getDirection());
 			roadEdgeLocation2.setX(location_2.getX());
 			roadEdgeLocation2.setY(location_2.getY());
-			roadEdgeLocation2.convertFromPrimitives();
 			Road road2 = new Road(playerIndex, roadEdgeLocation2);
 
 			// add road to model
@@ -6,6 +6,7 @@ import server.model.ServerModelController;
 import shared.communication.MoveSoldierParams;
 import shared.definitions.ResourceType;
 import shared.locations.HexLocation;
+import shared.model.GameRandom;
 import shared.model.MessageLine;
 import shared.model.Player;
 import shared.model.ResourceList;
@@ -58,14 +59,14 @@ public class PlaySoldierCommand extends ICommand {
 			int postSoldier = preSoldier - 1;
 			player.getOldDevCards().setSoldier(postSoldier);
 
-			player.setSoldiers(player.getSoldiers() + 1);
+			model.addSoldier(playerIndex);
 
 			/*
 			 * Move the robber to the appropriate position, appropriately steal
 			 * a card from the victim and add appropriate resource to the
 			 * player.
 			 */
-			model.getMap().setRobber(this.location);
+			model.moveRobber(this.location);
 
 			/*
 			 * Re-allocate the largest army card/points.
@@ -107,16 +108,17 @@ public class PlaySoldierCommand extends ICommand {
 			int postSoldier = preSoldier - 1;
 			player.getOldDevCards().setSoldier(postSoldier);
 
-			player.setSoldiers(player.getSoldiers() + 1);
+			model.addSoldier(playerIndex);
 
 			/*
 			 * Move the robber to the appropriate position, appropriately steal
 			 * a card from the victim and add appropriate resource to the
 			 * player.
 			 */
-			model.getMap().setRobber(this.location);
+			model.moveRobber(this.location);
 
-			ResourceType stolenResource = stealResource(model.getPlayers()[this.victimIndex]);
+			ResourceType stolenResource = stealResource(
+					model.getPlayers()[this.victimIndex], model.getRandom());
 
 			ResourceList playerResources = player.getResources();
 			switch (stolenResource) {
@@ -170,10 +172,10 @@ public class PlaySoldierCommand extends ICommand {
 		}
 	}
 
-	private ResourceType stealResource(Player victimPlayer) {
+	private ResourceType stealResource(Player victimPlayer, GameRandom random) {
 		ResourceList victimResources = victimPlayer.getResources();
 		ResourceType stealResource = victimResources
-				.getRandomResourceFromList();
+				.getRandomResourceFromList(random);
 
 		/*
 		 * Given a randomly selected resource from the victim, subtract one
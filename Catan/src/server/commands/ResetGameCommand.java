@@ -41,6 +41,7 @@ public class ResetGameCommand extends ICommand {
 		newModel.getMap().setHexes(oldModel.getMap().getHexes());
 		newModel.setGameID(oldModel.getGameID());
 		newModel.setWinner(-1);
+		newModel.setRandom(oldModel.getRandom().restart());
 
 		/*
 		 * Save the oldModel's players to the new model, by creating a default
@@ -6,6 +6,7 @@ import server.model.ServerModelController;
 import shared.communication.MoveRobberParams;
 import shared.definitions.ResourceType;
 import shared.locations.HexLocation;
+import shared.model.GameRandom;
 import shared.model.MessageLine;
 import shared.model.Player;
 import shared.model.ResourceList;
@@ -53,9 +54,10 @@ public class RobPlayerCommand extends ICommand {
 			 * a card from the victim and add appropriate resource to the
 			 * player.
 			 */
-			model.getMap().setRobber(this.location);
+			model.moveRobber(this.location);
 
-			ResourceType stolenResource = stealResource(model.getPlayers()[this.victimIndex]);
+			ResourceType stolenResource = stealResource(
+					model.getPlayers()[this.victimIndex], model.getRandom());
 
 			ResourceList playerResources = player.getResources();
 			switch (stolenResource) {
@@ -102,7 +104,7 @@ public class RobPlayerCommand extends ICommand {
 			model.incrementVersion();
 		} else if (victimIndex == -1) {
 			model.getTurnTracker().setStatus("Playing");
-			model.getMap().setRobber(this.location);
+			model.moveRobber(this.location);
 			model.getCommands().add(this);
 			model.incrementVersion();
 
@@ -118,10 +120,10 @@ public class RobPlayerCommand extends ICommand {
 
 	}
 
-	private ResourceType stealResource(Player victimPlayer) {
+	private ResourceType stealResource(Player victimPlayer, GameRandom random) {
 		ResourceList victimResources = victimPlayer.getResources();
 		ResourceType stealResource = victimResources
-				.getRandomResourceFromList();
+				.getRandomResourceFromList(random);
 
 		switch (stealResource) {
 		case BRICK:
@@ -4,10 +4,6 @@ import server.facade.FacadeSwitch;
 import server.model.ServerModel;
 import server.model.ServerModelController;
 import shared.communication.RollParams;
-import shared.definitions.ResourceType;
-import shared.locations.HexLocation;
-import shared.locations.VertexDirection;
-import shared.locations.VertexLocation;
 import shared.model.*;
 import shared.utils.ServerResponseException;
 
@@ -53,12 +49,12 @@ public class RollNumberCommand extends ICommand {
 				}
 			}
 			/*
-			 * If the rolled number is not a seven, then call resourceRoll
-			 * method which will add resources to appropriate players given
-			 * their city and settlement locations.
+			 * If the rolled number is not a seven, then pay out the resources
+			 * the game's payout table lists for the number to the players with
+			 * cities and settlements on its hexes.
 			 */
 			else {
-				resourceRoll(model);
+				model.payOut(this.number);
 				model.getTurnTracker().setStatus("Playing");
 			}
 
@@ -82,79 +78,4 @@ public class RollNumberCommand extends ICommand {
 		}
 	}
 
-	private void resourceRoll(ServerModel model) {
-		/*
-		 * Iterate through map's hexes. If the hex's number matches the inputed
-		 * number, then add resource(s) to the user's who have vertex objects on
-		 * the vertices of the hex.
-		 */
-		for (Hex hex : model.getMap().getHexes()) {
-			if (hex.getNumber() == this.number
-					&& !model.getMap().getRobber().equals(hex.getLocation())) {
-				HexLocation hexLocation = hex.getLocation();
-				ResourceType hexResource = ResourceType.valueOf(hex
-						.getResource().toUpperCase());
-
-				/*
-				 * Create a test location, that will be updated such that it
-				 * correlates to each of the 6 vertex directions. Check if the a
-				 * player has a city or settlement on that vertex.
-				 */
-				VertexObject testLocation = new VertexObject(-1,
-						new VertexLocation(hexLocation,
-								VertexDirection.NorthWest));
-				addResourcesIfObjectExists(testLocation, hexResource, model);
-
-				testLocation.setLocation(new VertexLocation(hexLocation,
-						VertexDirection.NorthEast));
-				addResourcesIfObjectExists(testLocation, hexResource, model);
-
-				testLocation.setLocation(new VertexLocation(hexLocation,
-						VertexDirection.East));
-				addResourcesIfObjectExists(testLocation, hexResource, model);
-
-				testLocation.setLocation(new VertexLocation(hexLocation,
-						VertexDirection.SouthEast));
-				addResourcesIfObjectExists(testLocation, hexResource, model);
-
-				testLocation.setLocation(new VertexLocation(hexLocation,
-						VertexDirection.SouthWest));
-				addResourcesIfObjectExists(testLocation, hexResource, model);
-
-				testLocation.setLocation(new VertexLocation(hexLocation,
-						VertexDirection.West));
-				addResourcesIfObjectExists(testLocation, hexResource, model);
-			}
-		}
-	}
-
-	private void addResourcesIfObjectExists(VertexObject testLocation,
-			ResourceType type, ServerModel model) {
-		ServerModelController controller = new ServerModelController(model);
-		/*
-		 * Check if there exists a city at the testLocation. If there exists a
-		 * city (returns a value other than -1), add 2 of the given resource
-		 * type to the player's hand and remove 2 of the given resource type
-		 * from the bank.
-		 */
-		int cityOwner = controller.cityOwner(testLocation);
-		if (cityOwner != -1) {
-			// add 2 to the map
-			model.addResourceFromBank(cityOwner, type, 2);
-			return;
-		}
-
-		/*
-		 * Check if there exists a settlement at the testLocation. If there
-		 * exists a settlement (returns a value other than -1), add 1 of the
-		 * given resource type to the player's hand and remove 1 of the given
-		 * resource type from the bank.
-		 */
-		int settlementOwner = controller.settlementOwner(testLocation);
-		if (settlementOwner != -1) {
-			model.addResourceFromBank(settlementOwner, type, 1);
-		}
-
-	}
-
 }
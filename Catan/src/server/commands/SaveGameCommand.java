@@ -1,16 +1,14 @@
 package server.commands;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 
 import server.facade.FacadeSwitch;
 import server.model.GameList;
 import server.model.ServerModel;
+import server.model.SnapshotCodec;
 import shared.communication.GameSummary;
 import shared.communication.SaveParams;
-import shared.utils.Serializer;
 import shared.utils.ServerResponseException;
 
 /**
@@ -33,7 +31,7 @@ public class SaveGameCommand extends ICommand {
 
 	/**
 	 * Saves state of the game to a file, which can be used later for debugging
-	 * purposes
+	 * purposes. The file is a binary snapshot, see {@link SnapshotCodec}.
 	 * 
 	 * @throws ServerResponseException
 	 */
@@ -43,24 +41,21 @@ public class SaveGameCommand extends ICommand {
 		model.setGameID(FacadeSwitch.getSingleton().getGameID());
 		int id = model.getGameID();
 		GameSummary summary = GameList.getSingleton().getGameByID(id);
+		if (model.getTitle() == null && summary != null) {
+			model.setTitle(summary.getTitle());
+		}
 		/*
 		 * Grab the model object and save the model to disk for storage.
 		 */
 		try {
 			File dir = new File("./saves");
 			dir.mkdir();
-			File file = new File("./saves/" + fileName + ".txt");
-			if (file.exists()) {
+			File file = new File("./saves/" + fileName + ".snapshot");
+			if (file.exists()
+					|| new File("./saves/" + fileName + ".txt").exists()) {
 				throw new ServerResponseException("File name already exists.");
 			}
-			BufferedWriter writer = new BufferedWriter(new FileWriter(file));
-
-			String jsonModel = Serializer.serialize(model);
-			String jsonSummary = Serializer.serialize(summary);
-			// writer.write(jsonModel);
-			writer.write(jsonModel + "\n" + jsonSummary);
-			writer.close();
-
+			SnapshotCodec.write(model, file);
 		} catch (IOException ex) {
 			ex.printStackTrace();
 			throw new ServerResponseException("Could not save to file saves/"
@@ -9,6 +9,10 @@ public class FacadeSwitch {
 		facade = new MockServerFacade(model);
 	}
 
+	public static void setRealServer() {
+		facade = ServerFacade.getSingleton();
+	}
+
 	public static IServerFacade getSingleton() {
 		if (facade == null) {
 			facade = ServerFacade.getSingleton();
@@ -1,9 +1,11 @@
 package server.facade;
 
-import java.util.HashMap;
+import java.util.Map;
 
+import server.model.ModelSnapshot;
 import server.model.ServerModel;
 import shared.utils.IServer;
+import shared.utils.ServerResponseException;
 
 public interface IServerFacade extends IServer {
 
@@ -17,8 +19,55 @@ public interface IServerFacade extends IServer {
 
 	public void setPlayerID(int playerId);
 
-	public HashMap<Integer, ServerModel> getModelMap();
+	public Map<Integer, ServerModel> getModelMap();
 
 	public void setFirstGame();
 
+	/**
+	 * Like getCurrentGame, but returns the current game's cached JSON instead
+	 * of a ClientModel
+	 * 
+	 * @param version
+	 *            - the version number stored on the client
+	 * @return the snapshot of the current version, or null if the client is
+	 *         already up to date
+	 */
+	public ModelSnapshot getModelSnapshot(int version)
+			throws ServerResponseException;
+
+	/**
+	 * Like getModelSnapshot, but sends a client that is only a few versions
+	 * behind a ModelPatch instead of the whole model
+	 * 
+	 * @param version
+	 *            - the version number stored on the client
+	 * @return a patch or the whole model, or null if the client is already
+	 *         up to date
+	 */
+	public ModelSnapshot getModelPatch(int version)
+			throws ServerResponseException;
+
+	/**
+	 * Returns the JSON of every legal move the player has in the current
+	 * game's current version, cached per version
+	 */
+	public ModelSnapshot getLegalMoves(int playerIndex)
+			throws ServerResponseException;
+
+	/**
+	 * Like getGameList, but returns the list's cached JSON, versioned so
+	 * pollers can tell when it has changed
+	 */
+	public ModelSnapshot getGameListSnapshot() throws ServerResponseException;
+
+	/**
+	 * Registers a listener to run once when the current game's version moves
+	 * past the given one
+	 * 
+	 * @return false, without registering, if it already has
+	 */
+	public boolean addVersionListener(int version, Runnable listener);
+
+	public void removeVersionListener(Runnable listener);
+
 }
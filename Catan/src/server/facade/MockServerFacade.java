@@ -2,7 +2,9 @@ package server.facade;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Map;
 
+import server.model.ModelSnapshot;
 import server.model.ServerModel;
 import shared.communication.AcceptTradeParams;
 import shared.communication.AddAIParams;
@@ -40,6 +42,7 @@ import shared.model.MessageList;
 import shared.model.Player;
 import shared.model.ResourceList;
 import shared.model.TradeOffer;
+import shared.utils.ByteSerializer;
 import shared.utils.Serializer;
 import shared.utils.ServerResponseException;
 import client.model.ClientModel;
@@ -105,6 +108,12 @@ public class MockServerFacade implements IServerFacade {
 		return games;
 	}
 
+	@Override
+	public ModelSnapshot getGameListSnapshot() throws ServerResponseException {
+		return new ModelSnapshot(0,
+				ByteSerializer.serializeToBytes(getGameList()));
+	}
+
 	/**
 	 * Creates a game in the mock server. A canned game summary should be
 	 * generated given the input parameters.
@@ -206,6 +215,38 @@ public class MockServerFacade implements IServerFacade {
 		return serverMockModel.toClientModel();
 	}
 
+	@Override
+	public ModelSnapshot getModelSnapshot(int version)
+			throws ServerResponseException {
+		if (version < 0)
+			return null;
+		return serverMockModel.getSnapshot();
+	}
+
+	@Override
+	public ModelSnapshot getModelPatch(int version)
+			throws ServerResponseException {
+		if (version < 0)
+			return null;
+		return serverMockModel.getPatchSnapshot(version);
+	}
+
+	@Override
+	public ModelSnapshot getLegalMoves(int playerIndex)
+			throws ServerResponseException {
+		return serverMockModel.getLegalMovesSnapshot(playerIndex);
+	}
+
+	@Override
+	public boolean addVersionListener(int version, Runnable listener) {
+		return serverMockModel.addVersionListener(version, listener);
+	}
+
+	@Override
+	public void removeVersionListener(Runnable listener) {
+		serverMockModel.removeVersionListener(listener);
+	}
+
 	/**
 	 * Sets the game back to starting state, which is a canned response (a
 	 * different ClientModel that that given by getCurrentGame method).
@@ -335,7 +376,8 @@ public class MockServerFacade implements IServerFacade {
 			throws ServerResponseException {
 		MessageLine newMessage = new MessageLine(chatMessage.getContent(),
 				"billy");
-		MessageLine[] oldMessages = serverMockModel.getChat().getLines();
+		MessageLine[] oldMessages = serverMockModel.getChat().getLines()
+				.toArray(new MessageLine[0]);
 		int size = oldMessages.length + 1;
 		MessageLine[] newMessages = new MessageLine[size];
 		System.arraycopy(oldMessages, 0, newMessages, 0, size - 1);
@@ -699,7 +741,7 @@ public class MockServerFacade implements IServerFacade {
 	}
 
 	@Override
-	public HashMap<Integer, ServerModel> getModelMap() {
+	public Map<Integer, ServerModel> getModelMap() {
 		// TODO Auto-generated method stub
 		return new HashMap<Integer, ServerModel>();
 	}
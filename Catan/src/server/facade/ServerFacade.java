@@ -1,8 +1,9 @@
 package server.facade;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 import server.commands.AcceptTradeCommand;
@@ -32,9 +33,12 @@ import server.commands.RollNumberCommand;
 import server.commands.SaveGameCommand;
 import server.commands.SendChatCommand;
 import server.model.GameList;
+import server.model.ModelSnapshot;
 import server.model.RegisteredPlayers;
 import server.model.ServerModel;
+import server.persistance.GameEvictor;
 import server.persistance.IPersistance;
+import server.persistance.WriteBehindQueue;
 import shared.communication.AcceptTradeParams;
 import shared.communication.AddAIParams;
 import shared.communication.AddAIResponse;
@@ -69,6 +73,7 @@ import shared.locations.EdgeLocation;
 import shared.locations.HexLocation;
 import shared.locations.VertexDirection;
 import shared.locations.VertexLocation;
+import shared.model.GameRandom;
 import shared.model.Player;
 import shared.utils.Serializer;
 import shared.utils.ServerResponseException;
@@ -77,19 +82,54 @@ import client.model.ClientModel;
 public class ServerFacade implements IServerFacade {
 
 	private static ServerFacade serverFacade = null;
-	private int gameID;
-	private static HashMap<Integer, ServerModel> modelMap = new HashMap<Integer, ServerModel>();
-	private int currentPlayerID; // !!!!!NOT THE INDEX WITHIN THE GAME!!!!!!!
+	/*
+	 * The first game is built from the same JSON on every start and may have
+	 * commands recorded but no snapshot, so it draws from the same seed every
+	 * time too, or replaying them would give different cards and steals
+	 */
+	private static final long FIRST_GAME_SEED = 0;
+	private static ConcurrentHashMap<Integer, ServerModel> modelMap = new ConcurrentHashMap<Integer, ServerModel>();
+	/*
+	 * One lock per game id. Commands for the same game run one at a time,
+	 * commands for different games run in parallel.
+	 */
+	private static ConcurrentHashMap<Integer, Object> gameLocks = new ConcurrentHashMap<Integer, Object>();
+	/*
+	 * The game and player a request is acting on. These are set by the http
+	 * handlers and are scoped to the thread handling the request, so two
+	 * requests for different games never see each other's ids.
+	 */
+	private final ThreadLocal<Integer> gameID = new ThreadLocal<Integer>() {
+		@Override
+		protected Integer initialValue() {
+			return -1;
+		}
+	};
+	private final ThreadLocal<Integer> currentPlayerID = new ThreadLocal<Integer>() {
+		@Override
+		protected Integer initialValue() {
+			return -1;
+		}
+	}; // !!!!!NOT THE INDEX WITHIN THE GAME!!!!!!!
 	private static Logger logger;
-	private IPersistance persistance;
-	private List<ICommand> newCommands;
+	private volatile IPersistance persistance;
+	/*
+	 * Writes commands and snapshots to persistance off the request threads
+	 */
+	private volatile WriteBehindQueue writeBehind;
+	private int writeQueueCapacity = WriteBehindQueue.DEFAULT_CAPACITY;
+	private long flushMillis = WriteBehindQueue.DEFAULT_FLUSH_MILLIS;
 	private int frequency;
+	/*
+	 * Spills idle games to disk and reads them back on their next lookup
+	 */
+	private volatile GameEvictor evictor;
 
 	static {
 		logger = Logger.getLogger("CatanServer");
 	}
 
-	public static ServerFacade getSingleton() {
+	public static synchronized ServerFacade getSingleton() {
 		if (serverFacade == null) {
 			serverFacade = new ServerFacade();
 		}
@@ -130,6 +170,9 @@ public class ServerFacade implements IServerFacade {
 		logger.info("server/facade/ServerFacade - entering Register");
 		ICommand command = new RegisterCommand(credentials);
 		command.execute();
+		if (persistance != null) {
+			persistance.addPlayer(credentials);
+		}
 		logger.info("server/facade/ServerFacade - exiting Register");
 		return true;
 	}
@@ -145,10 +188,15 @@ public class ServerFacade implements IServerFacade {
 		 * Don't want to use a command because the execute() function doesn't
 		 * return anything, and we need some information back
 		 */
-		ArrayList<GameSummary> games = GameList.getSingleton().getGames();
+		List<GameSummary> games = GameList.getSingleton().getGames();
 		return games.toArray(new GameSummary[games.size()]);
 	}
 
+	@Override
+	public ModelSnapshot getGameListSnapshot() throws ServerResponseException {
+		return GameList.getSingleton().getSnapshot();
+	}
+
 	/**
 	 * Creates a new game on the server
 	 * 
@@ -162,14 +210,24 @@ public class ServerFacade implements IServerFacade {
 	public GameInfo createGame(CreateGameParams params)
 			throws ServerResponseException {
 		ICommand command = new CreateGameCommand(params);
-		command.execute();
+		/*
+		 * Game names must stay unique, so creation is serialized on the game
+		 * list rather than on a single game.
+		 */
+		synchronized (GameList.getSingleton()) {
+			command.execute();
+		}
 
-		for (GameSummary summary : GameList.getSingleton().getGames()) {
-			if (summary.getTitle().equals(params.getname())) {
-				return summary.toGameInfo();
+		GameSummary summary = GameList.getSingleton().getGame(params.getname());
+		if (summary == null) {
+			return null;
+		}
+		if (persistance != null) {
+			synchronized (getGameLock(summary.getId())) {
+				persistance.addGame(getGame(summary.getId()));
 			}
 		}
-		return null;
+		return summary.toGameInfo();
 	}
 
 	/**
@@ -184,8 +242,15 @@ public class ServerFacade implements IServerFacade {
 	@Override
 	public String joinGame(JoinGameParams params)
 			throws ServerResponseException {
-		ICommand command = new JoinGameCommand(params, currentPlayerID);
-		command.execute();
+		ICommand command = new JoinGameCommand(params, getPlayerID());
+		try {
+			synchronized (getGameLock(getGameID())) {
+				command.execute();
+				saveCommand(getGameID(), command);
+			}
+		} finally {
+			awaitWriteRoom();
+		}
 		return null;
 	}
 
@@ -199,7 +264,9 @@ public class ServerFacade implements IServerFacade {
 	 */
 	@Override
 	public String saveGame(SaveParams params) throws ServerResponseException {
-		new SaveGameCommand(params).execute();
+		synchronized (getGameLock(getGameID())) {
+			new SaveGameCommand(params).execute();
+		}
 		return null;
 	}
 
@@ -230,10 +297,64 @@ public class ServerFacade implements IServerFacade {
 	@Override
 	public ClientModel getCurrentGame(int version)
 			throws ServerResponseException {
-		if (this.getServerModel().getVersion() != version || version == -1) {
-			return this.getServerModel().toClientModel();
-		} else {
-			return null;
+		synchronized (getGameLock(getGameID())) {
+			if (this.getServerModel().getVersion() != version || version == -1) {
+				return this.getServerModel().toClientModel();
+			} else {
+				return null;
+			}
+		}
+	}
+
+	@Override
+	public ModelSnapshot getModelSnapshot(int version)
+			throws ServerResponseException {
+		synchronized (getGameLock(getGameID())) {
+			if (this.getServerModel().getVersion() != version || version == -1) {
+				return this.getServerModel().getSnapshot();
+			} else {
+				return null;
+			}
+		}
+	}
+
+	@Override
+	public ModelSnapshot getModelPatch(int version)
+			throws ServerResponseException {
+		synchronized (getGameLock(getGameID())) {
+			if (version == -1) {
+				return this.getServerModel().getSnapshot();
+			} else if (this.getServerModel().getVersion() != version) {
+				return this.getServerModel().getPatchSnapshot(version);
+			} else {
+				return null;
+			}
+		}
+	}
+
+	@Override
+	public ModelSnapshot getLegalMoves(int playerIndex)
+			throws ServerResponseException {
+		synchronized (getGameLock(getGameID())) {
+			ServerModel model = this.getServerModel();
+			if (model == null) {
+				throw new ServerResponseException("No such game");
+			}
+			return model.getLegalMovesSnapshot(playerIndex);
+		}
+	}
+
+	@Override
+	public boolean addVersionListener(int version, Runnable listener) {
+		synchronized (getGameLock(getGameID())) {
+			return this.getServerModel().addVersionListener(version, listener);
+		}
+	}
+
+	@Override
+	public void removeVersionListener(Runnable listener) {
+		synchronized (getGameLock(getGameID())) {
+			this.getServerModel().removeVersionListener(listener);
 		}
 	}
 
@@ -246,8 +367,7 @@ public class ServerFacade implements IServerFacade {
 	 */
 	@Override
 	public ClientModel resetGame() throws ServerResponseException {
-		new ResetGameCommand().execute();
-		return this.getServerModel().toClientModel();
+		return this.executeOnGame(new ResetGameCommand());
 	}
 
 	/**
@@ -259,8 +379,10 @@ public class ServerFacade implements IServerFacade {
 	public CommandList getCommands() throws ServerResponseException {
 		List<String> commandList = new ArrayList<String>();
 
-		for (ICommand command : this.getServerModel().getCommands()) {
-			commandList.add(command.toJSONString());
+		synchronized (getGameLock(getGameID())) {
+			for (ICommand command : this.getServerModel().getCommands()) {
+				commandList.add(command.toJSONString());
+			}
 		}
 
 		return new CommandList(commandList);
@@ -276,12 +398,24 @@ public class ServerFacade implements IServerFacade {
 	@Override
 	public ClientModel setCommands(CommandList commands)
 			throws ServerResponseException {
-		for (String commandJSONString : commands.getCommands()) {
-			ICommand command = ICommand.fromJSONString(commandJSONString);
-			command.execute();
+		try {
+			synchronized (getGameLock(getGameID())) {
+				for (String commandJSONString : commands.getCommands()) {
+					ICommand command = ICommand
+							.fromJSONString(commandJSONString);
+					if (command == null) {
+						throw new ServerResponseException(
+								"Unknown command - " + commandJSONString);
+					}
+					command.execute();
+					saveCommand(getGameID(), command);
+				}
+
+				return this.getServerModel().toClientModel();
+			}
+		} finally {
+			awaitWriteRoom();
 		}
-
-		return this.getServerModel().toClientModel();
 	}
 
 	/**
@@ -336,7 +470,9 @@ public class ServerFacade implements IServerFacade {
 	@Override
 	public ClientModel updateModel(int versionNumber)
 			throws ServerResponseException {
-		return this.getServerModel().toClientModel();
+		synchronized (getGameLock(getGameID())) {
+			return this.getServerModel().toClientModel();
+		}
 	}
 
 	/**
@@ -351,9 +487,7 @@ public class ServerFacade implements IServerFacade {
 			throws ServerResponseException {
 
 		ICommand command = new SendChatCommand(chatMessage);
-		command.execute();
-
-		return this.getServerModel().toClientModel();
+		return this.executeOnGame(command);
 	}
 
 	/**
@@ -369,9 +503,7 @@ public class ServerFacade implements IServerFacade {
 			throws ServerResponseException {
 
 		ICommand command = new AcceptTradeCommand(params);
-		command.execute();
-
-		return this.getServerModel().toClientModel();
+		return this.executeOnGame(command);
 	}
 
 	/**
@@ -386,9 +518,7 @@ public class ServerFacade implements IServerFacade {
 			throws ServerResponseException {
 
 		ICommand command = new DiscardCardsCommand(params);
-		command.execute();
-
-		return this.getServerModel().toClientModel();
+		return this.executeOnGame(command);
 	}
 
 	/**
@@ -403,9 +533,7 @@ public class ServerFacade implements IServerFacade {
 
 		ICommand command = new RollNumberCommand(new RollParams(
 				getPlayerIndex(), number));
-		command.execute();
-
-		return this.getServerModel().toClientModel();
+		return this.executeOnGame(command);
 	}
 
 	/**
@@ -420,9 +548,7 @@ public class ServerFacade implements IServerFacade {
 			throws ServerResponseException {
 
 		ICommand command = new BuildRoadCommand(params);
-		command.execute();
-
-		return this.getServerModel().toClientModel();
+		return this.executeOnGame(command);
 	}
 
 	/**
@@ -437,9 +563,7 @@ public class ServerFacade implements IServerFacade {
 			throws ServerResponseException {
 
 		ICommand command = new BuildSettlementCommand(params);
-		command.execute();
-
-		return this.getServerModel().toClientModel();
+		return this.executeOnGame(command);
 	}
 
 	/**
@@ -454,9 +578,7 @@ public class ServerFacade implements IServerFacade {
 			throws ServerResponseException {
 
 		ICommand command = new BuildCityCommand(params);
-		command.execute();
-
-		return this.getServerModel().toClientModel();
+		return this.executeOnGame(command);
 	}
 
 	/**
@@ -471,9 +593,7 @@ public class ServerFacade implements IServerFacade {
 			throws ServerResponseException {
 
 		ICommand command = new OfferTradeCommand(params);
-		command.execute();
-
-		return this.getServerModel().toClientModel();
+		return this.executeOnGame(command);
 	}
 
 	/**
@@ -489,9 +609,7 @@ public class ServerFacade implements IServerFacade {
 			throws ServerResponseException {
 
 		ICommand command = new MaritimeTradeCommand(params, getGameID());
-		command.execute();
-
-		return this.getServerModel().toClientModel();
+		return this.executeOnGame(command);
 	}
 
 	/**
@@ -507,9 +625,7 @@ public class ServerFacade implements IServerFacade {
 			throws ServerResponseException {
 
 		ICommand command = new RobPlayerCommand(params);
-		command.execute();
-
-		return this.getServerModel().toClientModel();
+		return this.executeOnGame(command);
 	}
 
 	/**
@@ -524,9 +640,7 @@ public class ServerFacade implements IServerFacade {
 			throws ServerResponseException {
 
 		ICommand command = new FinishTurnCommand(params, getGameID());
-		command.execute();
-
-		return this.getServerModel().toClientModel();
+		return this.executeOnGame(command);
 	}
 
 	/**
@@ -541,9 +655,7 @@ public class ServerFacade implements IServerFacade {
 			throws ServerResponseException {
 
 		ICommand command = new BuyDevCardCommand(params);
-		command.execute();
-
-		return this.getServerModel().toClientModel();
+		return this.executeOnGame(command);
 	}
 
 	/**
@@ -559,9 +671,7 @@ public class ServerFacade implements IServerFacade {
 			throws ServerResponseException {
 
 		ICommand command = new PlaySoldierCommand(params);
-		command.execute();
-
-		return this.getServerModel().toClientModel();
+		return this.executeOnGame(command);
 	}
 
 	/**
@@ -576,9 +686,7 @@ public class ServerFacade implements IServerFacade {
 			throws ServerResponseException {
 
 		ICommand command = new PlayYearOfPlentyCommand(params);
-		command.execute();
-
-		return this.getServerModel().toClientModel();
+		return this.executeOnGame(command);
 	}
 
 	/**
@@ -594,9 +702,7 @@ public class ServerFacade implements IServerFacade {
 			throws ServerResponseException {
 
 		ICommand command = new PlayRoadBuildingCommand(params);
-		command.execute();
-
-		return this.getServerModel().toClientModel();
+		return this.executeOnGame(command);
 	}
 
 	/**
@@ -612,9 +718,7 @@ public class ServerFacade implements IServerFacade {
 			throws ServerResponseException {
 
 		ICommand command = new PlayMonopolyCommand(params);
-		command.execute();
-
-		return this.getServerModel().toClientModel();
+		return this.executeOnGame(command);
 	}
 
 	/**
@@ -629,29 +733,89 @@ public class ServerFacade implements IServerFacade {
 			throws ServerResponseException {
 
 		ICommand command = new PlayMonumentCommand(params);
-		command.execute();
+		return this.executeOnGame(command);
+	}
+
+	/**
+	 * Executes a move command against the current game while holding that
+	 * game's lock
+	 * 
+	 * @param command
+	 *            - the command to execute
+	 * @return an updated ClientModel
+	 */
+	private ClientModel executeOnGame(ICommand command)
+			throws ServerResponseException {
+		try {
+			synchronized (getGameLock(getGameID())) {
+				command.execute();
+				saveCommand(getGameID(), command);
+				return this.getServerModel().toClientModel();
+			}
+		} finally {
+			awaitWriteRoom();
+		}
+	}
 
-		return this.getServerModel().toClientModel();
+	/**
+	 * Returns the lock guarding the given game, creating it if needed
+	 * 
+	 * @param gameID
+	 *            - the id of the game
+	 * @return the monitor all commands for that game synchronize on
+	 */
+	public static Object getGameLock(int gameID) {
+		Object lock = gameLocks.get(gameID);
+		if (lock == null) {
+			Object newLock = new Object();
+			lock = gameLocks.putIfAbsent(gameID, newLock);
+			if (lock == null) {
+				lock = newLock;
+			}
+		}
+		return lock;
 	}
 
 	public int getGameID() {
-		return gameID;
+		return gameID.get();
 	}
 
 	public void setGameID(int gameID) {
-		this.gameID = gameID;
+		this.gameID.set(gameID);
 	}
 
 	public ServerModel getServerModel() {
-		return modelMap.get(gameID);
+		return getGame(getGameID());
+	}
+
+	/**
+	 * Looks up a game, reading it back from disk if it was spilled for being
+	 * idle
+	 * 
+	 * @return the game, or null if there is no game with that id
+	 */
+	public ServerModel getGame(int gameID) {
+		ServerModel model = modelMap.get(gameID);
+		GameEvictor evictor = this.evictor;
+		if (evictor != null) {
+			if (model != null) {
+				evictor.recordHit();
+			} else {
+				model = evictor.reload(gameID);
+			}
+		}
+		if (model != null) {
+			model.touch();
+		}
+		return model;
 	}
 
 	public int getPlayerID() {
-		return currentPlayerID;
+		return currentPlayerID.get();
 	}
 
 	public void setPlayerID(int playerId) {
-		this.currentPlayerID = playerId;
+		this.currentPlayerID.set(playerId);
 	}
 
 	public void setFirstGame() {
@@ -659,6 +823,7 @@ public class ServerFacade implements IServerFacade {
 		ServerModel serverModel = Serializer
 				.deserializeServerModel("{\"deck\":{\"yearOfPlenty\":2,\"monopoly\":2,\"soldier\":14,\"roadBuilding\":2,\"monument\":5},\"map\":{\"hexes\":[{\"location\":{\"x\":0,\"y\":-2}},{\"resource\":\"brick\",\"location\":{\"x\":1,\"y\":-2},\"number\":4},{\"resource\":\"wood\",\"location\":{\"x\":2,\"y\":-2},\"number\":11},{\"resource\":\"brick\",\"location\":{\"x\":-1,\"y\":-1},\"number\":8},{\"resource\":\"wood\",\"location\":{\"x\":0,\"y\":-1},\"number\":3},{\"resource\":\"ore\",\"location\":{\"x\":1,\"y\":-1},\"number\":9},{\"resource\":\"sheep\",\"location\":{\"x\":2,\"y\":-1},\"number\":12},{\"resource\":\"ore\",\"location\":{\"x\":-2,\"y\":0},\"number\":5},{\"resource\":\"sheep\",\"location\":{\"x\":-1,\"y\":0},\"number\":10},{\"resource\":\"wheat\",\"location\":{\"x\":0,\"y\":0},\"number\":11},{\"resource\":\"brick\",\"location\":{\"x\":1,\"y\":0},\"number\":5},{\"resource\":\"wheat\",\"location\":{\"x\":2,\"y\":0},\"number\":6},{\"resource\":\"wheat\",\"location\":{\"x\":-2,\"y\":1},\"number\":2},{\"resource\":\"sheep\",\"location\":{\"x\":-1,\"y\":1},\"number\":9},{\"resource\":\"wood\",\"location\":{\"x\":0,\"y\":1},\"number\":4},{\"resource\":\"sheep\",\"location\":{\"x\":1,\"y\":1},\"number\":10},{\"resource\":\"wood\",\"location\":{\"x\":-2,\"y\":2},\"number\":6},{\"resource\":\"ore\",\"location\":{\"x\":-1,\"y\":2},\"number\":3},{\"resource\":\"wheat\",\"location\":{\"x\":0,\"y\":2},\"number\":8}],\"roads\":[{\"owner\":1,\"location\":{\"direction\":\"S\",\"x\":-1,\"y\":-1}},{\"owner\":3,\"location\":{\"direction\":\"SW\",\"x\":-1,\"y\":1}},{\"owner\":3,\"location\":{\"direction\":\"SW\",\"x\":2,\"y\":-2}},{\"owner\":2,\"location\":{\"direction\":\"S\",\"x\":1,\"y\":-1}},{\"owner\":0,\"location\":{\"direction\":\"S\",\"x\":0,\"y\":1}},{\"owner\":2,\"location\":{\"direction\":\"S\",\"x\":0,\"y\":0}},{\"owner\":1,\"location\":{\"direction\":\"SW\",\"x\":-2,\"y\":1}},{\"owner\":0,\"location\":{\"direction\":\"SW\",\"x\":2,\"y\":0}}],\"cities\":[],\"settlements\":[{\"owner\":3,\"location\":{\"direction\":\"SW\",\"x\":-1,\"y\":1}},{\"owner\":3,\"location\":{\"direction\":\"SE\",\"x\":1,\"y\":-2}},{\"owner\":2,\"location\":{\"direction\":\"SW\",\"x\":0,\"y\":0}},{\"owner\":2,\"location\":{\"direction\":\"SW\",\"x\":1,\"y\":-1}},{\"owner\":1,\"location\":{\"direction\":\"SW\",\"x\":-2,\"y\":1}},{\"owner\":0,\"location\":{\"direction\":\"SE\",\"x\":0,\"y\":1}},{\"owner\":1,\"location\":{\"direction\":\"SW\",\"x\":-1,\"y\":-1}},{\"owner\":0,\"location\":{\"direction\":\"SW\",\"x\":2,\"y\":0}}],\"radius\":3,\"ports\":[{\"ratio\":3,\"direction\":\"SE\",\"location\":{\"x\":-3,\"y\":0}},{\"ratio\":2,\"resource\":\"brick\",\"direction\":\"NE\",\"location\":{\"x\":-2,\"y\":3}},{\"ratio\":2,\"resource\":\"wood\",\"direction\":\"NE\",\"location\":{\"x\":-3,\"y\":2}},{\"ratio\":2,\"resource\":\"wheat\",\"direction\":\"S\",\"location\":{\"x\":-1,\"y\":-2}},{\"ratio\":3,\"direction\":\"N\",\"location\":{\"x\":0,\"y\":3}},{\"ratio\":2,\"resource\":\"sheep\",\"direction\":\"NW\",\"location\":{\"x\":3,\"y\":-1}},{\"ratio\":3,\"direction\":\"SW\",\"location\":{\"x\":3,\"y\":-3}},{\"ratio\":2,\"resource\":\"ore\",\"direction\":\"S\",\"location\":{\"x\":1,\"y\":-3}},{\"ratio\":3,\"direction\":\"NW\",\"location\":{\"x\":2,\"y\":1}}],\"robber\":{\"x\":0,\"y\":-2}},\"players\":[{\"resources\":{\"brick\":0,\"wood\":1,\"sheep\":1,\"wheat\":1,\"ore\":0},\"oldDevCards\":{\"yearOfPlenty\":0,\"monopoly\":0,\"soldier\":0,\"roadBuilding\":0,\"monument\":0},\"newDevCards\":{\"yearOfPlenty\":0,\"monopoly\":0,\"soldier\":0,\"roadBuilding\":0,\"monument\":0},\"roads\":13,\"cities\":4,\"settlements\":3,\"soldiers\":0,\"victoryPoints\":2,\"monuments\":0,\"playedDevCard\":false,\"discarded\":false,\"playerID\":0,\"playerIndex\":0,\"name\":\"Sam\",\"color\":\"orange\"},{\"resources\":{\"brick\":0,\"wood\":1,\"sheep\":0,\"wheat\":1,\"ore\":0},\"oldDevCards\":{\"yearOfPlenty\":0,\"monopoly\":0,\"soldier\":0,\"roadBuilding\":0,\"monument\":0},\"newDevCards\":{\"yearOfPlenty\":0,\"monopoly\":0,\"soldier\":0,\"roadBuilding\":0,\"monument\":0},\"roads\":13,\"cities\":4,\"settlements\":3,\"soldiers\":0,\"victoryPoints\":2,\"monuments\":0,\"playedDevCard\":false,\"discarded\":false,\"playerID\":1,\"playerIndex\":1,\"name\":\"Brooke\",\"color\":\"blue\"},{\"resources\":{\"brick\":0,\"wood\":1,\"sheep\":1,\"wheat\":1,\"ore\":0},\"oldDevCards\":{\"yearOfPlenty\":0,\"monopoly\":0,\"soldier\":0,\"roadBuilding\":0,\"monument\":0},\"newDevCards\":{\"yearOfPlenty\":0,\"monopoly\":0,\"soldier\":0,\"roadBuilding\":0,\"monument\":0},\"roads\":13,\"cities\":4,\"settlements\":3,\"soldiers\":0,\"victoryPoints\":2,\"monuments\":0,\"playedDevCard\":false,\"discarded\":false,\"playerID\":10,\"playerIndex\":2,\"name\":\"Pete\",\"color\":\"red\"},{\"resources\":{\"brick\":1,\"wood\":1,\"sheep\":0,\"wheat\":1,\"ore\":0},\"oldDevCards\":{\"yearOfPlenty\":0,\"monopoly\":0,\"soldier\":0,\"roadBuilding\":0,\"monument\":0},\"newDevCards\":{\"yearOfPlenty\":0,\"monopoly\":0,\"soldier\":0,\"roadBuilding\":0,\"monument\":0},\"roads\":13,\"cities\":4,\"settlements\":3,\"soldiers\":0,\"victoryPoints\":2,\"monuments\":0,\"playedDevCard\":false,\"discarded\":false,\"playerID\":11,\"playerIndex\":3,\"name\":\"Mark\",\"color\":\"green\"}],\"log\":{\"lines\":[{\"source\":\"Sam\",\"message\":\"Sam built a road\"},{\"source\":\"Sam\",\"message\":\"Sam built a settlement\"},{\"source\":\"Sam\",\"message\":\"Sam\u0027s turn just ended\"},{\"source\":\"Brooke\",\"message\":\"Brooke built a road\"},{\"source\":\"Brooke\",\"message\":\"Brooke built a settlement\"},{\"source\":\"Brooke\",\"message\":\"Brooke\u0027s turn just ended\"},{\"source\":\"Pete\",\"message\":\"Pete built a road\"},{\"source\":\"Pete\",\"message\":\"Pete built a settlement\"},{\"source\":\"Pete\",\"message\":\"Pete\u0027s turn just ended\"},{\"source\":\"Mark\",\"message\":\"Mark built a road\"},{\"source\":\"Mark\",\"message\":\"Mark built a settlement\"},{\"source\":\"Mark\",\"message\":\"Mark\u0027s turn just ended\"},{\"source\":\"Mark\",\"message\":\"Mark built a road\"},{\"source\":\"Mark\",\"message\":\"Mark built a settlement\"},{\"source\":\"Mark\",\"message\":\"Mark\u0027s turn just ended\"},{\"source\":\"Pete\",\"message\":\"Pete built a road\"},{\"source\":\"Pete\",\"message\":\"Pete built a settlement\"},{\"source\":\"Pete\",\"message\":\"Pete\u0027s turn just ended\"},{\"source\":\"Brooke\",\"message\":\"Brooke built a road\"},{\"source\":\"Brooke\",\"message\":\"Brooke built a settlement\"},{\"source\":\"Brooke\",\"message\":\"Brooke\u0027s turn just ended\"},{\"source\":\"Sam\",\"message\":\"Sam built a road\"},{\"source\":\"Sam\",\"message\":\"Sam built a settlement\"},{\"source\":\"Sam\",\"message\":\"Sam\u0027s turn just ended\"}]},\"chat\":{\"lines\":[]},\"bank\":{\"brick\":23,\"wood\":21,\"sheep\":20,\"wheat\":22,\"ore\":22},\"turnTracker\":{\"status\":\"Rolling\",\"currentTurn\":0,\"longestRoad\":-1,\"largestArmy\":-1},\"winner\":-1,\"version\":0}");
 
+		serverModel.setRandom(new GameRandom(FIRST_GAME_SEED));
 		this.setFirstGameCommands(serverModel);
 
 		modelMap.put(0, serverModel);
@@ -692,49 +857,41 @@ public class ServerFacade implements IServerFacade {
 		 */
 		EdgeLocation location_1 = new EdgeLocation(new HexLocation(-1, -1),
 				EdgeDirection.South);
-		location_1.convertToPrimitives();
 		commandList.add(new BuildRoadCommand(new BuildRoadParams(1, location_1,
 				true)));
 
 		EdgeLocation location_2 = new EdgeLocation(new HexLocation(-1, 1),
 				EdgeDirection.SouthWest);
-		location_2.convertToPrimitives();
 		commandList.add(new BuildRoadCommand(new BuildRoadParams(3, location_2,
 				true)));
 
 		EdgeLocation location_3 = new EdgeLocation(new HexLocation(2, -2),
 				EdgeDirection.SouthWest);
-		location_3.convertToPrimitives();
 		commandList.add(new BuildRoadCommand(new BuildRoadParams(3, location_3,
 				true)));
 
 		EdgeLocation location_4 = new EdgeLocation(new HexLocation(1, -1),
 				EdgeDirection.South);
-		location_4.convertToPrimitives();
 		commandList.add(new BuildRoadCommand(new BuildRoadParams(2, location_4,
 				true)));
 
 		EdgeLocation location_5 = new EdgeLocation(new HexLocation(0, 1),
 				EdgeDirection.South);
-		location_5.convertToPrimitives();
 		commandList.add(new BuildRoadCommand(new BuildRoadParams(0, location_5,
 				true)));
 
 		EdgeLocation location_6 = new EdgeLocation(new HexLocation(0, 0),
 				EdgeDirection.South);
-		location_6.convertToPrimitives();
 		commandList.add(new BuildRoadCommand(new BuildRoadParams(2, location_6,
 				true)));
 
 		EdgeLocation location_7 = new EdgeLocation(new HexLocation(-2, 1),
 				EdgeDirection.SouthWest);
-		location_7.convertToPrimitives();
 		commandList.add(new BuildRoadCommand(new BuildRoadParams(1, location_7,
 				true)));
 
 		EdgeLocation location_8 = new EdgeLocation(new HexLocation(2, 0),
 				EdgeDirection.SouthWest);
-		location_8.convertToPrimitives();
 		commandList.add(new BuildRoadCommand(new BuildRoadParams(0, location_8,
 				true)));
 
@@ -743,54 +900,46 @@ public class ServerFacade implements IServerFacade {
 		 */
 		VertexLocation location_9 = new VertexLocation(new HexLocation(-1, 1),
 				VertexDirection.SouthWest);
-		location_9.convertToPrimitives();
 		commandList.add(new BuildSettlementCommand(new BuildSettlementParams(3,
 				location_9, true)));
 
 		VertexLocation location_10 = new VertexLocation(new HexLocation(1, -2),
 				VertexDirection.SouthEast);
-		location_10.convertToPrimitives();
 		commandList.add(new BuildSettlementCommand(new BuildSettlementParams(3,
 				location_10, true)));
 
 		VertexLocation location_11 = new VertexLocation(new HexLocation(0, 0),
 				VertexDirection.SouthWest);
-		location_11.convertToPrimitives();
 		commandList.add(new BuildSettlementCommand(new BuildSettlementParams(2,
 				location_11, true)));
 
 		VertexLocation location_12 = new VertexLocation(new HexLocation(1, -1),
 				VertexDirection.SouthWest);
-		location_12.convertToPrimitives();
 		commandList.add(new BuildSettlementCommand(new BuildSettlementParams(2,
 				location_12, true)));
 
 		VertexLocation location_13 = new VertexLocation(new HexLocation(-2, 1),
 				VertexDirection.SouthWest);
-		location_13.convertToPrimitives();
 		commandList.add(new BuildSettlementCommand(new BuildSettlementParams(1,
 				location_13, true)));
 
 		VertexLocation location_14 = new VertexLocation(new HexLocation(0, 1),
 				VertexDirection.SouthEast);
-		location_14.convertToPrimitives();
 		commandList.add(new BuildSettlementCommand(new BuildSettlementParams(0,
 				location_14, true)));
 
 		VertexLocation location_15 = new VertexLocation(
 				new HexLocation(-1, -1), VertexDirection.SouthWest);
-		location_15.convertToPrimitives();
 		commandList.add(new BuildSettlementCommand(new BuildSettlementParams(1,
 				location_15, true)));
 
 		VertexLocation location_16 = new VertexLocation(new HexLocation(2, 0),
 				VertexDirection.SouthWest);
-		location_16.convertToPrimitives();
 		commandList.add(new BuildSettlementCommand(new BuildSettlementParams(0,
 				location_16, true)));
 	}
 
-	public HashMap<Integer, ServerModel> getModelMap() {
+	public Map<Integer, ServerModel> getModelMap() {
 		return modelMap;
 	}
 
@@ -822,16 +971,109 @@ public class ServerFacade implements IServerFacade {
 		return persistance;
 	}
 
+	/**
+	 * Switches persistance, first writing everything still queued for the
+	 * old one
+	 */
 	public void setPersistance(IPersistance persistance) {
+		WriteBehindQueue old = this.writeBehind;
+		if (old != null) {
+			try {
+				old.close();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
 		this.persistance = persistance;
+		this.writeBehind = persistance == null ? null : new WriteBehindQueue(
+				persistance, writeQueueCapacity, frequency, flushMillis);
+	}
+
+	/**
+	 * @return what spills idle games, or null when games are never spilled
+	 */
+	public GameEvictor getEvictor() {
+		return evictor;
 	}
 
-	@SuppressWarnings("unused")
-	private void saveCommand(ICommand command) {
-		if (this.newCommands.size() > frequency) {
-			this.persistance.saveGames(null, null);
+	/**
+	 * Switches what spills idle games, first stopping the old one and reading
+	 * back every game it spilled
+	 * 
+	 * @param evictor
+	 *            - started by the caller, or null to keep every game in memory
+	 */
+	public void setEvictor(GameEvictor evictor) {
+		GameEvictor old = this.evictor;
+		if (old != null) {
+			try {
+				old.close();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		this.evictor = evictor;
+		if (old != null) {
+			old.reloadAll();
+		}
+	}
+
+	/**
+	 * @return the queue writing to persistance, or null when there is none
+	 */
+	public WriteBehindQueue getWriteBehind() {
+		return writeBehind;
+	}
+
+	/**
+	 * Sets how the queue made by the next setPersistance behaves
+	 * 
+	 * @param capacity
+	 *            - commands allowed to wait before moves have to wait too
+	 * @param flushMillis
+	 *            - longest a game with new commands goes without a snapshot
+	 */
+	public void setWriteBehind(int capacity, long flushMillis) {
+		this.writeQueueCapacity = capacity;
+		this.flushMillis = flushMillis;
+	}
+
+	/**
+	 * Waits until every command run so far has been written to persistance
+	 */
+	public void flushPersistance() throws InterruptedException {
+		WriteBehindQueue writeBehind = this.writeBehind;
+		if (writeBehind != null) {
+			writeBehind.flush();
+		}
+	}
+
+	/**
+	 * Queues a command that just ran on a game for persistance, which also
+	 * snapshots the game every frequency commands. Call while holding the
+	 * game's lock.
+	 */
+	private void saveCommand(int gameID, ICommand command) {
+		WriteBehindQueue writeBehind = this.writeBehind;
+		if (writeBehind != null) {
+			writeBehind.add(gameID, command);
+		}
+	}
+
+	/**
+	 * Holds a move back while persistance is too far behind. Called after the
+	 * game's lock is given up, since the writer needs it for snapshots.
+	 */
+	private void awaitWriteRoom() {
+		WriteBehindQueue writeBehind = this.writeBehind;
+		if (writeBehind == null) {
+			return;
+		}
+		try {
+			writeBehind.awaitRoom();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
-		this.newCommands.add(command);
 	}
 
 	public int getFrequency() {
@@ -840,6 +1082,10 @@ public class ServerFacade implements IServerFacade {
 
 	public void setFrequency(int numberOfCommandsBeforeSave) {
 		this.frequency = numberOfCommandsBeforeSave;
+		WriteBehindQueue writeBehind = this.writeBehind;
+		if (writeBehind != null) {
+			writeBehind.setFrequency(numberOfCommandsBeforeSave);
+		}
 	}
 
 }
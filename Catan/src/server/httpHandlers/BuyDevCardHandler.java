@@ -37,6 +37,7 @@ public class BuyDevCardHandler implements IHttpHandler {
 				UserActionParams buyDevelopmentCard = (UserActionParams) Serializer
 						.deserialize(inputStreamString, UserActionParams.class);
 
+				FacadeSwitch.getSingleton().setGameID(gameID);
 				ClientModel model = FacadeSwitch.getSingleton().buyDevCard(
 						buyDevelopmentCard);
 				HandlerUtil.sendResponse(exchange, 200, model,
@@ -2,101 +2,142 @@ package server.httpHandlers;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
-import java.net.URLDecoder;
+import java.io.Writer;
 import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
 
+import server.model.ModelSnapshot;
 import server.model.RegisteredPlayers;
+import server.model.SessionTable;
 import shared.communication.UserCredentials;
 import shared.utils.ServerResponseException;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
 
 public class HandlerUtil {
+	/*
+	 * Gson is thread safe, so every handler shares one instance.
+	 */
+	private static final Gson gson = new Gson();
+	private static final ThreadLocal<ResponseBuffer> responseBuffers = new ThreadLocal<ResponseBuffer>() {
+		@Override
+		protected ResponseBuffer initialValue() {
+			return new ResponseBuffer();
+		}
+	};
 
+	/**
+	 * @return the game the request is for: the game the session's player
+	 *         joined, otherwise the catan.game cookie, otherwise -1
+	 */
 	public static int getGameID(HttpExchange exchange) {
 		Headers reqHeaders = exchange.getRequestHeaders();
-		List<String> cookies = new ArrayList<>();
-		if (reqHeaders.containsKey("Cookie")) {
-			cookies = reqHeaders.get("Cookie");
+		SessionTable.Session session = getSession(reqHeaders);
+		if (session != null && session.getGameID() >= 0) {
+			return session.getGameID();
 		}
-		int gameID = -1;
-		for (String cookie : cookies) {
+		String game = getCookie(reqHeaders, "catan.game");
+		if (game == null) {
+			return -1;
+		}
+		try {
+			return Integer.parseInt(game.trim());
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
 
-			boolean foundGame = false;
-			String[] splitArray = cookie.split(";", -1);
-			for (String subCook : splitArray) {
-				if (subCook.contains("game")) {
-					cookie = subCook;
-					foundGame = true;
-					break;
-				}
-			}
-			if (!foundGame) {
-				return gameID;
-			}
+	/**
+	 * @return the player the request's session belongs to, or -1 if it has no
+	 *         session
+	 */
+	public static int getPlayerID(HttpExchange exchange) {
+		SessionTable.Session session = getSession(exchange
+				.getRequestHeaders());
+		return session == null ? -1 : session.getPlayerID();
+	}
 
-			try {
-				cookie = URLDecoder.decode(cookie, "UTF-8");
-			} catch (UnsupportedEncodingException e) {
-				e.printStackTrace();
-			} catch (Exception e) {
-				e.printStackTrace();
-			}
+	/**
+	 * @return the session named by the request's catan.session cookie, or
+	 *         null if it has none or the token is unknown
+	 */
+	public static SessionTable.Session getSession(HttpExchange exchange) {
+		return getSession(exchange.getRequestHeaders());
+	}
 
-			String[] cookieParts = cookie.split("=");
-			gameID = Integer.valueOf(cookieParts[1]);
-			return gameID;
-		}
-		// if there is no game cookie return -1
-		// otherwise return the gameID
-		return gameID;
+	public static SessionTable.Session getSession(Headers reqHeaders) {
+		return SessionTable.getSingleton().get(
+				getCookie(reqHeaders, SessionTable.COOKIE));
 	}
 
-	public static int getPlayerID(HttpExchange exchange) {
-		Headers reqHeaders = exchange.getRequestHeaders();
-		List<String> cookies = new ArrayList<>();
-		if (reqHeaders.containsKey("Cookie")) {
-			cookies = reqHeaders.get("Cookie");
+	/**
+	 * Finds a cookie in the Cookie headers without splitting or decoding them
+	 *
+	 * @return the cookie's raw value, or null if the request does not have it
+	 */
+	public static String getCookie(Headers reqHeaders, String name) {
+		List<String> cookies = reqHeaders.get("Cookie");
+		if (cookies == null) {
+			return null;
 		}
-		int playerID = -1;
 		for (String cookie : cookies) {
-			JsonParser parser = new JsonParser();
-
-			boolean foundPassword = false;
-			String[] splitArray = cookie.split(";", -1);
-			for (String subCook : splitArray) {
-				if (subCook.contains("password")) {
-					cookie = subCook;
-					foundPassword = true;
-					break;
+			int from = 0;
+			int at;
+			while ((at = cookie.indexOf(name, from)) >= 0) {
+				int valueAt = at + name.length();
+				from = valueAt;
+				if (valueAt < cookie.length()
+						&& cookie.charAt(valueAt) == '='
+						&& (at == 0 || cookie.charAt(at - 1) == ' ' || cookie
+								.charAt(at - 1) == ';')) {
+					int end = cookie.indexOf(';', valueAt);
+					return cookie.substring(valueAt + 1,
+							end < 0 ? cookie.length() : end);
 				}
 			}
-			if (!foundPassword) {
-				return playerID;
-			}
+		}
+		return null;
+	}
 
-			try {
-				cookie = URLDecoder.decode(cookie, "UTF-8");
-			} catch (UnsupportedEncodingException e) {
-				e.printStackTrace();
+	/**
+	 * @return the value of the named query parameter, or null if the request
+	 *         does not have it
+	 */
+	public static String getQueryParameter(HttpExchange exchange, String name) {
+		String query = exchange.getRequestURI().getQuery();
+		if (query == null) {
+			return null;
+		}
+		for (String parameter : query.split("&")) {
+			String[] pair = parameter.split("=", 2);
+			if (pair[0].equals(name)) {
+				return pair.length > 1 ? pair[1] : "";
 			}
-			cookie = cookie.replace("catan.user=", "");
+		}
+		return null;
+	}
 
-			JsonObject jsonObject = (JsonObject) parser.parse(cookie);
-			JsonElement gameIDElement = jsonObject.get("playerID");
-			playerID = gameIDElement.getAsInt();
+	/**
+	 * @return the named query parameter as a number, or defaultValue if the
+	 *         request does not have it
+	 * @throws ServerResponseException
+	 *             if the parameter is not a number
+	 */
+	public static int getIntParameter(HttpExchange exchange, String name,
+			int defaultValue) throws ServerResponseException {
+		String value = getQueryParameter(exchange, name);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new ServerResponseException("Invalid " + name + ": " + value);
 		}
-		// if there is no game cookie return -1
-		// otherwise return the gameID
-		return playerID;
 	}
 
 	@SuppressWarnings("resource")
@@ -117,24 +158,112 @@ public class HandlerUtil {
 	@SuppressWarnings("rawtypes")
 	public static void sendResponse(HttpExchange exchange, int httpCode,
 			Object message, Class classType) {
-		Gson gson = new Gson();
 		try {
 			exchange.getResponseHeaders().add("Content-Type",
 					"application/json");
-			exchange.sendResponseHeaders(httpCode, 0);
-			if (message != null) {
-				String jsonString = gson.toJson(message);
+			if (message == null) {
+				exchange.sendResponseHeaders(httpCode, -1);
+			} else {
+				/*
+				 * Serialize into this thread's reusable buffer first so the
+				 * response goes out with a Content-Length in a single write.
+				 */
+				ResponseBuffer buffer = responseBuffers.get();
+				buffer.reset();
+				writeJson(message, buffer);
+				exchange.sendResponseHeaders(httpCode, buffer.size());
+				buffer.writeTo(exchange.getResponseBody());
+			}
+			exchange.getResponseBody().close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Sends JSON that is already encoded, gzipped if the client accepts it
+	 * 
+	 * @param snapshot
+	 *            - the encoded JSON to send
+	 */
+	public static void sendSnapshot(HttpExchange exchange, int httpCode,
+			ModelSnapshot snapshot) {
+		try {
+			Headers respHeaders = exchange.getResponseHeaders();
+			respHeaders.add("Content-Type", "application/json");
+			byte[] body = snapshot.getJson();
+			if (acceptsGzip(exchange)) {
+				respHeaders.add("Content-Encoding", "gzip");
+				body = snapshot.getGzip();
+			}
+			exchange.sendResponseHeaders(httpCode, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.getResponseBody().close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
 
-				for (int i = 0; i < jsonString.length(); i++) {
-					exchange.getResponseBody().write(jsonString.charAt(i));
+	/**
+	 * @return whether the request's If-None-Match names the ETag
+	 */
+	public static boolean etagMatches(HttpExchange exchange, String etag) {
+		List<String> tags = exchange.getRequestHeaders().get("If-None-Match");
+		if (tags != null) {
+			for (String tag : tags) {
+				if (tag.contains(etag) || tag.trim().equals("*")) {
+					return true;
 				}
 			}
+		}
+		return false;
+	}
+
+	/**
+	 * Answers 304 Not Modified, with no body
+	 */
+	public static void sendNotModified(HttpExchange exchange) {
+		try {
+			exchange.sendResponseHeaders(304, -1);
 			exchange.getResponseBody().close();
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 
+	private static boolean acceptsGzip(HttpExchange exchange) {
+		List<String> encodings = exchange.getRequestHeaders().get(
+				"Accept-Encoding");
+		if (encodings != null) {
+			for (String encoding : encodings) {
+				if (encoding.contains("gzip")) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Serializes a response object as JSON into the given writer using the
+	 * shared Gson instance, then flushes the writer.
+	 * 
+	 * @param message
+	 *            - the object to serialize
+	 * @param writer
+	 *            - where the JSON text goes
+	 */
+	public static void writeJson(Object message, Writer writer)
+			throws IOException {
+		gson.toJson(message, message.getClass(), writer);
+		writer.flush();
+	}
+
+	/**
+	 * Starts a session for the player and sets the catan.session cookie to
+	 * its token, along with the catan.user cookie the client reads the
+	 * player's name and id from
+	 */
 	public static void setUserCookie(HttpExchange exchange,
 			UserCredentials userCredentials) {
 		Headers respHeaders = exchange.getResponseHeaders();
@@ -156,6 +285,9 @@ public class HandlerUtil {
 			e.printStackTrace();
 		}
 		values.add(cookieString);
+		SessionTable.Session session = SessionTable.getSingleton().open(
+				playerId);
+		values.add(SessionTable.COOKIE + "=" + session.getToken() + ";Path=/;");
 		respHeaders.put("Set-Cookie", values);
 	}
 }
@@ -6,7 +6,10 @@ import java.util.ArrayList;
 import java.util.logging.Logger;
 
 import server.facade.FacadeSwitch;
+import server.model.ServerModel;
+import server.model.SessionTable;
 import shared.communication.JoinGameParams;
+import shared.model.Player;
 import shared.utils.Serializer;
 import shared.utils.ServerResponseException;
 
@@ -29,10 +32,16 @@ public class JoinGameHandler implements IHttpHandler {
 			JoinGameParams joinParams = (JoinGameParams) Serializer
 					.deserialize(inputStreamString, JoinGameParams.class);
 
+			SessionTable.Session session = HandlerUtil.getSession(exchange);
+			if (session == null) {
+				throw new ServerResponseException(
+						"Cannot join game - not logged in.");
+			}
 			FacadeSwitch.getSingleton().setGameID(joinParams.getId());
-			int playerId = HandlerUtil.getPlayerID(exchange);
+			int playerId = session.getPlayerID();
 			FacadeSwitch.getSingleton().setPlayerID(playerId);
 			FacadeSwitch.getSingleton().joinGame(joinParams);
+			session.joined(joinParams.getId(), playerIndex(playerId));
 
 			ArrayList<String> values = new ArrayList<String>();
 			String gameCookie = URLEncoder.encode(joinParams.getId() + "",
@@ -58,4 +67,18 @@ public class JoinGameHandler implements IHttpHandler {
 		logger.info("***server/httpHandlers/JoinGameHandler - exiting Handle");
 	}
 
+	/*
+	 * The seat the player took in the game they just joined
+	 */
+	private static int playerIndex(int playerId) {
+		ServerModel model = FacadeSwitch.getSingleton().getServerModel();
+		Player[] players = model == null ? null : model.getPlayers();
+		for (int i = 0; players != null && i < players.length; i++) {
+			if (players[i] != null && players[i].getPlayerid() == playerId) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
 }
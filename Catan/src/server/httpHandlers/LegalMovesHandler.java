@@ -0,0 +1,51 @@
+package server.httpHandlers;
+
+import java.io.IOException;
+
+import server.facade.FacadeSwitch;
+import server.model.ModelSnapshot;
+import server.model.SessionTable;
+import shared.utils.ServerResponseException;
+
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Sends every legal move the session's player has in their game, found once
+ * per model version, with an ETag of the game, version and player, or 304
+ * Not Modified to a client whose If-None-Match already names them
+ */
+public class LegalMovesHandler implements IHttpHandler {
+	/*
+	 * A game restored after the server restarts can reach the same version
+	 * with a different board, so the ETag also names this run of the server
+	 */
+	private static final String RUN = Long.toString(
+			System.currentTimeMillis(), 36);
+
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+		try {
+			SessionTable.Session session = HandlerUtil.getSession(exchange);
+			if (session == null || session.getPlayerIndex() < 0) {
+				throw new ServerResponseException(
+						"Cannot list moves - not in a game.");
+			}
+			int gameID = HandlerUtil.getGameID(exchange);
+			FacadeSwitch.getSingleton().setGameID(gameID);
+			ModelSnapshot moves = FacadeSwitch.getSingleton().getLegalMoves(
+					session.getPlayerIndex());
+			String etag = "\"" + RUN + "-" + gameID + "-" + moves.getVersion()
+					+ "-" + session.getPlayerIndex() + "\"";
+			exchange.getResponseHeaders().set("ETag", etag);
+			if (HandlerUtil.etagMatches(exchange, etag)) {
+				HandlerUtil.sendNotModified(exchange);
+			} else {
+				HandlerUtil.sendSnapshot(exchange, 200, moves);
+			}
+		} catch (ServerResponseException e) {
+			HandlerUtil.sendResponse(exchange, 400, e.getMessage(),
+					String.class);
+		}
+	}
+
+}
@@ -3,18 +3,35 @@ package server.httpHandlers;
 import java.io.IOException;
 
 import server.facade.FacadeSwitch;
-import shared.communication.GameSummary;
+import server.model.ModelSnapshot;
 import shared.utils.ServerResponseException;
 
 import com.sun.net.httpserver.HttpExchange;
 
+/**
+ * Sends the game list's cached JSON with an ETag of its version, or 304 Not
+ * Modified to a lobby poll whose If-None-Match already names that version
+ */
 public class ListGameHandler implements IHttpHandler {
+	/*
+	 * List versions start over when the server does, so the ETag also names
+	 * this run of the server
+	 */
+	private static final String RUN = Long.toString(
+			System.currentTimeMillis(), 36);
 
 	@Override
 	public void handle(HttpExchange exchange) throws IOException {
 		try {
-			GameSummary[] list = FacadeSwitch.getSingleton().getGameList();
-			HandlerUtil.sendResponse(exchange, 200, list, GameSummary[].class);
+			ModelSnapshot list = FacadeSwitch.getSingleton()
+					.getGameListSnapshot();
+			String etag = "\"" + RUN + "-" + list.getVersion() + "\"";
+			exchange.getResponseHeaders().set("ETag", etag);
+			if (HandlerUtil.etagMatches(exchange, etag)) {
+				HandlerUtil.sendNotModified(exchange);
+			} else {
+				HandlerUtil.sendSnapshot(exchange, 200, list);
+			}
 		} catch (ServerResponseException e) {
 			HandlerUtil.sendResponse(exchange, 400, "Failed to get game",
 					String.class);
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.util.logging.Logger;
 
 import server.facade.FacadeSwitch;
+import server.model.ModelSnapshot;
 import shared.utils.ServerResponseException;
 import client.model.ClientModel;
 
@@ -22,17 +23,33 @@ public class ModelHandler implements IHttpHandler {
 		// logger.info("server/httpHandlers/ModelHandler - entering ModelHandler");
 		int gameID = HandlerUtil.getGameID(exchange);
 		FacadeSwitch.getSingleton().setGameID(gameID);
-		String query = exchange.getRequestURI().getQuery();
-		int gameVersion = -1;
-		if (query != null) {
-			String[] queryArray = query.split("=");
-			gameVersion = Integer.valueOf(queryArray[1]);
-		}
+		// clients that can apply a ModelPatch ask for one with patch=true
+		boolean patch = "true".equals(HandlerUtil.getQueryParameter(exchange,
+				"patch"));
 		try {
-			ClientModel clientModel = FacadeSwitch.getSingleton()
-					.getCurrentGame(gameVersion);
-			HandlerUtil.sendResponse(exchange, 200, clientModel,
-					ClientModel.class);
+			int gameVersion = HandlerUtil.getIntParameter(exchange, "version",
+					-1);
+			/*
+			 * clients that are up to date can ask to wait=N seconds for the
+			 * next version instead of polling again
+			 */
+			int waitSeconds = HandlerUtil.getIntParameter(exchange, "wait", 0);
+			ModelSnapshot snapshot;
+			if (patch) {
+				snapshot = FacadeSwitch.getSingleton().getModelPatch(
+						gameVersion);
+			} else {
+				snapshot = FacadeSwitch.getSingleton().getModelSnapshot(
+						gameVersion);
+			}
+			if (snapshot == null && waitSeconds > 0) {
+				ModelLongPoll.park(exchange, gameID, gameVersion, patch,
+						waitSeconds);
+			} else if (snapshot == null) {
+				HandlerUtil.sendResponse(exchange, 200, null, ClientModel.class);
+			} else {
+				HandlerUtil.sendSnapshot(exchange, 200, snapshot);
+			}
 		} catch (ServerResponseException e) {
 			HandlerUtil.sendResponse(exchange, 400, e.getMessage(),
 					String.class);
@@ -0,0 +1,163 @@
+package server.httpHandlers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import server.facade.FacadeSwitch;
+import server.model.ModelSnapshot;
+import shared.utils.ServerResponseException;
+import client.model.ClientModel;
+
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Parks /game/model requests from clients that are already up to date until
+ * their game's version advances or their wait runs out. A parked request
+ * holds no HTTP worker: the handler returns right away and the response is
+ * written later from one of the responder threads here.
+ */
+public class ModelLongPoll {
+	/**
+	 * The longest a client may ask to wait, in seconds
+	 */
+	public static final int MAX_WAIT_SECONDS = 60;
+
+	private static final ScheduledExecutorService timeouts = Executors
+			.newSingleThreadScheduledExecutor(daemonThreads("LongPollTimer"));
+	private static final ExecutorService responders = Executors
+			.newFixedThreadPool(2, daemonThreads("LongPollResponder"));
+	private static final AtomicInteger parked = new AtomicInteger();
+
+	/**
+	 * Holds the exchange until the game moves past version or waitSeconds
+	 * pass, then answers it as ModelHandler would have. Call with the game ID
+	 * set on the facade.
+	 *
+	 * @param patch
+	 *            - whether the client accepts a ModelPatch
+	 * @param waitSeconds
+	 *            - how long to hold the request, capped at MAX_WAIT_SECONDS
+	 */
+	public static void park(HttpExchange exchange, int gameID, int version,
+			boolean patch, int waitSeconds) {
+		final Waiter waiter = new Waiter(exchange, gameID, version, patch);
+		parked.incrementAndGet();
+		waiter.timeout = timeouts.schedule(new Runnable() {
+			@Override
+			public void run() {
+				waiter.expire();
+			}
+		}, Math.min(waitSeconds, MAX_WAIT_SECONDS), TimeUnit.SECONDS);
+		if (!FacadeSwitch.getSingleton().addVersionListener(version, waiter)) {
+			// the version moved while the request was on its way in
+			waiter.run();
+		}
+	}
+
+	/**
+	 * @return the number of requests currently parked
+	 */
+	public static int getParkedCount() {
+		return parked.get();
+	}
+
+	private static ThreadFactory daemonThreads(final String name) {
+		return new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, name + "-"
+						+ count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+	}
+
+	/**
+	 * A parked request. Runs as a version listener, so it only hands the
+	 * response off to a responder thread.
+	 */
+	private static class Waiter implements Runnable {
+		private final HttpExchange exchange;
+		private final int gameID;
+		private final int version;
+		private final boolean patch;
+		private final AtomicBoolean done = new AtomicBoolean(false);
+		private volatile ScheduledFuture<?> timeout;
+
+		private Waiter(HttpExchange exchange, int gameID, int version,
+				boolean patch) {
+			this.exchange = exchange;
+			this.gameID = gameID;
+			this.version = version;
+			this.patch = patch;
+		}
+
+		@Override
+		public void run() {
+			if (done.compareAndSet(false, true)) {
+				timeout.cancel(false);
+				handOff();
+			}
+		}
+
+		/*
+		 * Runs on the one timer thread, so like run() it leaves the response
+		 * to a responder and a slow client can't hold up other timeouts
+		 */
+		private void expire() {
+			if (done.compareAndSet(false, true)) {
+				FacadeSwitch.getSingleton().setGameID(gameID);
+				FacadeSwitch.getSingleton().removeVersionListener(this);
+				handOff();
+			}
+		}
+
+		private void handOff() {
+			responders.execute(new Runnable() {
+				@Override
+				public void run() {
+					respond();
+				}
+			});
+		}
+
+		private void respond() {
+			parked.decrementAndGet();
+			FacadeSwitch.getSingleton().setGameID(gameID);
+			try {
+				ModelSnapshot snapshot;
+				if (patch) {
+					snapshot = FacadeSwitch.getSingleton()
+							.getModelPatch(version);
+				} else {
+					snapshot = FacadeSwitch.getSingleton().getModelSnapshot(
+							version);
+				}
+				if (snapshot == null) {
+					HandlerUtil.sendResponse(exchange, 200, null,
+							ClientModel.class);
+				} else {
+					HandlerUtil.sendSnapshot(exchange, 200, snapshot);
+				}
+			} catch (ServerResponseException e) {
+				HandlerUtil.sendResponse(exchange, 400, e.getMessage(),
+						String.class);
+				e.printStackTrace();
+			} catch (RuntimeException e) {
+				// the game went away while the request was parked
+				HandlerUtil.sendResponse(exchange, 400, "Invalid game",
+						String.class);
+				e.printStackTrace();
+			}
+		}
+	}
+}
@@ -37,6 +37,7 @@ public class PlayMonopolyCardHandler implements IHttpHandler {
 						.deserialize(inputStreamString,
 								PlayMonopolyParams.class);
 
+				FacadeSwitch.getSingleton().setGameID(gameID);
 				ClientModel model = FacadeSwitch.getSingleton()
 						.playMonopolyCard(playMonopolyParams);
 				HandlerUtil.sendResponse(exchange, 200, model,
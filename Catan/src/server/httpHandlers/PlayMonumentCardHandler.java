@@ -37,6 +37,7 @@ public class PlayMonumentCardHandler implements IHttpHandler {
 						.deserialize(inputStreamString,
 								PlayMonumentParams.class);
 
+				FacadeSwitch.getSingleton().setGameID(gameID);
 				ClientModel model = FacadeSwitch.getSingleton().playMonument(
 						playMonumentParam);
 				HandlerUtil.sendResponse(exchange, 200, model,
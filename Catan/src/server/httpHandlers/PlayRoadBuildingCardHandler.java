@@ -37,6 +37,7 @@ public class PlayRoadBuildingCardHandler implements IHttpHandler {
 						.deserialize(inputStreamString,
 								BuildRoadCardParams.class);
 
+				FacadeSwitch.getSingleton().setGameID(gameID);
 				ClientModel model = FacadeSwitch.getSingleton()
 						.playRoadBuildingCard(playMonumentParam);
 				HandlerUtil.sendResponse(exchange, 200, model,
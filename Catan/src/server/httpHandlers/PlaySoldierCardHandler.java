@@ -36,6 +36,7 @@ public class PlaySoldierCardHandler implements IHttpHandler {
 				MoveSoldierParams moveSoldierParam = (MoveSoldierParams) Serializer
 						.deserialize(inputStreamString, MoveSoldierParams.class);
 
+				FacadeSwitch.getSingleton().setGameID(gameID);
 				ClientModel model = FacadeSwitch.getSingleton()
 						.playSoldierCard(moveSoldierParam);
 				HandlerUtil.sendResponse(exchange, 200, model,
@@ -37,6 +37,7 @@ public class PlayYearOfPlentyCardHandler implements IHttpHandler {
 						.deserialize(inputStreamString,
 								YearOfPlentyParams.class);
 
+				FacadeSwitch.getSingleton().setGameID(gameID);
 				ClientModel model = FacadeSwitch.getSingleton()
 						.playYearOfPlentyCard(yearOfPlentyParam);
 				HandlerUtil.sendResponse(exchange, 200, model,
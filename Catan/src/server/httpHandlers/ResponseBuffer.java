@@ -0,0 +1,137 @@
+package server.httpHandlers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * A Writer that encodes straight to UTF-8 into a growable byte array. Handler
+ * threads keep one each and reuse it for every response, so serializing a
+ * model costs no allocation once the array has grown to fit.
+ *
+ * OutputStreamWriter is not used because it allocates a char array and a
+ * CharBuffer for every string written, and JsonWriter writes many short
+ * strings.
+ */
+public class ResponseBuffer extends Writer {
+	private static final int INITIAL_SIZE = 16 * 1024;
+	private static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+	private byte[] bytes = new byte[INITIAL_SIZE];
+	private int count = 0;
+	private char highSurrogate = 0;
+
+	@Override
+	public void write(int c) {
+		encode((char) c);
+	}
+
+	@Override
+	public void write(char[] chars, int off, int len) {
+		ensureCapacity(len);
+		for (int i = off; i < off + len; i++) {
+			char c = chars[i];
+			if (c < 0x80 && highSurrogate == 0 && count < bytes.length) {
+				bytes[count++] = (byte) c;
+			} else {
+				encode(c);
+			}
+		}
+	}
+
+	@Override
+	public void write(String string, int off, int len) {
+		ensureCapacity(len);
+		for (int i = off; i < off + len; i++) {
+			char c = string.charAt(i);
+			if (c < 0x80 && highSurrogate == 0 && count < bytes.length) {
+				bytes[count++] = (byte) c;
+			} else {
+				encode(c);
+			}
+		}
+	}
+
+	private void encode(char c) {
+		ensureCapacity(4);
+		if (highSurrogate != 0) {
+			char high = highSurrogate;
+			highSurrogate = 0;
+			if (Character.isLowSurrogate(c)) {
+				int codePoint = Character.toCodePoint(high, c);
+				bytes[count++] = (byte) (0xF0 | (codePoint >> 18));
+				bytes[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+				bytes[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+				bytes[count++] = (byte) (0x80 | (codePoint & 0x3F));
+				return;
+			}
+			// unpaired surrogate
+			bytes[count++] = '?';
+		}
+		if (c < 0x80) {
+			bytes[count++] = (byte) c;
+		} else if (c < 0x800) {
+			bytes[count++] = (byte) (0xC0 | (c >> 6));
+			bytes[count++] = (byte) (0x80 | (c & 0x3F));
+		} else if (Character.isHighSurrogate(c)) {
+			highSurrogate = c;
+		} else if (Character.isLowSurrogate(c)) {
+			bytes[count++] = '?';
+		} else {
+			bytes[count++] = (byte) (0xE0 | (c >> 12));
+			bytes[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+			bytes[count++] = (byte) (0x80 | (c & 0x3F));
+		}
+	}
+
+	private void ensureCapacity(int extra) {
+		if (count + extra + 4 > bytes.length) {
+			bytes = Arrays.copyOf(bytes,
+					Math.max(bytes.length * 2, count + extra + 4));
+		}
+	}
+
+	@Override
+	public void flush() {
+		if (highSurrogate != 0) {
+			highSurrogate = 0;
+			bytes[count++] = '?';
+		}
+	}
+
+	@Override
+	public void close() {
+		flush();
+	}
+
+	/**
+	 * @return the number of encoded bytes
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * @return a copy of the encoded bytes
+	 */
+	public byte[] toByteArray() {
+		return Arrays.copyOf(bytes, count);
+	}
+
+	public void writeTo(OutputStream out) throws IOException {
+		out.write(bytes, 0, count);
+	}
+
+	/**
+	 * Empties the buffer for the next response, dropping an unusually large
+	 * array so one huge response does not pin memory on every thread.
+	 */
+	public void reset() {
+		if (bytes.length > MAX_RETAINED_SIZE) {
+			bytes = new byte[INITIAL_SIZE];
+		}
+		count = 0;
+		highSurrogate = 0;
+	}
+}
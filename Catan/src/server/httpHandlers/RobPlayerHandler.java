@@ -37,6 +37,7 @@ public class RobPlayerHandler implements IHttpHandler {
 				MoveRobberParams moveRobberParam = (MoveRobberParams) Serializer
 						.deserialize(inputStreamString, MoveRobberParams.class);
 
+				FacadeSwitch.getSingleton().setGameID(gameID);
 				ClientModel model = FacadeSwitch.getSingleton().robPlayer(
 						moveRobberParam);
 				HandlerUtil.sendResponse(exchange, 200, model,
@@ -0,0 +1,181 @@
+package server.main;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Executor handed to the HttpServer so requests run on a pool of worker
+ * threads instead of the single dispatcher thread.
+ *
+ * At most threads + queueSize exchanges are admitted at once. An exchange
+ * arriving past that limit is run on the dispatcher thread with the
+ * rejecting flag set, and the {@link OverloadFilter} answers it with a 503
+ * before it reaches a handler.
+ */
+public class RequestExecutor implements Executor {
+
+	/**
+	 * The kind of worker pool behind the executor
+	 */
+	public enum Mode {
+		FIXED, STEALING, VIRTUAL;
+
+		public static Mode fromString(String name) {
+			return Mode.valueOf(name.toUpperCase());
+		}
+	}
+
+	private static Logger logger;
+	static {
+		logger = Logger.getLogger("CatanServer");
+	}
+
+	private static final ThreadLocal<Boolean> rejecting = new ThreadLocal<Boolean>() {
+		@Override
+		protected Boolean initialValue() {
+			return false;
+		}
+	};
+
+	private final ExecutorService workers;
+	private final Semaphore permits;
+	private final int capacity;
+	private final AtomicLong rejected = new AtomicLong();
+
+	/**
+	 * @param mode
+	 *            - the kind of pool to run requests on
+	 * @param threads
+	 *            - number of worker threads (ignored for virtual threads)
+	 * @param queueSize
+	 *            - how many requests may wait for a worker before new ones
+	 *            are turned away
+	 */
+	public RequestExecutor(Mode mode, int threads, int queueSize) {
+		this.workers = createWorkers(mode, threads);
+		this.capacity = threads + queueSize;
+		this.permits = new Semaphore(capacity);
+	}
+
+	private static ExecutorService createWorkers(Mode mode, int threads) {
+		switch (mode) {
+		case STEALING:
+			return Executors.newWorkStealingPool(threads);
+		case VIRTUAL:
+			/*
+			 * Virtual threads only exist on newer JVMs, so look the factory
+			 * up reflectively and fall back to a fixed pool without them.
+			 */
+			try {
+				return (ExecutorService) Executors.class.getMethod(
+						"newVirtualThreadPerTaskExecutor").invoke(null);
+			} catch (Exception e) {
+				logger.warning("server/main/RequestExecutor - virtual threads "
+						+ "unavailable, using a fixed pool");
+				return fixedPool(threads);
+			}
+		case FIXED:
+		default:
+			return fixedPool(threads);
+		}
+	}
+
+	private static ExecutorService fixedPool(int threads) {
+		return new ThreadPoolExecutor(threads, threads, 0L,
+				TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>());
+	}
+
+	@Override
+	public void execute(final Runnable exchange) {
+		if (!permits.tryAcquire()) {
+			reject(exchange);
+			return;
+		}
+		try {
+			workers.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						exchange.run();
+					} finally {
+						permits.release();
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			permits.release();
+			reject(exchange);
+		}
+	}
+
+	private void reject(Runnable exchange) {
+		rejected.incrementAndGet();
+		rejecting.set(true);
+		try {
+			exchange.run();
+		} finally {
+			rejecting.set(false);
+		}
+	}
+
+	/**
+	 * @return true if the current thread is turning away an exchange
+	 */
+	public static boolean isRejecting() {
+		return rejecting.get();
+	}
+
+	/**
+	 * @return the number of exchanges running or waiting for a worker
+	 */
+	public int getInFlight() {
+		return capacity - permits.availablePermits();
+	}
+
+	/**
+	 * @return the number of exchanges answered with a 503 so far
+	 */
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+
+	public void shutdown() {
+		workers.shutdown();
+	}
+
+	/**
+	 * Answers exchanges the executor turned away with 503 Service Unavailable
+	 * so the client knows to back off and retry.
+	 */
+	public static class OverloadFilter extends Filter {
+
+		@Override
+		public void doFilter(HttpExchange exchange, Chain chain)
+				throws IOException {
+			if (isRejecting()) {
+				exchange.getResponseHeaders().add("Retry-After", "1");
+				exchange.sendResponseHeaders(503, -1);
+				exchange.close();
+			} else {
+				chain.doFilter(exchange);
+			}
+		}
+
+		@Override
+		public String description() {
+			return "Rejects requests the worker pool has no room for";
+		}
+	}
+}
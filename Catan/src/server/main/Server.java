@@ -1,7 +1,9 @@
 package server.main;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.sql.SQLException;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Handler;
 import java.util.logging.Level;
@@ -9,6 +11,7 @@ import java.util.logging.Logger;
 import java.util.logging.SimpleFormatter;
 
 import server.facade.FacadeSwitch;
+import server.facade.ServerFacade;
 import server.httpHandlers.AcceptTradeHandler;
 import server.httpHandlers.BuildCityHandler;
 import server.httpHandlers.BuildRoadHandler;
@@ -20,6 +23,7 @@ import server.httpHandlers.DiscardCardsHandler;
 import server.httpHandlers.FinishTurnHandler;
 import server.httpHandlers.Handlers;
 import server.httpHandlers.JoinGameHandler;
+import server.httpHandlers.LegalMovesHandler;
 import server.httpHandlers.ListGameHandler;
 import server.httpHandlers.LoadGameHandler;
 import server.httpHandlers.LogLevelHandler;
@@ -39,8 +43,15 @@ import server.httpHandlers.RollNumberHandler;
 import server.httpHandlers.SaveGameHandler;
 import server.httpHandlers.SendChatHandler;
 import server.model.ServerModel;
+import server.persistance.GameEvictor;
+import server.persistance.GameRecovery;
+import server.persistance.IPersistance;
+import server.persistance.SQLPersistance;
+import server.persistance.TextPersistance;
+import server.persistance.WriteBehindQueue;
 import shared.utils.Serializer;
 
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 
 public class Server {
@@ -52,9 +63,23 @@ public class Server {
 	private static String clientModelJson = "{\"deck\":{\"yearOfPlenty\":2,\"monopoly\":2,\"soldier\":14,\"roadBuilding\":2,\"monument\":5},\"map\":{\"hexes\":[{\"location\":{\"x\":0,\"y\":-2}},{\"resource\":\"ore\",\"location\":{\"x\":1,\"y\":-2},\"number\":3},{\"resource\":\"wood\",\"location\":{\"x\":2,\"y\":-2},\"number\":3},{\"resource\":\"wheat\",\"location\":{\"x\":-1,\"y\":-1},\"number\":8},{\"resource\":\"brick\",\"location\":{\"x\":0,\"y\":-1},\"number\":8},{\"resource\":\"sheep\",\"location\":{\"x\":1,\"y\":-1},\"number\":9},{\"resource\":\"wood\",\"location\":{\"x\":2,\"y\":-1},\"number\":11},{\"resource\":\"sheep\",\"location\":{\"x\":-2,\"y\":0},\"number\":10},{\"resource\":\"sheep\",\"location\":{\"x\":-1,\"y\":0},\"number\":12},{\"resource\":\"sheep\",\"location\":{\"x\":0,\"y\":0},\"number\":10},{\"resource\":\"wheat\",\"location\":{\"x\":1,\"y\":0},\"number\":11},{\"resource\":\"brick\",\"location\":{\"x\":2,\"y\":0},\"number\":5},{\"resource\":\"wood\",\"location\":{\"x\":-2,\"y\":1},\"number\":6},{\"resource\":\"brick\",\"location\":{\"x\":-1,\"y\":1},\"number\":4},{\"resource\":\"ore\",\"location\":{\"x\":0,\"y\":1},\"number\":5},{\"resource\":\"wood\",\"location\":{\"x\":1,\"y\":1},\"number\":4},{\"resource\":\"ore\",\"location\":{\"x\":-2,\"y\":2},\"number\":9},{\"resource\":\"wheat\",\"location\":{\"x\":-1,\"y\":2},\"number\":6},{\"resource\":\"wheat\",\"location\":{\"x\":0,\"y\":2},\"number\":2}],\"roads\":[{\"owner\":3,\"location\":{\"direction\":\"S\",\"x\":1,\"y\":0}},{\"owner\":3,\"location\":{\"direction\":\"SE\",\"x\":0,\"y\":1}},{\"owner\":3,\"location\":{\"direction\":\"SW\",\"x\":2,\"y\":0}}],\"cities\":[],\"settlements\":[{\"owner\":3,\"location\":{\"direction\":\"SW\",\"x\":1,\"y\":0}}],\"radius\":3,\"ports\":[{\"ratio\":3,\"direction\":\"S\",\"location\":{\"x\":1,\"y\":-3}},{\"ratio\":3,\"direction\":\"NE\",\"location\":{\"x\":-2,\"y\":3}},{\"ratio\":2,\"resource\":\"sheep\",\"direction\":\"SW\",\"location\":{\"x\":3,\"y\":-3}},{\"ratio\":3,\"direction\":\"NW\",\"location\":{\"x\":2,\"y\":1}},{\"ratio\":3,\"direction\":\"SE\",\"location\":{\"x\":-3,\"y\":0}},{\"ratio\":2,\"resource\":\"wood\",\"direction\":\"S\",\"location\":{\"x\":-1,\"y\":-2}},{\"ratio\":2,\"resource\":\"ore\",\"direction\":\"N\",\"location\":{\"x\":0,\"y\":3}},{\"ratio\":2,\"resource\":\"wheat\",\"direction\":\"NW\",\"location\":{\"x\":3,\"y\":-1}},{\"ratio\":2,\"resource\":\"brick\",\"direction\":\"NE\",\"location\":{\"x\":-3,\"y\":2}}],\"robber\":{\"x\":0,\"y\":-2}},\"players\":[{\"resources\":{\"brick\":0,\"wood\":0,\"sheep\":0,\"wheat\":0,\"ore\":0},\"oldDevCards\":{\"yearOfPlenty\":0,\"monopoly\":0,\"soldier\":0,\"roadBuilding\":0,\"monument\":0},\"newDevCards\":{\"yearOfPlenty\":0,\"monopoly\":0,\"soldier\":0,\"roadBuilding\":0,\"monument\":0},\"roads\":15,\"cities\":4,\"settlements\":5,\"soldiers\":0,\"victoryPoints\":0,\"monuments\":0,\"playedDevCard\":false,\"discarded\":false,\"playerID\":12,\"playerIndex\":0,\"name\":\"string\",\"color\":\"purple\"},{\"resources\":{\"brick\":0,\"wood\":0,\"sheep\":0,\"wheat\":0,\"ore\":0},\"oldDevCards\":{\"yearOfPlenty\":0,\"monopoly\":0,\"soldier\":0,\"roadBuilding\":0,\"monument\":0},\"newDevCards\":{\"yearOfPlenty\":0,\"monopoly\":0,\"soldier\":0,\"roadBuilding\":0,\"monument\":0},\"roads\":15,\"cities\":4,\"settlements\":5,\"soldiers\":0,\"victoryPoints\":0,\"monuments\":0,\"playedDevCard\":false,\"discarded\":false,\"playerID\":13,\"playerIndex\":1,\"name\":\"test1\",\"color\":\"puce\"},{\"resources\":{\"brick\":0,\"wood\":0,\"sheep\":0,\"wheat\":0,\"ore\":0},\"oldDevCards\":{\"yearOfPlenty\":0,\"monopoly\":0,\"soldier\":0,\"roadBuilding\":0,\"monument\":0},\"newDevCards\":{\"yearOfPlenty\":0,\"monopoly\":0,\"soldier\":0,\"roadBuilding\":0,\"monument\":0},\"roads\":15,\"cities\":4,\"settlements\":5,\"soldiers\":0,\"victoryPoints\":0,\"monuments\":0,\"playedDevCard\":false,\"discarded\":false,\"playerID\":14,\"playerIndex\":2,\"name\":\"test2\",\"color\":\"blue\"},{\"resources\":{\"brick\":0,\"wood\":0,\"sheep\":0,\"wheat\":0,\"ore\":0},\"oldDevCards\":{\"yearOfPlenty\":0,\"monopoly\":0,\"soldier\":0,\"roadBuilding\":0,\"monument\":0},\"newDevCards\":{\"yearOfPlenty\":0,\"monopoly\":0,\"soldier\":0,\"roadBuilding\":0,\"monument\":0},\"roads\":12,\"cities\":4,\"settlements\":4,\"soldiers\":0,\"victoryPoints\":1,\"monuments\":0,\"playedDevCard\":false,\"discarded\":false,\"playerID\":15,\"playerIndex\":3,\"name\":\"test3\",\"color\":\"orange\"}],\"log\":{\"lines\":[{\"source\":\"string\",\"message\":\"string built a settlement\"},{\"source\":\"test3\",\"message\":\"test3 built a road\"},{\"source\":\"test3\",\"message\":\"test3 built a road\"},{\"source\":\"test3\",\"message\":\"test3 built a road\"}]},\"chat\":{\"lines\":[]},\"bank\":{\"brick\":24,\"wood\":24,\"sheep\":24,\"wheat\":24,\"ore\":24},\"turnTracker\":{\"status\":\"FirstRound\",\"currentTurn\":0,\"longestRoad\":-1,\"largestArmy\":-1},\"winner\":-1,\"version\":4}";
 
 	private HttpServer httpServer;
+	private RequestExecutor requestExecutor;
 	private int portNumber = 8081; // default portnumber
 	private static final int MAX_WAITING_CONNECTIONS = 10;
+	private int backlog = MAX_WAITING_CONNECTIONS;
+	private int threads = Runtime.getRuntime().availableProcessors() * 2;
+	private int queueSize = 100;
+	private RequestExecutor.Mode executorMode = RequestExecutor.Mode.FIXED;
 	private String host = "localhost";
+	private String plugin = null;
+	private String dataPath = "./persistance";
+	private int frequency = 0;
+	private long commitMillis = TextPersistance.DEFAULT_COMMIT_MILLIS;
+	private long commitBytes = TextPersistance.DEFAULT_COMMIT_BYTES;
+	private int writeQueue = WriteBehindQueue.DEFAULT_CAPACITY;
+	private long flushMillis = WriteBehindQueue.DEFAULT_FLUSH_MILLIS;
+	private long idleMillis = GameEvictor.DEFAULT_IDLE_MILLIS;
+	private long heapBudget = Runtime.getRuntime().maxMemory() / 4;
 
 	private static Logger ServerLogger;
 
@@ -78,9 +103,23 @@ public class Server {
 	 * @post ServerFacade knows how many commands to execute before the state is
 	 *       saved
 	 */
-	@SuppressWarnings("unused")
 	private void setFrequency(int commandsBetween) {
+		ServerFacade.getSingleton().setFrequency(commandsBetween);
+	}
 
+	/**
+	 * Spills games idle for idleMillis, or the least recently used while the
+	 * games in memory are estimated over heapBudget, to dataPath/spilled,
+	 * unless both are 0
+	 */
+	private void startEvictor() {
+		if (idleMillis <= 0 && heapBudget <= 0) {
+			return;
+		}
+		GameEvictor evictor = new GameEvictor(new File(dataPath, "spilled"),
+				idleMillis, heapBudget);
+		evictor.start();
+		ServerFacade.getSingleton().setEvictor(evictor);
 	}
 
 	/**
@@ -90,11 +129,25 @@ public class Server {
 	 * PluginDescription calls setPersistance on the ServerFacade sending in the
 	 * IPersistance returned by getPlugin
 	 * 
+	 * The built-in plugins are "text", which journals every command under
+	 * dataPath and forces them to disk in groups, and "sql", which keeps them
+	 * in a SQLite database there, committed in batches
+	 * 
 	 * @post ServerFacade contains the correct IPersistence class
 	 */
-	@SuppressWarnings("unused")
-	private void loadPlugin(String pluginName) {
-
+	private void loadPlugin(String pluginName) throws IOException,
+			SQLException {
+		ServerFacade.getSingleton().setWriteBehind(writeQueue, flushMillis);
+		if (pluginName.equals("text")) {
+			ServerFacade.getSingleton().setPersistance(
+					new TextPersistance(dataPath, commitMillis, commitBytes));
+		} else if (pluginName.equals("sql")) {
+			ServerFacade.getSingleton().setPersistance(
+					new SQLPersistance(dataPath + "/catan.sqlite",
+							commitMillis, SQLPersistance.DEFAULT_COMMIT_ROWS));
+		} else {
+			throw new IllegalArgumentException("Unknown plugin " + pluginName);
+		}
 	}
 
 	/**
@@ -102,36 +155,105 @@ public class Server {
 	 * want to use args[1] is the number of commands executed between the state
 	 * being saved (ex. 5 or 7)
 	 * 
+	 * Optional flags tune the request workers: -threads N (worker threads),
+	 * -queue N (requests allowed to wait before answering 503), -backlog N
+	 * (pending tcp connections) and -executor fixed|stealing|virtual
+	 * 
+	 * Persistance is turned on with -plugin text|sql, which keeps games under
+	 * -data DIR, snapshots a game every -frequency N commands and forces
+	 * journaled commands to disk every -commitms N milliseconds or each
+	 * -commitbytes N bytes, whichever comes first. Moves hand their commands
+	 * to a background writer through a queue of -writequeue N commands, and
+	 * a game with new commands is snapshotted at least every -flushms N
+	 * milliseconds. Games stored by the plugin are recovered before the port
+	 * is opened
+	 * 
+	 * A game nobody has looked at for -idlems N milliseconds is spilled to
+	 * disk, as are the least recently used games while the games in memory
+	 * are estimated at over -heapmb N megabytes, a quarter of the heap by
+	 * default. A spilled game is read back on its next request
+	 * 
 	 * @post server running on port 8081
 	 * @post loadPlugin() is called
 	 * @post setFrequency() is called
 	 */
 	public static void main(String[] args) {
-		if (args.length > 0) {
-			new Server(Integer.parseInt(args[0])).run();
-		} else {
-			new Server().run();
+		Server server = new Server();
+		boolean mock = false;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-mock")) {
+				mock = true;
+			} else if (args[i].equals("-threads") && i + 1 < args.length) {
+				server.threads = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-queue") && i + 1 < args.length) {
+				server.queueSize = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-backlog") && i + 1 < args.length) {
+				server.backlog = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-executor") && i + 1 < args.length) {
+				server.executorMode = RequestExecutor.Mode
+						.fromString(args[++i]);
+			} else if (args[i].equals("-plugin") && i + 1 < args.length) {
+				server.plugin = args[++i];
+			} else if (args[i].equals("-data") && i + 1 < args.length) {
+				server.dataPath = args[++i];
+			} else if (args[i].equals("-frequency") && i + 1 < args.length) {
+				server.frequency = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-commitms") && i + 1 < args.length) {
+				server.commitMillis = Long.parseLong(args[++i]);
+			} else if (args[i].equals("-commitbytes") && i + 1 < args.length) {
+				server.commitBytes = Long.parseLong(args[++i]);
+			} else if (args[i].equals("-writequeue") && i + 1 < args.length) {
+				server.writeQueue = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-flushms") && i + 1 < args.length) {
+				server.flushMillis = Long.parseLong(args[++i]);
+			} else if (args[i].equals("-idlems") && i + 1 < args.length) {
+				server.idleMillis = Long.parseLong(args[++i]);
+			} else if (args[i].equals("-heapmb") && i + 1 < args.length) {
+				server.heapBudget = Long.parseLong(args[++i]) << 20;
+			} else if (i == 0) {
+				server.portNumber = Integer.parseInt(args[i]);
+			}
 		}
-		if (args.length > 1) {
-			if (args[1].equals("-mock")) {
-				ServerModel model = (ServerModel) Serializer.deserialize(
-						clientModelJson, ServerModel.class);
-				FacadeSwitch.setMockServer(model);
-				System.out.println("Mock Server Running");
+		if (server.plugin != null && !mock) {
+			try {
+				server.loadPlugin(server.plugin);
+			} catch (IOException | SQLException e) {
+				e.printStackTrace();
+				return;
 			}
+			server.setFrequency(server.frequency);
+		}
+		if (mock) {
+			server.run();
+			ServerModel model = (ServerModel) Serializer.deserialize(
+					clientModelJson, ServerModel.class);
+			FacadeSwitch.setMockServer(model);
+			System.out.println("Mock Server Running");
 		} else {
 			FacadeSwitch.getSingleton().setFirstGame();
+			server.recover();
+			server.startEvictor();
+			server.run();
 		}
 	}
 
 	/**
-	 * Constructor for cases with specified port number
-	 * 
-	 * @param portnumber
+	 * Brings back the users and games the plugin stored before the last
+	 * shutdown, before the port is opened so no request sees a game half
+	 * replayed
 	 */
-	private Server(int portnumber) {
-		this.portNumber = portnumber;
-		// initialize();
+	private void recover() {
+		IPersistance persistance = ServerFacade.getSingleton()
+				.getPersistance();
+		if (persistance == null) {
+			return;
+		}
+		GameRecovery recovery = new GameRecovery(persistance, Runtime
+				.getRuntime().availableProcessors());
+		recovery.recover();
+		System.out.println("Recovered " + recovery.getGameCount()
+				+ " games and " + recovery.getUserCount() + " users in "
+				+ recovery.getMillis() + " ms");
 	}
 
 	/**
@@ -148,60 +270,73 @@ public class Server {
 
 		try {
 			httpServer = HttpServer.create(new InetSocketAddress(portNumber),
-					MAX_WAITING_CONNECTIONS);
+					backlog);
 		} catch (IOException e) {
 
 			e.printStackTrace();
 		}
+		requestExecutor = new RequestExecutor(executorMode, threads,
+				queueSize);
+		httpServer.setExecutor(requestExecutor);
+		ServerLogger.info("server/main/Server - " + executorMode + " executor, "
+				+ threads + " threads, queue " + queueSize + ", backlog "
+				+ backlog);
 
 		// Swagger contexts
-		httpServer.createContext("/docs/api/data",
+		createContext("/docs/api/data",
 				new Handlers.JSONAppender(""));
-		httpServer.createContext("/docs/api/view", new Handlers.BasicFile(""));
-
-		httpServer.createContext("/user/login", new LoginHandler());
-		httpServer.createContext("/user/register", new RegisterHandler());
-		httpServer.createContext("/games/list", new ListGameHandler());
-		httpServer.createContext("/games/create", new CreateGameHandler());
-		httpServer.createContext("/games/join", new JoinGameHandler());
-		httpServer.createContext("/games/save", new SaveGameHandler());
-		httpServer.createContext("/games/load", new LoadGameHandler());
-		httpServer.createContext("/game/model", new ModelHandler());
-		httpServer.createContext("/game/reset", new ResetGameHandler());
-		httpServer.createContext("/game/commands", new CommandsHandler());
-		// httpServer.createContext("/game/addAI", new AddAIHandler());
-		// httpServer.createContext("/game/listAI", new ListAIHandler());
-		httpServer.createContext("/moves/sendChat", new SendChatHandler());
-		httpServer.createContext("/moves/rollNumber", new RollNumberHandler());
-		httpServer.createContext("/moves/robPlayer", new RobPlayerHandler());
-		httpServer.createContext("/moves/finishTurn", new FinishTurnHandler());
-		httpServer.createContext("/moves/buyDevCard", new BuyDevCardHandler());
-		httpServer.createContext("/moves/Year_of_Plenty",
+		createContext("/docs/api/view", new Handlers.BasicFile(""));
+
+		createContext("/user/login", new LoginHandler());
+		createContext("/user/register", new RegisterHandler());
+		createContext("/games/list", new ListGameHandler());
+		createContext("/games/create", new CreateGameHandler());
+		createContext("/games/join", new JoinGameHandler());
+		createContext("/games/save", new SaveGameHandler());
+		createContext("/games/load", new LoadGameHandler());
+		createContext("/game/model", new ModelHandler());
+		createContext("/game/reset", new ResetGameHandler());
+		createContext("/game/commands", new CommandsHandler());
+		createContext("/game/legalMoves", new LegalMovesHandler());
+		// createContext("/game/addAI", new AddAIHandler());
+		// createContext("/game/listAI", new ListAIHandler());
+		createContext("/moves/sendChat", new SendChatHandler());
+		createContext("/moves/rollNumber", new RollNumberHandler());
+		createContext("/moves/robPlayer", new RobPlayerHandler());
+		createContext("/moves/finishTurn", new FinishTurnHandler());
+		createContext("/moves/buyDevCard", new BuyDevCardHandler());
+		createContext("/moves/Year_of_Plenty",
 				new PlayYearOfPlentyCardHandler());
-		httpServer.createContext("/moves/Road_Building",
+		createContext("/moves/Road_Building",
 				new PlayRoadBuildingCardHandler());
-		httpServer
-				.createContext("/moves/Soldier", new PlaySoldierCardHandler());
-		httpServer.createContext("/moves/Monopoly",
+		createContext("/moves/Soldier", new PlaySoldierCardHandler());
+		createContext("/moves/Monopoly",
 				new PlayMonopolyCardHandler());
-		httpServer.createContext("/moves/Monument",
+		createContext("/moves/Monument",
 				new PlayMonumentCardHandler());
-		httpServer.createContext("/moves/buildRoad", new BuildRoadHandler());
-		httpServer.createContext("/moves/buildSettlement",
+		createContext("/moves/buildRoad", new BuildRoadHandler());
+		createContext("/moves/buildSettlement",
 				new BuildSettlementHandler());
-		httpServer.createContext("/moves/buildCity", new BuildCityHandler());
-		httpServer.createContext("/moves/offerTrade", new OfferTradeHandler());
-		httpServer
-				.createContext("/moves/acceptTrade", new AcceptTradeHandler());
-		httpServer.createContext("/moves/maritimeTrade",
+		createContext("/moves/buildCity", new BuildCityHandler());
+		createContext("/moves/offerTrade", new OfferTradeHandler());
+		createContext("/moves/acceptTrade", new AcceptTradeHandler());
+		createContext("/moves/maritimeTrade",
 				new MaritimeTradeHandler());
-		httpServer.createContext("/moves/discardCards",
+		createContext("/moves/discardCards",
 				new DiscardCardsHandler());
-		httpServer.createContext("/util/changeLogLevel", new LogLevelHandler());
+		createContext("/util/changeLogLevel", new LogLevelHandler());
 
 		httpServer.start();
 	}
 
+	/**
+	 * Registers a handler, rejecting requests the worker pool has no room for
+	 */
+	private void createContext(String path, HttpHandler handler) {
+		httpServer.createContext(path, handler).getFilters()
+				.add(new RequestExecutor.OverloadFilter());
+	}
+
 	public String getHost() {
 		return host;
 	}
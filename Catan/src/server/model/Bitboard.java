@@ -0,0 +1,371 @@
+package server.model;
+
+import java.util.Arrays;
+
+import shared.locations.BoardTopology;
+import shared.locations.EdgeDirection;
+import shared.locations.VertexDirection;
+import shared.model.AppendList;
+import shared.model.Map;
+import shared.model.Road;
+import shared.model.VertexObject;
+
+/**
+ * One game's pieces as bit masks over the land of the board: the 54
+ * vertices touching a land hex fit in one long, and the 72 edges touching
+ * one in two. Each vertex and edge has a bit, and precomputed masks give the
+ * neighbors of each, so the distance rule and a road's connection to its
+ * owner's pieces are a few ANDs and ORs, and every spot a player could build
+ * on comes out as one mask. ServerModel keeps it up to date as pieces are
+ * added; like {@link BoardIndex} it remembers which lists it was built from
+ * and builds itself again if they were swapped or added to some other way.
+ * Must be used while holding the game lock.
+ */
+public class Bitboard {
+	/**
+	 * How far from the center the land hexes go
+	 */
+	public static final int LAND_RADIUS = 2;
+
+	/**
+	 * How many land vertices and edges there are
+	 */
+	public static final int VERTICES;
+	public static final int EDGES;
+
+	/**
+	 * How many longs an edge mask takes
+	 */
+	public static final int EDGE_WORDS;
+
+	/*
+	 * Bit of each BoardTopology id, -1 off the land, and id of each bit
+	 */
+	private static final int[] VERTEX_BITS = new int[BoardTopology.VERTEX_COUNT];
+	private static final int[] EDGE_BITS = new int[BoardTopology.EDGE_COUNT];
+	private static final int[] VERTEX_IDS;
+	private static final int[] EDGE_IDS;
+
+	/*
+	 * By bit: the vertices one edge from a vertex, the edges meeting at a
+	 * vertex, and the two vertices of an edge
+	 */
+	private static final long[] VERTEX_NEIGHBORS;
+	private static final long[][] VERTEX_EDGES;
+	private static final long[] EDGE_ENDS;
+	private static final long LAND;
+
+	static {
+		Arrays.fill(VERTEX_BITS, -1);
+		Arrays.fill(EDGE_BITS, -1);
+		int vertices = 0;
+		int edges = 0;
+		int[] vertexIds = new int[BoardTopology.VERTEX_COUNT];
+		int[] edgeIds = new int[BoardTopology.EDGE_COUNT];
+		for (int x = -LAND_RADIUS; x <= LAND_RADIUS; x++) {
+			for (int y = -LAND_RADIUS; y <= LAND_RADIUS; y++) {
+				if (Math.abs(x + y) > LAND_RADIUS) {
+					continue;
+				}
+				for (VertexDirection dir : VertexDirection.values()) {
+					int vertex = BoardTopology.vertexId(x, y, dir);
+					if (VERTEX_BITS[vertex] < 0) {
+						vertexIds[vertices] = vertex;
+						VERTEX_BITS[vertex] = vertices++;
+					}
+				}
+				for (EdgeDirection dir : EdgeDirection.values()) {
+					int edge = BoardTopology.edgeId(x, y, dir);
+					if (EDGE_BITS[edge] < 0) {
+						edgeIds[edges] = edge;
+						EDGE_BITS[edge] = edges++;
+					}
+				}
+			}
+		}
+		if (vertices > 64) {
+			throw new IllegalStateException(vertices
+					+ " land vertices do not fit in a long");
+		}
+		VERTICES = vertices;
+		EDGES = edges;
+		EDGE_WORDS = (edges + 63) / 64;
+		VERTEX_IDS = Arrays.copyOf(vertexIds, vertices);
+		EDGE_IDS = Arrays.copyOf(edgeIds, edges);
+
+		VERTEX_NEIGHBORS = new long[vertices];
+		VERTEX_EDGES = new long[vertices][EDGE_WORDS];
+		EDGE_ENDS = new long[edges];
+		long land = 0;
+		for (int bit = 0; bit < vertices; bit++) {
+			land |= 1L << bit;
+			for (int neighbor : BoardTopology
+					.vertexNeighbors(VERTEX_IDS[bit])) {
+				if (VERTEX_BITS[neighbor] >= 0) {
+					VERTEX_NEIGHBORS[bit] |= 1L << VERTEX_BITS[neighbor];
+				}
+			}
+		}
+		LAND = land;
+		for (int bit = 0; bit < edges; bit++) {
+			for (int vertex : BoardTopology.edgeVertices(EDGE_IDS[bit])) {
+				int end = VERTEX_BITS[vertex];
+				EDGE_ENDS[bit] |= 1L << end;
+				VERTEX_EDGES[end][bit >>> 6] |= 1L << bit;
+			}
+		}
+	}
+
+	private final int players;
+	/*
+	 * Vertices with any building, vertices no settlement may go on by the
+	 * distance rule, and edges with any road
+	 */
+	private long occupied;
+	private long blocked;
+	private final long[] roads = new long[EDGE_WORDS];
+	/*
+	 * By player: vertices with their buildings and cities, vertices their
+	 * roads reach, and edges with their roads
+	 */
+	private final long[] buildings;
+	private final long[] cities;
+	private final long[] roadEnds;
+	private final long[][] playerRoads;
+
+	private AppendList<Road> indexedRoads;
+	private AppendList<VertexObject> indexedSettlements;
+	private AppendList<VertexObject> indexedCities;
+	private int roadChanges;
+	private int settlementChanges;
+	private int cityChanges;
+
+	/**
+	 * Sets a bit for every piece on the map
+	 */
+	public Bitboard(Map map) {
+		players = DerivedState.PLAYERS;
+		buildings = new long[players];
+		cities = new long[players];
+		roadEnds = new long[players];
+		playerRoads = new long[players][EDGE_WORDS];
+		rebuild(map);
+	}
+
+	/**
+	 * @return the bit of the vertex, or -1 if it is not on the land
+	 */
+	public static int vertexBit(int vertex) {
+		return vertex < 0 ? -1 : VERTEX_BITS[vertex];
+	}
+
+	/**
+	 * @return the bit of the edge, or -1 if it is not on the land
+	 */
+	public static int edgeBit(int edge) {
+		return edge < 0 ? -1 : EDGE_BITS[edge];
+	}
+
+	/**
+	 * @return the BoardTopology id of the vertex with the bit
+	 */
+	public static int vertexId(int bit) {
+		return VERTEX_IDS[bit];
+	}
+
+	/**
+	 * @return the BoardTopology id of the edge with the bit
+	 */
+	public static int edgeId(int bit) {
+		return EDGE_IDS[bit];
+	}
+
+	/**
+	 * @return whether the bitboard was built from the map's current pieces
+	 */
+	public boolean isCurrent(Map map) {
+		return map.getRoads() == indexedRoads
+				&& map.getSettlements() == indexedSettlements
+				&& map.getCities() == indexedCities
+				&& changesOf(indexedRoads) == roadChanges
+				&& changesOf(indexedSettlements) == settlementChanges
+				&& changesOf(indexedCities) == cityChanges;
+	}
+
+	/**
+	 * Sets every bit again from scratch
+	 */
+	public void rebuild(Map map) {
+		occupied = 0;
+		blocked = 0;
+		Arrays.fill(roads, 0);
+		Arrays.fill(buildings, 0);
+		Arrays.fill(cities, 0);
+		Arrays.fill(roadEnds, 0);
+		for (long[] words : playerRoads) {
+			Arrays.fill(words, 0);
+		}
+		if (map.getRoads() != null) {
+			for (Road road : map.getRoads()) {
+				placeRoad(road);
+			}
+		}
+		if (map.getSettlements() != null) {
+			for (VertexObject settlement : map.getSettlements()) {
+				placeBuilding(settlement, false);
+			}
+		}
+		if (map.getCities() != null) {
+			for (VertexObject city : map.getCities()) {
+				placeBuilding(city, true);
+			}
+		}
+		remember(map);
+	}
+
+	/**
+	 * Records a road that was just added to the map
+	 */
+	public void roadAdded(Road road, Map map) {
+		placeRoad(road);
+		remember(map);
+	}
+
+	/**
+	 * Records a settlement that was just added to the map
+	 */
+	public void settlementAdded(VertexObject settlement, Map map) {
+		placeBuilding(settlement, false);
+		remember(map);
+	}
+
+	/**
+	 * Records a city that was just added to the map in place of a settlement
+	 */
+	public void cityAdded(VertexObject city, Map map) {
+		placeBuilding(city, true);
+		remember(map);
+	}
+
+	/**
+	 * @return whether the player may put a settlement on the vertex: it is
+	 *         on the land, no building is on it or next to it, and unless
+	 *         placing for free in setup, a road of theirs reaches it
+	 */
+	public boolean canPlaceSettlement(int playerIndex, int vertex,
+			boolean needsRoad) {
+		int bit = vertexBit(vertex);
+		return bit >= 0 && isPlayer(playerIndex)
+				&& (settlementSpots(playerIndex, needsRoad) & 1L << bit) != 0;
+	}
+
+	/**
+	 * @return every vertex, by bit, the player may put a settlement on
+	 */
+	public long settlementSpots(int playerIndex, boolean needsRoad) {
+		if (!isPlayer(playerIndex)) {
+			return 0;
+		}
+		long spots = LAND & ~blocked;
+		return needsRoad ? spots & roadEnds[playerIndex] : spots;
+	}
+
+	/**
+	 * @return every vertex, by bit, with one of the player's settlements
+	 */
+	public long citySpots(int playerIndex) {
+		return isPlayer(playerIndex) ? buildings[playerIndex]
+				& ~cities[playerIndex] : 0;
+	}
+
+	/**
+	 * @return every edge, by bit, with one of the player's roads, as
+	 *         {@link #EDGE_WORDS} longs
+	 */
+	public long[] roadMask(int playerIndex) {
+		return isPlayer(playerIndex) ? playerRoads[playerIndex].clone()
+				: new long[EDGE_WORDS];
+	}
+
+	/**
+	 * @return whether the player may put a road on the edge: it is on the
+	 *         land, no road is on it, and one of its ends has a building of
+	 *         theirs or a road of theirs that no other player's building cuts
+	 */
+	public boolean canPlaceRoad(int playerIndex, int edge) {
+		int bit = edgeBit(edge);
+		return bit >= 0 && isPlayer(playerIndex)
+				&& (roads[bit >>> 6] & 1L << bit) == 0
+				&& (EDGE_ENDS[bit] & frontier(playerIndex)) != 0;
+	}
+
+	/**
+	 * @return every edge, by bit, the player may put a road on, as
+	 *         {@link #EDGE_WORDS} longs
+	 */
+	public long[] roadSpots(int playerIndex) {
+		long[] spots = new long[EDGE_WORDS];
+		if (!isPlayer(playerIndex)) {
+			return spots;
+		}
+		for (long ends = frontier(playerIndex); ends != 0; ends &= ends - 1) {
+			long[] edges = VERTEX_EDGES[Long.numberOfTrailingZeros(ends)];
+			for (int word = 0; word < EDGE_WORDS; word++) {
+				spots[word] |= edges[word];
+			}
+		}
+		for (int word = 0; word < EDGE_WORDS; word++) {
+			spots[word] &= ~roads[word];
+		}
+		return spots;
+	}
+
+	/*
+	 * The vertices a new road of the player's may start from: their
+	 * buildings, and the ends of their roads without another player's
+	 * building
+	 */
+	private long frontier(int playerIndex) {
+		return buildings[playerIndex]
+				| roadEnds[playerIndex]
+				& ~(occupied & ~buildings[playerIndex]);
+	}
+
+	private void placeRoad(Road road) {
+		int bit = edgeBit(BoardTopology.edgeId(road.getLocation()));
+		if (bit >= 0 && isPlayer(road.getOwner())) {
+			roads[bit >>> 6] |= 1L << bit;
+			playerRoads[road.getOwner()][bit >>> 6] |= 1L << bit;
+			roadEnds[road.getOwner()] |= EDGE_ENDS[bit];
+		}
+	}
+
+	private void placeBuilding(VertexObject building, boolean city) {
+		int bit = vertexBit(BoardTopology.vertexId(building.getLocation()));
+		if (bit >= 0 && isPlayer(building.getOwner())) {
+			occupied |= 1L << bit;
+			blocked |= 1L << bit | VERTEX_NEIGHBORS[bit];
+			buildings[building.getOwner()] |= 1L << bit;
+			if (city) {
+				cities[building.getOwner()] |= 1L << bit;
+			}
+		}
+	}
+
+	private void remember(Map map) {
+		indexedRoads = map.getRoads();
+		indexedSettlements = map.getSettlements();
+		indexedCities = map.getCities();
+		roadChanges = changesOf(indexedRoads);
+		settlementChanges = changesOf(indexedSettlements);
+		cityChanges = changesOf(indexedCities);
+	}
+
+	private boolean isPlayer(int playerIndex) {
+		return playerIndex >= 0 && playerIndex < players;
+	}
+
+	private static int changesOf(AppendList<?> pieces) {
+		return pieces == null ? 0 : pieces.getChangeCount();
+	}
+}
@@ -0,0 +1,170 @@
+package server.model;
+
+import java.util.Arrays;
+
+import shared.locations.BoardTopology;
+import shared.model.AppendList;
+import shared.model.Map;
+import shared.model.Road;
+import shared.model.VertexObject;
+
+/**
+ * Who owns each edge and vertex of one game's board, keyed by
+ * {@link BoardTopology} id, so a legality check is an array lookup instead of
+ * a scan of the map's pieces. ServerModel keeps it up to date as pieces are
+ * added. It remembers which road, settlement and city lists it was built
+ * from and how many changes each had seen, so pieces swapped or added some
+ * other way are noticed and indexed again. Must be used while holding the game lock.
+ */
+public class BoardIndex {
+	private final int[] roadOwners = new int[BoardTopology.EDGE_COUNT];
+	private final int[] buildingOwners = new int[BoardTopology.VERTEX_COUNT];
+	private final boolean[] cities = new boolean[BoardTopology.VERTEX_COUNT];
+
+	private AppendList<Road> indexedRoads;
+	private AppendList<VertexObject> indexedSettlements;
+	private AppendList<VertexObject> indexedCities;
+	private int roadChanges;
+	private int settlementChanges;
+	private int cityChanges;
+
+	/**
+	 * Indexes every piece on the map
+	 */
+	public BoardIndex(Map map) {
+		rebuild(map);
+	}
+
+	/**
+	 * @return whether the index was built from the map's current pieces
+	 */
+	public boolean isCurrent(Map map) {
+		return map.getRoads() == indexedRoads
+				&& map.getSettlements() == indexedSettlements
+				&& map.getCities() == indexedCities
+				&& changesOf(indexedRoads) == roadChanges
+				&& changesOf(indexedSettlements) == settlementChanges
+				&& changesOf(indexedCities) == cityChanges;
+	}
+
+	/**
+	 * Indexes the map again from scratch
+	 */
+	public void rebuild(Map map) {
+		Arrays.fill(roadOwners, -1);
+		Arrays.fill(buildingOwners, -1);
+		Arrays.fill(cities, false);
+		if (map.getRoads() != null) {
+			for (Road road : map.getRoads()) {
+				placeRoad(road);
+			}
+		}
+		if (map.getSettlements() != null) {
+			for (VertexObject settlement : map.getSettlements()) {
+				placeBuilding(settlement, false);
+			}
+		}
+		if (map.getCities() != null) {
+			for (VertexObject city : map.getCities()) {
+				placeBuilding(city, true);
+			}
+		}
+		remember(map);
+	}
+
+	/**
+	 * Records a road that was just added to the map
+	 */
+	public void roadAdded(Road road, Map map) {
+		placeRoad(road);
+		remember(map);
+	}
+
+	/**
+	 * Records a settlement that was just added to the map
+	 */
+	public void settlementAdded(VertexObject settlement, Map map) {
+		placeBuilding(settlement, false);
+		remember(map);
+	}
+
+	/**
+	 * Records a city that was just added to the map in place of a settlement
+	 */
+	public void cityAdded(VertexObject city, Map map) {
+		placeBuilding(city, true);
+		remember(map);
+	}
+
+	/**
+	 * @return the owner of the road on an edge, or -1 if there is none
+	 */
+	public int roadOwner(int edge) {
+		return edge < 0 ? -1 : roadOwners[edge];
+	}
+
+	/**
+	 * @return the owner of the settlement or city on a vertex, or -1 if there
+	 *         is none
+	 */
+	public int buildingOwner(int vertex) {
+		return vertex < 0 ? -1 : buildingOwners[vertex];
+	}
+
+	/**
+	 * @return the owner of the settlement on a vertex, or -1 if there is none
+	 */
+	public int settlementOwner(int vertex) {
+		return vertex < 0 || cities[vertex] ? -1 : buildingOwners[vertex];
+	}
+
+	/**
+	 * @return the owner of the city on a vertex, or -1 if there is none
+	 */
+	public int cityOwner(int vertex) {
+		return vertex < 0 || !cities[vertex] ? -1 : buildingOwners[vertex];
+	}
+
+	/**
+	 * @return whether the player owns a road on any edge meeting the vertex
+	 */
+	public boolean hasRoadAt(int playerIndex, int vertex) {
+		if (vertex < 0) {
+			return false;
+		}
+		for (int edge : BoardTopology.vertexEdges(vertex)) {
+			if (roadOwners[edge] == playerIndex) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void placeRoad(Road road) {
+		int edge = BoardTopology.edgeId(road.getLocation());
+		if (edge >= 0) {
+			roadOwners[edge] = road.getOwner();
+		}
+	}
+
+	private void placeBuilding(VertexObject building, boolean city) {
+		int vertex = BoardTopology.vertexId(building.getLocation());
+		if (vertex >= 0) {
+			buildingOwners[vertex] = building.getOwner();
+			cities[vertex] = city;
+		}
+	}
+
+	private void remember(Map map) {
+		indexedRoads = map.getRoads();
+		indexedSettlements = map.getSettlements();
+		indexedCities = map.getCities();
+		roadChanges = changesOf(indexedRoads);
+		settlementChanges = changesOf(indexedSettlements);
+		cityChanges = changesOf(indexedCities);
+	}
+
+	private static int changesOf(AppendList<?> pieces) {
+		return pieces == null ? 0 : pieces.getChangeCount();
+	}
+}
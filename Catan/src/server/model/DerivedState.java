@@ -0,0 +1,286 @@
+package server.model;
+
+import java.util.Arrays;
+
+import shared.definitions.ResourceType;
+import shared.locations.BoardTopology;
+import shared.model.AppendList;
+import shared.model.Map;
+import shared.model.Player;
+import shared.model.Port;
+import shared.model.Road;
+import shared.model.TurnTracker;
+import shared.model.VertexObject;
+
+/**
+ * Facts about each player that follow from the pieces and cards they have
+ * played: the ports they can trade through, their buildings and longest
+ * road, and with their army and monuments, which are read from the players
+ * as they are, their victory points. ServerModel keeps it up to date as
+ * pieces are added, so each fact is read without scanning the board. Like
+ * {@link BoardIndex} it remembers which lists it was built from and builds
+ * itself again if they were swapped or added to some other way. Must be
+ * used while holding the game lock.
+ */
+public class DerivedState {
+	/**
+	 * The most players a game has
+	 */
+	public static final int PLAYERS = 4;
+
+	/*
+	 * Bit of a player's port mask for a port that trades any resource 3:1;
+	 * the bits below it are the resource ports, by ResourceType ordinal
+	 */
+	private static final int GENERIC_PORT = 1 << ResourceType.values().length;
+
+	/*
+	 * The port mask a building on each vertex gives its owner
+	 */
+	private final int[] vertexPorts = new int[BoardTopology.VERTEX_COUNT];
+
+	private final int[] ports = new int[PLAYERS];
+	private final int[] settlements = new int[PLAYERS];
+	private final int[] cities = new int[PLAYERS];
+	private final LongestRoad longestRoad = new LongestRoad(LongestRoad.BOARD,
+			PLAYERS);
+
+	private Port[] indexedPorts;
+	private Player[] indexedPlayers;
+	private AppendList<Road> indexedRoads;
+	private AppendList<VertexObject> indexedSettlements;
+	private AppendList<VertexObject> indexedCities;
+	private int roadChanges;
+	private int settlementChanges;
+	private int cityChanges;
+
+	/**
+	 * Works out every fact from the map and players
+	 */
+	public DerivedState(Map map, Player[] players) {
+		rebuild(map, players);
+	}
+
+	/**
+	 * @return whether the state was worked out from the game's current ports,
+	 *         pieces and players
+	 */
+	public boolean isCurrent(Map map, Player[] players) {
+		return map.getPorts() == indexedPorts && players == indexedPlayers
+				&& map.getRoads() == indexedRoads
+				&& map.getSettlements() == indexedSettlements
+				&& map.getCities() == indexedCities
+				&& changesOf(indexedRoads) == roadChanges
+				&& changesOf(indexedSettlements) == settlementChanges
+				&& changesOf(indexedCities) == cityChanges;
+	}
+
+	/**
+	 * Works out every fact again from scratch
+	 */
+	public void rebuild(Map map, Player[] players) {
+		Arrays.fill(vertexPorts, 0);
+		Arrays.fill(ports, 0);
+		Arrays.fill(settlements, 0);
+		Arrays.fill(cities, 0);
+		longestRoad.clear();
+		if (map.getPorts() != null) {
+			for (Port port : map.getPorts()) {
+				int mask = portMask(port);
+				int edge = BoardTopology.edgeId(port.getLocation().getX(), port
+						.getLocation().getY(), port.getDir());
+				if (mask == 0 || edge < 0) {
+					continue;
+				}
+				for (int vertex : BoardTopology.edgeVertices(edge)) {
+					vertexPorts[vertex] |= mask;
+				}
+			}
+		}
+		if (map.getSettlements() != null) {
+			for (VertexObject settlement : map.getSettlements()) {
+				placeBuilding(settlement, settlements);
+			}
+		}
+		if (map.getCities() != null) {
+			for (VertexObject city : map.getCities()) {
+				placeBuilding(city, cities);
+			}
+		}
+		// the buildings are down first, so each road is searched once
+		if (map.getRoads() != null) {
+			for (Road road : map.getRoads()) {
+				placeRoad(road);
+			}
+		}
+		remember(map, players);
+	}
+
+	/**
+	 * Records a road that was just added to the map
+	 */
+	public void roadAdded(Road road, Map map) {
+		placeRoad(road);
+		remember(map, indexedPlayers);
+	}
+
+	/**
+	 * Records a settlement that was just added to the map
+	 */
+	public void settlementAdded(VertexObject settlement, Map map) {
+		placeBuilding(settlement, settlements);
+		remember(map, indexedPlayers);
+	}
+
+	/**
+	 * Records a city that was just added to the map in place of a settlement
+	 */
+	public void cityAdded(VertexObject city, Map map) {
+		placeBuilding(city, cities);
+		if (isPlayer(city.getOwner())) {
+			settlements[city.getOwner()]--;
+		}
+		remember(map, indexedPlayers);
+	}
+
+	/**
+	 * @return how many of the resource the player gives the bank for one
+	 *         card: 2 at a port for it, 3 at any other port, otherwise 4
+	 */
+	public int getTradeRatio(int playerIndex, ResourceType resource) {
+		if (hasResourcePort(playerIndex, resource)) {
+			return 2;
+		}
+		return hasGenericPort(playerIndex) ? 3 : 4;
+	}
+
+	/**
+	 * @return whether the player has a building at a 2:1 port for the
+	 *         resource
+	 */
+	public boolean hasResourcePort(int playerIndex, ResourceType resource) {
+		return isPlayer(playerIndex)
+				&& (ports[playerIndex] & 1 << resource.ordinal()) != 0;
+	}
+
+	/**
+	 * @return whether the player has a building at a 3:1 port
+	 */
+	public boolean hasGenericPort(int playerIndex) {
+		return isPlayer(playerIndex)
+				&& (ports[playerIndex] & GENERIC_PORT) != 0;
+	}
+
+	public int getSettlements(int playerIndex) {
+		return isPlayer(playerIndex) ? settlements[playerIndex] : 0;
+	}
+
+	public int getCities(int playerIndex) {
+		return isPlayer(playerIndex) ? cities[playerIndex] : 0;
+	}
+
+	/**
+	 * @return the player's longest road, see {@link LongestRoad}
+	 */
+	public int getRoadLength(int playerIndex) {
+		return longestRoad.getLength(playerIndex);
+	}
+
+	/**
+	 * @return how many soldier cards the player has played
+	 */
+	public int getArmySize(int playerIndex) {
+		Player player = player(playerIndex);
+		return player == null ? 0 : player.getSoldiers();
+	}
+
+	/**
+	 * @return how many monument cards the player has played
+	 */
+	public int getMonuments(int playerIndex) {
+		Player player = player(playerIndex);
+		return player == null ? 0 : player.getMonuments();
+	}
+
+	/**
+	 * @return the points the player has from settlements and cities
+	 */
+	public int getBuildingPoints(int playerIndex) {
+		return getSettlements(playerIndex) + 2 * getCities(playerIndex);
+	}
+
+	/**
+	 * @return the points the player has from buildings, monuments and the
+	 *         longest road and largest army the turn tracker gives them
+	 */
+	public int getVictoryPoints(int playerIndex, TurnTracker turnTracker) {
+		int points = getBuildingPoints(playerIndex)
+				+ getMonuments(playerIndex);
+		if (turnTracker != null && turnTracker.getLongestRoad() == playerIndex) {
+			points += 2;
+		}
+		if (turnTracker != null && turnTracker.getLargestArmy() == playerIndex) {
+			points += 2;
+		}
+		return points;
+	}
+
+	private void placeRoad(Road road) {
+		longestRoad.roadAdded(BoardTopology.edgeId(road.getLocation()),
+				road.getOwner());
+	}
+
+	private void placeBuilding(VertexObject building, int[] counts) {
+		int vertex = BoardTopology.vertexId(building.getLocation());
+		if (isPlayer(building.getOwner()) && vertex >= 0) {
+			counts[building.getOwner()]++;
+			ports[building.getOwner()] |= vertexPorts[vertex];
+			longestRoad.buildingAdded(vertex, building.getOwner());
+		}
+	}
+
+	private void remember(Map map, Player[] players) {
+		indexedPorts = map.getPorts();
+		indexedPlayers = players;
+		indexedRoads = map.getRoads();
+		indexedSettlements = map.getSettlements();
+		indexedCities = map.getCities();
+		roadChanges = changesOf(indexedRoads);
+		settlementChanges = changesOf(indexedSettlements);
+		cityChanges = changesOf(indexedCities);
+	}
+
+	private Player player(int playerIndex) {
+		if (indexedPlayers != null) {
+			for (Player player : indexedPlayers) {
+				if (player != null && player.getPlayerIndex() == playerIndex) {
+					return player;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static int portMask(Port port) {
+		if (port.getLocation() == null) {
+			return 0;
+		}
+		if (port.getResource() == null) {
+			return GENERIC_PORT;
+		}
+		for (ResourceType resource : ResourceType.values()) {
+			if (resource.toString().equals(port.getResource())) {
+				return 1 << resource.ordinal();
+			}
+		}
+		return 0;
+	}
+
+	private static boolean isPlayer(int playerIndex) {
+		return playerIndex >= 0 && playerIndex < PLAYERS;
+	}
+
+	private static int changesOf(AppendList<?> pieces) {
+		return pieces == null ? 0 : pieces.getChangeCount();
+	}
+}
@@ -1,18 +1,38 @@
 package server.model;
 
-import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import shared.communication.GameSummary;
+import shared.utils.ByteSerializer;
 
+/**
+ * The summaries of every game on the server, in the order they were added,
+ * indexed by id and by title.
+ *
+ * The list has a version that goes up with every change, including a change
+ * made to a summary in place, which must be followed by a call to
+ * {@link #changed()}. The JSON of the whole list is encoded once per version
+ * and shared by every lobby poll, see {@link #getSnapshot()}.
+ */
 public class GameList {
-	private ArrayList<GameSummary> gameList = new ArrayList<GameSummary>();
+	private List<GameSummary> gameList = new CopyOnWriteArrayList<GameSummary>();
+	/*
+	 * The first summary in the list with each id and title
+	 */
+	private final ConcurrentHashMap<Integer, GameSummary> byID = new ConcurrentHashMap<Integer, GameSummary>();
+	private final ConcurrentHashMap<String, GameSummary> byTitle = new ConcurrentHashMap<String, GameSummary>();
+	private final AtomicInteger version = new AtomicInteger();
+	private volatile ModelSnapshot snapshot = null;
 	private static GameList singleton = null;
 
 	private GameList() {
 
 	}
 
-	public static GameList getSingleton() {
+	public static synchronized GameList getSingleton() {
 		if (singleton == null) {
 			singleton = new GameList();
 		}
@@ -21,32 +41,92 @@ public class GameList {
 
 	public void addGame(GameSummary summary) {
 		gameList.add(summary);
+		index(summary);
+		changed();
+	}
+
+	/**
+	 * Adds many games with one copy of the list
+	 */
+	public void addGames(List<GameSummary> summaries) {
+		gameList.addAll(summaries);
+		for (GameSummary summary : summaries) {
+			index(summary);
+		}
+		changed();
 	}
 
 	public void removeGame(GameSummary summary) {
-		gameList.remove(summary);
+		if (summary == null || !gameList.remove(summary)) {
+			return;
+		}
+		// by value, in case the summary was renamed after it was indexed
+		boolean reindex = byID.values().remove(summary);
+		reindex |= byTitle.values().remove(summary);
+		if (reindex) {
+			// another game may share the id or title
+			for (GameSummary other : gameList) {
+				index(other);
+			}
+		}
+		changed();
 	}
 
-	public ArrayList<GameSummary> getGames() {
+	public List<GameSummary> getGames() {
 		return gameList;
 	}
 
 	public GameSummary getGame(String name) {
-		for (GameSummary summary : gameList) {
-			if (name.equals(summary.getTitle())) {
-				return summary;
-			}
-		}
-		return null;
+		return byTitle.get(name);
 	}
 
 	public GameSummary getGameByID(int id) {
-		for (GameSummary summary : gameList) {
-			if (id == (summary.getId())) {
-				return summary;
-			}
+		return byID.get(id);
+	}
+
+	/**
+	 * Moves the list to a new version. Call after changing a summary in the
+	 * list.
+	 */
+	public void changed() {
+		version.incrementAndGet();
+	}
+
+	/**
+	 * @return the number of changes made to the list so far
+	 */
+	public int getVersion() {
+		return version.get();
+	}
+
+	/**
+	 * Returns the JSON of the list at its current version, encoding it only
+	 * the first time the version is asked for
+	 *
+	 * @return the list as a JSON array of summaries
+	 */
+	public ModelSnapshot getSnapshot() {
+		ModelSnapshot current = snapshot;
+		/*
+		 * The version is read before the list, so a change made while it is
+		 * encoded can only make the encoding newer than its version says,
+		 * and the next call encodes it again
+		 */
+		int listVersion = version.get();
+		if (current == null || current.getVersion() != listVersion) {
+			current = new ModelSnapshot(listVersion,
+					ByteSerializer.serializeToBytes(gameList
+							.toArray(new GameSummary[0])));
+			snapshot = current;
+		}
+		return current;
+	}
+
+	private void index(GameSummary summary) {
+		byID.putIfAbsent(summary.getId(), summary);
+		if (summary.getTitle() != null) {
+			byTitle.putIfAbsent(summary.getTitle(), summary);
 		}
-		return null;
 	}
 
 }
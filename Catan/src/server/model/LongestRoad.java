@@ -0,0 +1,319 @@
+package server.model;
+
+import java.util.Arrays;
+
+import shared.locations.BoardTopology;
+
+/**
+ * Each player's longest road: the most roads they can travel in a row
+ * without using a road twice or passing through another player's settlement
+ * or city.
+ *
+ * A player's roads fall into components, roads joined at vertices no other
+ * player has built on. The longest road of each component is found once, by
+ * a depth first search from the few vertices a longest road can start at,
+ * and kept until a road joins the component or another player's building
+ * cuts it, when only the components touched are searched again. Must be used
+ * while holding the game lock.
+ */
+public class LongestRoad {
+	/**
+	 * The board the roads are built on, as compact adjacency arrays. Shared by
+	 * every game played on it.
+	 */
+	public static final class Graph {
+		/*
+		 * The two vertices of each edge, -1 for an edge off the board
+		 */
+		private final int[] ends;
+		/*
+		 * The edges meeting at vertex v are edges[firstEdge[v]] up to
+		 * edges[firstEdge[v + 1]]
+		 */
+		private final int[] firstEdge;
+		private final int[] edges;
+
+		/**
+		 * @param vertexCount
+		 *            - how many vertices the board has
+		 * @param ends
+		 *            - the two vertices of each edge in turn, both -1 for an
+		 *            edge no road can be built on
+		 */
+		public Graph(int vertexCount, int[] ends) {
+			this.ends = ends.clone();
+			this.firstEdge = new int[vertexCount + 1];
+			for (int end : ends) {
+				if (end >= 0) {
+					firstEdge[end + 1]++;
+				}
+			}
+			for (int vertex = 0; vertex < vertexCount; vertex++) {
+				firstEdge[vertex + 1] += firstEdge[vertex];
+			}
+			this.edges = new int[firstEdge[vertexCount]];
+			int[] filled = Arrays.copyOf(firstEdge, vertexCount);
+			for (int i = 0; i < ends.length; i++) {
+				if (ends[i] >= 0) {
+					edges[filled[ends[i]]++] = i / 2;
+				}
+			}
+		}
+
+		public int getVertexCount() {
+			return firstEdge.length - 1;
+		}
+
+		public int getEdgeCount() {
+			return ends.length / 2;
+		}
+
+		private int other(int edge, int vertex) {
+			return ends[2 * edge] == vertex ? ends[2 * edge + 1]
+					: ends[2 * edge];
+		}
+	}
+
+	/**
+	 * The board every game is played on, numbered by {@link BoardTopology}
+	 */
+	public static final Graph BOARD = boardGraph();
+
+	private final Graph graph;
+	private final int players;
+	private final int[] edgeOwners;
+	private final int[] vertexOwners;
+	/*
+	 * The component each road is in, and the longest road of each component
+	 * by id; ids are never reused, so a road labeled before the current
+	 * search began is known to need searching
+	 */
+	private final int[] components;
+	private int[] componentLengths = new int[64];
+	private int nextComponent = 0;
+	private final int[][] playerRoads;
+	private final int[] playerRoadCounts;
+	private final int[] lengths;
+
+	/*
+	 * Scratch space for searches
+	 */
+	private final boolean[] used;
+	private final int[] queue;
+	private final int[] componentVertices;
+	private final int[] vertexSeen;
+	private int seenMark = 0;
+
+	public LongestRoad(Graph graph, int players) {
+		this.graph = graph;
+		this.players = players;
+		int edgeCount = graph.getEdgeCount();
+		int vertexCount = graph.getVertexCount();
+		edgeOwners = new int[edgeCount];
+		vertexOwners = new int[vertexCount];
+		components = new int[edgeCount];
+		playerRoads = new int[players][16];
+		playerRoadCounts = new int[players];
+		lengths = new int[players];
+		used = new boolean[edgeCount];
+		queue = new int[edgeCount];
+		componentVertices = new int[vertexCount];
+		vertexSeen = new int[vertexCount];
+		clear();
+	}
+
+	/**
+	 * Removes every road and building
+	 */
+	public void clear() {
+		Arrays.fill(edgeOwners, -1);
+		Arrays.fill(vertexOwners, -1);
+		Arrays.fill(components, -1);
+		Arrays.fill(playerRoadCounts, 0);
+		Arrays.fill(lengths, 0);
+		nextComponent = 0;
+	}
+
+	/**
+	 * Adds a road and searches the component it joins
+	 */
+	public void roadAdded(int edge, int owner) {
+		if (!isPlayer(owner) || edge < 0 || edgeOwners[edge] >= 0
+				|| graph.ends[2 * edge] < 0) {
+			return;
+		}
+		edgeOwners[edge] = owner;
+		if (playerRoadCounts[owner] == playerRoads[owner].length) {
+			playerRoads[owner] = Arrays.copyOf(playerRoads[owner],
+					2 * playerRoads[owner].length);
+		}
+		playerRoads[owner][playerRoadCounts[owner]++] = edge;
+		// a component only grows, so the player's longest can only grow
+		lengths[owner] = Math.max(lengths[owner], search(edge, owner));
+	}
+
+	/**
+	 * Adds a settlement or city and searches again any other player's
+	 * components it cuts
+	 */
+	public void buildingAdded(int vertex, int owner) {
+		if (vertex < 0 || vertexOwners[vertex] == owner) {
+			return;
+		}
+		vertexOwners[vertex] = owner;
+		int firstNew = nextComponent;
+		boolean[] cut = new boolean[players];
+		for (int i = graph.firstEdge[vertex]; i < graph.firstEdge[vertex + 1]; i++) {
+			int edge = graph.edges[i];
+			int roadOwner = edgeOwners[edge];
+			if (roadOwner >= 0 && roadOwner != owner
+					&& components[edge] < firstNew) {
+				search(edge, roadOwner);
+				cut[roadOwner] = true;
+			}
+		}
+		for (int player = 0; player < players; player++) {
+			if (cut[player]) {
+				lengths[player] = longestComponent(player);
+			}
+		}
+	}
+
+	/**
+	 * Finds every component again, for roads and buildings placed some other
+	 * way than one at a time
+	 */
+	public void searchAll() {
+		Arrays.fill(components, -1);
+		for (int player = 0; player < players; player++) {
+			for (int i = 0; i < playerRoadCounts[player]; i++) {
+				int edge = playerRoads[player][i];
+				if (components[edge] < 0) {
+					search(edge, player);
+				}
+			}
+			lengths[player] = longestComponent(player);
+		}
+	}
+
+	/**
+	 * @return the player's longest road
+	 */
+	public int getLength(int playerIndex) {
+		return isPlayer(playerIndex) ? lengths[playerIndex] : 0;
+	}
+
+	/*
+	 * Labels the component the road is in with a new id and finds its
+	 * longest road
+	 */
+	private int search(int edge, int owner) {
+		int id = nextComponent++;
+		if (id == componentLengths.length) {
+			componentLengths = Arrays.copyOf(componentLengths, 2 * id);
+		}
+		int mark = ++seenMark;
+		int vertexCount = 0;
+		int head = 0;
+		int tail = 0;
+		components[edge] = id;
+		queue[tail++] = edge;
+		while (head < tail) {
+			int road = queue[head++];
+			for (int side = 0; side < 2; side++) {
+				int vertex = graph.ends[2 * road + side];
+				if (vertexSeen[vertex] != mark) {
+					vertexSeen[vertex] = mark;
+					componentVertices[vertexCount++] = vertex;
+				}
+				if (isBlocked(vertex, owner)) {
+					continue;
+				}
+				for (int i = graph.firstEdge[vertex]; i < graph.firstEdge[vertex + 1]; i++) {
+					int next = graph.edges[i];
+					if (edgeOwners[next] == owner && components[next] != id) {
+						components[next] = id;
+						queue[tail++] = next;
+					}
+				}
+			}
+		}
+
+		/*
+		 * A longest road that is not a loop ends where no further road can
+		 * be taken: at a vertex with one or three of the player's roads, or
+		 * another player's building. A loop through only two-road vertices
+		 * is the whole component and can start anywhere.
+		 */
+		int longest = 0;
+		boolean searched = false;
+		for (int i = 0; i < vertexCount; i++) {
+			int vertex = componentVertices[i];
+			if (isBlocked(vertex, owner) || roadsAt(vertex, owner) != 2) {
+				longest = Math.max(longest, walk(vertex, id, 0));
+				searched = true;
+			}
+		}
+		if (!searched) {
+			longest = walk(componentVertices[0], id, 0);
+		}
+		componentLengths[id] = longest;
+		return longest;
+	}
+
+	/*
+	 * The longest road from the vertex on roads of the component; a road
+	 * starting at another player's building only follows that side of it
+	 */
+	private int walk(int vertex, int component, int length) {
+		int best = length;
+		for (int i = graph.firstEdge[vertex]; i < graph.firstEdge[vertex + 1]; i++) {
+			int edge = graph.edges[i];
+			if (components[edge] == component && !used[edge]) {
+				used[edge] = true;
+				int next = graph.other(edge, vertex);
+				best = Math.max(best, isBlocked(next, edgeOwners[edge]) ? length + 1
+						: walk(next, component, length + 1));
+				used[edge] = false;
+			}
+		}
+		return best;
+	}
+
+	private int longestComponent(int player) {
+		int longest = 0;
+		for (int i = 0; i < playerRoadCounts[player]; i++) {
+			longest = Math.max(longest,
+					componentLengths[components[playerRoads[player][i]]]);
+		}
+		return longest;
+	}
+
+	private int roadsAt(int vertex, int owner) {
+		int count = 0;
+		for (int i = graph.firstEdge[vertex]; i < graph.firstEdge[vertex + 1]; i++) {
+			if (edgeOwners[graph.edges[i]] == owner) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private boolean isBlocked(int vertex, int owner) {
+		return vertexOwners[vertex] >= 0 && vertexOwners[vertex] != owner;
+	}
+
+	private boolean isPlayer(int playerIndex) {
+		return playerIndex >= 0 && playerIndex < players;
+	}
+
+	private static Graph boardGraph() {
+		int[] ends = new int[2 * BoardTopology.EDGE_COUNT];
+		for (int edge = 0; edge < BoardTopology.EDGE_COUNT; edge++) {
+			int[] vertices = BoardTopology.edgeVertices(edge);
+			ends[2 * edge] = vertices.length == 2 ? vertices[0] : -1;
+			ends[2 * edge + 1] = vertices.length == 2 ? vertices[1] : -1;
+		}
+		return new Graph(BoardTopology.VERTEX_COUNT, ends);
+	}
+}
@@ -0,0 +1,162 @@
+package server.model;
+
+import shared.model.AppendList;
+import shared.model.Map;
+import shared.model.MessageLine;
+import shared.model.ModelPatch;
+import shared.model.Player;
+import shared.model.Road;
+import shared.model.VertexObject;
+
+/**
+ * Remembers enough about the last few versions of a game to build a
+ * {@link ModelPatch} from any of them to the current version. Only lengths
+ * are kept for the parts that only grow, plus a copy of each player, which
+ * is compared with the player by value. Must be used while holding the game
+ * lock.
+ */
+public class ModelHistory {
+	/**
+	 * How many versions back a client can be and still get a patch
+	 */
+	public static final int DEFAULT_CAPACITY = 64;
+
+	private final Mark[] marks;
+
+	public ModelHistory() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public ModelHistory(int capacity) {
+		this.marks = new Mark[capacity];
+	}
+
+	/**
+	 * Records the model's state as the state of its current version, unless
+	 * that version is already recorded.
+	 */
+	public void record(ServerModel model) {
+		int version = model.getVersion();
+		if (version < 0) {
+			return;
+		}
+		Mark mark = marks[version % marks.length];
+		if (mark == null || mark.version != version) {
+			marks[version % marks.length] = new Mark(model);
+		}
+	}
+
+	/**
+	 * @return a patch from fromVersion to the model's current version, or null
+	 *         if fromVersion is no longer remembered
+	 */
+	public ModelPatch diff(ServerModel model, int fromVersion) {
+		if (fromVersion < 0 || fromVersion >= model.getVersion()) {
+			return null;
+		}
+		Mark from = marks[fromVersion % marks.length];
+		if (from == null || from.version != fromVersion) {
+			return null;
+		}
+		Map map = model.getMap();
+		if (map.getRoads().size() < from.roadCount
+				|| map.getCities().size() < from.cityCount
+				|| model.getLog().getLines().size() < from.logLength
+				|| model.getChat().getLines().size() < from.chatLength) {
+			// something was taken away, which a patch cannot express
+			return null;
+		}
+
+		ModelPatch patch = new ModelPatch(fromVersion, model.getVersion());
+		patch.setBank(model.getBank());
+		patch.setDeck(model.getDeck());
+		patch.setTradeOffer(model.getTradeOffer());
+		patch.setTurnTracker(model.getTurnTracker());
+		patch.setWinner(model.getWinner());
+		patch.setRobber(map.getRobber());
+		patch.setPlayers(changedPlayers(from.players, model.getPlayers()));
+		patch.setLog(from.logLength, tail(model.getLog().getLines(),
+				from.logLength, new MessageLine[0]));
+		patch.setChat(from.chatLength, tail(model.getChat().getLines(),
+				from.chatLength, new MessageLine[0]));
+		patch.setRoads(from.roadCount,
+				tail(map.getRoads(), from.roadCount, new Road[0]));
+		patch.setCities(from.cityCount,
+				tail(map.getCities(), from.cityCount, new VertexObject[0]));
+		if (map.getSettlements() != from.settlements
+				|| map.getSettlements().getChangeCount() != from.settlementChanges) {
+			patch.setSettlements(map.getSettlements().toArray(
+					new VertexObject[0]));
+		}
+		return patch;
+	}
+
+	private static Player[] changedPlayers(Player[] before, Player[] now) {
+		if (now == null) {
+			return null;
+		}
+		if (before == null || before.length != now.length) {
+			return now;
+		}
+		Player[] changed = new Player[now.length];
+		boolean anyChanged = false;
+		for (int i = 0; i < now.length; i++) {
+			if (now[i] == null) {
+				continue;
+			}
+			if (!now[i].equals(before[i])) {
+				changed[i] = now[i];
+				anyChanged = true;
+			}
+		}
+		return anyChanged ? changed : null;
+	}
+
+	private static <E> E[] tail(AppendList<E> items, int from, E[] empty) {
+		if (items.size() == from) {
+			return null;
+		}
+		return items.subList(from, items.size()).toArray(empty);
+	}
+
+	/**
+	 * What a version looked like
+	 */
+	private static class Mark {
+		private final int version;
+		private final Player[] players;
+		private final int logLength;
+		private final int chatLength;
+		private final int roadCount;
+		private final int cityCount;
+		private final AppendList<VertexObject> settlements;
+		private final int settlementChanges;
+
+		private Mark(ServerModel model) {
+			this.version = model.getVersion();
+			Player[] current = model.getPlayers();
+			if (current != null) {
+				this.players = new Player[current.length];
+				for (int i = 0; i < current.length; i++) {
+					if (current[i] != null) {
+						this.players[i] = current[i].copy();
+					}
+				}
+			} else {
+				this.players = null;
+			}
+			this.logLength = lengthOf(model.getLog().getLines());
+			this.chatLength = lengthOf(model.getChat().getLines());
+			Map map = model.getMap();
+			this.roadCount = lengthOf(map.getRoads());
+			this.cityCount = lengthOf(map.getCities());
+			this.settlements = map.getSettlements();
+			this.settlementChanges = map.getSettlements() == null ? 0 : map
+					.getSettlements().getChangeCount();
+		}
+
+		private static int lengthOf(AppendList<?> items) {
+			return items == null ? 0 : items.size();
+		}
+	}
+}
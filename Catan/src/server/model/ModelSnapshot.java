@@ -0,0 +1,58 @@
+package server.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The client model JSON of one version of a game, or the JSON of one version
+ * of the game list, encoded once and handed to every poller that asks for
+ * that version. The bytes must not be modified.
+ */
+public class ModelSnapshot {
+	private final int version;
+	private final byte[] json;
+	private byte[] gzip = null;
+
+	/**
+	 * @param version
+	 *            - the model or list version the JSON was taken from
+	 * @param json
+	 *            - the UTF-8 JSON
+	 */
+	public ModelSnapshot(int version, byte[] json) {
+		this.version = version;
+		this.json = json;
+	}
+
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return the UTF-8 client model JSON
+	 */
+	public byte[] getJson() {
+		return json;
+	}
+
+	/**
+	 * Compresses the JSON the first time it is asked for and keeps the result.
+	 *
+	 * @return the gzipped client model JSON
+	 */
+	public synchronized byte[] getGzip() {
+		if (gzip == null) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+					json.length / 4);
+			try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+				out.write(json);
+			} catch (IOException e) {
+				// a ByteArrayOutputStream never throws
+				throw new IllegalStateException(e);
+			}
+			gzip = bytes.toByteArray();
+		}
+		return gzip;
+	}
+}
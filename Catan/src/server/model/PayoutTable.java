@@ -0,0 +1,250 @@
+package server.model;
+
+import java.util.Arrays;
+
+import shared.definitions.ResourceType;
+import shared.locations.BoardTopology;
+import shared.locations.HexLocation;
+import shared.locations.VertexDirection;
+import shared.model.AppendList;
+import shared.model.Hex;
+import shared.model.Map;
+import shared.model.VertexObject;
+
+/**
+ * What each dice number pays out: for every number, the hexes showing it and
+ * the player, resource and amount each building on them collects. A roll
+ * adds up the entries of its number, skipping the hex the robber is on,
+ * instead of looking for buildings around every hex. ServerModel keeps it up
+ * to date as buildings are added and the robber moves. Like
+ * {@link BoardIndex} it remembers which hexes and lists it was built from and
+ * builds itself again if they were swapped or added to some other way. Must
+ * be used while holding the game lock.
+ */
+public class PayoutTable {
+	private static final int NUMBERS = 13;
+	private static final int RESOURCES = ResourceType.values().length;
+
+	/*
+	 * The hexes, by index into the map's hexes, each vertex collects from,
+	 * and each hex's number and resource ordinal
+	 */
+	private final int[][] vertexHexes = new int[BoardTopology.VERTEX_COUNT][];
+	private final int[] vertexHexCounts = new int[BoardTopology.VERTEX_COUNT];
+	private int[] hexNumbers = new int[0];
+	private int[] hexResources = new int[0];
+
+	/*
+	 * The entries for each number, as parallel arrays of the hex paying out,
+	 * the vertex of the building collecting, its owner and how many it
+	 * collects
+	 */
+	private final int[][] entryHexes = new int[NUMBERS][];
+	private final int[][] entryVertices = new int[NUMBERS][];
+	private final int[][] entryOwners = new int[NUMBERS][];
+	private final int[][] entryAmounts = new int[NUMBERS][];
+	private final int[] entryCounts = new int[NUMBERS];
+
+	private int robberHex = -1;
+	private final int[][] payout;
+
+	private Hex[] indexedHexes;
+	private HexLocation indexedRobber;
+	private AppendList<VertexObject> indexedSettlements;
+	private AppendList<VertexObject> indexedCities;
+	private int settlementChanges;
+	private int cityChanges;
+
+	/**
+	 * Works out every payout from the map
+	 */
+	public PayoutTable(Map map) {
+		for (int number = 0; number < NUMBERS; number++) {
+			entryHexes[number] = new int[8];
+			entryVertices[number] = new int[8];
+			entryOwners[number] = new int[8];
+			entryAmounts[number] = new int[8];
+		}
+		payout = new int[DerivedState.PLAYERS][RESOURCES];
+		rebuild(map);
+	}
+
+	/**
+	 * @return whether the table was worked out from the game's current hexes
+	 *         and buildings; a robber that has moved since is followed by
+	 *         {@link #robberMoved}
+	 */
+	public boolean isCurrent(Map map) {
+		return map.getHexes() == indexedHexes
+				&& map.getSettlements() == indexedSettlements
+				&& map.getCities() == indexedCities
+				&& changesOf(indexedSettlements) == settlementChanges
+				&& changesOf(indexedCities) == cityChanges;
+	}
+
+	/**
+	 * Works out every payout again from scratch
+	 */
+	public void rebuild(Map map) {
+		Arrays.fill(vertexHexCounts, 0);
+		Arrays.fill(entryCounts, 0);
+		Hex[] hexes = map.getHexes() == null ? new Hex[0] : map.getHexes();
+		hexNumbers = new int[hexes.length];
+		hexResources = new int[hexes.length];
+		for (int i = 0; i < hexes.length; i++) {
+			hexNumbers[i] = hexes[i].getNumber();
+			hexResources[i] = resourceOf(hexes[i]);
+			if (hexNumbers[i] < 2 || hexNumbers[i] >= NUMBERS
+					|| hexResources[i] < 0) {
+				continue;
+			}
+			HexLocation location = hexes[i].getLocation();
+			for (VertexDirection corner : VertexDirection.values()) {
+				int vertex = BoardTopology.vertexId(location.getX(),
+						location.getY(), corner);
+				if (vertex < 0) {
+					continue;
+				}
+				if (vertexHexes[vertex] == null) {
+					vertexHexes[vertex] = new int[3];
+				}
+				vertexHexes[vertex][vertexHexCounts[vertex]++] = i;
+			}
+		}
+		indexedHexes = map.getHexes();
+		if (map.getSettlements() != null) {
+			for (VertexObject settlement : map.getSettlements()) {
+				placeBuilding(settlement, 1);
+			}
+		}
+		if (map.getCities() != null) {
+			for (VertexObject city : map.getCities()) {
+				placeBuilding(city, 2);
+			}
+		}
+		robberMoved(map.getRobber());
+		remember(map);
+	}
+
+	/**
+	 * Records a settlement that was just added to the map
+	 */
+	public void settlementAdded(VertexObject settlement, Map map) {
+		placeBuilding(settlement, 1);
+		remember(map);
+	}
+
+	/**
+	 * Records a city that was just added to the map in place of a settlement
+	 */
+	public void cityAdded(VertexObject city, Map map) {
+		int vertex = BoardTopology.vertexId(city.getLocation());
+		boolean upgraded = false;
+		for (int i = 0; vertex >= 0 && i < vertexHexCounts[vertex]; i++) {
+			int number = hexNumbers[vertexHexes[vertex][i]];
+			for (int entry = 0; entry < entryCounts[number]; entry++) {
+				if (entryVertices[number][entry] == vertex) {
+					entryAmounts[number][entry] = 2;
+					upgraded = true;
+				}
+			}
+		}
+		if (!upgraded) {
+			placeBuilding(city, 2);
+		}
+		remember(map);
+	}
+
+	/**
+	 * Records the robber moving onto the hex, which then pays out nothing
+	 */
+	public void robberMoved(HexLocation robber) {
+		indexedRobber = robber;
+		robberHex = -1;
+		for (int i = 0; robber != null && i < indexedHexes.length; i++) {
+			if (robber.equals(indexedHexes[i].getLocation())) {
+				robberHex = i;
+			}
+		}
+	}
+
+	/**
+	 * @return whether the robber is still where the table last saw it
+	 */
+	public boolean robberIsCurrent(HexLocation robber) {
+		return robber == null ? indexedRobber == null : robber
+				.equals(indexedRobber);
+	}
+
+	/**
+	 * Adds up what a roll of the number gives each player, before the bank
+	 * is checked for enough of each resource
+	 *
+	 * @return how many of each resource, by ResourceType ordinal, each player
+	 *         collects; the array is reused by the next call
+	 */
+	public int[][] payout(int number) {
+		for (int[] owed : payout) {
+			Arrays.fill(owed, 0);
+		}
+		if (number < 0 || number >= NUMBERS) {
+			return payout;
+		}
+		int[] hexes = entryHexes[number];
+		int[] owners = entryOwners[number];
+		int[] amounts = entryAmounts[number];
+		for (int entry = 0; entry < entryCounts[number]; entry++) {
+			if (hexes[entry] != robberHex) {
+				payout[owners[entry]][hexResources[hexes[entry]]] += amounts[entry];
+			}
+		}
+		return payout;
+	}
+
+	private void placeBuilding(VertexObject building, int amount) {
+		int vertex = BoardTopology.vertexId(building.getLocation());
+		int owner = building.getOwner();
+		if (vertex < 0 || owner < 0 || owner >= DerivedState.PLAYERS) {
+			return;
+		}
+		for (int i = 0; i < vertexHexCounts[vertex]; i++) {
+			int hex = vertexHexes[vertex][i];
+			int number = hexNumbers[hex];
+			int count = entryCounts[number];
+			if (count == entryHexes[number].length) {
+				entryHexes[number] = Arrays.copyOf(entryHexes[number], 2 * count);
+				entryVertices[number] = Arrays.copyOf(entryVertices[number],
+						2 * count);
+				entryOwners[number] = Arrays.copyOf(entryOwners[number],
+						2 * count);
+				entryAmounts[number] = Arrays.copyOf(entryAmounts[number],
+						2 * count);
+			}
+			entryHexes[number][count] = hex;
+			entryVertices[number][count] = vertex;
+			entryOwners[number][count] = owner;
+			entryAmounts[number][count] = amount;
+			entryCounts[number]++;
+		}
+	}
+
+	private void remember(Map map) {
+		indexedSettlements = map.getSettlements();
+		indexedCities = map.getCities();
+		settlementChanges = changesOf(indexedSettlements);
+		cityChanges = changesOf(indexedCities);
+	}
+
+	private static int resourceOf(Hex hex) {
+		for (ResourceType resource : ResourceType.values()) {
+			if (resource.toString().equalsIgnoreCase(hex.getResource())) {
+				return resource.ordinal();
+			}
+		}
+		return -1;
+	}
+
+	private static int changesOf(AppendList<?> pieces) {
+		return pieces == null ? 0 : pieces.getChangeCount();
+	}
+}
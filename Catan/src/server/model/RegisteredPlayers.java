@@ -1,6 +1,6 @@
 package server.model;
 
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -8,16 +8,16 @@ import shared.utils.IDGenerator;
 
 public class RegisteredPlayers {
 	private static RegisteredPlayers currentPlayers = null;
-	private HashMap<String, String> registeredPlayers = new HashMap<String, String>();
-	private HashMap<String, Integer> playerID = new HashMap<String, Integer>();
-	private HashMap<Integer, String> IDPlayer = new HashMap<Integer, String>();
+	private ConcurrentHashMap<String, String> registeredPlayers = new ConcurrentHashMap<String, String>();
+	private ConcurrentHashMap<String, Integer> playerID = new ConcurrentHashMap<String, Integer>();
+	private ConcurrentHashMap<Integer, String> IDPlayer = new ConcurrentHashMap<Integer, String>();
 	private static Logger logger;
 	static {
 		logger = Logger.getLogger("CatanServer");
 		logger.setLevel(Level.OFF);
 	}
 
-	public static RegisteredPlayers getSingleton() {
+	public static synchronized RegisteredPlayers getSingleton() {
 		if (currentPlayers == null) {
 			currentPlayers = new RegisteredPlayers();
 		}
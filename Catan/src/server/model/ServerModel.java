@@ -1,12 +1,18 @@
 package server.model;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 
 import client.model.ClientModel;
 import server.commands.ICommand;
+import shared.communication.GameSummary;
+import shared.communication.LegalMoves;
+import shared.communication.PlayerSummary;
 import shared.definitions.ResourceType;
+import shared.locations.HexLocation;
 import shared.model.*;
+import shared.utils.ByteSerializer;
 import shared.utils.Serializer;
 
 /**
@@ -29,12 +35,33 @@ import shared.utils.Serializer;
  * 
  */
 public class ServerModel extends AbstractModel {
+	private static final ResourceType[] RESOURCE_TYPES = ResourceType.values();
+
 	private int gameID;
+	private String title;
 	/*
 	 * transient to avoid serialization
 	 */
 	private transient List<ICommand> commands = new ArrayList<>();
 	private String initialGameStateJSON = null;
+	/*
+	 * Serialized with the game so a loaded game draws the same cards it
+	 * would have
+	 */
+	private GameRandom random;
+	private transient ModelSnapshot snapshot = null;
+	private transient ModelHistory history = null;
+	private transient HashMap<Integer, ModelSnapshot> patches = null;
+	private transient ModelSnapshot[] legalMoves = null;
+	private transient List<Runnable> versionListeners = null;
+	private transient BoardIndex boardIndex = null;
+	private transient DerivedState derivedState = null;
+	private transient PayoutTable payoutTable = null;
+	private transient Bitboard bitboard = null;
+	/*
+	 * When the game was last looked up, for evicting idle games
+	 */
+	private transient volatile long lastUsed;
 
 	public ServerModel() {
 		this.setMap(new Map(new Hex[0], new Port[0], new Road[0],
@@ -48,16 +75,133 @@ public class ServerModel extends AbstractModel {
 		this.setCommands(new ArrayList<ICommand>());
 		this.setLog(new MessageList(new MessageLine[0]));
 		this.setVersion(0);
+		this.random = new GameRandom();
 	}
 
+	/**
+	 * Copies the game into a ClientModel. Anything a later move can change in
+	 * place is copied. Moves append pieces and messages to the game's lists
+	 * in place, so the copy gets views of them from Map.copy and
+	 * MessageList.copy: a view shares the storage but keeps the length it had
+	 * when taken, and placed pieces and lines are never changed. Call while
+	 * holding the game lock.
+	 * 
+	 * @return a ClientModel that serializes to the same JSON as this game,
+	 *         less the server-only fields
+	 */
 	public ClientModel toClientModel() {
-		// AbstractModel am = (AbstractModel) this;
-		// ClientModel cm = (ClientModel) am;
-		String jsonString = Serializer.serializeServerModel(this);
-		ClientModel cm = Serializer.deserializeClientModel(jsonString);
+		ClientModel cm = new ClientModel();
+		if (this.getMap() != null) {
+			cm.setMap(this.getMap().copy());
+		}
+		if (this.getBank() != null) {
+			cm.setBank(this.getBank().copy());
+		}
+		if (this.getDeck() != null) {
+			cm.setDeck(this.getDeck().copy());
+		}
+		if (this.getChat() != null) {
+			cm.setChat(this.getChat().copy());
+		}
+		if (this.getLog() != null) {
+			cm.setLog(this.getLog().copy());
+		}
+		if (this.getPlayers() != null) {
+			Player[] players = new Player[this.getPlayers().length];
+			for (int i = 0; i < players.length; i++) {
+				if (this.getPlayers()[i] != null) {
+					players[i] = this.getPlayers()[i].copy();
+				}
+			}
+			cm.setPlayers(players);
+		}
+		if (this.getTradeOffer() != null) {
+			cm.setTradeOffer(this.getTradeOffer().copy());
+		}
+		if (this.getTurnTracker() != null) {
+			cm.setTurnTracker(this.getTurnTracker().copy());
+		}
+		cm.setVersion(this.getVersion());
+		cm.setWinner(this.getWinner());
 		return cm;
 	}
 
+	/**
+	 * Returns the client model JSON for the current version, encoding it only
+	 * the first time the version is asked for. Call while holding the game
+	 * lock.
+	 * 
+	 * @return the snapshot of the current version
+	 */
+	public ModelSnapshot getSnapshot() {
+		if (snapshot == null || snapshot.getVersion() != this.getVersion()) {
+			snapshot = new ModelSnapshot(this.getVersion(),
+					ByteSerializer.serializeToBytes(this.toClientModel()));
+			this.getHistory().record(this);
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Returns the JSON of the player's legal moves in the current version,
+	 * found once per version and player and then handed to every request for
+	 * them. Call while holding the game lock.
+	 * 
+	 * @return the snapshot to send the client
+	 */
+	public ModelSnapshot getLegalMovesSnapshot(int playerIndex) {
+		if (legalMoves == null) {
+			legalMoves = new ModelSnapshot[DerivedState.PLAYERS];
+		}
+		if (playerIndex < 0 || playerIndex >= legalMoves.length) {
+			return new ModelSnapshot(this.getVersion(),
+					ByteSerializer.serializeToBytes(new LegalMoves(playerIndex,
+							this.getVersion())));
+		}
+		ModelSnapshot moves = legalMoves[playerIndex];
+		if (moves == null || moves.getVersion() != this.getVersion()) {
+			moves = new ModelSnapshot(this.getVersion(),
+					ByteSerializer.serializeToBytes(new ServerModelController(
+							this).legalMoves(playerIndex)));
+			legalMoves[playerIndex] = moves;
+		}
+		return moves;
+	}
+
+	/**
+	 * Returns the JSON of a {@link ModelPatch} from fromVersion to the current
+	 * version, or of the whole model if fromVersion is too old to patch from.
+	 * Clients polling from the same version share one encoding. Call while
+	 * holding the game lock.
+	 * 
+	 * @param fromVersion
+	 *            - the version the client has
+	 * @return the snapshot to send the client
+	 */
+	public ModelSnapshot getPatchSnapshot(int fromVersion) {
+		if (patches == null) {
+			patches = new HashMap<Integer, ModelSnapshot>();
+		}
+		ModelSnapshot patch = patches.get(fromVersion);
+		if (patch == null) {
+			ModelPatch diff = this.getHistory().diff(this, fromVersion);
+			if (diff == null) {
+				return this.getSnapshot();
+			}
+			patch = new ModelSnapshot(this.getVersion(),
+					ByteSerializer.serializeToBytes(diff));
+			patches.put(fromVersion, patch);
+		}
+		return patch;
+	}
+
+	private ModelHistory getHistory() {
+		if (history == null) {
+			history = new ModelHistory();
+		}
+		return history;
+	}
+
 	public void validateResources(ResourceList resourceList) {
 		if (resourceList.getBrick() < 0) {
 			resourceList.setBrick(0);
@@ -110,61 +254,247 @@ public class ServerModel extends AbstractModel {
 
 	}
 
-	public void addRoad(Road road) {
+	/**
+	 * Returns the owners of the board's edges and vertices, indexing the map
+	 * first if its pieces were replaced since the index last saw them. Call
+	 * while holding the game lock.
+	 * 
+	 * @return the board index for the current map
+	 */
+	public BoardIndex getBoardIndex() {
+		if (boardIndex == null) {
+			boardIndex = new BoardIndex(this.getMap());
+		} else if (!boardIndex.isCurrent(this.getMap())) {
+			boardIndex.rebuild(this.getMap());
+		}
+		return boardIndex;
+	}
 
-		Road[] roads = this.getMap().getRoads();
+	/**
+	 * @return whether the board index can be updated in place for a piece
+	 *         about to be added
+	 */
+	private boolean boardIndexIsCurrent() {
+		return boardIndex != null && boardIndex.isCurrent(this.getMap());
+	}
 
-		// copy old array into slightly bigger new array
-		Road[] newRoads = new Road[roads.length + 1];
-		for (int i = 0; i < roads.length; i++) {
-			newRoads[i] = roads[i];
+	/**
+	 * Returns the pieces as bit masks, setting them again first if the map's
+	 * pieces were replaced since the bitboard last saw them. Call while
+	 * holding the game lock.
+	 * 
+	 * @return the bitboard for the current map
+	 */
+	public Bitboard getBitboard() {
+		if (bitboard == null) {
+			bitboard = new Bitboard(this.getMap());
+		} else if (!bitboard.isCurrent(this.getMap())) {
+			bitboard.rebuild(this.getMap());
 		}
-		// add new road
-		newRoads[newRoads.length - 1] = road;
+		return bitboard;
+	}
 
-		this.getMap().setRoads(newRoads);
+	/**
+	 * @return whether the bitboard can be updated in place for a piece about
+	 *         to be added
+	 */
+	private boolean bitboardIsCurrent() {
+		return bitboard != null && bitboard.isCurrent(this.getMap());
 	}
 
-	public void reallocateLongestRoad() {
-		/*
-		 * see who has most roads, must be >=5 if there's a tie keep the old
-		 * player, else switch to new player
-		 */
+	/**
+	 * Returns each player's ports, buildings, army, roads and points, working
+	 * them out again first if the pieces or players were replaced since they
+	 * were last seen. Call while holding the game lock.
+	 * 
+	 * @return the derived state for the current map and players
+	 */
+	public DerivedState getDerivedState() {
+		if (derivedState == null) {
+			derivedState = new DerivedState(this.getMap(), this.getPlayers());
+		} else if (!derivedState.isCurrent(this.getMap(), this.getPlayers())) {
+			derivedState.rebuild(this.getMap(), this.getPlayers());
+		}
+		return derivedState;
+	}
 
-		Player[] players = this.getPlayers();
+	/**
+	 * @return whether the derived state can be updated in place for a piece
+	 *         or card about to be added
+	 */
+	private boolean derivedStateIsCurrent() {
+		return derivedState != null
+				&& derivedState.isCurrent(this.getMap(), this.getPlayers());
+	}
 
-		// iterate
-		for (Player player : players) {
-			if (hasLongestRoad(player.getPlayerIndex())) {
+	/**
+	 * Returns what each dice number pays out, working it out again first if
+	 * the hexes or buildings were replaced since it last saw them. Call while
+	 * holding the game lock.
+	 * 
+	 * @return the payout table for the current map and robber
+	 */
+	public PayoutTable getPayoutTable() {
+		if (payoutTable == null) {
+			payoutTable = new PayoutTable(this.getMap());
+		} else if (!payoutTable.isCurrent(this.getMap())) {
+			payoutTable.rebuild(this.getMap());
+		} else if (!payoutTable.robberIsCurrent(this.getMap().getRobber())) {
+			payoutTable.robberMoved(this.getMap().getRobber());
+		}
+		return payoutTable;
+	}
+
+	/**
+	 * @return whether the payout table can be updated in place for a
+	 *         building about to be added
+	 */
+	private boolean payoutTableIsCurrent() {
+		return payoutTable != null && payoutTable.isCurrent(this.getMap());
+	}
 
-				// decrement old longest road player victory points
-				if (this.getTurnTracker().getLongestRoad() != -1) {
-					Player loser = players[this.getTurnTracker()
-							.getLongestRoad()];
-					loser.setVictoryPoints(loser.getVictoryPoints() - 2);
+	/**
+	 * Gives each player the resources a roll of the number brings them. When
+	 * the bank is short of a resource nobody gets any of it, unless only one
+	 * player is owed it, who then gets what the bank has left.
+	 */
+	public void payOut(int number) {
+		int[][] owed = getPayoutTable().payout(number);
+		Player[] players = this.getPlayers();
+		for (ResourceType type : RESOURCE_TYPES) {
+			int total = 0;
+			int owedTo = -1;
+			int playersOwed = 0;
+			for (int player = 0; player < owed.length
+					&& player < players.length; player++) {
+				if (owed[player][type.ordinal()] > 0 && players[player] != null) {
+					total += owed[player][type.ordinal()];
+					owedTo = player;
+					playersOwed++;
 				}
+			}
+			int left = bankCount(type);
+			if (total <= left) {
+				for (int player = 0; player < owed.length
+						&& player < players.length; player++) {
+					if (owed[player][type.ordinal()] > 0
+							&& players[player] != null) {
+						addResourceFromBank(player, type,
+								owed[player][type.ordinal()]);
+					}
+				}
+			} else if (playersOwed == 1 && left > 0) {
+				addResourceFromBank(owedTo, type, left);
+			}
+		}
+	}
 
-				// change longest road player
-				this.getTurnTracker().setLongestRoad(player.getPlayerIndex());
+	/**
+	 * Moves the robber onto the hex
+	 */
+	public void moveRobber(HexLocation location) {
+		boolean current = payoutTableIsCurrent();
+		this.getMap().setRobber(location);
+		if (current) {
+			payoutTable.robberMoved(location);
+		}
+	}
 
-				// increment victory points for new longest road player
-				player.setVictoryPoints(player.getVictoryPoints() + 2);
+	private int bankCount(ResourceType type) {
+		switch (type) {
+		case BRICK:
+			return this.getBank().getBrick();
+		case ORE:
+			return this.getBank().getOre();
+		case SHEEP:
+			return this.getBank().getSheep();
+		case WHEAT:
+			return this.getBank().getWheat();
+		case WOOD:
+			return this.getBank().getWood();
+		default:
+			return 0;
+		}
+	}
+
+	public void addRoad(Road road) {
+		boolean indexed = boardIndexIsCurrent();
+		boolean derived = derivedStateIsCurrent();
+		boolean bits = bitboardIsCurrent();
+
+		this.getMap().getRoads().add(road);
+		if (indexed) {
+			boardIndex.roadAdded(road, this.getMap());
+		}
+		if (derived) {
+			derivedState.roadAdded(road, this.getMap());
+		}
+		if (bits) {
+			bitboard.roadAdded(road, this.getMap());
+		}
+	}
 
+	/**
+	 * Adds a played soldier card to the player's army
+	 */
+	public void addSoldier(int playerIndex) {
+		Player player = this.getPlayers()[playerIndex];
+		player.setSoldiers(player.getSoldiers() + 1);
+	}
+
+	/**
+	 * Counts a monument card the player just played. The caller then calls
+	 * updateVictoryPoints, which gets the point it is worth from
+	 * DerivedState.getVictoryPoints.
+	 */
+	public void addMonument(int playerIndex) {
+		Player player = this.getPlayers()[playerIndex];
+		player.setMonuments(player.getMonuments() + 1);
+	}
+
+	public void reallocateLongestRoad() {
+		/*
+		 * The holder keeps the card while its road is >=5 and no one's is
+		 * longer. A settlement can cut the holder's road, so otherwise the
+		 * card goes to the one player with the longest road, if it's >=5, or
+		 * back to no one.
+		 */
+		int holder = this.getTurnTracker().getLongestRoad();
+		if (holder < 0 || !keepsLongestRoad(holder)) {
+			int longest = -1;
+			for (Player player : this.getPlayers()) {
+				if (hasLongestRoad(player.getPlayerIndex())) {
+					longest = player.getPlayerIndex();
+				}
+			}
+			this.getTurnTracker().setLongestRoad(longest);
+		}
+		updateVictoryPoints();
+	}
+
+	private boolean keepsLongestRoad(int playerIndex) {
+		DerivedState derived = getDerivedState();
+		int length = derived.getRoadLength(playerIndex);
+		for (Player player : this.getPlayers()) {
+			if (derived.getRoadLength(player.getPlayerIndex()) > length) {
+				return false;
 			}
 		}
+		return length >= 5;
 	}
 
 	private boolean hasLongestRoad(int playerIndex) {
 
 		Player[] players = this.getPlayers();
+		DerivedState derived = getDerivedState();
+		int length = derived.getRoadLength(playerIndex);
 		for (Player player : players) {
 			if (player.getPlayerIndex() != playerIndex
-					&& player.getNumberRoadsBuilt() >= players[playerIndex]
-							.getNumberRoadsBuilt()) {
+					&& derived.getRoadLength(player.getPlayerIndex()) >= length) {
 				return false;
 			}
 		}
-		if (players[playerIndex].getNumberRoadsBuilt() >= 5) {
+		if (length >= 5) {
 			return true;
 		} else {
 			return false;
@@ -173,45 +503,28 @@ public class ServerModel extends AbstractModel {
 
 	public void reallocateLargestArmy() {
 		/*
-		 * See who has most roads, must be >=5 if there's a tie keep the old
-		 * player, else switch to new player
+		 * See who has the largest army, must be >=3 if there's a tie keep the
+		 * old player, else switch to new player
 		 */
-		Player[] players = this.getPlayers();
-
-		for (Player player : players) {
-			if (hasLargestArmy(player.getPlayerIndex())
-					&& player.getPlayerIndex() != getTurnTracker()
-							.getLargestArmy()) {
-				/*
-				 * Decrement old largest road player victory points.
-				 */
-				if (this.getTurnTracker().getLargestArmy() != -1) {
-					Player loser = players[this.getTurnTracker()
-							.getLargestArmy()];
-					loser.setVictoryPoints(loser.getVictoryPoints() - 2);
-				}
-
-				/*
-				 * Change largest army player and add player's victory points by
-				 * two.
-				 */
+		for (Player player : this.getPlayers()) {
+			if (hasLargestArmy(player.getPlayerIndex())) {
 				this.getTurnTracker().setLargestArmy(player.getPlayerIndex());
-				player.setVictoryPoints(player.getVictoryPoints() + 2);
-				return;
+				break;
 			}
 		}
+		updateVictoryPoints();
 	}
 
 	private boolean hasLargestArmy(int playerIndex) {
-		Player[] players = this.getPlayers();
-		for (Player player : players) {
+		DerivedState derived = getDerivedState();
+		int army = derived.getArmySize(playerIndex);
+		for (Player player : this.getPlayers()) {
 			/*
-			 * If the player being compared has more soldiers, then return
+			 * If the player being compared has as many soldiers, then return
 			 * false.
 			 */
 			if (player.getPlayerIndex() != playerIndex
-					&& player.getSoldiers() >= players[playerIndex]
-							.getSoldiers()) {
+					&& derived.getArmySize(player.getPlayerIndex()) >= army) {
 				return false;
 			}
 		}
@@ -219,39 +532,67 @@ public class ServerModel extends AbstractModel {
 		 * If you as a player had more soldier cards than everyone AND you had
 		 * at least 3 soldier cards, then return true.
 		 */
-		if (players[playerIndex].getSoldiers() >= 3) {
-			return true;
+		return army >= 3;
+	}
+
+	/**
+	 * Sets each player's victory points to what their buildings, monuments
+	 * and the longest road and largest army the turn tracker gives them are
+	 * worth, as the derived state counts them. Call after any of those
+	 * change.
+	 */
+	public void updateVictoryPoints() {
+		DerivedState derived = getDerivedState();
+		for (Player player : this.getPlayers()) {
+			if (player != null) {
+				player.setVictoryPoints(derived.getVictoryPoints(
+						player.getPlayerIndex(), this.getTurnTracker()));
+			}
 		}
-		return false;
 	}
 
 	public void addSettlement(VertexObject settlement) {
-
-		VertexObject[] settlements = this.getMap().getSettlements();
-
-		// copy old array into slightly bigger new array
-		VertexObject[] newSettlements = new VertexObject[settlements.length + 1];
-		for (int i = 0; i < settlements.length; i++) {
-			newSettlements[i] = settlements[i];
+		boolean indexed = boardIndexIsCurrent();
+		boolean derived = derivedStateIsCurrent();
+		boolean payouts = payoutTableIsCurrent();
+		boolean bits = bitboardIsCurrent();
+
+		this.getMap().getSettlements().add(settlement);
+		if (indexed) {
+			boardIndex.settlementAdded(settlement, this.getMap());
+		}
+		if (derived) {
+			derivedState.settlementAdded(settlement, this.getMap());
+		}
+		if (payouts) {
+			payoutTable.settlementAdded(settlement, this.getMap());
+		}
+		if (bits) {
+			bitboard.settlementAdded(settlement, this.getMap());
 		}
-		// add new settlement
-		newSettlements[newSettlements.length - 1] = settlement;
-
-		this.getMap().setSettlements(newSettlements);
 	}
 
 	public void addCity(VertexObject city) {
-		VertexObject[] currentCities = this.getMap().getCities();
-		int currentCount = currentCities.length;
-		VertexObject[] newCityList = new VertexObject[currentCount + 1];
-		for (int i = 0; i < currentCount; i++) {
-			newCityList[i] = currentCities[i];
-		}
-		newCityList[currentCount] = city;
-		this.getMap().setCities(newCityList);
+		boolean indexed = boardIndexIsCurrent();
+		boolean derived = derivedStateIsCurrent();
+		boolean payouts = payoutTableIsCurrent();
+		boolean bits = bitboardIsCurrent();
+		this.getMap().getCities().add(city);
 
 		// remove old settlement
 		this.removeSettlementForCity(city);
+		if (indexed) {
+			boardIndex.cityAdded(city, this.getMap());
+		}
+		if (derived) {
+			derivedState.cityAdded(city, this.getMap());
+		}
+		if (payouts) {
+			payoutTable.cityAdded(city, this.getMap());
+		}
+		if (bits) {
+			bitboard.cityAdded(city, this.getMap());
+		}
 	}
 
 	public boolean needToDiscard() {
@@ -272,24 +613,10 @@ public class ServerModel extends AbstractModel {
 	}
 
 	private void removeSettlementForCity(VertexObject city) {
-
-		for (VertexObject settlement : this.getMap().getSettlements()) {
-			if (settlement.isEquivalent(city)) {
-
-				VertexObject[] oldSettlements = this.getMap().getSettlements();
-				VertexObject[] newSettlements = new VertexObject[oldSettlements.length - 1];
-
-				int i = 0;
-				for (VertexObject s : oldSettlements) {
-					if (s.equals(settlement)) {
-						continue;
-					} else {
-						newSettlements[i] = s;
-						i++;
-					}
-				}
-
-				this.getMap().setSettlements(newSettlements);
+		AppendList<VertexObject> settlements = this.getMap().getSettlements();
+		for (int i = 0; i < settlements.size(); i++) {
+			if (settlements.get(i).isEquivalent(city)) {
+				settlements.remove(i);
 				return;
 			}
 		}
@@ -301,6 +628,92 @@ public class ServerModel extends AbstractModel {
 
 	public void incrementVersion() {
 		this.setVersion(this.getVersion() + 1);
+		this.snapshot = null;
+		if (patches != null) {
+			patches.clear();
+		}
+		this.getHistory().record(this);
+		if (versionListeners != null && !versionListeners.isEmpty()) {
+			List<Runnable> listeners = versionListeners;
+			versionListeners = null;
+			for (Runnable listener : listeners) {
+				listener.run();
+			}
+		}
+	}
+
+	/**
+	 * Registers a listener to run once, the next time the version advances.
+	 * Listeners run while the game lock is held, so they should only hand
+	 * work off to another thread. Call while holding the game lock.
+	 * 
+	 * @param version
+	 *            - the version the caller has seen
+	 * @param listener
+	 *            - what to run when the version moves past it
+	 * @return false, without registering, if the model has already moved
+	 *         past version
+	 */
+	public boolean addVersionListener(int version, Runnable listener) {
+		if (this.getVersion() != version) {
+			return false;
+		}
+		// the caller has this version, so remember it to patch from later
+		this.getHistory().record(this);
+		if (versionListeners == null) {
+			versionListeners = new ArrayList<Runnable>();
+		}
+		versionListeners.add(listener);
+		return true;
+	}
+
+	public void removeVersionListener(Runnable listener) {
+		if (versionListeners != null) {
+			versionListeners.remove(listener);
+		}
+	}
+
+	/**
+	 * @return whether a client is waiting for the next version. Call while
+	 *         holding the game lock.
+	 */
+	public boolean hasVersionListeners() {
+		return versionListeners != null && !versionListeners.isEmpty();
+	}
+
+	/**
+	 * Marks the game as used now
+	 */
+	public void touch() {
+		lastUsed = System.currentTimeMillis();
+	}
+
+	/**
+	 * @return when touch was last called, in milliseconds since the epoch, or
+	 *         0 if never
+	 */
+	public long getLastUsed() {
+		return lastUsed;
+	}
+
+	/**
+	 * @return the game's entry for the game list, titled "Game id" if it has
+	 *         no title
+	 */
+	public GameSummary toGameSummary() {
+		PlayerSummary[] summaries = new PlayerSummary[4];
+		if (getPlayers() != null) {
+			for (Player player : getPlayers()) {
+				if (player != null
+						&& player.getPlayerIndex() < summaries.length) {
+					summaries[player.getPlayerIndex()] = new PlayerSummary(
+							player.getColorString(), player.getName(),
+							player.getPlayerid());
+				}
+			}
+		}
+		return new GameSummary(title != null ? title : "Game " + gameID,
+				gameID, summaries);
 	}
 
 	public List<ICommand> getCommands() {
@@ -319,6 +732,14 @@ public class ServerModel extends AbstractModel {
 		this.gameID = ID;
 	}
 
+	public String getTitle() {
+		return title;
+	}
+
+	public void setTitle(String title) {
+		this.title = title;
+	}
+
 	public String getInitialGameStateJSON() {
 		return initialGameStateJSON;
 	}
@@ -326,4 +747,15 @@ public class ServerModel extends AbstractModel {
 	public void setInitialGameStateJSON(String initialGameStateJSON) {
 		this.initialGameStateJSON = initialGameStateJSON;
 	}
+
+	/**
+	 * @return the generator every random outcome in this game comes from
+	 */
+	public GameRandom getRandom() {
+		return random;
+	}
+
+	public void setRandom(GameRandom random) {
+		this.random = random;
+	}
 }
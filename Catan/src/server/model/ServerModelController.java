@@ -1,11 +1,15 @@
 package server.model;
 
 import java.util.ArrayList;
+import java.util.List;
 
+import shared.communication.LegalMoves;
+import shared.communication.MaritimeTradeParams;
 import shared.definitions.CatanColor;
 import shared.definitions.HexType;
 import shared.definitions.PortType;
 import shared.definitions.ResourceType;
+import shared.locations.BoardTopology;
 import shared.locations.EdgeDirection;
 import shared.locations.EdgeLocation;
 import shared.locations.HexLocation;
@@ -150,8 +154,8 @@ public class ServerModelController {
 
 		if (isPlayerTurn(playerIndex)
 				&& (playerHasResources(playerIndex, requiredResourceList) || isFree)
-				&& !roadExists(road)
-				&& (hasConnectingBuilding(road) || hasConnectingRoad(road))
+				&& model.getBitboard().canPlaceRoad(road.getOwner(),
+						BoardTopology.edgeId(road.getLocation()))
 				&& (playerHasAvailableRoadPiece(playerIndex) || setupPhase)
 				&& (model.getTurnTracker().getStatus().equals("Playing") || setupPhase)
 				&& !roadOnWater(road)) {
@@ -209,12 +213,7 @@ public class ServerModelController {
 	}
 
 	private boolean roadExists(Road newRoad) {
-		for (Road existingRoad : model.getMap().getRoads()) {
-			if (!existingRoad.isNotEquivalent(newRoad)) {
-				return true;
-			}
-		}
-		return false;
+		return roadOwner(newRoad) != -1;
 	}
 
 	private int roadOwner(Road road) {
@@ -222,311 +221,29 @@ public class ServerModelController {
 		 * Find owner of road given inputed road. If none, return -1 index.
 		 * Else, return index of owner.
 		 */
-		for (Road existingRoad : model.getMap().getRoads()) {
-			if (!existingRoad.isNotEquivalent(road)) {
-				return existingRoad.getOwner();
-			}
-		}
-		return -1;
-	}
-
-	private boolean hasConnectingBuilding(Road road) {
-		HexLocation platformHex = road.getLocation().getHexLoc();
-
-		for (VertexObject settlement : model.getMap().getSettlements()) {
-			if (settlement.getOwner() == road.getOwner()) {
-				if (buildingExistsForRoad(settlement, road, platformHex)) {
-					return true;
-				}
-			}
-		}
-
-		for (VertexObject city : model.getMap().getCities()) {
-			if (city.getOwner() == road.getOwner()) {
-				if (buildingExistsForRoad(city, road, platformHex)) {
-					return true;
-				}
-			}
-		}
-		return false;
+		return model.getBoardIndex().roadOwner(
+				BoardTopology.edgeId(road.getLocation()));
 	}
 
 	private boolean connectedToSecondSettlement(Road road) {
-		HexLocation platformHex = road.getLocation().getHexLoc();
-
-		for (VertexObject settlement : model.getMap().getSettlements()) {
-			if (settlement.getOwner() == road.getOwner()) {
-				if (buildingExistsForRoad(settlement, road, platformHex)
-						&& !roadTouchingNewSettlement(settlement)) {
-					return true;
-				}
-			}
+		/*
+		 * The second setup road must touch one of the player's settlements
+		 * that no road of theirs touches yet.
+		 */
+		BoardIndex index = model.getBoardIndex();
+		int edge = BoardTopology.edgeId(road.getLocation());
+		if (edge < 0) {
+			return false;
 		}
-
-		return false;
-	}
-
-	private boolean buildingExistsForRoad(VertexObject existingBuilding,
-			Road road, HexLocation platformHex) {
-		VertexObject testObject = null;
-		VertexLocation testLocation = null;
-		switch (road.getLocation().getDir()) {
-		case NorthWest:
-			testLocation = new VertexLocation(platformHex,
-					VertexDirection.NorthWest);
-			testObject = new VertexObject(road.getOwner(), testLocation);
-			if (existingBuilding.isEquivalent(testObject)) {
-				return true;
-			}
-			testLocation = new VertexLocation(platformHex, VertexDirection.West);
-			testObject = new VertexObject(road.getOwner(), testLocation);
-			if (existingBuilding.isEquivalent(testObject)) {
-				return true;
-			}
-			break;
-		case North:
-			testLocation = new VertexLocation(platformHex,
-					VertexDirection.NorthEast);
-			testObject = new VertexObject(road.getOwner(), testLocation);
-			if (existingBuilding.isEquivalent(testObject)) {
-				return true;
-			}
-			testLocation = new VertexLocation(platformHex,
-					VertexDirection.NorthWest);
-			testObject = new VertexObject(road.getOwner(), testLocation);
-			if (existingBuilding.isEquivalent(testObject)) {
+		for (int vertex : BoardTopology.edgeVertices(edge)) {
+			if (index.settlementOwner(vertex) == road.getOwner()
+					&& !index.hasRoadAt(road.getOwner(), vertex)) {
 				return true;
 			}
-			break;
-		case NorthEast:
-			testLocation = new VertexLocation(platformHex,
-					VertexDirection.NorthEast);
-			testObject = new VertexObject(road.getOwner(), testLocation);
-			if (existingBuilding.isEquivalent(testObject)) {
-				return true;
-			}
-			testLocation = new VertexLocation(platformHex, VertexDirection.East);
-			testObject = new VertexObject(road.getOwner(), testLocation);
-			if (existingBuilding.isEquivalent(testObject)) {
-				return true;
-			}
-			break;
-		case SouthEast:
-			testLocation = new VertexLocation(platformHex,
-					VertexDirection.SouthEast);
-			testObject = new VertexObject(road.getOwner(), testLocation);
-			if (existingBuilding.isEquivalent(testObject)) {
-				return true;
-			}
-			testLocation = new VertexLocation(platformHex, VertexDirection.East);
-			testObject = new VertexObject(road.getOwner(), testLocation);
-			if (existingBuilding.isEquivalent(testObject)) {
-				return true;
-			}
-			break;
-		case South:
-			testLocation = new VertexLocation(platformHex,
-					VertexDirection.SouthEast);
-			testObject = new VertexObject(road.getOwner(), testLocation);
-			if (existingBuilding.isEquivalent(testObject)) {
-				return true;
-			}
-			testLocation = new VertexLocation(platformHex,
-					VertexDirection.SouthWest);
-			testObject = new VertexObject(road.getOwner(), testLocation);
-			if (existingBuilding.isEquivalent(testObject)) {
-				return true;
-			}
-			break;
-		case SouthWest:
-			testLocation = new VertexLocation(platformHex, VertexDirection.West);
-			testObject = new VertexObject(road.getOwner(), testLocation);
-			if (existingBuilding.isEquivalent(testObject)) {
-				return true;
-			}
-			testLocation = new VertexLocation(platformHex,
-					VertexDirection.SouthWest);
-			testObject = new VertexObject(road.getOwner(), testLocation);
-			if (existingBuilding.isEquivalent(testObject)) {
-				return true;
-			}
-			break;
 		}
 		return false;
 	}
 
-	private boolean hasConnectingRoad(Road road) {
-		HexLocation roadHexLoc = road.getLocation().getHexLoc();
-		EdgeDirection roadEdgeDir = road.getLocation().getDir();
-		HexLocation roadNeighbor = roadHexLoc.getNeighborLoc(roadEdgeDir);
-
-		EdgeLocation testLocation = null;
-		Road testRoad = null;
-
-		switch (roadEdgeDir) {
-		case NorthWest:
-			testLocation = new EdgeLocation(roadHexLoc, EdgeDirection.North);
-			testRoad = new Road(road.getOwner(), testLocation);
-			if (road.getOwner() == roadOwner(testRoad)) {
-				return true;
-			}
-
-			testLocation = new EdgeLocation(roadHexLoc, EdgeDirection.SouthWest);
-			testRoad = new Road(road.getOwner(), testLocation);
-			if (road.getOwner() == roadOwner(testRoad)) {
-				return true;
-			}
-
-			testLocation = new EdgeLocation(roadNeighbor,
-					EdgeDirection.NorthEast);
-			testRoad = new Road(road.getOwner(), testLocation);
-			if (road.getOwner() == roadOwner(testRoad)) {
-				return true;
-			}
-
-			testLocation = new EdgeLocation(roadNeighbor, EdgeDirection.South);
-			testRoad = new Road(road.getOwner(), testLocation);
-			if (road.getOwner() == roadOwner(testRoad)) {
-				return true;
-			}
-			break;
-		case North:
-			testLocation = new EdgeLocation(roadHexLoc, EdgeDirection.NorthWest);
-			testRoad = new Road(road.getOwner(), testLocation);
-			if (road.getOwner() == roadOwner(testRoad)) {
-				return true;
-			}
-
-			testLocation = new EdgeLocation(roadHexLoc, EdgeDirection.NorthEast);
-			testRoad = new Road(road.getOwner(), testLocation);
-			if (road.getOwner() == roadOwner(testRoad)) {
-				return true;
-			}
-
-			testLocation = new EdgeLocation(roadNeighbor,
-					EdgeDirection.SouthWest);
-			testRoad = new Road(road.getOwner(), testLocation);
-			if (road.getOwner() == roadOwner(testRoad)) {
-				return true;
-			}
-
-			testLocation = new EdgeLocation(roadNeighbor,
-					EdgeDirection.SouthEast);
-			testRoad = new Road(road.getOwner(), testLocation);
-			if (road.getOwner() == roadOwner(testRoad)) {
-				return true;
-			}
-			break;
-		case NorthEast:
-			testLocation = new EdgeLocation(roadHexLoc, EdgeDirection.North);
-			testRoad = new Road(road.getOwner(), testLocation);
-			if (road.getOwner() == roadOwner(testRoad)) {
-				return true;
-			}
-
-			testLocation = new EdgeLocation(roadHexLoc, EdgeDirection.SouthEast);
-			testRoad = new Road(road.getOwner(), testLocation);
-			if (road.getOwner() == roadOwner(testRoad)) {
-				return true;
-			}
-
-			testLocation = new EdgeLocation(roadNeighbor, EdgeDirection.South);
-			testRoad = new Road(road.getOwner(), testLocation);
-			if (road.getOwner() == roadOwner(testRoad)) {
-				return true;
-			}
-
-			testLocation = new EdgeLocation(roadNeighbor,
-					EdgeDirection.NorthWest);
-			testRoad = new Road(road.getOwner(), testLocation);
-			if (road.getOwner() == roadOwner(testRoad)) {
-				return true;
-			}
-			break;
-		case SouthWest:
-			testLocation = new EdgeLocation(roadHexLoc, EdgeDirection.South);
-			testRoad = new Road(road.getOwner(), testLocation);
-			if (road.getOwner() == roadOwner(testRoad)) {
-				return true;
-			}
-
-			testLocation = new EdgeLocation(roadHexLoc, EdgeDirection.NorthWest);
-			testRoad = new Road(road.getOwner(), testLocation);
-			if (road.getOwner() == roadOwner(testRoad)) {
-				return true;
-			}
-
-			testLocation = new EdgeLocation(roadNeighbor, EdgeDirection.North);
-			testRoad = new Road(road.getOwner(), testLocation);
-			if (road.getOwner() == roadOwner(testRoad)) {
-				return true;
-			}
-
-			testLocation = new EdgeLocation(roadNeighbor,
-					EdgeDirection.SouthEast);
-			testRoad = new Road(road.getOwner(), testLocation);
-			if (road.getOwner() == roadOwner(testRoad)) {
-				return true;
-			}
-			break;
-		case South:
-			testLocation = new EdgeLocation(roadHexLoc, EdgeDirection.SouthWest);
-			testRoad = new Road(road.getOwner(), testLocation);
-			if (road.getOwner() == roadOwner(testRoad)) {
-				return true;
-			}
-
-			testLocation = new EdgeLocation(roadHexLoc, EdgeDirection.SouthEast);
-			testRoad = new Road(road.getOwner(), testLocation);
-			if (road.getOwner() == roadOwner(testRoad)) {
-				return true;
-			}
-
-			testLocation = new EdgeLocation(roadNeighbor,
-					EdgeDirection.NorthWest);
-			testRoad = new Road(road.getOwner(), testLocation);
-			if (road.getOwner() == roadOwner(testRoad)) {
-				return true;
-			}
-
-			testLocation = new EdgeLocation(roadNeighbor,
-					EdgeDirection.NorthEast);
-			testRoad = new Road(road.getOwner(), testLocation);
-			if (road.getOwner() == roadOwner(testRoad)) {
-				return true;
-			}
-			break;
-		case SouthEast:
-			testLocation = new EdgeLocation(roadHexLoc, EdgeDirection.South);
-			testRoad = new Road(road.getOwner(), testLocation);
-			if (road.getOwner() == roadOwner(testRoad)) {
-				return true;
-			}
-
-			testLocation = new EdgeLocation(roadHexLoc, EdgeDirection.NorthEast);
-			testRoad = new Road(road.getOwner(), testLocation);
-			if (road.getOwner() == roadOwner(testRoad)) {
-				return true;
-			}
-
-			testLocation = new EdgeLocation(roadNeighbor, EdgeDirection.North);
-			testRoad = new Road(road.getOwner(), testLocation);
-			if (road.getOwner() == roadOwner(testRoad)) {
-				return true;
-			}
-
-			testLocation = new EdgeLocation(roadNeighbor,
-					EdgeDirection.SouthWest);
-			testRoad = new Road(road.getOwner(), testLocation);
-			if (road.getOwner() == roadOwner(testRoad)) {
-				return true;
-			}
-			break;
-		}
-
-		return false;
-	}
-
 	private boolean playerHasAvailableRoadPiece(int playerIndex) {
 		if (model.getPlayers()[playerIndex].getRoads() > 0) {
 			return true;
@@ -564,385 +281,121 @@ public class ServerModelController {
 	}
 
 	/**
-	 * Returns false if adjacent buildings exist, name can be changed, wasn't
-	 * feeling very creative
+	 * tests if the player can build a settlement
 	 * 
-	 * @param existingBuilding
-	 * @param newBuilding
-	 * @param platformHex
-	 * @return
+	 * @Pre it is the current turn of the player attempting to build the
+	 *      settlement
+	 * @Pre player has the required resources to buy the settlement
+	 * @Pre Settlement is two edges away from all other settlements
+	 * @Post result: a boolean reporting success/fail
 	 */
-	private boolean hasAdjacentVertexObject(VertexObject existingBuilding,
-			VertexObject newBuilding, HexLocation platformHex) {
-		VertexObject testBuilding = null;
-		HexLocation neighborHex = null;
-		VertexLocation testLocation = null;
-		switch (newBuilding.getLocation().getDir()) {
-		case NorthWest:
-			testLocation = new VertexLocation(newBuilding.getLocation()
-					.getHexLoc(), VertexDirection.NorthEast);
-			testBuilding = new VertexObject(newBuilding.getOwner(),
-					testLocation);
-			if (existingBuilding.isEquivalent(testBuilding)) {
-				return true;
-			}
-			testLocation = new VertexLocation(newBuilding.getLocation()
-					.getHexLoc(), VertexDirection.West);
-			testBuilding = new VertexObject(newBuilding.getOwner(),
-					testLocation);
-			if (existingBuilding.isEquivalent(testBuilding)) {
-				return true;
-			}
-			neighborHex = newBuilding.getLocation().getHexLoc()
-					.getNeighborLoc(EdgeDirection.NorthWest);
-			testLocation = new VertexLocation(neighborHex,
-					VertexDirection.NorthEast);
-			testBuilding = new VertexObject(newBuilding.getOwner(),
-					testLocation);
-			if (existingBuilding.isEquivalent(testBuilding)) {
-				return true;
-			}
-			break;
-		case NorthEast:
-			testLocation = new VertexLocation(newBuilding.getLocation()
-					.getHexLoc(), VertexDirection.NorthWest);
-			testBuilding = new VertexObject(newBuilding.getOwner(),
-					testLocation);
-			if (existingBuilding.isEquivalent(testBuilding)) {
-				return true;
-			}
-			testLocation = new VertexLocation(newBuilding.getLocation()
-					.getHexLoc(), VertexDirection.East);
-			testBuilding = new VertexObject(newBuilding.getOwner(),
-					testLocation);
-			if (existingBuilding.isEquivalent(testBuilding)) {
-				return true;
-			}
-			neighborHex = newBuilding.getLocation().getHexLoc()
-					.getNeighborLoc(EdgeDirection.NorthEast);
-			testLocation = new VertexLocation(neighborHex,
-					VertexDirection.NorthWest);
-			testBuilding = new VertexObject(newBuilding.getOwner(),
-					testLocation);
-			if (existingBuilding.isEquivalent(testBuilding)) {
-				return true;
-			}
-			break;
-		case East:
-			testLocation = new VertexLocation(newBuilding.getLocation()
-					.getHexLoc(), VertexDirection.NorthEast);
-			testBuilding = new VertexObject(newBuilding.getOwner(),
-					testLocation);
-			if (existingBuilding.isEquivalent(testBuilding)) {
-				return true;
-			}
-			testLocation = new VertexLocation(newBuilding.getLocation()
-					.getHexLoc(), VertexDirection.SouthEast);
-			testBuilding = new VertexObject(newBuilding.getOwner(),
-					testLocation);
-			if (existingBuilding.isEquivalent(testBuilding)) {
-				return true;
-			}
-			neighborHex = newBuilding.getLocation().getHexLoc()
-					.getNeighborLoc(EdgeDirection.NorthEast);
-			testLocation = new VertexLocation(neighborHex,
-					VertexDirection.SouthEast);
-			testBuilding = new VertexObject(newBuilding.getOwner(),
-					testLocation);
-			if (existingBuilding.isEquivalent(testBuilding)) {
-				return true;
-			}
-			break;
-		case SouthEast:
-			testLocation = new VertexLocation(newBuilding.getLocation()
-					.getHexLoc(), VertexDirection.East);
-			testBuilding = new VertexObject(newBuilding.getOwner(),
-					testLocation);
-			if (existingBuilding.isEquivalent(testBuilding)) {
-				return true;
-			}
-			testLocation = new VertexLocation(newBuilding.getLocation()
-					.getHexLoc(), VertexDirection.SouthWest);
-			testBuilding = new VertexObject(newBuilding.getOwner(),
-					testLocation);
-			if (existingBuilding.isEquivalent(testBuilding)) {
-				return true;
-			}
-			neighborHex = newBuilding.getLocation().getHexLoc()
-					.getNeighborLoc(EdgeDirection.SouthEast);
-			testLocation = new VertexLocation(neighborHex,
-					VertexDirection.SouthWest);
-			testBuilding = new VertexObject(newBuilding.getOwner(),
-					testLocation);
-			if (existingBuilding.isEquivalent(testBuilding)) {
-				return true;
-			}
-			break;
-		case SouthWest:
-			testLocation = new VertexLocation(newBuilding.getLocation()
-					.getHexLoc(), VertexDirection.West);
-			testBuilding = new VertexObject(newBuilding.getOwner(),
-					testLocation);
-			if (existingBuilding.isEquivalent(testBuilding)) {
-				return true;
-			}
-			testLocation = new VertexLocation(newBuilding.getLocation()
-					.getHexLoc(), VertexDirection.SouthEast);
-			testBuilding = new VertexObject(newBuilding.getOwner(),
-					testLocation);
-			if (existingBuilding.isEquivalent(testBuilding)) {
-				return true;
-			}
-			neighborHex = newBuilding.getLocation().getHexLoc()
-					.getNeighborLoc(EdgeDirection.SouthWest);
-			testLocation = new VertexLocation(neighborHex,
-					VertexDirection.SouthEast);
-			testBuilding = new VertexObject(newBuilding.getOwner(),
-					testLocation);
-			if (existingBuilding.isEquivalent(testBuilding)) {
-				return true;
-			}
-			break;
-		case West:
-			testLocation = new VertexLocation(newBuilding.getLocation()
-					.getHexLoc(), VertexDirection.NorthWest);
-			testBuilding = new VertexObject(newBuilding.getOwner(),
-					testLocation);
-			if (existingBuilding.isEquivalent(testBuilding)) {
-				return true;
-			}
-			testLocation = new VertexLocation(newBuilding.getLocation()
-					.getHexLoc(), VertexDirection.SouthWest);
-			testBuilding = new VertexObject(newBuilding.getOwner(),
-					testLocation);
-			if (existingBuilding.isEquivalent(testBuilding)) {
-				return true;
-			}
-			neighborHex = newBuilding.getLocation().getHexLoc()
-					.getNeighborLoc(EdgeDirection.NorthWest);
-			testLocation = new VertexLocation(neighborHex,
-					VertexDirection.SouthWest);
-			testBuilding = new VertexObject(newBuilding.getOwner(),
-					testLocation);
-			if (existingBuilding.isEquivalent(testBuilding)) {
-				return true;
-			}
-			break;
+	public boolean canBuildSettlement(VertexObject settlement, boolean isFree,
+			boolean setupPhase) {
+		int playerIndex = settlement.getOwner();
+		ResourceList resourceList = new ResourceList(1, 0, 1, 1, 1);
+		if (isPlayerTurn(playerIndex)
+				&& (playerHasResources(playerIndex, resourceList) || isFree)
+				&& model.getBitboard().canPlaceSettlement(playerIndex,
+						BoardTopology.vertexId(settlement.getLocation()),
+						!setupPhase)
+				&& (model.getTurnTracker().getStatus().equals("Playing") || setupPhase)
+				&& !settlementOnWater(settlement)) {
+			return true;
 		}
-
 		return false;
 	}
 
 	/**
-	 * Returns true if there are no adjacent buildings to the proposed new
-	 * settlement
+	 * Finds every move of each kind the player may make, in one pass over the
+	 * game's bitboard instead of a check per location. A road, settlement or
+	 * city is listed exactly where canBuildRoad, canBuildSettlement or
+	 * canBuildCity would allow it, free in the setup rounds; the robber
+	 * hexes are listed while the player is robbing or could play a soldier.
 	 * 
-	 * @param newSettlement
-	 * @return
+	 * @return the player's legal moves in the current version
 	 */
-	private boolean noAdjacentBuildings(VertexObject newSettlement) {
-		HexLocation platformHex = newSettlement.getLocation().getHexLoc();
-		for (VertexObject existingSettlement : model.getMap().getSettlements()) {
-			if (hasAdjacentVertexObject(existingSettlement, newSettlement,
-					platformHex)) {
-				return false;
+	public LegalMoves legalMoves(int playerIndex) {
+		LegalMoves moves = new LegalMoves(playerIndex, model.getVersion());
+		Player[] players = model.getPlayers();
+		if (!isPlayerTurn(playerIndex) || playerIndex < 0
+				|| playerIndex >= players.length || players[playerIndex] == null) {
+			return moves;
+		}
+		Player player = players[playerIndex];
+		String status = model.getTurnTracker().getStatus();
+		boolean playing = "Playing".equals(status);
+		boolean setup = "FirstRound".equals(status)
+				|| "SecondRound".equals(status);
+		Bitboard bitboard = model.getBitboard();
+
+		if (setup
+				|| playing
+				&& playerHasResources(playerIndex, new ResourceList(1, 0, 0,
+						0, 1)) && playerHasAvailableRoadPiece(playerIndex)) {
+			long[] spots = bitboard.roadSpots(playerIndex);
+			List<EdgeLocation> roads = new ArrayList<EdgeLocation>();
+			for (int word = 0; word < spots.length; word++) {
+				for (long bits = spots[word]; bits != 0; bits &= bits - 1) {
+					roads.add(BoardTopology.edgeLocation(Bitboard.edgeId(64
+							* word + Long.numberOfTrailingZeros(bits))));
+				}
 			}
+			moves.setRoads(roads.toArray(new EdgeLocation[roads.size()]));
 		}
-		for (VertexObject existingCity : model.getMap().getCities()) {
-			if (hasAdjacentVertexObject(existingCity, newSettlement,
-					platformHex)) {
-				return false;
-			}
+		if (setup
+				|| playing
+				&& playerHasResources(playerIndex, new ResourceList(1, 0, 1,
+						1, 1))) {
+			moves.setSettlements(vertexLocations(bitboard.settlementSpots(
+					playerIndex, !setup)));
+		}
+		if (playing
+				&& playerHasResources(playerIndex, new ResourceList(0, 3, 0,
+						2, 0))) {
+			moves.setCities(vertexLocations(bitboard.citySpots(playerIndex)));
 		}
-		return true;
-	}
-
-	private boolean roadTouchingNewSettlement(VertexObject newSettlement) {
-		VertexDirection newSettlementDirection = newSettlement.getLocation()
-				.getDir();
-
-		for (Road existingRoad : model.getMap().getRoads()) {
-			if (existingRoad.getOwner() == newSettlement.getOwner()) {
-				HexLocation newSettlementLocation = newSettlement.getLocation()
-						.getHexLoc();
-				HexLocation roadNeighbor = null;
-				EdgeLocation testLocation = null;
-				Road testRoad = null;
-
-				switch (newSettlementDirection) {
-				case NorthWest:
-					roadNeighbor = newSettlementLocation
-							.getNeighborLoc(EdgeDirection.NorthWest);
-					testLocation = new EdgeLocation(newSettlementLocation,
-							EdgeDirection.NorthWest);
-					testRoad = new Road(existingRoad.getOwner(), testLocation);
-					if (!existingRoad.isNotEquivalent(testRoad)) {
-						return true;
-					}
-
-					testLocation = new EdgeLocation(newSettlementLocation,
-							EdgeDirection.North);
-					testRoad = new Road(existingRoad.getOwner(), testLocation);
-					if (!existingRoad.isNotEquivalent(testRoad)) {
-						return true;
-					}
-
-					testLocation = new EdgeLocation(roadNeighbor,
-							EdgeDirection.NorthEast);
-					testRoad = new Road(existingRoad.getOwner(), testLocation);
-					if (!existingRoad.isNotEquivalent(testRoad)) {
-						return true;
-					}
-					break;
-				case East:
-					roadNeighbor = newSettlementLocation
-							.getNeighborLoc(EdgeDirection.NorthEast);
-					testLocation = new EdgeLocation(newSettlementLocation,
-							EdgeDirection.NorthEast);
-					testRoad = new Road(existingRoad.getOwner(), testLocation);
-					if (!existingRoad.isNotEquivalent(testRoad)) {
-						return true;
-					}
-
-					testLocation = new EdgeLocation(newSettlementLocation,
-							EdgeDirection.SouthEast);
-					testRoad = new Road(existingRoad.getOwner(), testLocation);
-					if (!existingRoad.isNotEquivalent(testRoad)) {
-						return true;
-					}
-
-					testLocation = new EdgeLocation(roadNeighbor,
-							EdgeDirection.South);
-					testRoad = new Road(existingRoad.getOwner(), testLocation);
-					if (!existingRoad.isNotEquivalent(testRoad)) {
-						return true;
-					}
-					break;
-				case NorthEast:
-					roadNeighbor = newSettlementLocation
-							.getNeighborLoc(EdgeDirection.NorthEast);
-					testLocation = new EdgeLocation(newSettlementLocation,
-							EdgeDirection.NorthEast);
-					testRoad = new Road(existingRoad.getOwner(), testLocation);
-					if (!existingRoad.isNotEquivalent(testRoad)) {
-						return true;
-					}
-
-					testLocation = new EdgeLocation(newSettlementLocation,
-							EdgeDirection.North);
-					testRoad = new Road(existingRoad.getOwner(), testLocation);
-					if (!existingRoad.isNotEquivalent(testRoad)) {
-						return true;
-					}
-
-					testLocation = new EdgeLocation(roadNeighbor,
-							EdgeDirection.NorthWest);
-					testRoad = new Road(existingRoad.getOwner(), testLocation);
-					if (!existingRoad.isNotEquivalent(testRoad)) {
-						return true;
-					}
-					break;
-				case SouthEast:
-					roadNeighbor = newSettlementLocation
-							.getNeighborLoc(EdgeDirection.SouthEast);
-					testLocation = new EdgeLocation(newSettlementLocation,
-							EdgeDirection.South);
-					testRoad = new Road(existingRoad.getOwner(), testLocation);
-					if (!existingRoad.isNotEquivalent(testRoad)) {
-						return true;
-					}
-
-					testLocation = new EdgeLocation(newSettlementLocation,
-							EdgeDirection.SouthEast);
-					testRoad = new Road(existingRoad.getOwner(), testLocation);
-					if (!existingRoad.isNotEquivalent(testRoad)) {
-						return true;
-					}
-
-					testLocation = new EdgeLocation(roadNeighbor,
-							EdgeDirection.SouthWest);
-					testRoad = new Road(existingRoad.getOwner(), testLocation);
-					if (!existingRoad.isNotEquivalent(testRoad)) {
-						return true;
-					}
-					break;
-				case West:
-					roadNeighbor = newSettlementLocation
-							.getNeighborLoc(EdgeDirection.NorthWest);
-					testLocation = new EdgeLocation(newSettlementLocation,
-							EdgeDirection.NorthWest);
-					testRoad = new Road(existingRoad.getOwner(), testLocation);
-					if (!existingRoad.isNotEquivalent(testRoad)) {
-						return true;
-					}
-
-					testLocation = new EdgeLocation(newSettlementLocation,
-							EdgeDirection.SouthWest);
-					testRoad = new Road(existingRoad.getOwner(), testLocation);
-					if (!existingRoad.isNotEquivalent(testRoad)) {
-						return true;
-					}
-
-					testLocation = new EdgeLocation(roadNeighbor,
-							EdgeDirection.South);
-					testRoad = new Road(existingRoad.getOwner(), testLocation);
-					if (!existingRoad.isNotEquivalent(testRoad)) {
-						return true;
-					}
-					break;
-				case SouthWest:
-					roadNeighbor = newSettlementLocation
-							.getNeighborLoc(EdgeDirection.SouthWest);
-					testLocation = new EdgeLocation(newSettlementLocation,
-							EdgeDirection.SouthWest);
-					testRoad = new Road(existingRoad.getOwner(), testLocation);
-					if (!existingRoad.isNotEquivalent(testRoad)) {
-						return true;
-					}
 
-					testLocation = new EdgeLocation(newSettlementLocation,
-							EdgeDirection.South);
-					testRoad = new Road(existingRoad.getOwner(), testLocation);
-					if (!existingRoad.isNotEquivalent(testRoad)) {
-						return true;
-					}
+		if ("Robbing".equals(status)
+				|| playing && player.getOldDevCards().getSoldier() > 0
+				&& !player.hasPlayedDevCard()) {
+			List<HexLocation> hexes = new ArrayList<HexLocation>();
+			for (Hex hex : model.getMap().getHexes()) {
+				if (canMoveRobber(hex.getLocation())) {
+					hexes.add(hex.getLocation());
+				}
+			}
+			moves.setRobber(hexes.toArray(new HexLocation[hexes.size()]));
+		}
 
-					testLocation = new EdgeLocation(roadNeighbor,
-							EdgeDirection.SouthEast);
-					testRoad = new Road(existingRoad.getOwner(), testLocation);
-					if (!existingRoad.isNotEquivalent(testRoad)) {
-						return true;
+		if (playing) {
+			List<MaritimeTradeParams> trades = new ArrayList<MaritimeTradeParams>();
+			DerivedState derived = model.getDerivedState();
+			for (ResourceType input : ResourceType.values()) {
+				int ratio = derived.getTradeRatio(playerIndex, input);
+				if (!player.getResources().ofAKind(input, ratio)) {
+					continue;
+				}
+				for (ResourceType output : ResourceType.values()) {
+					if (output != input && model.getBank().ofAKind(output, 1)) {
+						trades.add(new MaritimeTradeParams(playerIndex, ratio,
+								input.toString(), output.toString()));
 					}
-					break;
 				}
 			}
+			moves.setMaritimeTrades(trades
+					.toArray(new MaritimeTradeParams[trades.size()]));
 		}
-		return false;
+		return moves;
 	}
 
-	/**
-	 * tests if the player can build a settlement
-	 * 
-	 * @Pre it is the current turn of the player attempting to build the
-	 *      settlement
-	 * @Pre player has the required resources to buy the settlement
-	 * @Pre Settlement is two edges away from all other settlements
-	 * @Post result: a boolean reporting success/fail
-	 */
-	public boolean canBuildSettlement(VertexObject settlement, boolean isFree,
-			boolean setupPhase) {
-		int playerIndex = settlement.getOwner();
-		ResourceList resourceList = new ResourceList(1, 0, 1, 1, 1);
-		if (isPlayerTurn(playerIndex)
-				&& (playerHasResources(playerIndex, resourceList) || isFree)
-				&& !preexistingBuilding(settlement, true)
-				&& noAdjacentBuildings(settlement)
-				&& (roadTouchingNewSettlement(settlement) || setupPhase)
-				&& (model.getTurnTracker().getStatus().equals("Playing") || setupPhase)
-				&& !settlementOnWater(settlement)) {
-			return true;
+	private static VertexLocation[] vertexLocations(long spots) {
+		VertexLocation[] locations = new VertexLocation[Long.bitCount(spots)];
+		int i = 0;
+		for (long bits = spots; bits != 0; bits &= bits - 1) {
+			locations[i++] = BoardTopology.vertexLocation(Bitboard
+					.vertexId(Long.numberOfTrailingZeros(bits)));
 		}
-		return false;
+		return locations;
 	}
 
 	public ArrayList<ResourceType> getAdjacentResources(VertexObject settlement) {
@@ -1072,49 +525,11 @@ public class ServerModelController {
 
 	private boolean preexistingSettlement(VertexObject building,
 			boolean dontCheckOwner) {
-		boolean result = false;
-		int buildingOwner = building.getOwner();
-		for (VertexObject settlement : model.getMap().getSettlements()) {
-			if (settlement.isEquivalent(building)) {
-				if (!dontCheckOwner)
-					result = (settlement.getOwner() == buildingOwner);
-				else
-					result = true;
-			}
+		int owner = settlementOwner(building);
+		if (owner == -1) {
+			return false;
 		}
-		for (VertexObject city : model.getMap().getCities()) {
-			if (city.isEquivalent(building)) {
-				result = false;
-			}
-		}
-		return result;
-
-	}
-
-	/**
-	 * checks that a settlement exists on the proposed city spot
-	 * 
-	 * @param building
-	 * @param dontCheckOwner
-	 * @return
-	 */
-	private boolean preexistingBuilding(VertexObject building,
-			boolean dontCheckOwner) {
-
-		for (VertexObject settlement : model.getMap().getSettlements()) {
-			if (settlement.isEquivalent(building)) {
-				return true;
-			}
-		}
-
-		for (VertexObject city : model.getMap().getCities()) {
-			if (city.isEquivalent(building)) {
-				return true;
-			}
-		}
-
-		return false;
-
+		return dontCheckOwner || owner == building.getOwner();
 	}
 
 	/**
@@ -1124,14 +539,8 @@ public class ServerModelController {
 	 * @return
 	 */
 	public int settlementOwner(VertexObject location) {
-
-		for (VertexObject settlement : model.getMap().getSettlements()) {
-			if (settlement.isEquivalent(location)) {
-				return settlement.getOwner();
-			}
-		}
-
-		return -1;
+		return model.getBoardIndex().settlementOwner(
+				BoardTopology.vertexId(location.getLocation()));
 	}
 
 	/**
@@ -1141,14 +550,8 @@ public class ServerModelController {
 	 * @return
 	 */
 	public int cityOwner(VertexObject location) {
-
-		for (VertexObject city : model.getMap().getCities()) {
-			if (city.isEquivalent(location)) {
-				return city.getOwner();
-			}
-		}
-
-		return -1;
+		return model.getBoardIndex().cityOwner(
+				BoardTopology.vertexId(location.getLocation()));
 	}
 
 	/**
@@ -1223,9 +626,11 @@ public class ServerModelController {
 						resource, ratioNumber)
 				&& model.getTurnTracker().getStatus().equals("Playing")) {
 
-			if (ratioNumber == 2 && playerOnResourcePort(playerIndex, resource)) {
+			DerivedState derived = model.getDerivedState();
+			if (ratioNumber == 2
+					&& derived.hasResourcePort(playerIndex, resource)) {
 				return true;
-			} else if (ratioNumber == 3 && playerOnNormalPort(playerIndex)) {
+			} else if (ratioNumber == 3 && derived.hasGenericPort(playerIndex)) {
 				return true;
 			} else if (ratioNumber == 4)
 				return true;
@@ -1233,117 +638,6 @@ public class ServerModelController {
 		return false;
 	}
 
-	// Special
-	private boolean playerOnNormalPort(int playerIndex) {
-		/*
-		 * Check if any settlement is connected to a normal port. If so, then
-		 * return true.
-		 */
-		for (VertexObject settlement : model.getMap().getSettlements()) {
-			if (playerIndex == settlement.getOwner()
-					&& buildingOnNormalPort(settlement)) {
-				return true;
-			}
-		}
-
-		/*
-		 * Check if any city is connected to a normal port. If so, then return
-		 * true.
-		 */
-		for (VertexObject city : model.getMap().getCities()) {
-			if (playerIndex == city.getOwner() && buildingOnNormalPort(city)) {
-				return true;
-			}
-		}
-
-		return false;
-	}
-
-	// Special
-	private boolean buildingOnNormalPort(VertexObject building) {
-		/*
-		 * Loop through the list of ports to find any ports without resources
-		 * connected to the building.
-		 */
-		for (Port port : model.getMap().getPorts()) {
-			if (port.getResource() == null) {
-
-				/*
-				 * Create a road that matches the edgeLocation and direction of
-				 * the port. This road should have a connecting building that
-				 * matches the owner, if this is the case, then you can access
-				 * the port.
-				 */
-				EdgeLocation edgeLocation = new EdgeLocation(
-						port.getLocation(), port.getDir());
-				Road road = new Road(building.getOwner(), edgeLocation);
-				boolean connect = hasConnectingBuilding(road);
-
-				if (connect) {
-					return true;
-				}
-			}
-		}
-		return false;
-	}
-
-	// Special
-	private boolean playerOnResourcePort(int playerIndex, ResourceType resource) {
-		/*
-		 * Check if any settlement is connected to a normal port. If so, then
-		 * return true.
-		 */
-		for (VertexObject settlement : model.getMap().getSettlements()) {
-			if (playerIndex == settlement.getOwner()
-					&& buildingOnResourcePort(playerIndex, settlement, resource)) {
-				return true;
-			}
-		}
-
-		/*
-		 * Check if any city is connected to a normal port. If so, then return
-		 * true.
-		 */
-		for (VertexObject city : model.getMap().getCities()) {
-			if (playerIndex == city.getOwner()
-					&& buildingOnResourcePort(playerIndex, city, resource)) {
-				return true;
-			}
-		}
-
-		return false;
-	}
-
-	// Special
-	private boolean buildingOnResourcePort(int playerIndex,
-			VertexObject building, ResourceType resource) {
-		/*
-		 * Loop through the list of ports to find any ports with a matching
-		 * resource connected to the building.
-		 */
-		for (Port port : model.getMap().getPorts()) {
-			if (port.getResource() != null
-					&& port.getResource().equals(resource.toString())) {
-
-				/*
-				 * Create a road that matches the edgeLocation and direction of
-				 * the port. This road should have a connecting building that
-				 * matches the owner, if this is the case, then you can access
-				 * the port.
-				 */
-				EdgeLocation edgeLocation = new EdgeLocation(
-						port.getLocation(), port.getDir());
-				Road road = new Road(building.getOwner(), edgeLocation);
-				boolean connect = hasConnectingBuilding(road);
-
-				if (connect) {
-					return true;
-				}
-			}
-		}
-		return false;
-	}
-
 	public boolean canMoveRobber(HexLocation hexLocation) {
 		if (!model.getMap().getRobber().equals(hexLocation)
 				&& !hexLocation.isWater()) {
@@ -1354,90 +648,12 @@ public class ServerModelController {
 
 	public boolean playerTouchingRobber(int robbedPlayer,
 			HexLocation robberLocation) {
-		VertexObject testObject = null;
-		VertexLocation testLocation = null;
-
-		// check settlements
-		for (VertexObject settlement : model.getMap().getSettlements()) {
-			if (settlement.getOwner() == robbedPlayer) {
-				testLocation = new VertexLocation(robberLocation,
-						VertexDirection.NorthEast);
-				testObject = new VertexObject(robbedPlayer, testLocation);
-				if (settlement.isEquivalent(testObject)) {
-					return true;
-				}
-				testLocation = new VertexLocation(robberLocation,
-						VertexDirection.NorthWest);
-				testObject = new VertexObject(robbedPlayer, testLocation);
-				if (settlement.isEquivalent(testObject)) {
-					return true;
-				}
-				testLocation = new VertexLocation(robberLocation,
-						VertexDirection.West);
-				testObject = new VertexObject(robbedPlayer, testLocation);
-				if (settlement.isEquivalent(testObject)) {
-					return true;
-				}
-				testLocation = new VertexLocation(robberLocation,
-						VertexDirection.SouthEast);
-				testObject = new VertexObject(robbedPlayer, testLocation);
-				if (settlement.isEquivalent(testObject)) {
-					return true;
-				}
-				testLocation = new VertexLocation(robberLocation,
-						VertexDirection.SouthWest);
-				testObject = new VertexObject(robbedPlayer, testLocation);
-				if (settlement.isEquivalent(testObject)) {
-					return true;
-				}
-				testLocation = new VertexLocation(robberLocation,
-						VertexDirection.East);
-				testObject = new VertexObject(robbedPlayer, testLocation);
-				if (settlement.isEquivalent(testObject)) {
-					return true;
-				}
-			}
-		}
-
-		// check cities
-		for (VertexObject city : model.getMap().getCities()) {
-			if (city.getOwner() == robbedPlayer) {
-				testLocation = new VertexLocation(robberLocation,
-						VertexDirection.NorthEast);
-				testObject = new VertexObject(robbedPlayer, testLocation);
-				if (city.isEquivalent(testObject)) {
-					return true;
-				}
-				testLocation = new VertexLocation(robberLocation,
-						VertexDirection.NorthWest);
-				testObject = new VertexObject(robbedPlayer, testLocation);
-				if (city.isEquivalent(testObject)) {
-					return true;
-				}
-				testLocation = new VertexLocation(robberLocation,
-						VertexDirection.West);
-				testObject = new VertexObject(robbedPlayer, testLocation);
-				if (city.isEquivalent(testObject)) {
-					return true;
-				}
-				testLocation = new VertexLocation(robberLocation,
-						VertexDirection.SouthEast);
-				testObject = new VertexObject(robbedPlayer, testLocation);
-				if (city.isEquivalent(testObject)) {
-					return true;
-				}
-				testLocation = new VertexLocation(robberLocation,
-						VertexDirection.SouthWest);
-				testObject = new VertexObject(robbedPlayer, testLocation);
-				if (city.isEquivalent(testObject)) {
-					return true;
-				}
-				testLocation = new VertexLocation(robberLocation,
-						VertexDirection.East);
-				testObject = new VertexObject(robbedPlayer, testLocation);
-				if (city.isEquivalent(testObject)) {
-					return true;
-				}
+		BoardIndex index = model.getBoardIndex();
+		for (VertexDirection dir : VertexDirection.values()) {
+			int vertex = BoardTopology.vertexId(robberLocation.getX(),
+					robberLocation.getY(), dir);
+			if (index.buildingOwner(vertex) == robbedPlayer) {
+				return true;
 			}
 		}
 		return false;
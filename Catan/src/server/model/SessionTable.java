@@ -0,0 +1,221 @@
+package server.model;
+
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The sessions handed out at login and register, by token.
+ *
+ * A token is a random string with nothing of the player in it, so the server
+ * alone decides who a request is from. Each session knows its player and, once
+ * the player joins a game, the game and the player's index in it, so a request
+ * is resolved with one lookup.
+ *
+ * A session that goes unused for idleMillis expires, and a player keeps at
+ * most sessionsPerPlayer of them: logging in again past that ends their
+ * oldest one. Expired sessions are swept out as new ones are opened, so the
+ * table holds only the sessions still in use.
+ */
+public class SessionTable {
+	/**
+	 * Name of the cookie that carries the token
+	 */
+	public static final String COOKIE = "catan.session";
+
+	/**
+	 * Default time a session may go unused before it expires
+	 */
+	public static final long DEFAULT_IDLE_MILLIS = 2 * 60 * 60 * 1000L;
+	/**
+	 * Default most sessions one player may hold at once
+	 */
+	public static final int DEFAULT_SESSIONS_PER_PLAYER = 4;
+
+	private static final int TOKEN_BYTES = 16;
+	private static SessionTable singleton = null;
+
+	/**
+	 * Who a session belongs to and the game they are in
+	 */
+	public static class Session {
+		private final String token;
+		private final int playerID;
+		private volatile int gameID = -1;
+		private volatile int playerIndex = -1;
+		private volatile long lastUsed;
+
+		private Session(String token, int playerID, long now) {
+			this.token = token;
+			this.playerID = playerID;
+			this.lastUsed = now;
+		}
+
+		public String getToken() {
+			return token;
+		}
+
+		public int getPlayerID() {
+			return playerID;
+		}
+
+		/**
+		 * @return the game the player last joined, or -1 before they join one
+		 */
+		public int getGameID() {
+			return gameID;
+		}
+
+		/**
+		 * @return the player's index in their game, or -1 before they join one
+		 */
+		public int getPlayerIndex() {
+			return playerIndex;
+		}
+
+		/**
+		 * Records the game the player joined and their seat in it
+		 */
+		public void joined(int gameID, int playerIndex) {
+			this.gameID = gameID;
+			this.playerIndex = playerIndex;
+		}
+	}
+
+	private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<String, Session>();
+	/*
+	 * Each player's sessions, oldest first. Only used while holding the
+	 * table's lock.
+	 */
+	private final HashMap<Integer, ArrayDeque<Session>> byPlayer = new HashMap<Integer, ArrayDeque<Session>>();
+	private final SecureRandom random = new SecureRandom();
+	private final long idleMillis;
+	private final int sessionsPerPlayer;
+	private long lastSweep;
+
+	/**
+	 * @param idleMillis
+	 *            - how long a session may go unused before it expires
+	 * @param sessionsPerPlayer
+	 *            - most sessions one player may hold at once
+	 */
+	public SessionTable(long idleMillis, int sessionsPerPlayer) {
+		this.idleMillis = idleMillis;
+		this.sessionsPerPlayer = sessionsPerPlayer;
+		this.lastSweep = System.currentTimeMillis();
+	}
+
+	public static synchronized SessionTable getSingleton() {
+		if (singleton == null) {
+			singleton = new SessionTable(DEFAULT_IDLE_MILLIS,
+					DEFAULT_SESSIONS_PER_PLAYER);
+		}
+		return singleton;
+	}
+
+	/**
+	 * Starts a new session for a player who just logged in or registered,
+	 * ending their oldest one if they already hold sessionsPerPlayer
+	 *
+	 * @return the session, with a token no other session has
+	 */
+	public synchronized Session open(int playerID) {
+		long now = System.currentTimeMillis();
+		if (now - lastSweep >= Math.min(idleMillis, 60 * 1000L)) {
+			sweep(now);
+		}
+		ArrayDeque<Session> owned = byPlayer.get(playerID);
+		if (owned == null) {
+			owned = new ArrayDeque<Session>();
+			byPlayer.put(playerID, owned);
+		}
+		prune(owned, now);
+		while (owned.size() >= sessionsPerPlayer) {
+			Session oldest = owned.removeFirst();
+			sessions.remove(oldest.token, oldest);
+		}
+		byte[] bytes = new byte[TOKEN_BYTES];
+		while (true) {
+			random.nextBytes(bytes);
+			String token = Base64.getUrlEncoder().withoutPadding()
+					.encodeToString(bytes);
+			Session session = new Session(token, playerID, now);
+			if (sessions.putIfAbsent(token, session) == null) {
+				owned.addLast(session);
+				return session;
+			}
+		}
+	}
+
+	/**
+	 * @return the session with the token, or null if there is none or it
+	 *         has expired; a session found counts as used now
+	 */
+	public Session get(String token) {
+		Session session = token == null ? null : sessions.get(token);
+		if (session == null) {
+			return null;
+		}
+		long now = System.currentTimeMillis();
+		if (now - session.lastUsed > idleMillis) {
+			// left for the next sweep to take out of byPlayer
+			sessions.remove(token, session);
+			return null;
+		}
+		session.lastUsed = now;
+		return session;
+	}
+
+	/**
+	 * Ends a session, so its token no longer resolves
+	 */
+	public synchronized void close(String token) {
+		Session session = token == null ? null : sessions.remove(token);
+		if (session != null) {
+			ArrayDeque<Session> owned = byPlayer.get(session.playerID);
+			if (owned != null) {
+				owned.remove(session);
+				if (owned.isEmpty()) {
+					byPlayer.remove(session.playerID);
+				}
+			}
+		}
+	}
+
+	/*
+	 * Drops every player's dead sessions
+	 */
+	private void sweep(long now) {
+		lastSweep = now;
+		Iterator<ArrayDeque<Session>> players = byPlayer.values().iterator();
+		while (players.hasNext()) {
+			ArrayDeque<Session> owned = players.next();
+			prune(owned, now);
+			if (owned.isEmpty()) {
+				players.remove();
+			}
+		}
+	}
+
+	/*
+	 * Drops the player's sessions that have expired or were ended by get
+	 */
+	private void prune(ArrayDeque<Session> owned, long now) {
+		Iterator<Session> each = owned.iterator();
+		while (each.hasNext()) {
+			Session session = each.next();
+			if (now - session.lastUsed > idleMillis
+					|| sessions.get(session.token) != session) {
+				sessions.remove(session.token, session);
+				each.remove();
+			}
+		}
+	}
+
+	public int size() {
+		return sessions.size();
+	}
+}
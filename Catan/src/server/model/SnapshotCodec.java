@@ -0,0 +1,796 @@
+package server.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import server.commands.ICommand;
+import shared.locations.EdgeLocation;
+import shared.locations.HexLocation;
+import shared.locations.VertexLocation;
+import shared.model.Deck;
+import shared.model.DevCardList;
+import shared.model.GameRandom;
+import shared.model.Hex;
+import shared.model.Map;
+import shared.model.MessageLine;
+import shared.model.MessageList;
+import shared.model.Player;
+import shared.model.Port;
+import shared.model.ResourceList;
+import shared.model.Road;
+import shared.model.TradeOffer;
+import shared.model.TurnTracker;
+import shared.model.VertexObject;
+
+/**
+ * Writes a ServerModel as a compact binary snapshot and reads it back, for
+ * saved games.
+ *
+ * A snapshot is the bytes "CTN", a format version, then sections, each a tag
+ * byte, a varint length and the section itself, so a reader skips sections
+ * it does not know. The dictionary section comes first. Every string in the
+ * game, from resources and directions to names and the words of each
+ * message, is written once in the dictionary section and referred to by its
+ * index after that, so a board piece costs a few bytes and a log line like
+ * "Sam built a road" one per word. Numbers are zigzag varints, so the small
+ * counts a game is made of take one byte each. The chat and log come last,
+ * as the messages section.
+ *
+ * A snapshot can also carry the commands the game has run, as their JSON, in
+ * a commands section after the messages.
+ *
+ * {@link #decode(ByteBuffer)} reads straight from a buffer, such as the
+ * mapped file {@link #read(File)} gives it; only the dictionary's strings are
+ * built, each once, from the bytes in place.
+ */
+public class SnapshotCodec {
+	/**
+	 * The format version written; snapshots from a later version are refused
+	 */
+	public static final int VERSION = 1;
+
+	private static final byte[] MAGIC = { 'C', 'T', 'N' };
+
+	private static final int DICTIONARY = 1;
+	private static final int HEADER = 2;
+	private static final int BOARD = 3;
+	private static final int PLAYERS = 4;
+	private static final int STATE = 5;
+	private static final int MESSAGES = 6;
+	private static final int COMMANDS = 7;
+
+	/**
+	 * @return the game as a snapshot, without its command history
+	 */
+	public static byte[] encode(ServerModel model) {
+		return encode(model, false);
+	}
+
+	/**
+	 * @param withCommands
+	 *            - whether to keep the commands the game has run, as JSON, so
+	 *            getCommands still has them after the game is read back
+	 * @return the game as a snapshot
+	 */
+	public static byte[] encode(ServerModel model, boolean withCommands) {
+		Dictionary dictionary = new Dictionary();
+		Output header = new Output();
+		writeHeader(header, model, dictionary);
+		Output board = new Output();
+		writeBoard(board, model.getMap(), dictionary);
+		Output players = new Output();
+		writePlayers(players, model.getPlayers(), dictionary);
+		Output state = new Output();
+		writeState(state, model, dictionary);
+		Output messages = new Output();
+		writeMessages(messages, model.getChat(), dictionary);
+		writeMessages(messages, model.getLog(), dictionary);
+		Output words = new Output();
+		dictionary.write(words);
+
+		Output snapshot = new Output();
+		snapshot.writeBytes(MAGIC, MAGIC.length);
+		snapshot.writeByte(VERSION);
+		snapshot.writeSection(DICTIONARY, words);
+		snapshot.writeSection(HEADER, header);
+		snapshot.writeSection(BOARD, board);
+		snapshot.writeSection(PLAYERS, players);
+		snapshot.writeSection(STATE, state);
+		snapshot.writeSection(MESSAGES, messages);
+		if (withCommands) {
+			Output commands = new Output();
+			writeCommands(commands, model.getCommands());
+			snapshot.writeSection(COMMANDS, commands);
+		}
+		return snapshot.toByteArray();
+	}
+
+	/**
+	 * Reads a game from a snapshot, starting at the buffer's position
+	 *
+	 * @throws IOException
+	 *             if the buffer does not hold a whole snapshot of a version
+	 *             this codec reads
+	 */
+	public static ServerModel decode(ByteBuffer buffer) throws IOException {
+		for (byte b : MAGIC) {
+			if (!buffer.hasRemaining() || buffer.get() != b) {
+				throw new IOException("Not a game snapshot");
+			}
+		}
+		Input in = new Input(buffer);
+		try {
+			int version = buffer.get() & 0xff;
+			if (version > VERSION) {
+				throw new IOException("Snapshot version " + version
+						+ " is newer than " + VERSION);
+			}
+			ServerModel model = new ServerModel();
+			String[] dictionary = new String[0];
+			while (buffer.hasRemaining()) {
+				int tag = buffer.get() & 0xff;
+				int length = in.readLength();
+				int end = buffer.position() + length;
+				if (end > buffer.limit()) {
+					throw new IOException("Snapshot is cut short");
+				}
+				in.dictionary = dictionary;
+				switch (tag) {
+				case HEADER:
+					readHeader(in, model);
+					break;
+				case DICTIONARY:
+					dictionary = readDictionary(in);
+					break;
+				case BOARD:
+					model.setMap(readBoard(in));
+					break;
+				case PLAYERS:
+					model.setPlayers(readPlayers(in));
+					break;
+				case STATE:
+					readState(in, model);
+					break;
+				case MESSAGES:
+					model.setChat(readMessages(in));
+					model.setLog(readMessages(in));
+					break;
+				case COMMANDS:
+					model.setCommands(readCommands(in));
+					break;
+				default:
+					break;
+				}
+				buffer.position(end);
+			}
+			return model;
+		} catch (BufferUnderflowException | IllegalArgumentException
+				| IndexOutOfBoundsException e) {
+			throw new IOException("Snapshot is corrupt", e);
+		}
+	}
+
+	/**
+	 * Writes the game's snapshot to a file, replacing anything there
+	 */
+	public static void write(ServerModel model, File file) throws IOException {
+		write(model, file, false);
+	}
+
+	/**
+	 * Writes the game's snapshot to a file, replacing anything there
+	 * 
+	 * @param withCommands
+	 *            - as for {@link #encode(ServerModel, boolean)}
+	 */
+	public static void write(ServerModel model, File file,
+			boolean withCommands) throws IOException {
+		ByteBuffer bytes = ByteBuffer.wrap(encode(model, withCommands));
+		try (RandomAccessFile out = new RandomAccessFile(file, "rw");
+				FileChannel channel = out.getChannel()) {
+			channel.truncate(0);
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+		}
+	}
+
+	/**
+	 * Maps a snapshot file into memory and reads the game from it
+	 */
+	public static ServerModel read(File file) throws IOException {
+		try (RandomAccessFile in = new RandomAccessFile(file, "r");
+				FileChannel channel = in.getChannel()) {
+			return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					channel.size()));
+		}
+	}
+
+	private static void writeHeader(Output out, ServerModel model,
+			Dictionary dictionary) {
+		out.writeInt(model.getGameID());
+		out.writeString(model.getTitle(), dictionary);
+		out.writeInt(model.getVersion());
+		out.writeInt(model.getWinner());
+		GameRandom random = model.getRandom();
+		out.writeBoolean(random != null);
+		if (random != null) {
+			out.writeLong(random.getSeed());
+			out.writeLong(random.getState());
+		}
+		out.writeString(model.getInitialGameStateJSON(), dictionary);
+	}
+
+	private static void readHeader(Input in, ServerModel model) {
+		model.setGameID(in.readInt());
+		model.setTitle(in.readString());
+		model.setVersion(in.readInt());
+		model.setWinner(in.readInt());
+		model.setRandom(in.readBoolean() ? new GameRandom(in.readLong(),
+				in.readLong()) : null);
+		model.setInitialGameStateJSON(in.readString());
+	}
+
+	private static String[] readDictionary(Input in) {
+		int count = in.readLength();
+		if (count > in.buffer.remaining()) {
+			throw new IllegalArgumentException("dictionary is past the end");
+		}
+		String[] words = new String[count];
+		for (int i = 0; i < words.length; i++) {
+			words[i] = in.readUTF8();
+		}
+		return words;
+	}
+
+	private static void writeBoard(Output out, Map map, Dictionary dictionary) {
+		out.writeBoolean(map != null);
+		if (map == null) {
+			return;
+		}
+		Hex[] hexes = map.getHexes();
+		out.writeCount(hexes);
+		for (int i = 0; hexes != null && i < hexes.length; i++) {
+			out.writeLocation(hexes[i].getLocation());
+			out.writeString(hexes[i].getResource(), dictionary);
+			out.writeInt(hexes[i].getNumber());
+		}
+		Port[] ports = map.getPorts();
+		out.writeCount(ports);
+		for (int i = 0; ports != null && i < ports.length; i++) {
+			out.writeString(ports[i].getResource(), dictionary);
+			out.writeLocation(ports[i].getLocation());
+			out.writeString(ports[i].getDirection(), dictionary);
+			out.writeInt(ports[i].getRatio());
+		}
+		List<Road> roads = map.getRoads();
+		out.writeCount(roads);
+		for (int i = 0; roads != null && i < roads.size(); i++) {
+			EdgeLocation location = roads.get(i).getLocation();
+			out.writeInt(roads.get(i).getOwner());
+			out.writeInt(location.getX());
+			out.writeInt(location.getY());
+			out.writeString(location.getDirection(), dictionary);
+		}
+		writeBuildings(out, map.getSettlements(), dictionary);
+		writeBuildings(out, map.getCities(), dictionary);
+		out.writeInt(map.getRadius());
+		out.writeLocation(map.getRobber());
+	}
+
+	private static void writeBuildings(Output out,
+			List<VertexObject> buildings, Dictionary dictionary) {
+		out.writeCount(buildings);
+		for (int i = 0; buildings != null && i < buildings.size(); i++) {
+			VertexLocation location = buildings.get(i).getLocation();
+			out.writeInt(buildings.get(i).getOwner());
+			out.writeInt(location.getX());
+			out.writeInt(location.getY());
+			out.writeString(location.getDirection(), dictionary);
+		}
+	}
+
+	private static Map readBoard(Input in) {
+		if (!in.readBoolean()) {
+			return null;
+		}
+		Hex[] hexes = in.readCount(Hex.class);
+		for (int i = 0; hexes != null && i < hexes.length; i++) {
+			HexLocation location = in.readLocation();
+			String resource = in.readString();
+			hexes[i] = new Hex(location, resource, in.readInt());
+		}
+		Port[] ports = in.readCount(Port.class);
+		for (int i = 0; ports != null && i < ports.length; i++) {
+			String resource = in.readString();
+			HexLocation location = in.readLocation();
+			String direction = in.readString();
+			ports[i] = new Port(resource, location, direction, in.readInt());
+		}
+		Road[] roads = in.readCount(Road.class);
+		for (int i = 0; roads != null && i < roads.length; i++) {
+			int owner = in.readInt();
+			EdgeLocation location = new EdgeLocation();
+			location.setX(in.readInt());
+			location.setY(in.readInt());
+			location.setDirection(in.readString());
+			roads[i] = new Road(owner, location);
+		}
+		VertexObject[] settlements = readBuildings(in);
+		VertexObject[] cities = readBuildings(in);
+		int radius = in.readInt();
+		return new Map(hexes, ports, roads, settlements, cities, radius,
+				in.readLocation());
+	}
+
+	private static VertexObject[] readBuildings(Input in) {
+		VertexObject[] buildings = in.readCount(VertexObject.class);
+		for (int i = 0; buildings != null && i < buildings.length; i++) {
+			int owner = in.readInt();
+			VertexLocation location = new VertexLocation();
+			location.setX(in.readInt());
+			location.setY(in.readInt());
+			location.setDirection(in.readString());
+			buildings[i] = new VertexObject(owner, location);
+		}
+		return buildings;
+	}
+
+	private static void writePlayers(Output out, Player[] players,
+			Dictionary dictionary) {
+		out.writeCount(players);
+		for (int i = 0; players != null && i < players.length; i++) {
+			Player player = players[i];
+			out.writeBoolean(player != null);
+			if (player == null) {
+				continue;
+			}
+			out.writeInt(player.getPlayerIndex());
+			out.writeInt(player.getPlayerid());
+			out.writeInt(player.getCities());
+			out.writeInt(player.getSettlements());
+			out.writeString(player.getName(), dictionary);
+			out.writeString(player.getColor(), dictionary);
+			out.writeBoolean(player.alreadyDiscarded());
+			out.writeInt(player.getMonuments());
+			out.writeDevCards(player.getNewDevCards());
+			out.writeDevCards(player.getOldDevCards());
+			out.writeBoolean(player.hasPlayedDevCard());
+			out.writeResources(player.getResources());
+			out.writeInt(player.getRoads());
+			out.writeInt(player.getSoldiers());
+			out.writeInt(player.getVictoryPoints());
+		}
+	}
+
+	private static Player[] readPlayers(Input in) {
+		Player[] players = in.readCount(Player.class);
+		for (int i = 0; players != null && i < players.length; i++) {
+			if (!in.readBoolean()) {
+				continue;
+			}
+			int playerIndex = in.readInt();
+			int playerid = in.readInt();
+			int cities = in.readInt();
+			int settlements = in.readInt();
+			String name = in.readString();
+			String color = in.readString();
+			boolean discarded = in.readBoolean();
+			int monuments = in.readInt();
+			DevCardList newDevCards = in.readDevCards();
+			DevCardList oldDevCards = in.readDevCards();
+			boolean playedDevCard = in.readBoolean();
+			ResourceList resources = in.readResources();
+			int roads = in.readInt();
+			int soldiers = in.readInt();
+			players[i] = new Player(playerIndex, playerid, cities, settlements,
+					name, color, discarded, monuments, newDevCards,
+					oldDevCards, playedDevCard, resources, roads, soldiers,
+					in.readInt());
+		}
+		return players;
+	}
+
+	private static void writeState(Output out, ServerModel model,
+			Dictionary dictionary) {
+		out.writeResources(model.getBank());
+		Deck deck = model.getDeck();
+		out.writeBoolean(deck != null);
+		if (deck != null) {
+			out.writeInt(deck.getYearOfPlenty());
+			out.writeInt(deck.getMonument());
+			out.writeInt(deck.getSoldier());
+			out.writeInt(deck.getRoadBuilding());
+			out.writeInt(deck.getMonopoly());
+		}
+		TradeOffer offer = model.getTradeOffer();
+		out.writeBoolean(offer != null);
+		if (offer != null) {
+			out.writeInt(offer.getSender());
+			out.writeInt(offer.getReceiver());
+			out.writeResources(offer.getResourceList());
+		}
+		TurnTracker turns = model.getTurnTracker();
+		out.writeBoolean(turns != null);
+		if (turns != null) {
+			out.writeInt(turns.getCurrentTurn());
+			out.writeString(turns.getStatus(), dictionary);
+			out.writeInt(turns.getLongestRoad());
+			out.writeInt(turns.getLargestArmy());
+		}
+	}
+
+	private static void readState(Input in, ServerModel model) {
+		model.setBank(in.readResources());
+		Deck deck = null;
+		if (in.readBoolean()) {
+			int yearOfPlenty = in.readInt();
+			int monument = in.readInt();
+			int soldier = in.readInt();
+			int roadBuilding = in.readInt();
+			deck = new Deck(yearOfPlenty, monument, soldier, roadBuilding,
+					in.readInt());
+		}
+		model.setDeck(deck);
+		TradeOffer offer = null;
+		if (in.readBoolean()) {
+			int sender = in.readInt();
+			int receiver = in.readInt();
+			offer = new TradeOffer(sender, receiver, in.readResources());
+		}
+		model.setTradeOffer(offer);
+		TurnTracker turns = null;
+		if (in.readBoolean()) {
+			int currentTurn = in.readInt();
+			String status = in.readString();
+			int longestRoad = in.readInt();
+			turns = new TurnTracker(currentTurn, status, longestRoad,
+					in.readInt());
+		}
+		model.setTurnTracker(turns);
+	}
+
+	private static void writeMessages(Output out, MessageList messages,
+			Dictionary dictionary) {
+		out.writeBoolean(messages != null);
+		if (messages == null) {
+			return;
+		}
+		List<MessageLine> lines = messages.getLines();
+		out.writeCount(lines);
+		for (int i = 0; lines != null && i < lines.size(); i++) {
+			writeText(out, lines.get(i).getMessage(), dictionary);
+			out.writeString(lines.get(i).getSource(), dictionary);
+		}
+	}
+
+	private static MessageList readMessages(Input in) {
+		if (!in.readBoolean()) {
+			return null;
+		}
+		MessageLine[] lines = in.readCount(MessageLine.class);
+		for (int i = 0; lines != null && i < lines.length; i++) {
+			String message = readText(in);
+			lines[i] = new MessageLine(message, in.readString());
+		}
+		return new MessageList(lines);
+	}
+
+	private static void writeCommands(Output out, List<ICommand> commands) {
+		out.writeCount(commands);
+		for (int i = 0; commands != null && i < commands.size(); i++) {
+			byte[] json = commands.get(i).toJSONString()
+					.getBytes(StandardCharsets.UTF_8);
+			out.writeLength(json.length);
+			out.writeBytes(json, json.length);
+		}
+	}
+
+	private static List<ICommand> readCommands(Input in) {
+		int count = in.readLength();
+		if (count == 0) {
+			return new ArrayList<ICommand>();
+		}
+		List<ICommand> commands = new ArrayList<ICommand>(Math.min(count - 1,
+				in.buffer.remaining()));
+		for (int i = 1; i < count; i++) {
+			commands.add(ICommand.fromJSONString(in.readUTF8()));
+		}
+		return commands;
+	}
+
+	/*
+	 * Messages are mostly the same few words, names and numbers, so each is
+	 * written as its words' dictionary indexes
+	 */
+	private static void writeText(Output out, String text,
+			Dictionary dictionary) {
+		if (text == null) {
+			out.writeLength(0);
+			return;
+		}
+		int words = 1;
+		for (int i = text.indexOf(' '); i >= 0; i = text.indexOf(' ', i + 1)) {
+			words++;
+		}
+		out.writeLength(words + 1);
+		int start = 0;
+		for (int end = text.indexOf(' '); end >= 0; end = text.indexOf(' ',
+				start)) {
+			out.writeString(text.substring(start, end), dictionary);
+			start = end + 1;
+		}
+		out.writeString(text.substring(start), dictionary);
+	}
+
+	private static String readText(Input in) {
+		int words = in.readLength();
+		if (words == 0) {
+			return null;
+		}
+		if (words == 2) {
+			return in.readString();
+		}
+		StringBuilder text = new StringBuilder();
+		for (int i = 1; i < words; i++) {
+			if (i > 1) {
+				text.append(' ');
+			}
+			text.append(in.readString());
+		}
+		return text.toString();
+	}
+
+	/**
+	 * The strings written so far, each given the next index the first time
+	 * it is seen
+	 */
+	private static class Dictionary {
+		private final HashMap<String, Integer> indexes = new HashMap<String, Integer>();
+		private final List<String> words = new ArrayList<String>();
+
+		private int indexOf(String word) {
+			Integer index = indexes.get(word);
+			if (index == null) {
+				index = words.size();
+				indexes.put(word, index);
+				words.add(word);
+			}
+			return index;
+		}
+
+		private void write(Output out) {
+			out.writeLength(words.size());
+			for (String word : words) {
+				byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+				out.writeLength(bytes.length);
+				out.writeBytes(bytes, bytes.length);
+			}
+		}
+	}
+
+	/**
+	 * A growing byte array with the snapshot's number and string encodings
+	 */
+	private static class Output {
+		private byte[] bytes = new byte[256];
+		private int size;
+
+		private void writeByte(int b) {
+			if (size == bytes.length) {
+				bytes = Arrays.copyOf(bytes, size * 2);
+			}
+			bytes[size++] = (byte) b;
+		}
+
+		private void writeBytes(byte[] from, int length) {
+			if (size + length > bytes.length) {
+				bytes = Arrays.copyOf(bytes,
+						Math.max(size * 2, size + length));
+			}
+			System.arraycopy(from, 0, bytes, size, length);
+			size += length;
+		}
+
+		private void writeSection(int tag, Output section) {
+			writeByte(tag);
+			writeLength(section.size);
+			writeBytes(section.bytes, section.size);
+		}
+
+		private void writeBoolean(boolean value) {
+			writeByte(value ? 1 : 0);
+		}
+
+		/**
+		 * Seven bits a byte, low bits first, the top bit set on every byte
+		 * but the last
+		 */
+		private void writeLength(int value) {
+			while ((value & ~0x7f) != 0) {
+				writeByte((value & 0x7f) | 0x80);
+				value >>>= 7;
+			}
+			writeByte(value);
+		}
+
+		/**
+		 * Zigzag first, so small negative numbers like -1 are one byte too
+		 */
+		private void writeInt(int value) {
+			writeLength((value << 1) ^ (value >> 31));
+		}
+
+		private void writeLong(long value) {
+			for (int shift = 56; shift >= 0; shift -= 8) {
+				writeByte((int) (value >>> shift));
+			}
+		}
+
+		/**
+		 * The word's dictionary index plus one, or 0 for null
+		 */
+		private void writeString(String word, Dictionary dictionary) {
+			writeLength(word == null ? 0 : dictionary.indexOf(word) + 1);
+		}
+
+		/**
+		 * The array's length plus one, or 0 for null
+		 */
+		private void writeCount(Object[] items) {
+			writeLength(items == null ? 0 : items.length + 1);
+		}
+
+		private void writeCount(List<?> items) {
+			writeLength(items == null ? 0 : items.size() + 1);
+		}
+
+		private void writeLocation(HexLocation location) {
+			writeBoolean(location != null);
+			if (location != null) {
+				writeInt(location.getX());
+				writeInt(location.getY());
+			}
+		}
+
+		private void writeResources(ResourceList resources) {
+			writeBoolean(resources != null);
+			if (resources != null) {
+				writeInt(resources.getBrick());
+				writeInt(resources.getOre());
+				writeInt(resources.getSheep());
+				writeInt(resources.getWheat());
+				writeInt(resources.getWood());
+			}
+		}
+
+		private void writeDevCards(DevCardList cards) {
+			writeBoolean(cards != null);
+			if (cards != null) {
+				writeInt(cards.getMonopoly());
+				writeInt(cards.getMonument());
+				writeInt(cards.getRoadBuilding());
+				writeInt(cards.getSoldier());
+				writeInt(cards.getYearOfPlenty());
+			}
+		}
+
+		private byte[] toByteArray() {
+			return Arrays.copyOf(bytes, size);
+		}
+	}
+
+	/**
+	 * Reads Output's encodings from a buffer
+	 */
+	private static class Input {
+		private final ByteBuffer buffer;
+		private String[] dictionary;
+		private byte[] scratch = new byte[64];
+
+		private Input(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		private boolean readBoolean() {
+			return buffer.get() != 0;
+		}
+
+		private int readLength() {
+			int value = 0;
+			for (int shift = 0; shift < 32; shift += 7) {
+				byte b = buffer.get();
+				value |= (b & 0x7f) << shift;
+				if (b >= 0) {
+					return value;
+				}
+			}
+			throw new IllegalArgumentException("varint is too long");
+		}
+
+		private int readInt() {
+			int value = readLength();
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+		private long readLong() {
+			return buffer.getLong();
+		}
+
+		private String readString() {
+			int index = readLength();
+			return index == 0 ? null : dictionary[index - 1];
+		}
+
+		private String readUTF8() {
+			int length = readLength();
+			if (buffer.hasArray()) {
+				int start = buffer.arrayOffset() + buffer.position();
+				buffer.position(buffer.position() + length);
+				return new String(buffer.array(), start, length,
+						StandardCharsets.UTF_8);
+			}
+			if (length > scratch.length) {
+				scratch = new byte[Math.max(length, scratch.length * 2)];
+			}
+			buffer.get(scratch, 0, length);
+			return new String(scratch, 0, length, StandardCharsets.UTF_8);
+		}
+
+		/**
+		 * @return an array of the length written by writeCount, or null
+		 */
+		@SuppressWarnings("unchecked")
+		private <T> T[] readCount(Class<T> type) {
+			int count = readLength();
+			if (count == 0) {
+				return null;
+			}
+			if (count - 1 > buffer.remaining()) {
+				throw new IllegalArgumentException("count is past the end");
+			}
+			return (T[]) Array.newInstance(type, count - 1);
+		}
+
+		private HexLocation readLocation() {
+			if (!readBoolean()) {
+				return null;
+			}
+			int x = readInt();
+			return new HexLocation(x, readInt());
+		}
+
+		private ResourceList readResources() {
+			if (!readBoolean()) {
+				return null;
+			}
+			int brick = readInt();
+			int ore = readInt();
+			int sheep = readInt();
+			int wheat = readInt();
+			return new ResourceList(brick, ore, sheep, wheat, readInt());
+		}
+
+		private DevCardList readDevCards() {
+			if (!readBoolean()) {
+				return null;
+			}
+			int monopoly = readInt();
+			int monument = readInt();
+			int roadBuilding = readInt();
+			int soldier = readInt();
+			return new DevCardList(monopoly, monument, roadBuilding, soldier,
+					readInt());
+		}
+	}
+}
@@ -0,0 +1,270 @@
+package server.persistance;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An append-only log of the commands run on each game, one file per game
+ * holding one command's JSON per line.
+ *
+ * Appends are written to the file straight away but forced to disk by a
+ * background thread, every commitMillis or sooner once commitBytes are
+ * waiting, so one fsync covers every move made since the last one (group
+ * commit) and a move never waits on the disk. A crash loses at most the moves
+ * of the last interval. A commitMillis of 0 forces every append before it
+ * returns instead.
+ *
+ * Appends to one game must not run concurrently, which the game lock already
+ * ensures; appends to different games may.
+ */
+public class CommandJournal {
+	private static Logger logger = Logger.getLogger("CatanServer");
+	private static final byte[] NEWLINE = { '\n' };
+
+	private final File directory;
+	private final long commitMillis;
+	private final long commitBytes;
+	private final ConcurrentHashMap<Integer, GameLog> logs = new ConcurrentHashMap<Integer, GameLog>();
+	private final Object commitLock = new Object();
+	private final AtomicLong commits = new AtomicLong();
+	private Thread committer;
+	/*
+	 * Guarded by commitLock
+	 */
+	private long pendingBytes;
+	private boolean closed;
+
+	/**
+	 * One game's open journal file and whether it has writes not yet forced
+	 */
+	private static class GameLog {
+		private final FileChannel channel;
+		private final AtomicBoolean dirty = new AtomicBoolean();
+
+		private GameLog(FileChannel channel) {
+			this.channel = channel;
+		}
+	}
+
+	/**
+	 * @param directory
+	 *            - where the journal files are kept, created if missing
+	 * @param commitMillis
+	 *            - longest an append waits to be forced to disk, or 0 to
+	 *            force each append before returning
+	 * @param commitBytes
+	 *            - bytes waiting that start a commit before the interval is up
+	 */
+	public CommandJournal(File directory, long commitMillis, long commitBytes)
+			throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Could not create journal directory "
+					+ directory);
+		}
+		this.directory = directory;
+		this.commitMillis = commitMillis;
+		this.commitBytes = commitBytes;
+		if (commitMillis > 0) {
+			committer = new Thread("journal-commit") {
+				@Override
+				public void run() {
+					commitLoop();
+				}
+			};
+			committer.setDaemon(true);
+			committer.start();
+		}
+	}
+
+	/**
+	 * Appends one command to a game's journal
+	 *
+	 * @param gameID
+	 *            - the game the command ran on
+	 * @param commandJSON
+	 *            - the command, which must not contain a newline
+	 */
+	public void append(int gameID, String commandJSON) throws IOException {
+		append(gameID, commandJSON.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Appends one command, already encoded as UTF-8 JSON, to a game's journal
+	 */
+	public void append(int gameID, byte[] commandJSON) throws IOException {
+		GameLog log = open(gameID);
+		ByteBuffer[] line = { ByteBuffer.wrap(commandJSON),
+				ByteBuffer.wrap(NEWLINE) };
+		while (line[1].hasRemaining()) {
+			log.channel.write(line);
+		}
+		if (commitMillis == 0) {
+			log.channel.force(false);
+			commits.incrementAndGet();
+			return;
+		}
+		log.dirty.set(true);
+		synchronized (commitLock) {
+			pendingBytes += commandJSON.length + 1;
+			if (pendingBytes >= commitBytes) {
+				commitLock.notify();
+			}
+		}
+	}
+
+	/**
+	 * @return every complete command in a game's journal, oldest first. A last
+	 *         line cut short by a crash is left out.
+	 */
+	public List<String> read(int gameID) throws IOException {
+		List<String> commands = new ArrayList<String>();
+		File file = fileFor(gameID);
+		if (!file.exists()) {
+			return commands;
+		}
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		int start = 0;
+		for (int i = 0; i < bytes.length; i++) {
+			if (bytes[i] == '\n') {
+				commands.add(new String(bytes, start, i - start,
+						StandardCharsets.UTF_8));
+				start = i + 1;
+			}
+		}
+		return commands;
+	}
+
+	/**
+	 * Empties a game's journal, once a snapshot holding all of its commands
+	 * is safely on disk
+	 */
+	public void truncate(int gameID) throws IOException {
+		GameLog log = open(gameID);
+		log.channel.truncate(0);
+		log.channel.force(true);
+	}
+
+	/**
+	 * Closes and deletes every game's journal
+	 */
+	public void clear() throws IOException {
+		for (Integer gameID : logs.keySet()) {
+			GameLog log = logs.remove(gameID);
+			if (log != null) {
+				log.channel.close();
+			}
+		}
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if (file.getName().endsWith(".journal")) {
+					Files.delete(file.toPath());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Forces everything appended so far to disk
+	 */
+	public void sync() throws IOException {
+		boolean forced = false;
+		for (GameLog log : logs.values()) {
+			if (log.dirty.getAndSet(false)) {
+				log.channel.force(false);
+				forced = true;
+			}
+		}
+		if (forced) {
+			commits.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Forces what is waiting, stops the commit thread and closes the files
+	 */
+	public void close() throws IOException {
+		synchronized (commitLock) {
+			closed = true;
+			commitLock.notify();
+		}
+		if (committer != null) {
+			try {
+				committer.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		sync();
+		for (GameLog log : logs.values()) {
+			log.channel.close();
+		}
+		logs.clear();
+	}
+
+	/**
+	 * @return how many times the journal has been forced to disk
+	 */
+	public long getCommitCount() {
+		return commits.get();
+	}
+
+	private void commitLoop() {
+		while (true) {
+			synchronized (commitLock) {
+				long deadline = System.currentTimeMillis() + commitMillis;
+				long wait = commitMillis;
+				while (!closed && pendingBytes < commitBytes && wait > 0) {
+					try {
+						commitLock.wait(wait);
+					} catch (InterruptedException e) {
+						return;
+					}
+					wait = deadline - System.currentTimeMillis();
+				}
+				if (closed) {
+					return;
+				}
+				pendingBytes = 0;
+			}
+			try {
+				sync();
+			} catch (IOException e) {
+				logger.log(Level.SEVERE,
+						"server/persistance/CommandJournal - commit failed", e);
+			}
+		}
+	}
+
+	private GameLog open(int gameID) throws IOException {
+		GameLog log = logs.get(gameID);
+		if (log == null) {
+			synchronized (logs) {
+				log = logs.get(gameID);
+				if (log == null) {
+					log = new GameLog(FileChannel.open(fileFor(gameID)
+							.toPath(), StandardOpenOption.CREATE,
+							StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+					logs.put(gameID, log);
+				}
+			}
+		}
+		return log;
+	}
+
+	private File fileFor(int gameID) {
+		return new File(directory, "game" + gameID + ".journal");
+	}
+}
@@ -0,0 +1,374 @@
+package server.persistance;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import server.facade.ServerFacade;
+import server.model.ServerModel;
+import server.model.SnapshotCodec;
+
+/**
+ * Keeps the games in memory within a heap budget by spilling games nobody is
+ * using to disk, and reads a spilled game back the next time it is looked up.
+ *
+ * A game is spilled once it has gone idleMillis without a lookup, or, while
+ * the games in memory are estimated to take more than the budget, least
+ * recently used first. A game a client is long polling is never spilled. A
+ * spilled game is a snapshot with its command history, see
+ * {@link SnapshotCodec}, in its own file under the directory; the files are
+ * only a cache, so any left by an earlier run are deleted on start.
+ *
+ * Spilling and reading back happen under the game's lock, so a move never
+ * sees a game half spilled.
+ */
+public class GameEvictor {
+	/**
+	 * Default time a game may go unused before it is spilled
+	 */
+	public static final long DEFAULT_IDLE_MILLIS = 10 * 60 * 1000;
+
+	/*
+	 * Rough heap taken by a game's board and players, and by each line, piece
+	 * and command it adds, measured from games read back from snapshots
+	 */
+	private static final long GAME_BYTES = 4 * 1024;
+	private static final long LINE_BYTES = 96;
+	private static final long PIECE_BYTES = 64;
+	private static final long COMMAND_BYTES = 120;
+
+	private static Logger logger = Logger.getLogger("CatanServer");
+
+	/**
+	 * A game in memory as a sweep found it
+	 */
+	private static class Resident {
+		private final int gameID;
+		private final long lastUsed;
+		private final long bytes;
+
+		private Resident(int gameID, long lastUsed, long bytes) {
+			this.gameID = gameID;
+			this.lastUsed = lastUsed;
+			this.bytes = bytes;
+		}
+	}
+
+	private final File directory;
+	private final long idleMillis;
+	private final long heapBudget;
+	private final Map<Integer, ServerModel> models;
+	private final Set<Integer> spilled = Collections
+			.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+	private volatile boolean running;
+	private Thread sweeper;
+
+	private final LongAdder hits = new LongAdder();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong reloadNanos = new AtomicLong();
+	private final AtomicLong slowestReloadNanos = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+	private volatile long residentBytes;
+
+	/**
+	 * @param directory
+	 *            - where spilled games are kept
+	 * @param idleMillis
+	 *            - how long a game goes unused before it is spilled, or 0 to
+	 *            spill only to stay within the budget
+	 * @param heapBudget
+	 *            - estimated bytes the games in memory may take, or 0 for no
+	 *            limit
+	 */
+	public GameEvictor(File directory, long idleMillis, long heapBudget) {
+		this.directory = directory;
+		this.idleMillis = idleMillis;
+		this.heapBudget = heapBudget;
+		this.models = ServerFacade.getSingleton().getModelMap();
+		directory.mkdirs();
+		File[] stale = directory.listFiles();
+		for (int i = 0; stale != null && i < stale.length; i++) {
+			if (stale[i].getName().endsWith(".snapshot")) {
+				stale[i].delete();
+			}
+		}
+	}
+
+	/**
+	 * Starts sweeping for games to spill in the background, a few times per
+	 * idleMillis but at least every 30 seconds
+	 */
+	public synchronized void start() {
+		if (running) {
+			return;
+		}
+		final long sweepMillis = idleMillis > 0 ? Math.max(100,
+				Math.min(idleMillis / 4, 30000)) : 30000;
+		running = true;
+		sweeper = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				while (running) {
+					try {
+						Thread.sleep(sweepMillis);
+					} catch (InterruptedException e) {
+						continue;
+					}
+					try {
+						sweep();
+					} catch (RuntimeException e) {
+						logger.log(Level.SEVERE,
+								"server/persistance/GameEvictor - sweep failed",
+								e);
+					}
+				}
+			}
+		}, "game-evictor");
+		sweeper.setDaemon(true);
+		sweeper.start();
+	}
+
+	/**
+	 * Stops sweeping. Games already spilled can still be read back.
+	 */
+	public synchronized void close() throws InterruptedException {
+		running = false;
+		if (sweeper != null) {
+			sweeper.interrupt();
+			sweeper.join();
+			sweeper = null;
+		}
+	}
+
+	/**
+	 * Spills every idle game, then the least recently used games until the
+	 * rest fit the heap budget
+	 *
+	 * @return how many games were spilled
+	 */
+	public int sweep() {
+		long now = System.currentTimeMillis();
+		List<Resident> resident = new ArrayList<Resident>();
+		long bytes = 0;
+		int spilledNow = 0;
+		for (Map.Entry<Integer, ServerModel> game : models.entrySet()) {
+			long lastUsed = lastUsed(game.getValue(), now);
+			if (idleMillis > 0 && now - lastUsed >= idleMillis
+					&& evict(game.getKey())) {
+				spilledNow++;
+			} else {
+				Resident entry = new Resident(game.getKey(), lastUsed,
+						estimateBytes(game.getValue()));
+				resident.add(entry);
+				bytes += entry.bytes;
+			}
+		}
+		if (heapBudget > 0 && bytes > heapBudget) {
+			Collections.sort(resident, new Comparator<Resident>() {
+				@Override
+				public int compare(Resident a, Resident b) {
+					return Long.compare(a.lastUsed, b.lastUsed);
+				}
+			});
+			for (int i = 0; i < resident.size() && bytes > heapBudget; i++) {
+				if (evict(resident.get(i).gameID)) {
+					bytes -= resident.get(i).bytes;
+					spilledNow++;
+				}
+			}
+		}
+		residentBytes = bytes;
+		return spilledNow;
+	}
+
+	/**
+	 * Spills a game to disk and takes it out of memory, unless a client is
+	 * waiting on it
+	 *
+	 * @return whether the game was spilled
+	 */
+	public boolean evict(int gameID) {
+		synchronized (ServerFacade.getGameLock(gameID)) {
+			ServerModel model = models.get(gameID);
+			if (model == null || model.hasVersionListeners()) {
+				return false;
+			}
+			try {
+				model.setGameID(gameID);
+				SnapshotCodec.write(model, fileFor(gameID), true);
+			} catch (IOException e) {
+				logger.log(Level.WARNING,
+						"server/persistance/GameEvictor - could not spill game "
+								+ gameID, e);
+				return false;
+			}
+			spilled.add(gameID);
+			models.remove(gameID);
+		}
+		evictions.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Reads a spilled game back into memory
+	 *
+	 * @return the game, or null if it was never spilled or could not be read
+	 */
+	public ServerModel reload(int gameID) {
+		if (!spilled.contains(gameID)) {
+			return null;
+		}
+		synchronized (ServerFacade.getGameLock(gameID)) {
+			ServerModel model = models.get(gameID);
+			if (model != null || !spilled.contains(gameID)) {
+				// another request read it back first
+				return model;
+			}
+			long start = System.nanoTime();
+			File file = fileFor(gameID);
+			try {
+				model = SnapshotCodec.read(file);
+			} catch (IOException e) {
+				logger.log(Level.SEVERE,
+						"server/persistance/GameEvictor - could not read back game "
+								+ gameID, e);
+				return null;
+			}
+			model.setGameID(gameID);
+			models.put(gameID, model);
+			spilled.remove(gameID);
+			file.delete();
+			long nanos = System.nanoTime() - start;
+			misses.incrementAndGet();
+			reloadNanos.addAndGet(nanos);
+			if (nanos > slowestReloadNanos.get()) {
+				slowestReloadNanos.set(nanos);
+			}
+			return model;
+		}
+	}
+
+	/**
+	 * Reads every spilled game back into memory
+	 */
+	public void reloadAll() {
+		for (Integer gameID : new ArrayList<Integer>(spilled)) {
+			reload(gameID);
+		}
+	}
+
+	/**
+	 * Counts a lookup that found its game in memory
+	 */
+	public void recordHit() {
+		hits.increment();
+	}
+
+	/**
+	 * @return whether the game is spilled to disk right now
+	 */
+	public boolean isSpilled(int gameID) {
+		return spilled.contains(gameID);
+	}
+
+	/**
+	 * @return lookups that found their game in memory
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return lookups that had to read their game back from disk
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * @return the average time to read a game back, in milliseconds
+	 */
+	public double getAverageReloadMillis() {
+		long count = misses.get();
+		return count == 0 ? 0 : reloadNanos.get() / 1e6 / count;
+	}
+
+	/**
+	 * @return the longest a game took to read back, in milliseconds
+	 */
+	public double getSlowestReloadMillis() {
+		return slowestReloadNanos.get() / 1e6;
+	}
+
+	/**
+	 * @return how many times a game has been spilled
+	 */
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	/**
+	 * @return how many games are spilled right now
+	 */
+	public int getSpilledCount() {
+		return spilled.size();
+	}
+
+	/**
+	 * @return the estimated bytes the games in memory took after the last
+	 *         sweep
+	 */
+	public long getResidentBytes() {
+		return residentBytes;
+	}
+
+	/**
+	 * @return a rough count of the heap the game takes, from the sizes of
+	 *         the lists that grow as it is played
+	 */
+	public static long estimateBytes(ServerModel model) {
+		long bytes = GAME_BYTES;
+		if (model.getChat() != null) {
+			bytes += LINE_BYTES * model.getChat().getLines().size();
+		}
+		if (model.getLog() != null) {
+			bytes += LINE_BYTES * model.getLog().getLines().size();
+		}
+		if (model.getMap() != null) {
+			bytes += PIECE_BYTES
+					* (model.getMap().getRoads().size()
+							+ model.getMap().getSettlements().size() + model
+							.getMap().getCities().size());
+		}
+		if (model.getCommands() != null) {
+			bytes += COMMAND_BYTES * model.getCommands().size();
+		}
+		return bytes;
+	}
+
+	private File fileFor(int gameID) {
+		return new File(directory, "game" + gameID + ".snapshot");
+	}
+
+	/*
+	 * A game never looked up counts as used when first seen, so a game loaded
+	 * some other way gets the full idle time
+	 */
+	private static long lastUsed(ServerModel model, long now) {
+		if (model.getLastUsed() == 0) {
+			model.touch();
+			return now;
+		}
+		return model.getLastUsed();
+	}
+}
@@ -0,0 +1,249 @@
+package server.persistance;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import server.commands.ICommand;
+import server.facade.FacadeSwitch;
+import server.facade.ServerFacade;
+import server.model.GameList;
+import server.model.RegisteredPlayers;
+import server.model.ServerModel;
+import shared.communication.GameSummary;
+import shared.communication.UserCredentials;
+import shared.utils.IDGenerator;
+import shared.utils.ServerResponseException;
+
+/**
+ * Brings back the users and games an IPersistance holds after a restart.
+ * Each game is its newest snapshot, or the game already on the server if it
+ * has none, with the commands recorded since replayed on top, so it ends up
+ * exactly where it was when the server stopped.
+ *
+ * Games are independent of each other, so they are read and replayed on a
+ * fork-join pool. Only putting them in the game list, which every game shares,
+ * is done on one thread, between reading and replaying, since a replayed
+ * join updates the game's summary.
+ */
+public class GameRecovery {
+	private static final int GAMES_PER_TASK = 16;
+
+	private static Logger logger = Logger.getLogger("CatanServer");
+
+	private final IPersistance persistance;
+	private final int parallelism;
+	private final AtomicInteger commands = new AtomicInteger();
+	private final AtomicInteger failedCommands = new AtomicInteger();
+	private int games;
+	private int users;
+	private long millis;
+
+	/**
+	 * A game being recovered
+	 */
+	private static class StoredGame {
+		private final int gameID;
+		private ServerModel model;
+		private List<String> tail;
+
+		private StoredGame(int gameID) {
+			this.gameID = gameID;
+		}
+	}
+
+	/**
+	 * Reads or replays a range of games, splitting it until each task has a
+	 * handful
+	 */
+	private class RecoverGames extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final StoredGame[] stored;
+		private final int from;
+		private final int to;
+		private final boolean replay;
+
+		private RecoverGames(StoredGame[] stored, int from, int to,
+				boolean replay) {
+			this.stored = stored;
+			this.from = from;
+			this.to = to;
+			this.replay = replay;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= GAMES_PER_TASK) {
+				for (int i = from; i < to; i++) {
+					if (replay) {
+						replay(stored[i]);
+					} else {
+						read(stored[i]);
+					}
+				}
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new RecoverGames(stored, from, middle, replay),
+						new RecoverGames(stored, middle, to, replay));
+			}
+		}
+	}
+
+	/**
+	 * @param persistance
+	 *            - where the users and games are stored
+	 * @param parallelism
+	 *            - threads to read and replay games on
+	 */
+	public GameRecovery(IPersistance persistance, int parallelism) {
+		this.persistance = persistance;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Registers the stored users, then loads every stored game into the
+	 * server, replacing any game already there with the same id. Call before
+	 * the server takes requests.
+	 */
+	public void recover() {
+		long start = System.nanoTime();
+		recoverUsers();
+
+		/*
+		 * A game already on the server, like the first game, may have
+		 * commands recorded but no snapshot yet
+		 */
+		Set<Integer> ids = new HashSet<Integer>(persistance.getGameIDs());
+		ids.addAll(ServerFacade.getSingleton().getModelMap().keySet());
+		StoredGame[] stored = new StoredGame[ids.size()];
+		int next = 0;
+		for (int id : ids) {
+			stored[next++] = new StoredGame(id);
+		}
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			pool.invoke(new RecoverGames(stored, 0, stored.length, false));
+			addGames(stored);
+			pool.invoke(new RecoverGames(stored, 0, stored.length, true));
+		} finally {
+			pool.shutdown();
+		}
+		millis = (System.nanoTime() - start) / 1000000;
+		logger.info("server/persistance/GameRecovery - recovered " + games
+				+ " games and " + users + " users, replaying " + commands
+				+ " commands, in " + millis + " ms");
+	}
+
+	/**
+	 * @return how many games were brought back
+	 */
+	public int getGameCount() {
+		return games;
+	}
+
+	/**
+	 * @return how many users were registered again
+	 */
+	public int getUserCount() {
+		return users;
+	}
+
+	/**
+	 * @return how many recorded commands were replayed
+	 */
+	public int getCommandCount() {
+		return commands.get();
+	}
+
+	/**
+	 * @return how many recorded commands failed when replayed
+	 */
+	public int getFailedCommandCount() {
+		return failedCommands.get();
+	}
+
+	/**
+	 * @return how long recovery took, in milliseconds
+	 */
+	public long getMillis() {
+		return millis;
+	}
+
+	/*
+	 * Registered in the order they were stored, so they get back the player
+	 * ids the stored games refer to
+	 */
+	private void recoverUsers() {
+		for (UserCredentials user : persistance.getUserDAO().getUsers()) {
+			if (!RegisteredPlayers.getSingleton().containsKey(
+					user.getUsername())) {
+				RegisteredPlayers.getSingleton().addNewPlayer(
+						user.getUsername(), user.getPassword());
+				users++;
+			}
+		}
+	}
+
+	private void read(StoredGame game) {
+		try {
+			game.model = persistance.getGame(game.gameID);
+			if (game.model == null) {
+				game.model = ServerFacade.getSingleton().getModelMap()
+						.get(game.gameID);
+			}
+			game.tail = persistance.getCommands(game.gameID);
+		} catch (RuntimeException e) {
+			logger.log(Level.SEVERE,
+					"server/persistance/GameRecovery - could not read game "
+							+ game.gameID, e);
+			game.model = null;
+		}
+	}
+
+	private void addGames(StoredGame[] stored) {
+		Map<Integer, ServerModel> models = ServerFacade.getSingleton()
+				.getModelMap();
+		List<GameSummary> summaries = new ArrayList<GameSummary>();
+		for (StoredGame game : stored) {
+			if (game.model == null) {
+				continue;
+			}
+			game.model.setGameID(game.gameID);
+			models.put(game.gameID, game.model);
+			IDGenerator.reserveGameID(game.gameID);
+			if (GameList.getSingleton().getGameByID(game.gameID) == null) {
+				summaries.add(game.model.toGameSummary());
+			}
+			games++;
+		}
+		GameList.getSingleton().addGames(summaries);
+	}
+
+	private void replay(StoredGame game) {
+		if (game.model == null || game.tail == null) {
+			return;
+		}
+		FacadeSwitch.getSingleton().setGameID(game.gameID);
+		synchronized (ServerFacade.getGameLock(game.gameID)) {
+			for (String line : game.tail) {
+				try {
+					ICommand.fromJSONString(line).execute();
+					commands.incrementAndGet();
+				} catch (ServerResponseException | RuntimeException e) {
+					failedCommands.incrementAndGet();
+					logger.log(Level.WARNING,
+							"server/persistance/GameRecovery - could not replay a command on game "
+									+ game.gameID, e);
+				}
+			}
+		}
+		FacadeSwitch.getSingleton().setGameID(-1);
+	}
+}
@@ -4,6 +4,7 @@ import java.util.List;
 
 import server.DAO.IGameDAO;
 import server.DAO.IUserDAO;
+import server.commands.ICommand;
 import server.model.RegisteredPlayers;
 import server.model.ServerModel;
 import shared.communication.UserCredentials;
@@ -28,6 +29,18 @@ public interface IPersistance {
 	 */
 	public void updateGame(ServerModel game);
 
+	/**
+	 * Records a command that has just been executed on a game, so the game
+	 * can be brought back to where it was after a restart.
+	 * 
+	 * @pre Game already exists on hard disk.
+	 * @param gameID
+	 *            Game the command was executed on.
+	 * @param command
+	 *            Command to be recorded.
+	 */
+	public void addCommand(int gameID, ICommand command);
+
 	/**
 	 * Adds a player to the server.
 	 * 
@@ -54,6 +67,20 @@ public interface IPersistance {
 	 */
 	public ServerModel getGame(int gameID);
 
+	/**
+	 * Get the commands recorded for a game since its last snapshot.
+	 * 
+	 * @param gameID
+	 *            Game the commands were executed on.
+	 * @return The commands as JSON, oldest first.
+	 */
+	public List<String> getCommands(int gameID);
+
+	/**
+	 * Get the ids of all games stored within the server.
+	 */
+	public List<Integer> getGameIDs();
+
 	/**
 	 * Get all the players currently stored within the server.
 	 */
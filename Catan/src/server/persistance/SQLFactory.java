@@ -1,20 +1,44 @@
 package server.persistance;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+
 import server.DAO.IGameDAO;
 import server.DAO.IUserDAO;
+import server.DAO.SQLGameDAO;
+import server.DAO.SQLUserDAO;
 
 public class SQLFactory implements IFactory {
 
+	private Connection connection;
+
+	/**
+	 * @param connection
+	 *            - the open database the DAOs create their tables in and
+	 *            prepare their statements on
+	 */
+	public SQLFactory(Connection connection) {
+		this.connection = connection;
+	}
+
 	@Override
 	public IGameDAO createGameDAO() {
-		// TODO Auto-generated method stub
-		return null;
+		try {
+			return new SQLGameDAO(connection);
+		} catch (SQLException e) {
+			throw new IllegalStateException("Could not set up the games tables",
+					e);
+		}
 	}
 
 	@Override
 	public IUserDAO createUserDAO() {
-		// TODO Auto-generated method stub
-		return null;
+		try {
+			return new SQLUserDAO(connection);
+		} catch (SQLException e) {
+			throw new IllegalStateException("Could not set up the users table",
+					e);
+		}
 	}
 
 }
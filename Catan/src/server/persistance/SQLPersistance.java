@@ -1,16 +1,61 @@
 package server.persistance;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import server.DAO.IGameDAO;
 import server.DAO.IUserDAO;
 import server.DAO.SQLGameDAO;
 import server.DAO.SQLUserDAO;
+import server.commands.ICommand;
 import server.model.RegisteredPlayers;
 import server.model.ServerModel;
 import shared.communication.UserCredentials;
-
+import shared.utils.ByteSerializer;
+
+/**
+ * Keeps games and users in a SQLite database: each game's latest snapshot
+ * and the commands run on it since.
+ *
+ * Commands and snapshots are serialized by the thread that ran them, under
+ * the game lock, and put on a lock-free queue, so a move never waits on the
+ * database. One writer drains the queue between startTransaction and
+ * endTransaction, joins each game's commands into a single row, batches the
+ * rows into the reused prepared statements and commits once. A background
+ * thread does that every commitMillis, or sooner once commitRows are
+ * waiting.
+ *
+ * Writes taken off the queue are kept until their transaction commits. If
+ * it fails they are written first by the next one, so a busy or full disk
+ * delays moves rather than losing them.
+ */
 public class SQLPersistance implements IPersistance {
+	/**
+	 * Default longest wait before queued commands are committed
+	 */
+	public static final long DEFAULT_COMMIT_MILLIS = 50;
+	/**
+	 * Default number of queued rows that are committed without waiting out the
+	 * interval
+	 */
+	public static final int DEFAULT_COMMIT_ROWS = 4096;
+
+	private static Logger logger = Logger.getLogger("CatanServer");
 
 	private SQLFactory factory;
 	/**
@@ -29,35 +74,186 @@ public class SQLPersistance implements IPersistance {
 	 */
 	String DBConnection;
 
+	private Connection connection;
+	private String journalMode;
+	/*
+	 * Held from startTransaction to endTransaction, and around any other use
+	 * of the connection
+	 */
+	private final ReentrantLock writeLock = new ReentrantLock();
+	private final ConcurrentLinkedQueue<Write> queued = new ConcurrentLinkedQueue<Write>();
+	/*
+	 * Taken off the queue but not committed yet, oldest first. Only used
+	 * while holding writeLock.
+	 */
+	private final ArrayList<Write> unwritten = new ArrayList<Write>();
+	/*
+	 * Writes queued or unwritten
+	 */
+	private final AtomicInteger queuedRows = new AtomicInteger();
+	private final AtomicLong commits = new AtomicLong();
+	private final AtomicLong rowsWritten = new AtomicLong();
+	private final Object commitSignal = new Object();
+	private final long commitMillis;
+	private final int commitRows;
+	private Thread committer;
+	private volatile boolean closed;
+
+	/**
+	 * A command or snapshot waiting to be written
+	 */
+	private static class Write {
+		private final int gameID;
+		private final byte[] json;
+		private final boolean snapshot;
+
+		private Write(int gameID, byte[] json, boolean snapshot) {
+			this.gameID = gameID;
+			this.json = json;
+			this.snapshot = snapshot;
+		}
+	}
+
+	public SQLPersistance(String databasePath) throws SQLException {
+		this(databasePath, DEFAULT_COMMIT_MILLIS, DEFAULT_COMMIT_ROWS);
+	}
+
+	/**
+	 * @param databasePath
+	 *            - the SQLite database file, created if missing
+	 * @param commitMillis
+	 *            - longest a command waits to be committed
+	 * @param commitRows
+	 *            - queued rows that are committed straight away
+	 */
+	public SQLPersistance(String databasePath, long commitMillis,
+			int commitRows) throws SQLException {
+		this.commitMillis = commitMillis;
+		this.commitRows = commitRows;
+		File parent = new File(databasePath).getAbsoluteFile().getParentFile();
+		if (parent != null) {
+			parent.mkdirs();
+		}
+		try {
+			Class.forName("org.sqlite.JDBC");
+		} catch (ClassNotFoundException e) {
+			throw new SQLException("SQLite driver is not on the classpath", e);
+		}
+		DBConnection = "jdbc:sqlite:" + databasePath;
+		connection = DriverManager.getConnection(DBConnection);
+
+		/*
+		 * WAL lets a commit append to the log instead of rewriting pages
+		 * through a rollback journal. SQLite older than 3.7, like the bundled
+		 * driver's, answers with the mode it kept, and batching is then what
+		 * keeps the commits few.
+		 */
+		Statement statement = connection.createStatement();
+		ResultSet mode = statement.executeQuery("PRAGMA journal_mode = WAL");
+		journalMode = mode.next() ? mode.getString(1) : "unknown";
+		mode.close();
+		if (journalMode.equalsIgnoreCase("wal")) {
+			statement.executeUpdate("PRAGMA synchronous = NORMAL");
+		}
+		statement.close();
+		logger.info("server/persistance/SQLPersistance - " + databasePath
+				+ " in " + journalMode + " journal mode");
+
+		factory = new SQLFactory(connection);
+		gameDAO = (SQLGameDAO) factory.createGameDAO();
+		userDAO = (SQLUserDAO) factory.createUserDAO();
+
+		committer = new Thread("sql-commit") {
+			@Override
+			public void run() {
+				commitLoop();
+			}
+		};
+		committer.setDaemon(true);
+		committer.start();
+	}
+
 	@Override
 	public void saveGames(List<ServerModel> gameList, RegisteredPlayers players) {
-		// TODO Auto-generated method stub
-
+		if (gameList != null) {
+			for (ServerModel game : gameList) {
+				updateGame(game);
+			}
+		}
 	}
 
+	/**
+	 * Queues a snapshot of the game, which replaces its stored commands once
+	 * written. Call while holding the game lock.
+	 */
 	@Override
 	public void updateGame(ServerModel game) {
-		// TODO Auto-generated method stub
+		queue(new Write(game.getGameID(),
+				ByteSerializer.serializeToBytes(game), true));
+	}
 
+	@Override
+	public void addCommand(int gameID, ICommand command) {
+		queue(new Write(gameID, ByteSerializer.serializeToBytes(command),
+				false));
 	}
 
 	@Override
 	public void addPlayer(UserCredentials newUser) {
-		// TODO Auto-generated method stub
-
+		writeLock.lock();
+		try {
+			userDAO.createUser(newUser);
+		} finally {
+			writeLock.unlock();
+		}
 	}
 
 	@Override
 	public void addGame(ServerModel game) {
-		// TODO Auto-generated method stub
-
+		updateGame(game);
 	}
 
+	/**
+	 * Commits what is queued, then reads the game's snapshot
+	 */
 	@Override
 	public ServerModel getGame(int gameID) {
-		return null;
-		// TODO Auto-generated method stub
+		sync();
+		writeLock.lock();
+		try {
+			return gameDAO.getGame(gameID);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Commits what is queued, then reads the commands stored for a game since
+	 * its last snapshot, oldest first
+	 */
+	@Override
+	public List<String> getCommands(int gameID) {
+		sync();
+		writeLock.lock();
+		try {
+			return gameDAO.getCommands(gameID);
+		} catch (SQLException e) {
+			throw new IllegalStateException("Could not read commands of game "
+					+ gameID, e);
+		} finally {
+			writeLock.unlock();
+		}
+	}
 
+	@Override
+	public List<Integer> getGameIDs() {
+		sync();
+		writeLock.lock();
+		try {
+			return gameDAO.getGameIDs();
+		} finally {
+			writeLock.unlock();
+		}
 	}
 
 	@Override
@@ -82,38 +278,235 @@ public class SQLPersistance implements IPersistance {
 
 	@Override
 	public void clearGames() {
-		// TODO Auto-generated method stub
-
+		writeLock.lock();
+		try {
+			queued.clear();
+			unwritten.clear();
+			queuedRows.set(0);
+			gameDAO.clear();
+		} finally {
+			writeLock.unlock();
+		}
 	}
 
 	@Override
 	public void clearUsers() {
-		// TODO Auto-generated method stub
-
+		writeLock.lock();
+		try {
+			userDAO.clear();
+		} finally {
+			writeLock.unlock();
+		}
 	}
 
 	@Override
 	public IUserDAO getUserDAO() {
-		// TODO Auto-generated method stub
-		return null;
+		return userDAO;
 	}
 
 	@Override
 	public IGameDAO getGameDAO() {
-		// TODO Auto-generated method stub
-		return null;
+		return gameDAO;
 	}
 
+	/**
+	 * Takes the connection and opens a transaction. Must be followed by
+	 * endTransaction on the same thread.
+	 */
 	@Override
 	public void startTransaction() {
-		// TODO Auto-generated method stub
-
+		writeLock.lock();
+		try {
+			connection.setAutoCommit(false);
+		} catch (SQLException e) {
+			writeLock.unlock();
+			throw new IllegalStateException("Could not start transaction", e);
+		}
 	}
 
+	/**
+	 * Batches everything queued into the transaction, commits it and gives
+	 * up the connection
+	 * 
+	 * @throws IllegalStateException
+	 *             if the commit failed; what it held is kept and written by
+	 *             the next transaction
+	 */
 	@Override
 	public void endTransaction() {
-		// TODO Auto-generated method stub
+		try {
+			/*
+			 * Only what was queued when the transaction ended is taken, so a
+			 * steady stream of moves cannot keep one transaction open. Each
+			 * game's commands are joined into one row, and a snapshot drops
+			 * the commands queued before it along with the stored ones.
+			 */
+			int limit = queuedRows.get();
+			Write write;
+			while (unwritten.size() < limit
+					&& (write = queued.poll()) != null) {
+				unwritten.add(write);
+			}
+			LinkedHashMap<Integer, byte[]> snapshots = new LinkedHashMap<Integer, byte[]>();
+			LinkedHashMap<Integer, ByteArrayOutputStream> commands = new LinkedHashMap<Integer, ByteArrayOutputStream>();
+			for (Write next : unwritten) {
+				if (next.snapshot) {
+					commands.remove(next.gameID);
+					snapshots.put(next.gameID, next.json);
+				} else {
+					ByteArrayOutputStream lines = commands.get(next.gameID);
+					if (lines == null) {
+						lines = new ByteArrayOutputStream();
+						commands.put(next.gameID, lines);
+					}
+					lines.write(next.json, 0, next.json.length);
+					lines.write('\n');
+				}
+			}
+			for (Map.Entry<Integer, byte[]> snapshot : snapshots
+					.entrySet()) {
+				gameDAO.addSnapshotToBatch(snapshot.getKey(),
+						snapshot.getValue());
+			}
+			for (Map.Entry<Integer, ByteArrayOutputStream> lines : commands
+					.entrySet()) {
+				gameDAO.addCommandsToBatch(lines.getKey(), lines.getValue()
+						.toByteArray());
+			}
+			gameDAO.executeBatch();
+			connection.commit();
+			connection.setAutoCommit(true);
+			int rows = unwritten.size();
+			unwritten.clear();
+			if (rows > 0) {
+				queuedRows.addAndGet(-rows);
+				commits.incrementAndGet();
+				rowsWritten.addAndGet(rows);
+			}
+		} catch (SQLException e) {
+			try {
+				gameDAO.clearBatch();
+				connection.rollback();
+				connection.setAutoCommit(true);
+			} catch (SQLException rollback) {
+				logger.log(Level.SEVERE,
+						"server/persistance/SQLPersistance - rollback failed",
+						rollback);
+			}
+			throw new IllegalStateException("Could not commit "
+					+ unwritten.size() + " writes, keeping them to retry", e);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Commits everything queued so far. A transaction already committing
+	 * holds the connection, so whoever takes it next waits for that commit.
+	 */
+	public void sync() {
+		if (queuedRows.get() == 0) {
+			return;
+		}
+		startTransaction();
+		endTransaction();
+	}
+
+	/**
+	 * Commits what is queued, stops the commit thread and closes the database
+	 */
+	public void close() throws SQLException {
+		closed = true;
+		synchronized (commitSignal) {
+			commitSignal.notify();
+		}
+		try {
+			committer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		try {
+			sync();
+		} finally {
+			connection.close();
+		}
+	}
+
+	/**
+	 * @return the journal mode SQLite agreed to, "wal" where supported
+	 */
+	public String getJournalMode() {
+		return journalMode;
+	}
+
+	/**
+	 * @return how many commands and snapshots are waiting to be written
+	 */
+	public int getQueuedRows() {
+		return queuedRows.get();
+	}
+
+	/**
+	 * @return how many transactions have written rows
+	 */
+	public long getCommitCount() {
+		return commits.get();
+	}
+
+	/**
+	 * @return how many commands and snapshots have been written
+	 */
+	public long getRowsWritten() {
+		return rowsWritten.get();
+	}
+
+	private void queue(Write write) {
+		queued.add(write);
+		if (queuedRows.incrementAndGet() == commitRows) {
+			synchronized (commitSignal) {
+				commitSignal.notify();
+			}
+		}
+	}
+
+	/*
+	 * Waits out one interval before retrying a failed commit, however many
+	 * rows are waiting
+	 */
+	private void pause() {
+		synchronized (commitSignal) {
+			if (!closed) {
+				try {
+					commitSignal.wait(commitMillis);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
 
+	private void commitLoop() {
+		while (!closed) {
+			synchronized (commitSignal) {
+				if (queuedRows.get() < commitRows && !closed) {
+					try {
+						commitSignal.wait(commitMillis);
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+			}
+			if (queuedRows.get() > 0) {
+				try {
+					sync();
+				} catch (IllegalStateException e) {
+					logger.log(Level.SEVERE,
+							"server/persistance/SQLPersistance - commit failed",
+							e);
+					pause();
+				}
+			}
+		}
 	}
 
 }
@@ -1,20 +1,32 @@
 package server.persistance;
 
+import java.io.File;
+
 import server.DAO.IGameDAO;
 import server.DAO.IUserDAO;
+import server.DAO.TextGameDAO;
+import server.DAO.TextUserDAO;
 
 public class TextFactory implements IFactory {
 
+	private File directory;
+
+	/**
+	 * @param directory
+	 *            - the folder the DAOs keep their files in
+	 */
+	public TextFactory(File directory) {
+		this.directory = directory;
+	}
+
 	@Override
 	public IGameDAO createGameDAO() {
-		// TODO Auto-generated method stub
-		return null;
+		return new TextGameDAO(directory);
 	}
 
 	@Override
 	public IUserDAO createUserDAO() {
-		// TODO Auto-generated method stub
-		return null;
+		return new TextUserDAO(directory);
 	}
 
 }
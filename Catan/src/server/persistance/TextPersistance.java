@@ -1,61 +1,149 @@
 package server.persistance;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import server.DAO.IGameDAO;
 import server.DAO.IUserDAO;
-import server.DAO.TextGameDAO;
-import server.DAO.TextUserDAO;
+import server.commands.ICommand;
 import server.model.RegisteredPlayers;
 import server.model.ServerModel;
 import shared.communication.UserCredentials;
-
+import shared.utils.ByteSerializer;
+
+/**
+ * Keeps games and users in plain files under one folder. Each game is a saved
+ * snapshot plus a {@link CommandJournal} of the commands run since, so every
+ * move is recorded without rewriting the whole game. Saving a snapshot empties
+ * that game's journal.
+ */
 public class TextPersistance implements IPersistance {
+	/**
+	 * Default longest wait before journaled commands are forced to disk
+	 */
+	public static final long DEFAULT_COMMIT_MILLIS = 50;
+	/**
+	 * Default bytes of journaled commands that are forced to disk without
+	 * waiting out the interval
+	 */
+	public static final long DEFAULT_COMMIT_BYTES = 256 * 1024;
+
+	private static Logger logger = Logger.getLogger("CatanServer");
 
 	private TextFactory factory;
 	/**
 	 * Stores the TextGameDAO so that the TextPersistence can access the games
 	 * on disk
 	 */
-	private TextGameDAO gameDAO;
+	private IGameDAO gameDAO;
 	/**
 	 * Stores the TextGameDAO so that the TextPersistence can access the users
 	 * on disk
 	 */
-	private TextUserDAO userDAO;
+	private IUserDAO userDAO;
 	/**
 	 * Contains the path to the folder where all save files will be kept.
 	 */
 	private String pathname;
+	private CommandJournal journal;
+
+	public TextPersistance(String pathname) throws IOException {
+		this(pathname, DEFAULT_COMMIT_MILLIS, DEFAULT_COMMIT_BYTES);
+	}
+
+	/**
+	 * @param pathname
+	 *            - the folder to keep the files in
+	 * @param commitMillis
+	 *            - longest a command waits to be forced to disk, or 0 to force
+	 *            each one before the move returns
+	 * @param commitBytes
+	 *            - bytes of commands waiting that are forced to disk straight
+	 *            away
+	 */
+	public TextPersistance(String pathname, long commitMillis, long commitBytes)
+			throws IOException {
+		this.pathname = pathname;
+		File directory = new File(pathname);
+		this.factory = new TextFactory(directory);
+		this.gameDAO = factory.createGameDAO();
+		this.userDAO = factory.createUserDAO();
+		this.journal = new CommandJournal(new File(directory, "journal"),
+				commitMillis, commitBytes);
+	}
 
 	@Override
 	public void saveGames(List<ServerModel> gameList, RegisteredPlayers players) {
-		// TODO Auto-generated method stub
-
+		if (gameList != null) {
+			for (ServerModel game : gameList) {
+				updateGame(game);
+			}
+		}
 	}
 
+	/**
+	 * Saves a snapshot of the game, then empties its journal since the
+	 * snapshot holds every command in it. Call while holding the game lock.
+	 */
 	@Override
 	public void updateGame(ServerModel game) {
-		// TODO Auto-generated method stub
+		if (gameDAO.saveGame(game.getGameID(), game)) {
+			try {
+				journal.truncate(game.getGameID());
+			} catch (IOException e) {
+				logger.log(Level.SEVERE,
+						"server/persistance/TextPersistance - could not empty journal of game "
+								+ game.getGameID(), e);
+			}
+		}
+	}
 
+	@Override
+	public void addCommand(int gameID, ICommand command) {
+		try {
+			journal.append(gameID, ByteSerializer.serializeToBytes(command));
+		} catch (IOException e) {
+			logger.log(Level.SEVERE,
+					"server/persistance/TextPersistance - could not journal a command for game "
+							+ gameID, e);
+		}
 	}
 
 	@Override
 	public void addPlayer(UserCredentials newUser) {
-		// TODO Auto-generated method stub
-
+		userDAO.createUser(newUser);
 	}
 
 	@Override
 	public void addGame(ServerModel game) {
-		// TODO Auto-generated method stub
-
+		gameDAO.createGame(game);
 	}
 
 	@Override
 	public ServerModel getGame(int gameID) {
-		// TODO Auto-generated method stub
-		return null;
+		return gameDAO.getGame(gameID);
+	}
+
+	/**
+	 * @return the commands journaled for a game since its last snapshot,
+	 *         oldest first
+	 */
+	@Override
+	public List<String> getCommands(int gameID) {
+		try {
+			return journal.read(gameID);
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not read journal of game "
+					+ gameID, e);
+		}
+	}
+
+	@Override
+	public List<Integer> getGameIDs() {
+		return gameDAO.getGameIDs();
 	}
 
 	@Override
@@ -78,40 +166,68 @@ public class TextPersistance implements IPersistance {
 		this.factory = factory;
 	}
 
+	public String getPathname() {
+		return pathname;
+	}
+
+	public CommandJournal getJournal() {
+		return journal;
+	}
+
 	@Override
 	public void clearGames() {
-		// TODO Auto-generated method stub
-
+		gameDAO.clear();
+		try {
+			journal.clear();
+		} catch (IOException e) {
+			logger.log(Level.SEVERE,
+					"server/persistance/TextPersistance - could not clear journals",
+					e);
+		}
 	}
 
 	@Override
 	public void clearUsers() {
-		// TODO Auto-generated method stub
-
+		userDAO.clear();
 	}
 
 	@Override
 	public IUserDAO getUserDAO() {
-		// TODO Auto-generated method stub
-		return null;
+		return userDAO;
 	}
 
 	@Override
 	public IGameDAO getGameDAO() {
-		// TODO Auto-generated method stub
-		return null;
+		return gameDAO;
 	}
 
+	/**
+	 * Nothing is buffered outside the journal, which commits on its own
+	 */
 	@Override
 	public void startTransaction() {
-		// TODO Auto-generated method stub
-
 	}
 
+	/**
+	 * Forces every journaled command to disk now rather than at the next
+	 * group commit
+	 */
 	@Override
 	public void endTransaction() {
-		// TODO Auto-generated method stub
+		try {
+			journal.sync();
+		} catch (IOException e) {
+			logger.log(Level.SEVERE,
+					"server/persistance/TextPersistance - could not sync journal",
+					e);
+		}
+	}
 
+	/**
+	 * Forces what is waiting to disk and closes the journal files
+	 */
+	public void close() throws IOException {
+		journal.close();
 	}
 
 }
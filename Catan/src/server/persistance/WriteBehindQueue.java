@@ -0,0 +1,359 @@
+package server.persistance;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import server.commands.ICommand;
+import server.facade.ServerFacade;
+import server.model.ServerModel;
+
+/**
+ * Hands executed commands to an IPersistance from a background writer, so a
+ * move only pays for putting its command on a queue.
+ *
+ * The queue is bounded: when the writer falls behind, a move waits for room
+ * rather than letting the queue grow without limit. It waits in awaitRoom,
+ * after giving up its game's lock, since the writer needs that lock to take a
+ * snapshot. The queue can then run over capacity by at most one command per
+ * request thread.
+ *
+ * The writer passes each command on to addCommand and counts the game as
+ * dirty. A dirty game is snapshotted with one updateGame once frequency
+ * commands have built up or it has been dirty for flushMillis, however many
+ * moves it took in between. Everything the writer takes off the queue in one
+ * go is written between one startTransaction and endTransaction.
+ *
+ * A snapshot is taken from the live game under its lock, so it can already
+ * hold moves still waiting on the queue. Each command carries its game's
+ * sequence number and those the snapshot covers are dropped.
+ */
+public class WriteBehindQueue {
+	/**
+	 * Default most commands waiting before moves have to wait
+	 */
+	public static final int DEFAULT_CAPACITY = 10000;
+	/**
+	 * Default longest a game stays dirty before it is snapshotted
+	 */
+	public static final long DEFAULT_FLUSH_MILLIS = 5000;
+	private static final int MAX_BATCH = 4096;
+
+	private static Logger logger = Logger.getLogger("CatanServer");
+
+	private final IPersistance persistance;
+	private final LinkedBlockingQueue<Entry> queue = new LinkedBlockingQueue<Entry>();
+	private final int capacity;
+	private final Object room = new Object();
+	private final long flushMillis;
+	private volatile int frequency;
+	private volatile boolean running = true;
+	private final Thread writer;
+	/*
+	 * Commands queued per game so far, advanced under the game's lock
+	 */
+	private final ConcurrentHashMap<Integer, Long> queuedSequence = new ConcurrentHashMap<Integer, Long>();
+	/*
+	 * Only touched by the writer
+	 */
+	private final HashMap<Integer, DirtyGame> dirtyGames = new HashMap<Integer, DirtyGame>();
+
+	private final AtomicLong flushes = new AtomicLong();
+	private final AtomicLong flushNanos = new AtomicLong();
+	private final AtomicLong slowestFlushNanos = new AtomicLong();
+	private final AtomicLong snapshots = new AtomicLong();
+	private final AtomicLong waitedForRoom = new AtomicLong();
+	private volatile int deepestQueue;
+
+	/**
+	 * A command to pass on, or a request to be told once everything before
+	 * it has been written
+	 */
+	private static class Entry {
+		private final int gameID;
+		private final long sequence;
+		private final ICommand command;
+		private final CountDownLatch flushed;
+
+		private Entry(int gameID, long sequence, ICommand command,
+				CountDownLatch flushed) {
+			this.gameID = gameID;
+			this.sequence = sequence;
+			this.command = command;
+			this.flushed = flushed;
+		}
+	}
+
+	/**
+	 * What the writer knows about a game with commands since its last
+	 * snapshot
+	 */
+	private static class DirtyGame {
+		private long snapshotSequence;
+		private int commands;
+		private long dirtySince;
+	}
+
+	/**
+	 * @param persistance
+	 *            - where commands and snapshots are written
+	 * @param capacity
+	 *            - most commands waiting before moves have to wait
+	 * @param frequency
+	 *            - commands after which a game is snapshotted, or 0 for only
+	 *            by time
+	 * @param flushMillis
+	 *            - longest a game stays dirty before it is snapshotted
+	 */
+	public WriteBehindQueue(IPersistance persistance, int capacity,
+			int frequency, long flushMillis) {
+		this.persistance = persistance;
+		this.capacity = capacity;
+		this.frequency = frequency;
+		this.flushMillis = flushMillis;
+		writer = new Thread("write-behind") {
+			@Override
+			public void run() {
+				writeLoop();
+			}
+		};
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Queues a command that just ran on a game. Call while holding the game's
+	 * lock, then awaitRoom once it is given up.
+	 */
+	public void add(int gameID, ICommand command) {
+		Long last = queuedSequence.get(gameID);
+		long sequence = last == null ? 1 : last + 1;
+		queuedSequence.put(gameID, sequence);
+		queue.add(new Entry(gameID, sequence, command, null));
+	}
+
+	/**
+	 * Waits while more than capacity commands are queued. Must not be called
+	 * while holding a game's lock.
+	 */
+	public void awaitRoom() throws InterruptedException {
+		if (queue.size() <= capacity) {
+			return;
+		}
+		waitedForRoom.incrementAndGet();
+		synchronized (room) {
+			while (queue.size() > capacity && running) {
+				room.wait();
+			}
+		}
+	}
+
+	/**
+	 * Waits until every command queued so far has been written
+	 */
+	public void flush() throws InterruptedException {
+		CountDownLatch flushed = new CountDownLatch(1);
+		queue.add(new Entry(-1, 0, null, flushed));
+		flushed.await();
+	}
+
+	/**
+	 * Writes what is queued and stops the writer
+	 */
+	public void close() throws InterruptedException {
+		flush();
+		running = false;
+		writer.interrupt();
+		writer.join();
+		synchronized (room) {
+			room.notifyAll();
+		}
+	}
+
+	public void setFrequency(int frequency) {
+		this.frequency = frequency;
+	}
+
+	/**
+	 * @return commands waiting to be written now
+	 */
+	public int getQueueDepth() {
+		return queue.size();
+	}
+
+	/**
+	 * @return the most commands the writer has found waiting at once
+	 */
+	public int getDeepestQueue() {
+		return deepestQueue;
+	}
+
+	/**
+	 * @return how many moves had to wait for room on the queue
+	 */
+	public long getWaitedForRoom() {
+		return waitedForRoom.get();
+	}
+
+	/**
+	 * @return how many batches have been written
+	 */
+	public long getFlushCount() {
+		return flushes.get();
+	}
+
+	/**
+	 * @return the average time to write one batch, in milliseconds
+	 */
+	public double getAverageFlushMillis() {
+		long count = flushes.get();
+		return count == 0 ? 0 : flushNanos.get() / 1e6 / count;
+	}
+
+	/**
+	 * @return the longest time to write one batch, in milliseconds
+	 */
+	public double getSlowestFlushMillis() {
+		return slowestFlushNanos.get() / 1e6;
+	}
+
+	/**
+	 * @return how many snapshots have been written
+	 */
+	public long getSnapshotCount() {
+		return snapshots.get();
+	}
+
+	private void writeLoop() {
+		List<Entry> batch = new ArrayList<Entry>();
+		while (running) {
+			try {
+				Entry first = queue.poll(nextWaitMillis(),
+						TimeUnit.MILLISECONDS);
+				if (first != null) {
+					batch.add(first);
+					queue.drainTo(batch, MAX_BATCH - 1);
+					synchronized (room) {
+						room.notifyAll();
+					}
+				}
+			} catch (InterruptedException e) {
+				if (!running) {
+					return;
+				}
+			}
+			deepestQueue = Math.max(deepestQueue, batch.size() + queue.size());
+			try {
+				write(batch);
+			} catch (RuntimeException e) {
+				logger.log(Level.SEVERE,
+						"server/persistance/WriteBehindQueue - write failed", e);
+			}
+			for (Entry entry : batch) {
+				if (entry.flushed != null) {
+					entry.flushed.countDown();
+				}
+			}
+			batch.clear();
+		}
+	}
+
+	private void write(List<Entry> batch) {
+		long now = System.currentTimeMillis();
+		boolean due = false;
+		for (DirtyGame game : dirtyGames.values()) {
+			due |= now - game.dirtySince >= flushMillis;
+		}
+		if (batch.isEmpty() && !due) {
+			return;
+		}
+
+		long start = System.nanoTime();
+		persistance.startTransaction();
+		try {
+			for (Entry entry : batch) {
+				if (entry.command != null) {
+					writeCommand(entry, now);
+				}
+			}
+			Iterator<Map.Entry<Integer, DirtyGame>> dirty = dirtyGames
+					.entrySet().iterator();
+			while (dirty.hasNext()) {
+				Map.Entry<Integer, DirtyGame> game = dirty.next();
+				if (game.getValue().commands > 0
+						&& now - game.getValue().dirtySince >= flushMillis) {
+					snapshot(game.getKey(), game.getValue());
+				}
+				if (game.getValue().commands == 0
+						&& now - game.getValue().dirtySince >= flushMillis) {
+					dirty.remove();
+				}
+			}
+		} finally {
+			persistance.endTransaction();
+		}
+		long nanos = System.nanoTime() - start;
+		flushes.incrementAndGet();
+		flushNanos.addAndGet(nanos);
+		if (nanos > slowestFlushNanos.get()) {
+			slowestFlushNanos.set(nanos);
+		}
+	}
+
+	private void writeCommand(Entry entry, long now) {
+		DirtyGame game = dirtyGames.get(entry.gameID);
+		if (game == null) {
+			game = new DirtyGame();
+			dirtyGames.put(entry.gameID, game);
+		}
+		if (entry.sequence <= game.snapshotSequence) {
+			return;
+		}
+		persistance.addCommand(entry.gameID, entry.command);
+		if (game.commands++ == 0) {
+			game.dirtySince = now;
+		}
+		if (frequency > 0 && game.commands >= frequency) {
+			snapshot(entry.gameID, game);
+		}
+	}
+
+	/**
+	 * Saves the game as it is now. Commands still queued that it already
+	 * holds will be dropped.
+	 */
+	private void snapshot(int gameID, DirtyGame game) {
+		synchronized (ServerFacade.getGameLock(gameID)) {
+			ServerModel model = ServerFacade.getSingleton().getGame(gameID);
+			Long sequence = queuedSequence.get(gameID);
+			if (model != null) {
+				model.setGameID(gameID);
+				persistance.updateGame(model);
+				snapshots.incrementAndGet();
+			}
+			game.snapshotSequence = sequence == null ? 0 : sequence;
+		}
+		game.commands = 0;
+	}
+
+	private long nextWaitMillis() {
+		if (dirtyGames.isEmpty()) {
+			return flushMillis;
+		}
+		long now = System.currentTimeMillis();
+		long wait = flushMillis;
+		for (DirtyGame game : dirtyGames.values()) {
+			wait = Math.min(wait, game.dirtySince + flushMillis - now);
+		}
+		return Math.max(1, wait);
+	}
+}
@@ -18,7 +18,6 @@ public class BuildCityParams {
 	VertexLocationParam vertexLocation;
 
 	public BuildCityParams(int playerIndex, VertexLocation vertexLocation) {
-		vertexLocation.convertToPrimitives();
 		this.playerIndex = playerIndex;
 		this.vertexLocation = new VertexLocationParam();
 		this.vertexLocation.setDirection(vertexLocation.getDirection());
@@ -22,8 +22,6 @@ public class BuildRoadCardParams {
 			EdgeLocation spot2) {
 		this.spot1 = new EdgeLocationParam();
 		this.spot2 = new EdgeLocationParam();
-		spot1.convertToPrimitives();
-		spot2.convertToPrimitives();
 		this.playerIndex = playerIndex;
 		String thing = spot1.getDirection();
 		this.spot1.setDirection(thing);
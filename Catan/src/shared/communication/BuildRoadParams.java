@@ -19,7 +19,6 @@ public class BuildRoadParams {
 
 	public BuildRoadParams(int playerIndex, EdgeLocation roadLocation,
 			boolean free) {
-		roadLocation.convertToPrimitives();
 		this.playerIndex = playerIndex;
 		this.roadLocation = new EdgeLocationParam();
 		this.roadLocation.setDirection(roadLocation.getDirection());
@@ -23,7 +23,6 @@ public class BuildSettlementParams {
 
 	public BuildSettlementParams(int playerIndex,
 			VertexLocation vertexLocation, boolean free) {
-		vertexLocation.convertToPrimitives();
 		this.playerIndex = playerIndex;
 		this.vertexLocation = new VertexLocationParam();
 		this.vertexLocation.setDirection(vertexLocation.getDirection());
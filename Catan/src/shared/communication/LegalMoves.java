@@ -0,0 +1,96 @@
+package shared.communication;
+
+import shared.locations.EdgeLocation;
+import shared.locations.HexLocation;
+import shared.locations.VertexLocation;
+
+/**
+ * Every move of each kind one player may make in one version of a game, as
+ * sent for the '/game/legalMoves' request: the edges they may build a road
+ * on, the vertices they may build a settlement on or upgrade to a city, the
+ * hexes they may move the robber to and the maritime trades they may make.
+ * A kind of move they may not make at the moment is an empty array.
+ *
+ * Domain: playerIndex:int version:int roads:[EdgeLocation]
+ * settlements:[VertexLocation] cities:[VertexLocation]
+ * robber:[HexLocation] maritimeTrades:[MaritimeTradeParams]
+ */
+public class LegalMoves {
+
+	int playerIndex;
+	int version;
+	EdgeLocation[] roads;
+	VertexLocation[] settlements;
+	VertexLocation[] cities;
+	HexLocation[] robber;
+	MaritimeTradeParams[] maritimeTrades;
+
+	public LegalMoves(int playerIndex, int version) {
+		this.playerIndex = playerIndex;
+		this.version = version;
+		this.roads = new EdgeLocation[0];
+		this.settlements = new VertexLocation[0];
+		this.cities = new VertexLocation[0];
+		this.robber = new HexLocation[0];
+		this.maritimeTrades = new MaritimeTradeParams[0];
+	}
+
+	public int getPlayerIndex() {
+		return playerIndex;
+	}
+
+	public void setPlayerIndex(int playerIndex) {
+		this.playerIndex = playerIndex;
+	}
+
+	/**
+	 * @return the model version the moves were found in
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	public void setVersion(int version) {
+		this.version = version;
+	}
+
+	public EdgeLocation[] getRoads() {
+		return roads;
+	}
+
+	public void setRoads(EdgeLocation[] roads) {
+		this.roads = roads;
+	}
+
+	public VertexLocation[] getSettlements() {
+		return settlements;
+	}
+
+	public void setSettlements(VertexLocation[] settlements) {
+		this.settlements = settlements;
+	}
+
+	public VertexLocation[] getCities() {
+		return cities;
+	}
+
+	public void setCities(VertexLocation[] cities) {
+		this.cities = cities;
+	}
+
+	public HexLocation[] getRobber() {
+		return robber;
+	}
+
+	public void setRobber(HexLocation[] robber) {
+		this.robber = robber;
+	}
+
+	public MaritimeTradeParams[] getMaritimeTrades() {
+		return maritimeTrades;
+	}
+
+	public void setMaritimeTrades(MaritimeTradeParams[] maritimeTrades) {
+		this.maritimeTrades = maritimeTrades;
+	}
+}
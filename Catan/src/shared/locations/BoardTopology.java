@@ -0,0 +1,240 @@
+package shared.locations;
+
+import java.util.Arrays;
+
+/**
+ * Gives every vertex and edge of the board one integer id, whichever of its
+ * equivalent hex/direction pairs it is named by, and precomputes which ids
+ * touch which. A vertex is numbered by its NorthWest or NorthEast form and an
+ * edge by its NorthWest, North or NorthEast form, the same forms
+ * getNormalizedLocation gives.
+ *
+ * Ids cover every hex within SPAN of the center, which takes in the water
+ * ring and the hexes past it that normalizing can step onto. Locations
+ * outside that have no id and are reported as -1.
+ */
+public final class BoardTopology {
+	/**
+	 * How far from the center hex ids are given
+	 */
+	public static final int SPAN = 5;
+	private static final int WIDTH = 2 * SPAN + 1;
+
+	public static final int VERTEX_COUNT = WIDTH * WIDTH * 2;
+	public static final int EDGE_COUNT = WIDTH * WIDTH * 3;
+
+	private static final int[][] EDGE_VERTICES = new int[EDGE_COUNT][];
+	private static final int[][] VERTEX_EDGES = new int[VERTEX_COUNT][];
+	private static final int[][] VERTEX_NEIGHBORS = new int[VERTEX_COUNT][];
+	private static final int[][] EDGE_NEIGHBORS = new int[EDGE_COUNT][];
+
+	static {
+		int[] edgeCounts = new int[VERTEX_COUNT];
+		int[][] vertexEdges = new int[VERTEX_COUNT][3];
+		for (int x = -SPAN; x <= SPAN; x++) {
+			for (int y = -SPAN; y <= SPAN; y++) {
+				for (EdgeDirection dir : new EdgeDirection[] {
+						EdgeDirection.NorthWest, EdgeDirection.North,
+						EdgeDirection.NorthEast }) {
+					int edge = edgeId(x, y, dir);
+					int[] ends = endpoints(x, y, dir);
+					if (ends[0] < 0 || ends[1] < 0) {
+						EDGE_VERTICES[edge] = new int[0];
+						continue;
+					}
+					EDGE_VERTICES[edge] = ends;
+					for (int vertex : ends) {
+						vertexEdges[vertex][edgeCounts[vertex]++] = edge;
+					}
+				}
+			}
+		}
+		for (int vertex = 0; vertex < VERTEX_COUNT; vertex++) {
+			VERTEX_EDGES[vertex] = Arrays.copyOf(vertexEdges[vertex],
+					edgeCounts[vertex]);
+			int[] neighbors = new int[VERTEX_EDGES[vertex].length];
+			for (int i = 0; i < neighbors.length; i++) {
+				int[] ends = EDGE_VERTICES[VERTEX_EDGES[vertex][i]];
+				neighbors[i] = ends[0] == vertex ? ends[1] : ends[0];
+			}
+			VERTEX_NEIGHBORS[vertex] = neighbors;
+		}
+		for (int edge = 0; edge < EDGE_COUNT; edge++) {
+			int[] neighbors = new int[4];
+			int count = 0;
+			for (int vertex : EDGE_VERTICES[edge]) {
+				for (int other : VERTEX_EDGES[vertex]) {
+					if (other != edge) {
+						neighbors[count++] = other;
+					}
+				}
+			}
+			EDGE_NEIGHBORS[edge] = Arrays.copyOf(neighbors, count);
+		}
+	}
+
+	private BoardTopology() {
+	}
+
+	/**
+	 * @return the vertex ids at either end of a NorthWest, North or NorthEast
+	 *         edge, -1 where an end has no id
+	 */
+	private static int[] endpoints(int x, int y, EdgeDirection dir) {
+		switch (dir) {
+		case NorthWest:
+			return new int[] { vertexId(x, y, VertexDirection.West),
+					vertexId(x, y, VertexDirection.NorthWest) };
+		case North:
+			return new int[] { vertexId(x, y, VertexDirection.NorthWest),
+					vertexId(x, y, VertexDirection.NorthEast) };
+		default:
+			return new int[] { vertexId(x, y, VertexDirection.NorthEast),
+					vertexId(x, y, VertexDirection.East) };
+		}
+	}
+
+	private static int hexIndex(int x, int y) {
+		if (x < -SPAN || x > SPAN || y < -SPAN || y > SPAN) {
+			return -1;
+		}
+		return (x + SPAN) * WIDTH + (y + SPAN);
+	}
+
+	/**
+	 * @return the id of the vertex at dir of hex (x, y), or -1 if it is off
+	 *         the numbered board
+	 */
+	public static int vertexId(int x, int y, VertexDirection dir) {
+		int hex;
+		int side;
+		switch (dir) {
+		case NorthWest:
+			hex = hexIndex(x, y);
+			side = 0;
+			break;
+		case NorthEast:
+			hex = hexIndex(x, y);
+			side = 1;
+			break;
+		case West:
+			hex = hexIndex(x - 1, y + 1);
+			side = 1;
+			break;
+		case SouthWest:
+			hex = hexIndex(x, y + 1);
+			side = 0;
+			break;
+		case SouthEast:
+			hex = hexIndex(x, y + 1);
+			side = 1;
+			break;
+		case East:
+			hex = hexIndex(x + 1, y);
+			side = 0;
+			break;
+		default:
+			return -1;
+		}
+		return hex < 0 ? -1 : hex * 2 + side;
+	}
+
+	public static int vertexId(VertexLocation location) {
+		return vertexId(location.getHexLoc().getX(), location.getHexLoc()
+				.getY(), location.getDir());
+	}
+
+	/**
+	 * @return the id of the edge at dir of hex (x, y), or -1 if it is off the
+	 *         numbered board
+	 */
+	public static int edgeId(int x, int y, EdgeDirection dir) {
+		int hex;
+		int side;
+		switch (dir) {
+		case NorthWest:
+			hex = hexIndex(x, y);
+			side = 0;
+			break;
+		case North:
+			hex = hexIndex(x, y);
+			side = 1;
+			break;
+		case NorthEast:
+			hex = hexIndex(x, y);
+			side = 2;
+			break;
+		case SouthEast:
+			hex = hexIndex(x + 1, y);
+			side = 0;
+			break;
+		case South:
+			hex = hexIndex(x, y + 1);
+			side = 1;
+			break;
+		case SouthWest:
+			hex = hexIndex(x - 1, y + 1);
+			side = 2;
+			break;
+		default:
+			return -1;
+		}
+		return hex < 0 ? -1 : hex * 3 + side;
+	}
+
+	public static int edgeId(EdgeLocation location) {
+		return edgeId(location.getHexLoc().getX(), location.getHexLoc()
+				.getY(), location.getDir());
+	}
+
+	/**
+	 * @return the NorthWest or NorthEast location of the vertex with the id
+	 */
+	public static VertexLocation vertexLocation(int vertex) {
+		HexLocation hex = new HexLocation(vertex / 2 / WIDTH - SPAN, vertex
+				/ 2 % WIDTH - SPAN);
+		return new VertexLocation(hex, vertex % 2 == 0 ? VertexDirection.NorthWest
+				: VertexDirection.NorthEast);
+	}
+
+	/**
+	 * @return the NorthWest, North or NorthEast location of the edge with the
+	 *         id
+	 */
+	public static EdgeLocation edgeLocation(int edge) {
+		HexLocation hex = new HexLocation(edge / 3 / WIDTH - SPAN, edge / 3
+				% WIDTH - SPAN);
+		EdgeDirection[] dirs = { EdgeDirection.NorthWest, EdgeDirection.North,
+				EdgeDirection.NorthEast };
+		return new EdgeLocation(hex, dirs[edge % 3]);
+	}
+
+	/**
+	 * @return the two vertices at the ends of an edge, or none if one of them
+	 *         is off the numbered board. Do not modify.
+	 */
+	public static int[] edgeVertices(int edge) {
+		return EDGE_VERTICES[edge];
+	}
+
+	/**
+	 * @return the edges meeting at a vertex. Do not modify.
+	 */
+	public static int[] vertexEdges(int vertex) {
+		return VERTEX_EDGES[vertex];
+	}
+
+	/**
+	 * @return the vertices one edge away from a vertex. Do not modify.
+	 */
+	public static int[] vertexNeighbors(int vertex) {
+		return VERTEX_NEIGHBORS[vertex];
+	}
+
+	/**
+	 * @return the edges sharing a vertex with an edge. Do not modify.
+	 */
+	public static int[] edgeNeighbors(int edge) {
+		return EDGE_NEIGHBORS[edge];
+	}
+}
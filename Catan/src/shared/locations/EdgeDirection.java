@@ -5,6 +5,7 @@ public enum EdgeDirection {
 	NorthWest, North, NorthEast, SouthEast, South, SouthWest;
 
 	private EdgeDirection opposite;
+	private String abbreviation;
 
 	static {
 		NorthWest.opposite = SouthEast;
@@ -13,9 +14,35 @@ public enum EdgeDirection {
 		SouthEast.opposite = NorthWest;
 		South.opposite = North;
 		SouthWest.opposite = NorthEast;
+		NorthWest.abbreviation = "NW";
+		North.abbreviation = "N";
+		NorthEast.abbreviation = "NE";
+		SouthEast.abbreviation = "SE";
+		South.abbreviation = "S";
+		SouthWest.abbreviation = "SW";
 	}
 
 	public EdgeDirection getOppositeDirection() {
 		return opposite;
 	}
+
+	/**
+	 * @return the short form used in the JSON API, e.g. "NW"
+	 */
+	public String getAbbreviation() {
+		return abbreviation;
+	}
+
+	/**
+	 * @return the direction with the given short form, or null if there is
+	 *         none
+	 */
+	public static EdgeDirection fromAbbreviation(String abbreviation) {
+		for (EdgeDirection dir : values()) {
+			if (dir.abbreviation.equals(abbreviation)) {
+				return dir;
+			}
+		}
+		return null;
+	}
 }
@@ -2,107 +2,110 @@ package shared.locations;
 
 /**
  * Represents the location of an edge on a hex map
+ *
+ * Only x, y and direction are stored, in the form the JSON API uses, so they
+ * serialize as they are. The hex, the direction enum and a canonical id shared
+ * by both names of the edge are worked out from them the first time they are
+ * needed, since Gson fills in the fields without a constructor.
  */
 public class EdgeLocation {
 
-	private HexLocation hexLoc;
-	private EdgeDirection dir;
 	private String direction;
 	private int x;
 	private int y;
+	private transient boolean derived;
+	private transient HexLocation hexLoc;
+	private transient EdgeDirection dir;
+	private transient int canonicalId;
 
 	public EdgeLocation(HexLocation hexLoc, EdgeDirection dir) {
-		setHexLoc(hexLoc);
-		setDir(dir);
-		direction = dir.toString();
+		if (hexLoc == null) {
+			throw new IllegalArgumentException("hexLoc cannot be null");
+		}
+		this.x = hexLoc.getX();
+		this.y = hexLoc.getY();
+		this.direction = dir.getAbbreviation();
+		this.hexLoc = hexLoc;
+		this.dir = dir;
+		this.canonicalId = canonicalId(x, y, dir);
+		this.derived = true;
 	}
 
 	public EdgeLocation() {
 	};
 
-	public void convertToPrimitives() {
-		x = hexLoc.getX();
-		y = hexLoc.getY();
+	private void derive() {
+		if (!derived) {
+			hexLoc = new HexLocation(x, y);
+			dir = EdgeDirection.fromAbbreviation(direction);
+			canonicalId = dir == null ? ~0 : canonicalId(x, y, dir);
+			derived = true;
+		}
+	}
+
+	/**
+	 * Packs the NorthWest, North or NorthEast name of an edge into an int: the
+	 * hex coordinates in the high bits and which of the three in the lowest
+	 * two.
+	 */
+	private static int canonicalId(int x, int y, EdgeDirection dir) {
 		switch (dir) {
 		case NorthWest:
-			direction = "NW";
-			break;
+			return pack(x, y, 0);
 		case North:
-			direction = "N";
-			break;
+			return pack(x, y, 1);
 		case NorthEast:
-			direction = "NE";
-			break;
+			return pack(x, y, 2);
 		case SouthEast:
-			direction = "SE";
-			break;
+			return pack(x + 1, y, 0);
 		case South:
-			direction = "S";
-			break;
+			return pack(x, y + 1, 1);
 		case SouthWest:
-			direction = "SW";
-			break;
+			return pack(x - 1, y + 1, 2);
+		default:
+			assert false;
+			return ~0;
 		}
 	}
 
-	// public void
-	public void convertFromPrimitives() {
-		this.hexLoc = new HexLocation(x, y);
-		switch (direction) {
-		case "N":
-			dir = EdgeDirection.North;
-			break;
-		case "NE":
-			dir = EdgeDirection.NorthEast;
-			break;
-		case "SE":
-			dir = EdgeDirection.SouthEast;
-			break;
-		case "S":
-			dir = EdgeDirection.South;
-			break;
-		case "SW":
-			dir = EdgeDirection.SouthWest;
-			break;
-		case "NW":
-			dir = EdgeDirection.NorthWest;
-			break;
-		}
+	private static int pack(int x, int y, int side) {
+		return ((x & 0x7FFF) << 17) | ((y & 0x7FFF) << 2) | side;
 	}
 
-	public HexLocation getHexLoc() {
-		return hexLoc;
+	/**
+	 * @return an int that is the same for both names of this edge and
+	 *         different for every other edge
+	 */
+	public int getCanonicalId() {
+		derive();
+		return canonicalId;
 	}
 
-	private void setHexLoc(HexLocation hexLoc) {
-		if (hexLoc == null) {
-			throw new IllegalArgumentException("hexLoc cannot be null");
-		}
-		this.hexLoc = hexLoc;
+	public HexLocation getHexLoc() {
+		derive();
+		return hexLoc;
 	}
 
 	public EdgeDirection getDir() {
+		derive();
 		return dir;
 	}
 
-	private void setDir(EdgeDirection dir) {
-		this.dir = dir;
-	}
-
 	@Override
 	public String toString() {
-		return "EdgeLocation [hexLoc=" + hexLoc + ", dir=" + dir + "]";
+		return "EdgeLocation [hexLoc=" + getHexLoc() + ", dir=" + getDir()
+				+ "]";
 	}
 
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + ((dir == null) ? 0 : dir.hashCode());
-		result = prime * result + ((hexLoc == null) ? 0 : hexLoc.hashCode());
-		return result;
+		return getCanonicalId();
 	}
 
+	/**
+	 * Edge locations are equal if they name the same edge, from either of its
+	 * hexes.
+	 */
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj)
@@ -112,14 +115,7 @@ public class EdgeLocation {
 		if (getClass() != obj.getClass())
 			return false;
 		EdgeLocation other = (EdgeLocation) obj;
-		if (dir != other.dir)
-			return false;
-		if (hexLoc == null) {
-			if (other.hexLoc != null)
-				return false;
-		} else if (!hexLoc.equals(other.hexLoc))
-			return false;
-		return true;
+		return getCanonicalId() == other.getCanonicalId();
 	}
 
 	/**
@@ -127,14 +123,14 @@ public class EdgeLocation {
 	 * each edge has two different locations on a map, this method converts a
 	 * hex location to a single canonical form. This is useful for using hex
 	 * locations as map keys.
-	 * 
+	 *
 	 * @return Normalized hex location
 	 */
 	public EdgeLocation getNormalizedLocation() {
 
 		// Return an EdgeLocation that has direction NW, N, or NE
 
-		switch (dir) {
+		switch (getDir()) {
 		case NorthWest:
 		case North:
 		case NorthEast:
@@ -150,12 +146,13 @@ public class EdgeLocation {
 		}
 	}
 
-	public String getStringDirection() {
+	public String getDirection() {
 		return direction;
 	}
 
-	public void setStringDirection(String direction) {
+	public void setDirection(String direction) {
 		this.direction = direction;
+		this.derived = false;
 	}
 
 	public int getX() {
@@ -164,6 +161,7 @@ public class EdgeLocation {
 
 	public void setX(int x) {
 		this.x = x;
+		this.derived = false;
 	}
 
 	public int getY() {
@@ -172,13 +170,6 @@ public class EdgeLocation {
 
 	public void setY(int y) {
 		this.y = y;
-	}
-
-	public String getDirection() {
-		return direction;
-	}
-
-	public void setDirection(String direction) {
-		this.direction = direction;
+		this.derived = false;
 	}
 }
@@ -4,6 +4,7 @@ public enum VertexDirection {
 	West, NorthWest, NorthEast, East, SouthEast, SouthWest;
 
 	private VertexDirection opposite;
+	private String abbreviation;
 
 	static {
 		West.opposite = East;
@@ -12,9 +13,35 @@ public enum VertexDirection {
 		East.opposite = West;
 		SouthEast.opposite = NorthWest;
 		SouthWest.opposite = NorthEast;
+		West.abbreviation = "W";
+		NorthWest.abbreviation = "NW";
+		NorthEast.abbreviation = "NE";
+		East.abbreviation = "E";
+		SouthEast.abbreviation = "SE";
+		SouthWest.abbreviation = "SW";
 	}
 
 	public VertexDirection getOppositeDirection() {
 		return opposite;
 	}
+
+	/**
+	 * @return the short form used in the JSON API, e.g. "NW"
+	 */
+	public String getAbbreviation() {
+		return abbreviation;
+	}
+
+	/**
+	 * @return the direction with the given short form, or null if there is
+	 *         none
+	 */
+	public static VertexDirection fromAbbreviation(String abbreviation) {
+		for (VertexDirection dir : values()) {
+			if (dir.abbreviation.equals(abbreviation)) {
+				return dir;
+			}
+		}
+		return null;
+	}
 }
@@ -2,109 +2,110 @@ package shared.locations;
 
 /**
  * Represents the location of a vertex on a hex map
+ *
+ * Only x, y and direction are stored, in the form the JSON API uses, so they
+ * serialize as they are. The hex, the direction enum and a canonical id shared
+ * by all three names of the vertex are worked out from them the first time
+ * they are needed, since Gson fills in the fields without a constructor.
  */
 public class VertexLocation {
 
-	private HexLocation hexLoc;
-	private VertexDirection dir;
 	private String direction;
 	private int x;
 	private int y;
+	private transient boolean derived;
+	private transient HexLocation hexLoc;
+	private transient VertexDirection dir;
+	private transient int canonicalId;
 
 	public VertexLocation(HexLocation hexLoc, VertexDirection dir) {
-		setHexLoc(hexLoc);
-		setDir(dir);
+		if (hexLoc == null) {
+			throw new IllegalArgumentException("hexLoc cannot be null");
+		}
+		this.x = hexLoc.getX();
+		this.y = hexLoc.getY();
+		this.direction = dir.getAbbreviation();
+		this.hexLoc = hexLoc;
+		this.dir = dir;
+		this.canonicalId = canonicalId(x, y, dir);
+		this.derived = true;
 	}
 
 	public VertexLocation() {
-		hexLoc = new HexLocation(0, 0);
-		dir = VertexDirection.East;
+		direction = VertexDirection.East.getAbbreviation();
 	};
 
-	public void convertToPrimitives() {
-		x = hexLoc.getX();
-		y = hexLoc.getY();
+	private void derive() {
+		if (!derived) {
+			hexLoc = new HexLocation(x, y);
+			dir = VertexDirection.fromAbbreviation(direction);
+			canonicalId = dir == null ? ~0 : canonicalId(x, y, dir);
+			derived = true;
+		}
+	}
+
+	/**
+	 * Packs the NorthWest or NorthEast name of a vertex into an int: the hex
+	 * coordinates in the high bits and which of the two in the lowest.
+	 */
+	private static int canonicalId(int x, int y, VertexDirection dir) {
 		switch (dir) {
 		case NorthWest:
-			direction = "NW";
-			break;
-		case East:
-			direction = "E";
-			break;
+			return pack(x, y, 0);
 		case NorthEast:
-			direction = "NE";
-			break;
-		case SouthEast:
-			direction = "SE";
-			break;
+			return pack(x, y, 1);
 		case West:
-			direction = "W";
-			break;
+			return pack(x - 1, y + 1, 1);
 		case SouthWest:
-			direction = "SW";
-			break;
-
+			return pack(x, y + 1, 0);
+		case SouthEast:
+			return pack(x, y + 1, 1);
+		case East:
+			return pack(x + 1, y, 0);
+		default:
+			assert false;
+			return ~0;
 		}
 	}
 
-	// public void
-	public void convertFromPrimitives() {
-		this.hexLoc = new HexLocation(x, y);
-		switch (direction) {
-		case ("E"):
-			dir = VertexDirection.East;
-			break;
-		case ("NE"):
-			dir = VertexDirection.NorthEast;
-			break;
-		case ("SE"):
-			dir = VertexDirection.SouthEast;
-			break;
-		case ("W"):
-			dir = VertexDirection.West;
-			break;
-		case ("SW"):
-			dir = VertexDirection.SouthWest;
-			break;
-		case ("NW"):
-			dir = VertexDirection.NorthWest;
-			break;
-		}
+	private static int pack(int x, int y, int side) {
+		return ((x & 0x7FFF) << 16) | ((y & 0x7FFF) << 1) | side;
 	}
 
-	public HexLocation getHexLoc() {
-		return hexLoc;
+	/**
+	 * @return an int that is the same for every name of this vertex and
+	 *         different for every other vertex
+	 */
+	public int getCanonicalId() {
+		derive();
+		return canonicalId;
 	}
 
-	private void setHexLoc(HexLocation hexLoc) {
-		if (hexLoc == null) {
-			throw new IllegalArgumentException("hexLoc cannot be null");
-		}
-		this.hexLoc = hexLoc;
+	public HexLocation getHexLoc() {
+		derive();
+		return hexLoc;
 	}
 
 	public VertexDirection getDir() {
+		derive();
 		return dir;
 	}
 
-	private void setDir(VertexDirection direction) {
-		this.dir = direction;
-	}
-
 	@Override
 	public String toString() {
-		return "VertexLocation [hexLoc=" + hexLoc + ", dir=" + dir + "]";
+		return "VertexLocation [hexLoc=" + getHexLoc() + ", dir=" + getDir()
+				+ "]";
 	}
 
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + ((dir == null) ? 0 : dir.hashCode());
-		result = prime * result + ((hexLoc == null) ? 0 : hexLoc.hashCode());
-		return result;
+		return getCanonicalId();
 	}
 
+	/**
+	 * Vertex locations are equal if they name the same vertex, from whichever
+	 * of its hexes.
+	 */
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj)
@@ -114,14 +115,7 @@ public class VertexLocation {
 		if (getClass() != obj.getClass())
 			return false;
 		VertexLocation other = (VertexLocation) obj;
-		if (dir != other.dir)
-			return false;
-		if (hexLoc == null) {
-			if (other.hexLoc != null)
-				return false;
-		} else if (!hexLoc.equals(other.hexLoc))
-			return false;
-		return true;
+		return getCanonicalId() == other.getCanonicalId();
 	}
 
 	/**
@@ -129,14 +123,14 @@ public class VertexLocation {
 	 * each vertex has three different locations on a map, this method converts
 	 * a vertex location to a single canonical form. This is useful for using
 	 * vertex locations as map keys.
-	 * 
+	 *
 	 * @return Normalized vertex location
 	 */
 	public VertexLocation getNormalizedLocation() {
 
 		// Return location that has direction NW or NE
 
-		switch (dir) {
+		switch (getDir()) {
 		case NorthWest:
 		case NorthEast:
 			return this;
@@ -168,6 +162,7 @@ public class VertexLocation {
 
 	public void setDirection(String direction) {
 		this.direction = direction;
+		this.derived = false;
 	}
 
 	public int getX() {
@@ -176,6 +171,7 @@ public class VertexLocation {
 
 	public void setX(int x) {
 		this.x = x;
+		this.derived = false;
 	}
 
 	public int getY() {
@@ -184,5 +180,6 @@ public class VertexLocation {
 
 	public void setY(int y) {
 		this.y = y;
+		this.derived = false;
 	}
 }
@@ -0,0 +1,144 @@
+package shared.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A list of pieces or message lines that grows by doubling its storage, so
+ * adding one is amortized O(1) instead of a copy of the whole array. Gson
+ * writes and reads it as a plain JSON array.
+ *
+ * {@link #view()} gives a second list over the same storage that sees the
+ * items present when it was made and nothing added after. Items below a
+ * list's size are never written again, so a view can be read while the
+ * original keeps growing. A list that cannot add in place, because its
+ * storage is full or another list has already added past it, moves to a
+ * copy of its own first. Removing an item always moves to a copy.
+ *
+ * Not thread safe; a game's lists are changed under its game lock.
+ *
+ * @param <E>
+ *            - the item type
+ */
+public class AppendList<E> extends AbstractList<E> implements RandomAccess {
+	private static final int MIN_CAPACITY = 8;
+
+	private Storage storage;
+	private int size;
+
+	/**
+	 * The items, shared between a list and its views. used is how far any of
+	 * them has added.
+	 */
+	private static class Storage {
+		private final Object[] items;
+		private int used;
+
+		private Storage(Object[] items, int used) {
+			this.items = items;
+			this.used = used;
+		}
+	}
+
+	/**
+	 * An empty list, which is also how Gson makes one
+	 */
+	public AppendList() {
+		this.storage = new Storage(new Object[MIN_CAPACITY], 0);
+	}
+
+	/**
+	 * @param items
+	 *            - copied into the list; null makes an empty list
+	 */
+	public AppendList(E[] items) {
+		int length = items == null ? 0 : items.length;
+		this.storage = new Storage(Arrays.copyOf(
+				items == null ? new Object[0] : items,
+				Math.max(MIN_CAPACITY, length), Object[].class), length);
+		this.size = length;
+	}
+
+	private AppendList(Storage storage, int size) {
+		this.storage = storage;
+		this.size = size;
+	}
+
+	/**
+	 * @return a list of the items present now, sharing this list's storage.
+	 *         Later changes to either list are not seen by the other.
+	 */
+	public AppendList<E> view() {
+		return new AppendList<E>(storage, size);
+	}
+
+	/**
+	 * @return a view of the first length items
+	 */
+	public AppendList<E> view(int length) {
+		if (length < 0 || length > size) {
+			throw new IndexOutOfBoundsException("Length: " + length
+					+ ", Size: " + size);
+		}
+		return new AppendList<E>(storage, length);
+	}
+
+	/**
+	 * @return how many times items have been added or removed, for telling
+	 *         whether the list changed since it was last looked at
+	 */
+	public int getChangeCount() {
+		return modCount;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+					+ size);
+		}
+		return (E) storage.items[index];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean add(E item) {
+		if (storage.used != size || size == storage.items.length) {
+			storage = new Storage(Arrays.copyOf(storage.items,
+					Math.max(MIN_CAPACITY, size * 2)), size);
+		}
+		storage.items[size] = item;
+		size++;
+		storage.used = size;
+		modCount++;
+		return true;
+	}
+
+	@Override
+	public void add(int index, E item) {
+		if (index != size) {
+			throw new UnsupportedOperationException(
+					"items can only be added at the end");
+		}
+		add(item);
+	}
+
+	@Override
+	public E remove(int index) {
+		E removed = get(index);
+		Object[] items = new Object[Math.max(MIN_CAPACITY, size)];
+		System.arraycopy(storage.items, 0, items, 0, index);
+		System.arraycopy(storage.items, index + 1, items, index, size - index
+				- 1);
+		size--;
+		storage = new Storage(items, size);
+		modCount++;
+		return removed;
+	}
+}
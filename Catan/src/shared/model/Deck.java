@@ -1,7 +1,5 @@
 package shared.model;
 
-import java.util.Random;
-
 public class Deck {
 
 	private int yearOfPlenty;
@@ -66,11 +64,16 @@ public class Deck {
 		this.monopoly = monopoly;
 	}
 
-	public void drawFromDeck(Player drawingPlayer) {
+	/**
+	 * Moves a card picked at random from the deck to the player
+	 * 
+	 * @param random
+	 *            - the game's generator, so the draw replays the same
+	 */
+	public void drawFromDeck(Player drawingPlayer, GameRandom random) {
 		int totalCardCount = this.yearOfPlenty + this.monument + this.soldier
 				+ this.roadBuilding + this.monopoly;
-		Random rand = new Random();
-		int randomCardIndex = rand.nextInt(totalCardCount) + 1;
+		int randomCardIndex = random.nextInt(totalCardCount) + 1;
 
 		/*
 		 * If the development card is monument, it is added to the old cards
@@ -105,4 +108,11 @@ public class Deck {
 		}
 	}
 
+	/**
+	 * @return a new Deck with the same counts
+	 */
+	public Deck copy() {
+		return new Deck(yearOfPlenty, monument, soldier, roadBuilding,
+				monopoly);
+	}
 }
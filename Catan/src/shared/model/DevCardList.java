@@ -101,4 +101,38 @@ public class DevCardList {
 		this.setYearOfPlenty(0);
 	}
 
+	/**
+	 * @return a new DevCardList with the same counts
+	 */
+	public DevCardList copy() {
+		return new DevCardList(monopoly, monument, roadBuilding, soldier,
+				yearOfPlenty);
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + monopoly;
+		result = prime * result + monument;
+		result = prime * result + roadBuilding;
+		result = prime * result + soldier;
+		result = prime * result + yearOfPlenty;
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		DevCardList other = (DevCardList) obj;
+		return monopoly == other.monopoly && monument == other.monument
+				&& roadBuilding == other.roadBuilding
+				&& soldier == other.soldier
+				&& yearOfPlenty == other.yearOfPlenty;
+	}
 }
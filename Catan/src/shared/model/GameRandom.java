@@ -0,0 +1,107 @@
+package shared.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The random number generator a game draws its cards, steals and board layout
+ * from. Its whole state is one long kept in the ServerModel, so a saved game
+ * carries on the same sequence and replaying its commands from the same
+ * state gives the same outcomes.
+ *
+ * This is SplitMix64, the generator behind java.util.SplittableRandom: each
+ * number advances the state by a fixed odd constant and scrambles it. split
+ * seeds a new generator from this one, so one game seed can give separate
+ * streams, for example to lay out the board and to play the game, that
+ * replay independently of each other.
+ */
+public class GameRandom {
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	private static final AtomicLong seeder = new AtomicLong(
+			mix64(System.currentTimeMillis()) ^ mix64(System.nanoTime()));
+
+	/**
+	 * Where this generator started
+	 */
+	private long seed;
+	private long state;
+
+	public GameRandom() {
+		this(newSeed());
+	}
+
+	public GameRandom(long seed) {
+		this.seed = seed;
+		this.state = seed;
+	}
+
+	/**
+	 * Picks up a generator where getState left it
+	 */
+	public GameRandom(long seed, long state) {
+		this.seed = seed;
+		this.state = state;
+	}
+
+	/**
+	 * @return a seed for a new game, different on every call
+	 */
+	public static long newSeed() {
+		return mix64(seeder.getAndAdd(GOLDEN_GAMMA));
+	}
+
+	public long nextLong() {
+		state += GOLDEN_GAMMA;
+		return mix64(state);
+	}
+
+	/**
+	 * @param bound
+	 *            - must be positive
+	 * @return a number from 0 up to but not including bound, each equally
+	 *         likely
+	 */
+	public int nextInt(int bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("bound must be positive");
+		}
+		int bits = (int) (nextLong() >>> 33);
+		int result = bits % bound;
+		/*
+		 * Draws past the last whole multiple of bound would favour the low
+		 * numbers, so they are thrown away and drawn again.
+		 */
+		while (bits - result + (bound - 1) < 0) {
+			bits = (int) (nextLong() >>> 33);
+			result = bits % bound;
+		}
+		return result;
+	}
+
+	/**
+	 * @return a new generator seeded from this one's next number
+	 */
+	public GameRandom split() {
+		return new GameRandom(nextLong());
+	}
+
+	/**
+	 * @return a generator back at this one's seed
+	 */
+	public GameRandom restart() {
+		return new GameRandom(seed);
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public long getState() {
+		return state;
+	}
+
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
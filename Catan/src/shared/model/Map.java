@@ -22,9 +22,9 @@ import shared.locations.*;
 public class Map {
 	private Hex[] hexes;
 	private Port[] ports;
-	private Road[] roads;
-	private VertexObject[] settlements;
-	private VertexObject[] cities;
+	private AppendList<Road> roads;
+	private AppendList<VertexObject> settlements;
+	private AppendList<VertexObject> cities;
 	private int radius;
 	private HexLocation robber;
 
@@ -44,6 +44,14 @@ public class Map {
 	public Map(Hex[] hexes, Port[] ports, Road[] roads,
 			VertexObject[] settlements, VertexObject[] cities, int radius,
 			HexLocation robber) {
+		this(hexes, ports, new AppendList<Road>(roads),
+				new AppendList<VertexObject>(settlements),
+				new AppendList<VertexObject>(cities), radius, robber);
+	}
+
+	Map(Hex[] hexes, Port[] ports, AppendList<Road> roads,
+			AppendList<VertexObject> settlements,
+			AppendList<VertexObject> cities, int radius, HexLocation robber) {
 		super();
 		this.hexes = hexes;
 		this.ports = ports;
@@ -70,28 +78,28 @@ public class Map {
 		this.ports = ports;
 	}
 
-	public Road[] getRoads() {
+	public AppendList<Road> getRoads() {
 		return roads;
 	}
 
 	public void setRoads(Road[] roads) {
-		this.roads = roads;
+		this.roads = new AppendList<Road>(roads);
 	}
 
-	public VertexObject[] getSettlements() {
+	public AppendList<VertexObject> getSettlements() {
 		return settlements;
 	}
 
 	public void setSettlements(VertexObject[] settlements) {
-		this.settlements = settlements;
+		this.settlements = new AppendList<VertexObject>(settlements);
 	}
 
-	public VertexObject[] getCities() {
+	public AppendList<VertexObject> getCities() {
 		return cities;
 	}
 
 	public void setCities(VertexObject[] cities) {
-		this.cities = cities;
+		this.cities = new AppendList<VertexObject>(cities);
 	}
 
 	public int getRadius() {
@@ -109,4 +117,21 @@ public class Map {
 	public void setRobber(HexLocation robber) {
 		this.robber = robber;
 	}
+
+	/**
+	 * Pieces are never moved once placed, so the copy gets views of the
+	 * current piece lists, which later additions do not show through, and
+	 * its own robber.
+	 * 
+	 * @return a new Map with the current layout and pieces
+	 */
+	public Map copy() {
+		return new Map(hexes, ports, viewOf(roads), viewOf(settlements),
+				viewOf(cities), radius, robber == null ? null : new HexLocation(
+						robber.getX(), robber.getY()));
+	}
+
+	private static <E> AppendList<E> viewOf(AppendList<E> list) {
+		return list == null ? null : list.view();
+	}
 }
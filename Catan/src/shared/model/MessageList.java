@@ -12,7 +12,7 @@ package shared.model;
  *
  */
 public class MessageList {
-	private MessageLine[] lines;
+	private AppendList<MessageLine> lines;
 
 	/**
 	 * Default constructor, requires all fields
@@ -22,24 +22,33 @@ public class MessageList {
 	 * @param lines
 	 */
 	public MessageList(MessageLine[] lines) {
+		this(new AppendList<MessageLine>(lines));
+	}
+
+	MessageList(AppendList<MessageLine> lines) {
 		super();
 		this.lines = lines;
 	}
 
-	public MessageLine[] getLines() {
+	public AppendList<MessageLine> getLines() {
 		return lines;
 	}
 
 	public void setLines(MessageLine[] lines) {
-		this.lines = lines;
+		this.lines = new AppendList<MessageLine>(lines);
 	}
 
 	public void addLine(MessageLine line) {
-		MessageLine[] newLines = new MessageLine[lines.length + 1];
-		for (int i = 0; i < lines.length; i++) {
-			newLines[i] = lines[i];
-		}
-		newLines[lines.length] = line;
-		lines = newLines;
+		lines.add(line);
+	}
+
+	/**
+	 * Lines are never changed once added, so the copy gets a view of the
+	 * current lines, which later additions do not show through.
+	 * 
+	 * @return a new MessageList with the current lines
+	 */
+	public MessageList copy() {
+		return new MessageList(lines.view());
 	}
 }
@@ -0,0 +1,308 @@
+package shared.model;
+
+import java.util.Arrays;
+
+import shared.locations.HexLocation;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * The changes between two versions of a game, sent to a polling client in
+ * place of a whole ClientModel. Sections that are small are always sent in
+ * full. Players are sent only if they changed. Log, chat, roads and cities
+ * only grow, so just the new tail of each is sent with the index it starts
+ * at.
+ *
+ * <pre>
+ * <b>Domain:</b>
+ * -type:string, always "ModelPatch"
+ * -fromVersion:int
+ * -version:int
+ * -bank:ResourceList
+ * -deck:Deck
+ * -tradeOffer:TradeOffer
+ * -turnTracker:TurnTracker
+ * -winner:int
+ * -robber:HexLocation
+ * -players:[Player], null where the player did not change
+ * -logOffset:int
+ * -log:[MessageLine]
+ * -chatOffset:int
+ * -chat:[MessageLine]
+ * -roadOffset:int
+ * -roads:[Road]
+ * -cityOffset:int
+ * -cities:[VertexObject]
+ * -settlements:[VertexObject], null if unchanged
+ * </pre>
+ */
+public class ModelPatch {
+	/**
+	 * The type every patch is sent with, so a client can tell it from a whole
+	 * model, which has no type
+	 */
+	public static final String TYPE = "ModelPatch";
+
+	private String type = TYPE;
+	private int fromVersion;
+	private int version;
+	private ResourceList bank;
+	private Deck deck;
+	private TradeOffer tradeOffer;
+	private TurnTracker turnTracker;
+	private int winner;
+	private HexLocation robber;
+	private Player[] players;
+	private int logOffset;
+	private MessageLine[] log;
+	private int chatOffset;
+	private MessageLine[] chat;
+	private int roadOffset;
+	private Road[] roads;
+	private int cityOffset;
+	private VertexObject[] cities;
+	private VertexObject[] settlements;
+
+	/**
+	 * @param fromVersion
+	 *            - the version the patch applies to
+	 * @param version
+	 *            - the version the patch brings a model up to
+	 */
+	public ModelPatch(int fromVersion, int version) {
+		this.fromVersion = fromVersion;
+		this.version = version;
+	}
+
+	/**
+	 * Reads a /game/model response, which holds either a patch or a whole
+	 * model.
+	 *
+	 * @Pre json is not empty
+	 * @return the patch, or null if the response is not one
+	 */
+	public static ModelPatch fromJson(String json) {
+		JsonElement tree = new JsonParser().parse(json);
+		if (!tree.isJsonObject()) {
+			return null;
+		}
+		JsonElement type = ((JsonObject) tree).get("type");
+		if (type == null || !type.isJsonPrimitive()
+				|| !TYPE.equals(type.getAsString())) {
+			return null;
+		}
+		return new Gson().fromJson(tree, ModelPatch.class);
+	}
+
+	/**
+	 * Builds the model this patch describes on top of the given model, which
+	 * is left untouched.
+	 *
+	 * @Pre base is at fromVersion
+	 * @param base
+	 *            - the model at fromVersion
+	 * @param result
+	 *            - an empty model to fill in
+	 * @return result, or null if the patch does not line up with base
+	 */
+	public <T extends AbstractModel> T applyTo(AbstractModel base, T result) {
+		if (base.getVersion() != fromVersion || base.getMap() == null
+				|| base.getLog() == null || base.getChat() == null) {
+			return null;
+		}
+		AppendList<MessageLine> newLog = splice(base.getLog().getLines(),
+				logOffset, log);
+		AppendList<MessageLine> newChat = splice(base.getChat().getLines(),
+				chatOffset, chat);
+		Map map = base.getMap();
+		AppendList<Road> newRoads = splice(map.getRoads(), roadOffset, roads);
+		AppendList<VertexObject> newCities = splice(map.getCities(),
+				cityOffset, cities);
+		if (newLog == null || newChat == null || newRoads == null
+				|| newCities == null) {
+			return null;
+		}
+
+		Player[] newPlayers = base.getPlayers();
+		if (players != null) {
+			newPlayers = newPlayers == null ? new Player[players.length]
+					: newPlayers.clone();
+			if (newPlayers.length != players.length) {
+				return null;
+			}
+			for (int i = 0; i < players.length; i++) {
+				if (players[i] != null) {
+					newPlayers[i] = players[i];
+				}
+			}
+		}
+
+		result.setBank(bank);
+		result.setDeck(deck);
+		result.setTradeOffer(tradeOffer);
+		result.setTurnTracker(turnTracker);
+		result.setWinner(winner);
+		result.setVersion(version);
+		result.setPlayers(newPlayers);
+		result.setLog(new MessageList(newLog));
+		result.setChat(new MessageList(newChat));
+		AppendList<VertexObject> newSettlements;
+		if (settlements != null) {
+			newSettlements = new AppendList<VertexObject>(settlements);
+		} else if (map.getSettlements() != null) {
+			newSettlements = map.getSettlements().view();
+		} else {
+			newSettlements = null;
+		}
+		result.setMap(new Map(map.getHexes(), map.getPorts(), newRoads,
+				newSettlements, newCities, map.getRadius(), robber));
+		return result;
+	}
+
+	/**
+	 * @return the first offset items of base followed by tail, sharing base's
+	 *         storage, or null if base is shorter than offset
+	 */
+	private static <E> AppendList<E> splice(AppendList<E> base, int offset,
+			E[] tail) {
+		if (base == null || base.size() < offset) {
+			return null;
+		}
+		AppendList<E> result = base.view(offset);
+		if (tail != null) {
+			result.addAll(Arrays.asList(tail));
+		}
+		return result;
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public int getFromVersion() {
+		return fromVersion;
+	}
+
+	public int getVersion() {
+		return version;
+	}
+
+	public ResourceList getBank() {
+		return bank;
+	}
+
+	public void setBank(ResourceList bank) {
+		this.bank = bank;
+	}
+
+	public Deck getDeck() {
+		return deck;
+	}
+
+	public void setDeck(Deck deck) {
+		this.deck = deck;
+	}
+
+	public TradeOffer getTradeOffer() {
+		return tradeOffer;
+	}
+
+	public void setTradeOffer(TradeOffer tradeOffer) {
+		this.tradeOffer = tradeOffer;
+	}
+
+	public TurnTracker getTurnTracker() {
+		return turnTracker;
+	}
+
+	public void setTurnTracker(TurnTracker turnTracker) {
+		this.turnTracker = turnTracker;
+	}
+
+	public int getWinner() {
+		return winner;
+	}
+
+	public void setWinner(int winner) {
+		this.winner = winner;
+	}
+
+	public HexLocation getRobber() {
+		return robber;
+	}
+
+	public void setRobber(HexLocation robber) {
+		this.robber = robber;
+	}
+
+	public Player[] getPlayers() {
+		return players;
+	}
+
+	public void setPlayers(Player[] players) {
+		this.players = players;
+	}
+
+	public int getLogOffset() {
+		return logOffset;
+	}
+
+	public MessageLine[] getLog() {
+		return log;
+	}
+
+	public void setLog(int logOffset, MessageLine[] log) {
+		this.logOffset = logOffset;
+		this.log = log;
+	}
+
+	public int getChatOffset() {
+		return chatOffset;
+	}
+
+	public MessageLine[] getChat() {
+		return chat;
+	}
+
+	public void setChat(int chatOffset, MessageLine[] chat) {
+		this.chatOffset = chatOffset;
+		this.chat = chat;
+	}
+
+	public int getRoadOffset() {
+		return roadOffset;
+	}
+
+	public Road[] getRoads() {
+		return roads;
+	}
+
+	public void setRoads(int roadOffset, Road[] roads) {
+		this.roadOffset = roadOffset;
+		this.roads = roads;
+	}
+
+	public int getCityOffset() {
+		return cityOffset;
+	}
+
+	public VertexObject[] getCities() {
+		return cities;
+	}
+
+	public void setCities(int cityOffset, VertexObject[] cities) {
+		this.cityOffset = cityOffset;
+		this.cities = cities;
+	}
+
+	public VertexObject[] getSettlements() {
+		return settlements;
+	}
+
+	public void setSettlements(VertexObject[] settlements) {
+		this.settlements = settlements;
+	}
+}
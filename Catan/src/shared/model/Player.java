@@ -302,4 +302,72 @@ public class Player {
 	public int getNumberRoadsBuilt() {
 		return (15 - getRoads());
 	}
+
+	/**
+	 * @return a new Player with copies of the card and resource lists
+	 */
+	public Player copy() {
+		return new Player(playerIndex, playerid, cities, settlements, name,
+				color, discarded, monuments, newDevCards == null ? null
+						: newDevCards.copy(), oldDevCards == null ? null
+						: oldDevCards.copy(), playedDevCard,
+				resources == null ? null : resources.copy(), roads, soldiers,
+				victoryPoints);
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + playerIndex;
+		result = prime * result + playerid;
+		result = prime * result + cities;
+		result = prime * result + settlements;
+		result = prime * result + ((name == null) ? 0 : name.hashCode());
+		result = prime * result + ((color == null) ? 0 : color.hashCode());
+		result = prime * result + (discarded ? 1231 : 1237);
+		result = prime * result + monuments;
+		result = prime * result
+				+ ((newDevCards == null) ? 0 : newDevCards.hashCode());
+		result = prime * result
+				+ ((oldDevCards == null) ? 0 : oldDevCards.hashCode());
+		result = prime * result + (playedDevCard ? 1231 : 1237);
+		result = prime * result
+				+ ((resources == null) ? 0 : resources.hashCode());
+		result = prime * result + roads;
+		result = prime * result + soldiers;
+		result = prime * result + victoryPoints;
+		return result;
+	}
+
+	/**
+	 * Two players are equal if every field is, so a copy equals the player
+	 * until either of them changes
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		Player other = (Player) obj;
+		return playerIndex == other.playerIndex
+				&& playerid == other.playerid && cities == other.cities
+				&& settlements == other.settlements
+				&& discarded == other.discarded
+				&& monuments == other.monuments
+				&& playedDevCard == other.playedDevCard
+				&& roads == other.roads && soldiers == other.soldiers
+				&& victoryPoints == other.victoryPoints
+				&& equal(name, other.name) && equal(color, other.color)
+				&& equal(newDevCards, other.newDevCards)
+				&& equal(oldDevCards, other.oldDevCards)
+				&& equal(resources, other.resources);
+	}
+
+	private static boolean equal(Object a, Object b) {
+		return a == null ? b == null : a.equals(b);
+	}
 }
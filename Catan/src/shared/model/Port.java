@@ -20,9 +20,12 @@ import shared.locations.HexLocation;
 public class Port {
 	private String resource;
 	private HexLocation location;
-	private EdgeDirection dir;
 	private String direction;
 	private int ratio;
+	/*
+	 * worked out from direction when first asked for
+	 */
+	private transient EdgeDirection dir;
 
 	/**
 	 * Default constructor, requires all fields
@@ -43,29 +46,6 @@ public class Port {
 		this.ratio = ratio;
 	}
 
-	public void convertFromPrimitives() {
-		switch (direction) {
-		case "N":
-			dir = EdgeDirection.North;
-			break;
-		case "NE":
-			dir = EdgeDirection.NorthEast;
-			break;
-		case "SE":
-			dir = EdgeDirection.SouthEast;
-			break;
-		case "S":
-			dir = EdgeDirection.South;
-			break;
-		case "SW":
-			dir = EdgeDirection.SouthWest;
-			break;
-		case "NW":
-			dir = EdgeDirection.NorthWest;
-			break;
-		}
-	}
-
 	public String getResource() {
 		return resource;
 	}
@@ -88,6 +68,7 @@ public class Port {
 
 	public void setDirection(String direction) {
 		this.direction = direction;
+		this.dir = null;
 	}
 
 	public int getRatio() {
@@ -99,10 +80,14 @@ public class Port {
 	}
 
 	public EdgeDirection getDir() {
+		if (dir == null) {
+			dir = EdgeDirection.fromAbbreviation(direction);
+		}
 		return dir;
 	}
 
 	public void setDir(EdgeDirection dir) {
 		this.dir = dir;
+		this.direction = dir.getAbbreviation();
 	}
 }
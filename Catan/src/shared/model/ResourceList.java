@@ -1,7 +1,5 @@
 package shared.model;
 
-import java.util.Random;
-
 import shared.definitions.ResourceType;
 
 /**
@@ -187,14 +185,15 @@ public class ResourceList {
 	 * within the resource list. this function is mainly used when a robber is
 	 * played and a random resource must be stolen.
 	 * 
+	 * @param random
+	 *            - the game's generator, so the steal replays the same
 	 * @return Randomized resource type that is present within the resource
 	 *         list.
 	 */
-	public ResourceType getRandomResourceFromList() {
+	public ResourceType getRandomResourceFromList(GameRandom random) {
 		int totalResourceCount = this.brick + this.ore + this.sheep
 				+ this.wheat + this.wood;
-		Random rand = new Random();
-		int randomNum = rand.nextInt(totalResourceCount) + 1;
+		int randomNum = random.nextInt(totalResourceCount) + 1;
 
 		if (randomNum - this.brick <= 0) {
 			return ResourceType.BRICK;
@@ -209,4 +208,34 @@ public class ResourceList {
 			return ResourceType.WOOD;
 		return null;
 	}
+
+	/**
+	 * @return a new ResourceList with the same counts
+	 */
+	public ResourceList copy() {
+		return new ResourceList(brick, ore, sheep, wheat, wood);
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + brick;
+		result = prime * result + ore;
+		result = prime * result + sheep;
+		result = prime * result + wheat;
+		result = prime * result + wood;
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		return equals((ResourceList) obj);
+	}
 }
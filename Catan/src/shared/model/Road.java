@@ -1,7 +1,6 @@
 package shared.model;
 
 import shared.locations.EdgeLocation;
-import shared.locations.HexLocation;
 
 /**
  * Contains the location and owner of a Road, changed from EdgeValue in the
@@ -58,33 +57,10 @@ public class Road {
 	 */
 	public boolean isNotEquivalent(Road newRoad) {
 		/*
-		 * Check if the inputed road has the same hex location as this (same x,y
-		 * indices) and the same directionality
+		 * Edge locations compare equal when they name the same edge from
+		 * either of its hexes.
 		 */
-
-		HexLocation hexLocation = this.getLocation().getHexLoc();
-
-		if (hexLocation.equals(newRoad.getLocation().getHexLoc())
-				&& this.getLocation().getDir() == newRoad.getLocation()
-						.getDir()) {
-			return false;
-		}
-
-		/*
-		 * Check if the inputed has the same hex location as this.nieghbor
-		 * (neighbor or this's x,y) and the opposite directionality. So you need
-		 * to check for the road's corresponding availability and the adjacent
-		 * hex location.
-		 */
-		if (this.getLocation()
-				.getHexLoc()
-				.equals(newRoad.getLocation().getHexLoc()
-						.getNeighborLoc(newRoad.getLocation().getDir()))
-				&& this.getLocation().getDir() == newRoad.getLocation()
-						.getDir().getOppositeDirection()) {
-			return false;
-		}
-		return true;
+		return !location.equals(newRoad.getLocation());
 	}
 
 	public String toString() {
@@ -57,4 +57,12 @@ public class TradeOffer {
 	public void setResourceList(ResourceList resourceList) {
 		this.offer = resourceList;
 	}
+
+	/**
+	 * @return a new TradeOffer with a copy of the offered resources
+	 */
+	public TradeOffer copy() {
+		return new TradeOffer(sender, receiver, offer == null ? null
+				: offer.copy());
+	}
 }
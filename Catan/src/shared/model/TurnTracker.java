@@ -71,4 +71,11 @@ public class TurnTracker {
 	public void setLargestArmy(int largestArmy) {
 		this.largestArmy = largestArmy;
 	}
+
+	/**
+	 * @return a new TurnTracker with the same state
+	 */
+	public TurnTracker copy() {
+		return new TurnTracker(currentTurn, status, longestRoad, largestArmy);
+	}
 }
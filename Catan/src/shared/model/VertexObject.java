@@ -1,8 +1,5 @@
 package shared.model;
 
-import shared.locations.EdgeDirection;
-import shared.locations.HexLocation;
-import shared.locations.VertexDirection;
 import shared.locations.VertexLocation;
 
 /**
@@ -50,121 +47,11 @@ public class VertexObject {
 		this.location = location;
 	}
 
+	/**
+	 * @return whether the other object is on the same vertex, however either
+	 *         location names it
+	 */
 	public boolean isEquivalent(VertexObject vertexObj) {
-		/*
-		 * Check if the inputed road has the same hex location as this (same x,y
-		 * indices) and the same directionality
-		 */
-		VertexLocation vertLocation = this.getLocation();
-
-		if (vertLocation.getHexLoc().equals(
-				(vertexObj.getLocation().getHexLoc()))
-				&& vertLocation.getDir() == vertexObj.getLocation().getDir()) {
-			return true;
-		}
-
-		HexLocation neighbor1 = null;
-		HexLocation neighbor2 = null;
-
-		switch (vertLocation.getDir()) {
-		case NorthWest:
-			neighbor1 = vertLocation.getHexLoc().getNeighborLoc(
-					EdgeDirection.NorthWest);
-			neighbor2 = vertLocation.getHexLoc().getNeighborLoc(
-					EdgeDirection.North);
-
-			if (neighbor1.equals(vertexObj.getLocation().getHexLoc())
-					&& vertexObj.getLocation().getDir() == VertexDirection.East) {
-				return true;
-			}
-
-			if (neighbor2.equals(vertexObj.getLocation().getHexLoc())
-					&& vertexObj.getLocation().getDir() == VertexDirection.SouthWest) {
-				return true;
-			}
-			break;
-		case NorthEast:
-			neighbor1 = vertLocation.getHexLoc().getNeighborLoc(
-					EdgeDirection.NorthEast);
-			neighbor2 = vertLocation.getHexLoc().getNeighborLoc(
-					EdgeDirection.North);
-
-			if (neighbor1.equals(vertexObj.getLocation().getHexLoc())
-					&& vertexObj.getLocation().getDir() == VertexDirection.West) {
-				return true;
-			}
-
-			if (neighbor2.equals(vertexObj.getLocation().getHexLoc())
-					&& vertexObj.getLocation().getDir() == VertexDirection.SouthEast) {
-				return true;
-			}
-			break;
-		case East:
-			neighbor1 = vertLocation.getHexLoc().getNeighborLoc(
-					EdgeDirection.NorthEast);
-			neighbor2 = vertLocation.getHexLoc().getNeighborLoc(
-					EdgeDirection.SouthEast);
-
-			if (neighbor1.equals(vertexObj.getLocation().getHexLoc())
-					&& vertexObj.getLocation().getDir() == VertexDirection.SouthWest) {
-				return true;
-			}
-
-			if (neighbor2.equals(vertexObj.getLocation().getHexLoc())
-					&& vertexObj.getLocation().getDir() == VertexDirection.NorthWest) {
-				return true;
-			}
-			break;
-		case SouthEast:
-			neighbor1 = vertLocation.getHexLoc().getNeighborLoc(
-					EdgeDirection.SouthEast);
-			neighbor2 = vertLocation.getHexLoc().getNeighborLoc(
-					EdgeDirection.South);
-
-			if (neighbor1.equals(vertexObj.getLocation().getHexLoc())
-					&& vertexObj.getLocation().getDir() == VertexDirection.West) {
-				return true;
-			}
-
-			if (neighbor2.equals(vertexObj.getLocation().getHexLoc())
-					&& vertexObj.getLocation().getDir() == VertexDirection.NorthEast) {
-				return true;
-			}
-			break;
-		case SouthWest:
-			neighbor1 = vertLocation.getHexLoc().getNeighborLoc(
-					EdgeDirection.SouthWest);
-			neighbor2 = vertLocation.getHexLoc().getNeighborLoc(
-					EdgeDirection.South);
-
-			if (neighbor1.equals(vertexObj.getLocation().getHexLoc())
-					&& vertexObj.getLocation().getDir() == VertexDirection.East) {
-				return true;
-			}
-
-			if (neighbor2.equals(vertexObj.getLocation().getHexLoc())
-					&& vertexObj.getLocation().getDir() == VertexDirection.NorthWest) {
-				return true;
-			}
-			break;
-		case West:
-			neighbor1 = vertLocation.getHexLoc().getNeighborLoc(
-					EdgeDirection.SouthWest);
-			neighbor2 = vertLocation.getHexLoc().getNeighborLoc(
-					EdgeDirection.NorthWest);
-
-			if (neighbor1.equals(vertexObj.getLocation().getHexLoc())
-					&& vertexObj.getLocation().getDir() == VertexDirection.NorthEast) {
-				return true;
-			}
-
-			if (neighbor2.equals(vertexObj.getLocation().getHexLoc())
-					&& vertexObj.getLocation().getDir() == VertexDirection.SouthEast) {
-				return true;
-			}
-			break;
-		}
-
-		return false;
+		return location.equals(vertexObj.getLocation());
 	}
 }
@@ -0,0 +1,24 @@
+package shared.utils;
+
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.Gson;
+
+/**
+ * Serializes objects straight to UTF-8 JSON bytes, for responses and rows
+ * that are sent or stored as bytes rather than as a String. One Gson is
+ * shared, since it is safe to use from many threads.
+ */
+public class ByteSerializer {
+	private static final Gson gson = new Gson();
+
+	/**
+	 * Serializes an object straight to UTF-8 JSON bytes.
+	 * 
+	 * @Pre Object is not null.
+	 * @Post The UTF-8 encoded JSON of the object.
+	 */
+	public static byte[] serializeToBytes(Object object) {
+		return gson.toJson(object).getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -1,17 +1,29 @@
 package shared.utils;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class IDGenerator {
-	private static int lastAssignedPlayerID = 0;
-	private static int lastAssignedGameID = 0;
+	private static AtomicInteger lastAssignedPlayerID = new AtomicInteger(0);
+	private static AtomicInteger lastAssignedGameID = new AtomicInteger(0);
 
 	public static int generatePlayerID() {
-		lastAssignedPlayerID += 1;
-		return lastAssignedPlayerID;
+		return lastAssignedPlayerID.incrementAndGet();
 	}
 
 	public static int generateGameID() {
-		lastAssignedGameID += 1;
-		return lastAssignedGameID;
+		return lastAssignedGameID.incrementAndGet();
+	}
+
+	/**
+	 * Makes sure a game id brought back from persistance is never handed out
+	 * again
+	 */
+	public static void reserveGameID(int gameID) {
+		int last = lastAssignedGameID.get();
+		while (last < gameID
+				&& !lastAssignedGameID.compareAndSet(last, gameID)) {
+			last = lastAssignedGameID.get();
+		}
 	}
 
 }
@@ -0,0 +1,105 @@
+package test;
+
+import java.lang.management.ManagementFactory;
+
+import server.facade.FacadeSwitch;
+import server.model.ServerModel;
+import shared.model.MessageLine;
+
+/**
+ * Small harness shared by the *Benchmark classes. Runs a task in a loop on
+ * the calling thread and reports throughput and the bytes the thread
+ * allocated per run.
+ */
+public class Benchmark {
+
+	public interface Task {
+		public void run() throws Exception;
+	}
+
+	public static class Result {
+		private String name;
+		private int iterations;
+		private long nanos;
+		private long allocatedBytes;
+
+		public Result(String name, int iterations, long nanos,
+				long allocatedBytes) {
+			this.name = name;
+			this.iterations = iterations;
+			this.nanos = nanos;
+			this.allocatedBytes = allocatedBytes;
+		}
+
+		public double getOpsPerSecond() {
+			return iterations / (nanos / 1e9);
+		}
+
+		public double getMicrosPerOp() {
+			return nanos / 1e3 / iterations;
+		}
+
+		public long getBytesAllocatedPerOp() {
+			return allocatedBytes / iterations;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-40s %12.1f ops/s %10.2f us/op %12d B alloc/op",
+					name, getOpsPerSecond(), getMicrosPerOp(),
+					getBytesAllocatedPerOp());
+		}
+	}
+
+	/**
+	 * Runs the task iterations times to warm up, then iterations times while
+	 * measuring, and prints the result.
+	 */
+	public static Result measure(String name, int iterations, Task task)
+			throws Exception {
+		for (int i = 0; i < iterations; i++) {
+			task.run();
+		}
+		long threadID = Thread.currentThread().getId();
+		long allocatedBefore = allocatedBytes(threadID);
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			task.run();
+		}
+		long nanos = System.nanoTime() - start;
+		long allocated = allocatedBytes(threadID) - allocatedBefore;
+
+		Result result = new Result(name, iterations, nanos, allocated);
+		System.out.println(result);
+		return result;
+	}
+
+	/**
+	 * The server's built-in test game with a long log and chat, standing in
+	 * for a game late in play.
+	 */
+	public static ServerModel lateGame(int lines) {
+		FacadeSwitch.setRealServer();
+		FacadeSwitch.getSingleton().setFirstGame();
+		ServerModel model = FacadeSwitch.getSingleton().getModelMap().get(0);
+		for (int i = 0; i < lines; i++) {
+			String name = model.getPlayers()[i % 4].getName();
+			model.getLog().addLine(
+					new MessageLine(name + " rolled a " + (2 + i % 11) + ".",
+							name));
+			model.getChat().addLine(
+					new MessageLine("chat message number " + i, name));
+		}
+		return model;
+	}
+
+	private static long allocatedBytes(long threadID) {
+		java.lang.management.ThreadMXBean bean = ManagementFactory
+				.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean)
+					.getThreadAllocatedBytes(threadID);
+		}
+		return 0;
+	}
+}
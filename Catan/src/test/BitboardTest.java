@@ -0,0 +1,219 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import server.facade.FacadeSwitch;
+import server.model.Bitboard;
+import server.model.BoardIndex;
+import server.model.ServerModel;
+import shared.locations.BoardTopology;
+import shared.locations.EdgeDirection;
+import shared.locations.EdgeLocation;
+import shared.locations.HexLocation;
+import shared.locations.VertexDirection;
+import shared.locations.VertexLocation;
+import shared.model.Road;
+import shared.model.VertexObject;
+
+public class BitboardTest {
+	private ServerModel model;
+
+	@Before
+	public void setUp() {
+		FacadeSwitch.setRealServer();
+		FacadeSwitch.getSingleton().setFirstGame();
+		FacadeSwitch.getSingleton().setGameID(0);
+		model = FacadeSwitch.getSingleton().getServerModel();
+	}
+
+	@Test
+	public void coversTheLand() {
+		assertEquals(54, Bitboard.VERTICES);
+		assertEquals(72, Bitboard.EDGES);
+		assertEquals(2, Bitboard.EDGE_WORDS);
+		for (int bit = 0; bit < Bitboard.VERTICES; bit++) {
+			assertEquals(bit, Bitboard.vertexBit(Bitboard.vertexId(bit)));
+		}
+		for (int bit = 0; bit < Bitboard.EDGES; bit++) {
+			assertEquals(bit, Bitboard.edgeBit(Bitboard.edgeId(bit)));
+		}
+		assertEquals(-1, Bitboard.vertexBit(BoardTopology.vertexId(4, 0,
+				VertexDirection.NorthWest)));
+		assertEquals(-1, Bitboard.edgeBit(BoardTopology.edgeId(-4, 1,
+				EdgeDirection.North)));
+		assertEquals(-1, Bitboard.vertexBit(-1));
+	}
+
+	@Test
+	public void matchesTheBoardItWasBuiltFrom() {
+		assertConsistent(model);
+	}
+
+	@Test
+	public void followsPiecesAsTheyAreAdded() {
+		Bitboard bitboard = model.getBitboard();
+		for (int step = 0; step < 40; step++) {
+			int player = step % 4;
+			long[] roads = bitboard.roadSpots(player);
+			long settlements = bitboard.settlementSpots(player, true);
+			if (settlements != 0) {
+				int bit = Long.numberOfTrailingZeros(settlements);
+				model.addSettlement(new VertexObject(player,
+						vertexLocation(Bitboard.vertexId(bit))));
+				if (step % 3 == 0) {
+					model.addCity(new VertexObject(player,
+							vertexLocation(Bitboard.vertexId(bit))));
+				}
+			} else if (roads[step % 2] != 0) {
+				int bit = 64 * (step % 2)
+						+ Long.numberOfTrailingZeros(roads[step % 2]);
+				model.addRoad(new Road(player, edgeLocation(Bitboard
+						.edgeId(bit))));
+			} else if (roads[0] != 0) {
+				int bit = Long.numberOfTrailingZeros(roads[0]);
+				model.addRoad(new Road(player, edgeLocation(Bitboard
+						.edgeId(bit))));
+			}
+			assertSame(bitboard, model.getBitboard());
+			assertConsistent(model);
+		}
+	}
+
+	@Test
+	public void buildsAgainWhenPiecesAreReplaced() {
+		model.getBitboard();
+		model.getMap().setRoads(new Road[0]);
+		model.getMap().setCities(new VertexObject[0]);
+		assertConsistent(model);
+		assertArrayEquals(new long[Bitboard.EDGE_WORDS], model.getBitboard()
+				.roadMask(0));
+		model.getMap().setSettlements(new VertexObject[0]);
+		assertEquals(0, model.getBitboard().citySpots(0));
+		assertEquals(0, model.getBitboard().settlementSpots(0, true));
+	}
+
+	@Test
+	public void anotherPlayersBuildingCutsARoad() {
+		// a road for player 0 leading to an empty vertex in the middle
+		Bitboard bitboard = model.getBitboard();
+		VertexLocation center = null;
+		Road road = null;
+		for (int bit = 0; bit < Bitboard.VERTICES && road == null; bit++) {
+			if ((bitboard.settlementSpots(1, false) & 1L << bit) == 0) {
+				continue;
+			}
+			int vertex = Bitboard.vertexId(bit);
+			for (int edge : BoardTopology.vertexEdges(vertex)) {
+				if (Bitboard.edgeBit(edge) >= 0
+						&& model.getBoardIndex().roadOwner(edge) < 0
+						&& noRoadsAt(model.getBoardIndex(), vertex)) {
+					center = vertexLocation(vertex);
+					road = new Road(0, edgeLocation(edge));
+				}
+			}
+		}
+		assertNotNull(road);
+		model.addRoad(road);
+		int edge = BoardTopology.edgeId(road.getLocation());
+		int vertex = BoardTopology.vertexId(center);
+		int onward = -1;
+		for (int next : BoardTopology.vertexEdges(vertex)) {
+			if (next != edge && Bitboard.edgeBit(next) >= 0) {
+				onward = next;
+			}
+		}
+		assertTrue(bitboard.canPlaceRoad(0, onward));
+		assertTrue(bitboard.canPlaceSettlement(0, vertex, true));
+		assertFalse(bitboard.canPlaceSettlement(1, vertex, true));
+
+		model.addSettlement(new VertexObject(1, center));
+		assertFalse(bitboard.canPlaceRoad(0, onward));
+		assertTrue(bitboard.canPlaceRoad(1, onward));
+		assertFalse(bitboard.canPlaceSettlement(0, vertex, false));
+		for (int neighbor : BoardTopology.vertexNeighbors(vertex)) {
+			assertFalse(bitboard.canPlaceSettlement(0, neighbor, false));
+		}
+		assertConsistent(model);
+	}
+
+	/*
+	 * Works out every spot the slow way, from the board index, and compares
+	 * it with the bitboard's masks
+	 */
+	private static void assertConsistent(ServerModel model) {
+		Bitboard bitboard = model.getBitboard();
+		BoardIndex index = model.getBoardIndex();
+		for (int player = 0; player < 4; player++) {
+			for (int bit = 0; bit < Bitboard.VERTICES; bit++) {
+				int vertex = Bitboard.vertexId(bit);
+				boolean free = index.buildingOwner(vertex) < 0;
+				for (int neighbor : BoardTopology.vertexNeighbors(vertex)) {
+					free &= index.buildingOwner(neighbor) < 0;
+				}
+				assertEquals(free, bitboard.canPlaceSettlement(player, vertex,
+						false));
+				assertEquals(free && index.hasRoadAt(player, vertex),
+						bitboard.canPlaceSettlement(player, vertex, true));
+				assertEquals(index.settlementOwner(vertex) == player,
+						(bitboard.citySpots(player) & 1L << bit) != 0);
+			}
+			long[] spots = bitboard.roadSpots(player);
+			long[] roads = bitboard.roadMask(player);
+			for (int bit = 0; bit < Bitboard.EDGES; bit++) {
+				int edge = Bitboard.edgeId(bit);
+				boolean connected = false;
+				for (int end : BoardTopology.edgeVertices(edge)) {
+					int owner = index.buildingOwner(end);
+					connected |= owner == player || owner < 0
+							&& index.hasRoadAt(player, end);
+				}
+				boolean legal = index.roadOwner(edge) < 0 && connected;
+				assertEquals(legal, bitboard.canPlaceRoad(player, edge));
+				assertEquals(legal, (spots[bit >>> 6] & 1L << bit) != 0);
+				assertEquals(index.roadOwner(edge) == player,
+						(roads[bit >>> 6] & 1L << bit) != 0);
+			}
+		}
+	}
+
+	private static boolean noRoadsAt(BoardIndex index, int vertex) {
+		for (int edge : BoardTopology.vertexEdges(vertex)) {
+			if (index.roadOwner(edge) >= 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static EdgeLocation edgeLocation(int id) {
+		for (int x = -BoardTopology.SPAN; x <= BoardTopology.SPAN; x++) {
+			for (int y = -BoardTopology.SPAN; y <= BoardTopology.SPAN; y++) {
+				for (EdgeDirection dir : new EdgeDirection[] {
+						EdgeDirection.NorthWest, EdgeDirection.North,
+						EdgeDirection.NorthEast }) {
+					if (BoardTopology.edgeId(x, y, dir) == id) {
+						return new EdgeLocation(new HexLocation(x, y), dir);
+					}
+				}
+			}
+		}
+		throw new AssertionError("no edge " + id);
+	}
+
+	private static VertexLocation vertexLocation(int id) {
+		for (int x = -BoardTopology.SPAN; x <= BoardTopology.SPAN; x++) {
+			for (int y = -BoardTopology.SPAN; y <= BoardTopology.SPAN; y++) {
+				for (VertexDirection dir : new VertexDirection[] {
+						VertexDirection.NorthWest, VertexDirection.NorthEast }) {
+					if (BoardTopology.vertexId(x, y, dir) == id) {
+						return new VertexLocation(new HexLocation(x, y), dir);
+					}
+				}
+			}
+		}
+		throw new AssertionError("no vertex " + id);
+	}
+}
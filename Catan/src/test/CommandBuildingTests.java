@@ -92,7 +92,8 @@ public class CommandBuildingTests {
 			command.execute();
 			assertTrue(player.getSettlements() == 4);
 			VertexObject[] settlements = FacadeSwitch.getSingleton()
-					.getServerModel().getMap().getSettlements();
+					.getServerModel().getMap().getSettlements()
+					.toArray(new VertexObject[0]);
 			assertTrue(settlements[0].getOwner() == playerID);
 			assertTrue(settlements[0].getLocation().getHexLoc()
 					.equals(new HexLocation(0, 0)));
@@ -159,7 +160,8 @@ public class CommandBuildingTests {
 			command.execute();
 			assertEquals(3, player.getCities());
 			VertexObject[] cities = FacadeSwitch.getSingleton()
-					.getServerModel().getMap().getCities();
+					.getServerModel().getMap().getCities()
+					.toArray(new VertexObject[0]);
 			assertTrue(cities[0].getOwner() == playerID);
 			assertTrue(cities[0].getLocation().getHexLoc()
 					.equals(new HexLocation(0, 0)));
@@ -225,7 +227,7 @@ public class CommandBuildingTests {
 			command.execute();
 			assertEquals(14, player.getRoads());
 			Road[] newRoads = FacadeSwitch.getSingleton().getServerModel()
-					.getMap().getRoads();
+					.getMap().getRoads().toArray(new Road[0]);
 			assertTrue(newRoads[4].getOwner() == playerID);
 			assertTrue(newRoads[4].getLocation().getHexLoc()
 					.equals(new HexLocation(0, 0)));
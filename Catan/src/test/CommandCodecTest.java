@@ -0,0 +1,54 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import server.commands.BuyDevCardCommand;
+import server.commands.CommandCodec;
+import server.commands.ICommand;
+import server.commands.SendChatCommand;
+import server.model.ServerModel;
+import shared.communication.ChatMessage;
+import shared.communication.UserActionParams;
+
+public class CommandCodecTest {
+
+	@Test
+	public void decodedCommandsEncodeTheSame() {
+		ServerModel model = Benchmark.lateGame(0);
+		assertFalse(model.getCommands().isEmpty());
+		for (ICommand command : model.getCommands()) {
+			String json = command.toJSONString();
+			ICommand decoded = ICommand.fromJSONString(json);
+			assertSame(command.getClass(), decoded.getClass());
+			assertEquals(json, decoded.toJSONString());
+		}
+		ICommand buy = new BuyDevCardCommand(new UserActionParams(2));
+		assertEquals(buy.toJSONString(),
+				CommandCodec.decode(CommandCodec.encode(buy)).toJSONString());
+	}
+
+	@Test
+	public void goesByTheTypeFieldOnly() {
+		ICommand chat = new SendChatCommand(new ChatMessage(1,
+				"BuildRoad then PlayRoadBuilding, \"type\":\"AcceptTrade\""));
+		ICommand decoded = ICommand.fromJSONString(chat.toJSONString());
+		assertTrue(decoded instanceof SendChatCommand);
+		assertEquals(chat.toJSONString(), decoded.toJSONString());
+
+		decoded = ICommand
+				.fromJSONString("{\"type\":\"SendChat\",\"nested\":{\"type\":\"BuildCity\"},\"playerIndex\":3,\"content\":\"hi\"}");
+		assertTrue(decoded instanceof SendChatCommand);
+		assertEquals("SendChat", decoded.getType());
+	}
+
+	@Test
+	public void unknownOrMissingTypesDecodeToNull() {
+		assertNull(ICommand.fromJSONString("{\"type\":\"Teleport\"}"));
+		assertNull(ICommand.fromJSONString("{\"content\":\"SendChat\"}"));
+		assertNull(ICommand.fromJSONString("{\"type\":3}"));
+		assertNull(ICommand.fromJSONString("[\"SendChat\"]"));
+		assertNull(ICommand.fromJSONString("SendChat"));
+	}
+}
@@ -306,7 +306,7 @@ public class CommandDevCardTests {
 			assertEquals(player.getRoads(), 13);
 			assertTrue(player.getOldDevCards().getRoadBuilding() == 0);
 
-			assertTrue(model.getMap().getRoads().length == 6);
+			assertTrue(model.getMap().getRoads().size() == 6);
 		} catch (ServerResponseException e) {
 			e.printStackTrace();
 			fail("This should work");
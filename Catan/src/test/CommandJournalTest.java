@@ -0,0 +1,137 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import server.commands.ICommand;
+import server.facade.FacadeSwitch;
+import server.facade.ServerFacade;
+import server.model.ServerModel;
+import server.persistance.CommandJournal;
+import server.persistance.TextPersistance;
+import shared.communication.ChatMessage;
+
+public class CommandJournalTest {
+	private File directory;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("journal").toFile();
+	}
+
+	@After
+	public void tearDown() {
+		ServerFacade.getSingleton().setPersistance(null);
+		ServerFacade.getSingleton().setFrequency(0);
+		delete(directory);
+	}
+
+	@Test
+	public void readsBackWhatWasAppended() throws Exception {
+		CommandJournal journal = new CommandJournal(directory, 10, 1 << 20);
+		journal.append(1, "{\"type\":\"SendChat\",\"content\":\"é\"}");
+		journal.append(2, "{\"type\":\"FinishTurn\"}");
+		journal.append(1, "{\"type\":\"RollNumber\"}");
+		journal.close();
+
+		CommandJournal reopened = new CommandJournal(directory, 10, 1 << 20);
+		List<String> game1 = reopened.read(1);
+		assertEquals(2, game1.size());
+		assertEquals("{\"type\":\"SendChat\",\"content\":\"é\"}", game1.get(0));
+		assertEquals("{\"type\":\"RollNumber\"}", game1.get(1));
+		assertEquals(1, reopened.read(2).size());
+		assertTrue(reopened.read(3).isEmpty());
+
+		reopened.truncate(1);
+		assertTrue(reopened.read(1).isEmpty());
+		reopened.append(1, "{\"type\":\"FinishTurn\"}");
+		assertEquals(1, reopened.read(1).size());
+		reopened.close();
+	}
+
+	@Test
+	public void dropsLineCutShortByCrash() throws Exception {
+		CommandJournal journal = new CommandJournal(directory, 0, 0);
+		journal.append(1, "{\"type\":\"FinishTurn\"}");
+		journal.close();
+		FileOutputStream out = new FileOutputStream(new File(directory,
+				"game1.journal"), true);
+		out.write("{\"type\":\"Roll".getBytes("UTF-8"));
+		out.close();
+
+		journal = new CommandJournal(directory, 0, 0);
+		assertEquals(1, journal.read(1).size());
+		journal.close();
+	}
+
+	@Test
+	public void groupsCommitsTogether() throws Exception {
+		CommandJournal journal = new CommandJournal(directory, 60000, 1 << 20);
+		for (int i = 0; i < 100; i++) {
+			journal.append(i % 4, "{\"type\":\"SendChat\"}");
+		}
+		assertEquals(0, journal.getCommitCount());
+		journal.sync();
+		assertEquals(1, journal.getCommitCount());
+
+		// passing the byte threshold commits without waiting out the interval
+		CommandJournal small = new CommandJournal(new File(directory, "small"),
+				60000, 64);
+		for (int i = 0; i < 10; i++) {
+			small.append(0, "{\"type\":\"SendChat\",\"content\":\"hello\"}");
+		}
+		long deadline = System.currentTimeMillis() + 5000;
+		while (small.getCommitCount() == 0
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertTrue(small.getCommitCount() > 0);
+		small.close();
+		journal.close();
+	}
+
+	@Test
+	public void facadeJournalsMovesAndSnapshots() throws Exception {
+		FacadeSwitch.setRealServer();
+		FacadeSwitch.getSingleton().setFirstGame();
+		FacadeSwitch.getSingleton().setGameID(0);
+		TextPersistance persistance = new TextPersistance(
+				directory.getPath(), 10, 1 << 20);
+		ServerFacade.getSingleton().setPersistance(persistance);
+		ServerFacade.getSingleton().setFrequency(3);
+
+		for (int i = 0; i < 4; i++) {
+			FacadeSwitch.getSingleton().sendChat(
+					new ChatMessage(0, "message " + i));
+			ServerFacade.getSingleton().flushPersistance();
+		}
+
+		ServerModel saved = persistance.getGame(0);
+		assertNotNull(saved);
+		assertEquals(3, saved.getChat().getLines().size());
+		List<String> tail = persistance.getCommands(0);
+		assertEquals(1, tail.size());
+		assertTrue(ICommand.fromJSONString(tail.get(0)).getType()
+				.equals("SendChat"));
+		assertTrue(tail.get(0).contains("message 3"));
+		persistance.close();
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
@@ -0,0 +1,125 @@
+package test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import server.commands.AcceptTradeCommand;
+import server.commands.BuildCityCommand;
+import server.commands.BuildRoadCommand;
+import server.commands.BuildSettlementCommand;
+import server.commands.BuyDevCardCommand;
+import server.commands.DiscardCardsCommand;
+import server.commands.FinishTurnCommand;
+import server.commands.ICommand;
+import server.commands.MaritimeTradeCommand;
+import server.commands.OfferTradeCommand;
+import server.commands.PlayMonopolyCommand;
+import server.commands.PlayMonumentCommand;
+import server.commands.PlayRoadBuildingCommand;
+import server.commands.PlaySoldierCommand;
+import server.commands.PlayYearOfPlentyCommand;
+import server.commands.RobPlayerCommand;
+import server.commands.RollNumberCommand;
+import server.commands.SendChatCommand;
+import server.facade.FacadeSwitch;
+import server.model.ServerModel;
+import shared.communication.ChatMessage;
+import shared.utils.Serializer;
+
+/**
+ * Replays a 10,000 command game: its moves decoded the old way, by matching
+ * the JSON against each command name and binding it with a new Gson, and
+ * through CommandCodec, then the game's chat replayed through the codec and
+ * executed. Reports commands per second.
+ */
+public class CommandReplayBenchmark {
+	private static volatile Object sink;
+
+	/*
+	 * The names the old decoder looked for, in the order it tried them
+	 */
+	private static final Object[][] LEGACY = {
+			{ "AcceptTrade", AcceptTradeCommand.class },
+			{ "BuildCity", BuildCityCommand.class },
+			{ "BuildRoad", BuildRoadCommand.class },
+			{ "BuildSettlement", BuildSettlementCommand.class },
+			{ "BuyDevCard", BuyDevCardCommand.class },
+			{ "DiscardCards", DiscardCardsCommand.class },
+			{ "FinishTurn", FinishTurnCommand.class },
+			{ "MaritimeTrade", MaritimeTradeCommand.class },
+			{ "OfferTrade", OfferTradeCommand.class },
+			{ "PlayMonopoly", PlayMonopolyCommand.class },
+			{ "PlayMonument", PlayMonumentCommand.class },
+			{ "PlayRoadBuilding", PlayRoadBuildingCommand.class },
+			{ "PlaySoldier", PlaySoldierCommand.class },
+			{ "PlayYearOfPlenty", PlayYearOfPlentyCommand.class },
+			{ "RobPlayer", RobPlayerCommand.class },
+			{ "RollNumber", RollNumberCommand.class },
+			{ "SendChat", SendChatCommand.class } };
+
+	public static void main(String[] args) throws Exception {
+		int commands = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		ServerModel model = Benchmark.lateGame(0);
+		final List<String> moves = new ArrayList<String>();
+		final List<String> chat = new ArrayList<String>();
+		for (int i = 0; moves.size() < commands; i++) {
+			ICommand built = model.getCommands().get(
+					i % model.getCommands().size());
+			moves.add(built.toJSONString());
+			moves.add(new SendChatCommand(new ChatMessage(i % 4, "message "
+					+ i)).toJSONString());
+		}
+		for (int i = 0; i < commands; i++) {
+			chat.add(new SendChatCommand(new ChatMessage(i % 4, "message " + i))
+					.toJSONString());
+		}
+		final String before = Serializer.serializeServerModel(model);
+
+		report(commands, Benchmark.measure("decode, name matching", rounds,
+				new Benchmark.Task() {
+					@Override
+					public void run() throws Exception {
+						for (String line : moves) {
+							sink = legacyDecode(line);
+						}
+					}
+				}));
+		report(commands, Benchmark.measure("decode, CommandCodec", rounds,
+				new Benchmark.Task() {
+					@Override
+					public void run() throws Exception {
+						for (String line : moves) {
+							sink = ICommand.fromJSONString(line);
+						}
+					}
+				}));
+		FacadeSwitch.getSingleton().setGameID(0);
+		report(commands, Benchmark.measure("replay chat, CommandCodec",
+				rounds, new Benchmark.Task() {
+					@Override
+					public void run() throws Exception {
+						FacadeSwitch.getSingleton().getModelMap()
+								.put(0, Serializer.deserializeServerModel(before));
+						for (String line : chat) {
+							ICommand.fromJSONString(line).execute();
+						}
+					}
+				}));
+	}
+
+	private static void report(int commands, Benchmark.Result result) {
+		System.out.printf("%40s %12.0f commands/s%n", "",
+				result.getOpsPerSecond() * commands);
+	}
+
+	private static ICommand legacyDecode(String json) {
+		for (Object[] entry : LEGACY) {
+			if (json.contains((String) entry[0])) {
+				return (ICommand) Serializer.deserialize(json,
+						(Class<?>) entry[1]);
+			}
+		}
+		return null;
+	}
+}
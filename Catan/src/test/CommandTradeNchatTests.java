@@ -45,9 +45,9 @@ public class CommandTradeNchatTests {
 		try {
 			command.execute();
 			assertTrue(FacadeSwitch.getSingleton().getServerModel().getChat()
-					.getLines()[0].getMessage().equals("Hi there"));
+					.getLines().get(0).getMessage().equals("Hi there"));
 			assertTrue(FacadeSwitch.getSingleton().getServerModel().getChat()
-					.getLines()[0].getSource().equals("Sam"));
+					.getLines().get(0).getSource().equals("Sam"));
 		} catch (ServerResponseException e) {
 			e.printStackTrace();
 			fail("this should work");
@@ -59,9 +59,9 @@ public class CommandTradeNchatTests {
 		try {
 			command.execute();
 			assertTrue(FacadeSwitch.getSingleton().getServerModel().getChat()
-					.getLines()[1].getMessage().equals("Hey man"));
+					.getLines().get(1).getMessage().equals("Hey man"));
 			assertTrue(FacadeSwitch.getSingleton().getServerModel().getChat()
-					.getLines()[1].getSource().equals("Brooke"));
+					.getLines().get(1).getSource().equals("Brooke"));
 		} catch (ServerResponseException e) {
 			e.printStackTrace();
 			fail("this should work");
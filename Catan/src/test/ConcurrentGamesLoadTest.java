@@ -0,0 +1,169 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import server.facade.FacadeSwitch;
+import server.httpHandlers.SendChatHandler;
+import server.main.RequestExecutor;
+import server.model.ServerModel;
+import shared.model.DevCardList;
+import shared.model.MessageLine;
+import shared.model.Player;
+import shared.model.ResourceList;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Drives a few hundred games through the /moves handlers at the same time and
+ * checks that every move landed in the game it was sent to.
+ */
+public class ConcurrentGamesLoadTest {
+	private static final int GAME_COUNT = 200;
+	private static final int MOVES_PER_GAME = 10;
+	private static final int FIRST_GAME_ID = 100000;
+	private static final int SERVER_THREADS = 16;
+	private static final int CLIENT_THREADS = 64;
+
+	private HttpServer httpServer;
+	private RequestExecutor serverPool;
+	private int port;
+
+	@Before
+	public void setUp() throws Exception {
+		FacadeSwitch.setRealServer();
+		for (int i = 0; i < GAME_COUNT; i++) {
+			int gameID = FIRST_GAME_ID + i;
+			FacadeSwitch.getSingleton().getModelMap()
+					.put(gameID, newGame(gameID));
+		}
+
+		serverPool = new RequestExecutor(RequestExecutor.Mode.FIXED,
+				SERVER_THREADS, GAME_COUNT * MOVES_PER_GAME);
+		httpServer = HttpServer.create(new InetSocketAddress("localhost", 0),
+				CLIENT_THREADS);
+		httpServer.createContext("/moves/sendChat", new SendChatHandler());
+		httpServer.setExecutor(serverPool);
+		httpServer.start();
+		port = httpServer.getAddress().getPort();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		httpServer.stop(0);
+		serverPool.shutdown();
+		for (int i = 0; i < GAME_COUNT; i++) {
+			FacadeSwitch.getSingleton().getModelMap().remove(FIRST_GAME_ID + i);
+		}
+	}
+
+	@Test
+	public void concurrentGamesDoNotInterfere() throws Exception {
+		ExecutorService clients = Executors.newFixedThreadPool(CLIENT_THREADS);
+		List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+
+		long start = System.nanoTime();
+		/*
+		 * Interleave the games so that every game has requests in flight at
+		 * the same time as every other game.
+		 */
+		for (int move = 0; move < MOVES_PER_GAME; move++) {
+			for (int i = 0; i < GAME_COUNT; i++) {
+				results.add(clients.submit(new ChatRequest(FIRST_GAME_ID + i,
+						move)));
+			}
+		}
+		for (Future<Integer> result : results) {
+			assertEquals(200, result.get().intValue());
+		}
+		long elapsed = System.nanoTime() - start;
+		clients.shutdown();
+		clients.awaitTermination(10, TimeUnit.SECONDS);
+
+		System.out.println("ConcurrentGamesLoadTest: " + results.size()
+				+ " moves across " + GAME_COUNT + " games in "
+				+ TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms");
+
+		for (int i = 0; i < GAME_COUNT; i++) {
+			int gameID = FIRST_GAME_ID + i;
+			ServerModel model = FacadeSwitch.getSingleton().getModelMap()
+					.get(gameID);
+			MessageLine[] lines = model.getChat().getLines()
+					.toArray(new MessageLine[0]);
+			assertEquals(MOVES_PER_GAME, lines.length);
+			assertEquals(MOVES_PER_GAME, model.getVersion());
+			for (MessageLine line : lines) {
+				assertTrue(line.getMessage().startsWith("game " + gameID + " "));
+			}
+		}
+	}
+
+	private ServerModel newGame(int gameID) {
+		ServerModel model = new ServerModel();
+		model.setGameID(gameID);
+		Player[] players = new Player[4];
+		for (int i = 0; i < players.length; i++) {
+			players[i] = new Player(i, i, 4, 5, "player" + i, "red", false, 0,
+					new DevCardList(0, 0, 0, 0, 0), new DevCardList(0, 0, 0, 0,
+							0), false, new ResourceList(0, 0, 0, 0, 0), 15, 0,
+					0);
+		}
+		model.setPlayers(players);
+		return model;
+	}
+
+	private class ChatRequest implements Callable<Integer> {
+		private int gameID;
+		private int move;
+
+		public ChatRequest(int gameID, int move) {
+			this.gameID = gameID;
+			this.move = move;
+		}
+
+		@Override
+		public Integer call() throws IOException {
+			URL url = new URL("http://localhost:" + port + "/moves/sendChat");
+			HttpURLConnection connection = (HttpURLConnection) url
+					.openConnection();
+			connection.setRequestMethod("POST");
+			connection.setDoOutput(true);
+			connection.setRequestProperty("Cookie", "catan.game=" + gameID);
+			String body = "{\"type\":\"sendChat\",\"playerIndex\":"
+					+ (move % 4) + ",\"content\":\"game " + gameID + " move "
+					+ move + "\"}";
+			OutputStream out = connection.getOutputStream();
+			out.write(body.getBytes("UTF-8"));
+			out.close();
+
+			int code = connection.getResponseCode();
+			InputStream in = code == 200 ? connection.getInputStream()
+					: connection.getErrorStream();
+			byte[] buffer = new byte[8192];
+			while (in != null && in.read(buffer) != -1) {
+				// drain the response so the connection can be reused
+			}
+			if (in != null) {
+				in.close();
+			}
+			return code;
+		}
+	}
+}
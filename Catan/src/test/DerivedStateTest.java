@@ -0,0 +1,335 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import server.facade.FacadeSwitch;
+import server.model.DerivedState;
+import server.model.ServerModel;
+import server.model.ServerModelController;
+import shared.definitions.ResourceType;
+import shared.locations.BoardTopology;
+import shared.locations.EdgeDirection;
+import shared.locations.EdgeLocation;
+import shared.locations.HexLocation;
+import shared.locations.VertexDirection;
+import shared.locations.VertexLocation;
+import shared.model.Player;
+import shared.model.Port;
+import shared.model.ResourceList;
+import shared.model.Road;
+import shared.model.VertexObject;
+
+public class DerivedStateTest {
+	private ServerModel model;
+
+	@Before
+	public void setUp() {
+		FacadeSwitch.setRealServer();
+		FacadeSwitch.getSingleton().setFirstGame();
+		FacadeSwitch.getSingleton().setGameID(0);
+		model = FacadeSwitch.getSingleton().getServerModel();
+	}
+
+	@Test
+	public void matchesTheBoardItWasBuiltFrom() {
+		assertConsistent(model);
+		DerivedState derived = model.getDerivedState();
+		assertTrue(derived.getSettlements(0) > 0);
+		assertEquals(0, derived.getRoadLength(-1));
+		assertEquals(4, derived.getTradeRatio(7, ResourceType.WOOD));
+	}
+
+	@Test
+	public void followsMovesAsTheyAreMade() {
+		DerivedState derived = model.getDerivedState();
+		int step = 0;
+		for (Port port : model.getMap().getPorts()) {
+			int owner = step % 4;
+			VertexLocation vertex = portVertex(port);
+			if (vertex == null
+					|| model.getBoardIndex().buildingOwner(
+							BoardTopology.vertexId(vertex)) >= 0) {
+				continue;
+			}
+			model.addSettlement(new VertexObject(owner, vertex));
+			if (step % 3 == 0) {
+				model.addCity(new VertexObject(owner, vertex));
+			}
+			model.addRoad(new Road(owner, new EdgeLocation(port
+					.getLocation(), port.getDir())));
+			model.addSoldier(owner);
+			if (step % 2 == 0) {
+				model.addMonument(owner);
+			}
+			step++;
+			assertSame(derived, model.getDerivedState());
+			assertConsistent(model);
+		}
+		assertTrue(step > 3);
+	}
+
+	@Test
+	public void buildsAgainWhenPiecesAreReplaced() {
+		model.getDerivedState();
+		model.getMap().setRoads(new Road[0]);
+		model.getMap().setCities(new VertexObject[0]);
+		assertConsistent(model);
+		model.getPlayers()[1].setSoldiers(4);
+		model.setPlayers(model.getPlayers().clone());
+		assertEquals(4, model.getDerivedState().getArmySize(1));
+		assertConsistent(model);
+	}
+
+	@Test
+	public void roadsAreCutByOtherPlayersBuildings() {
+		// a ring of roads around an empty hex, and a spur off one corner
+		HexLocation hex = null;
+		for (int x = -2; x <= 2 && hex == null; x++) {
+			for (int y = -2; y <= 2 && hex == null; y++) {
+				hex = isClear(model, new HexLocation(x, y)) ? new HexLocation(
+						x, y) : null;
+			}
+		}
+		assertNotNull(hex);
+		for (EdgeDirection dir : EdgeDirection.values()) {
+			model.addRoad(new Road(2, new EdgeLocation(hex, dir)));
+		}
+		assertEquals(6, model.getDerivedState().getRoadLength(2));
+		assertConsistent(model);
+
+		VertexLocation corner = new VertexLocation(hex,
+				VertexDirection.NorthWest);
+		model.addSettlement(new VertexObject(1, corner));
+		assertEquals(6, model.getDerivedState().getRoadLength(2));
+		assertConsistent(model);
+
+		model.addSettlement(new VertexObject(3, new VertexLocation(hex,
+				VertexDirection.SouthEast)));
+		assertEquals(3, model.getDerivedState().getRoadLength(2));
+		assertConsistent(model);
+
+		model.addSettlement(new VertexObject(2, new VertexLocation(hex,
+				VertexDirection.SouthWest)));
+		assertEquals(3, model.getDerivedState().getRoadLength(2));
+		assertConsistent(model);
+	}
+
+	@Test
+	public void maritimeTradeGoesByThePortsReached() {
+		Port port = null;
+		for (Port candidate : model.getMap().getPorts()) {
+			VertexLocation vertex = portVertex(candidate);
+			if (candidate.getResource() != null
+					&& vertex != null
+					&& model.getBoardIndex().buildingOwner(
+							BoardTopology.vertexId(vertex)) < 0) {
+				port = candidate;
+			}
+		}
+		assertNotNull(port);
+		ResourceType resource = null;
+		for (ResourceType type : ResourceType.values()) {
+			if (type.toString().equals(port.getResource())) {
+				resource = type;
+			}
+		}
+		model.getTurnTracker().setStatus("Playing");
+		model.getTurnTracker().setCurrentTurn(0);
+		model.getPlayers()[0].setResources(new ResourceList(9, 9, 9, 9, 9));
+		ServerModelController controller = new ServerModelController(model);
+		assertEquals(model.getDerivedState().hasResourcePort(0, resource),
+				controller.canMaritimeTrade(0, resource, 2));
+
+		model.addSettlement(new VertexObject(0, portVertex(port)));
+		assertTrue(controller.canMaritimeTrade(0, resource, 2));
+		assertEquals(2, model.getDerivedState().getTradeRatio(0, resource));
+		assertTrue(controller.canMaritimeTrade(0, resource, 4));
+		assertConsistent(model);
+	}
+
+	/*
+	 * Works out every fact the slow way, from the pieces and players, and
+	 * compares it with the derived state
+	 */
+	private static void assertConsistent(ServerModel model) {
+		DerivedState derived = model.getDerivedState();
+		DerivedState fresh = new DerivedState(model.getMap(),
+				model.getPlayers());
+		for (int player = 0; player < DerivedState.PLAYERS; player++) {
+			int settlements = 0;
+			for (VertexObject settlement : model.getMap().getSettlements()) {
+				settlements += settlement.getOwner() == player ? 1 : 0;
+			}
+			int cities = 0;
+			for (VertexObject city : model.getMap().getCities()) {
+				cities += city.getOwner() == player ? 1 : 0;
+			}
+			Player owner = model.getPlayers()[player];
+			assertEquals(settlements, derived.getSettlements(player));
+			assertEquals(cities, derived.getCities(player));
+			assertEquals(longestTrail(model, player),
+					derived.getRoadLength(player));
+			assertEquals(fresh.getRoadLength(player),
+					derived.getRoadLength(player));
+			assertEquals(owner.getSoldiers(), derived.getArmySize(player));
+			assertEquals(owner.getMonuments(), derived.getMonuments(player));
+			int points = settlements + 2 * cities + owner.getMonuments();
+			points += model.getTurnTracker().getLongestRoad() == player ? 2
+					: 0;
+			points += model.getTurnTracker().getLargestArmy() == player ? 2
+					: 0;
+			assertEquals(points,
+					derived.getVictoryPoints(player, model.getTurnTracker()));
+
+			boolean generic = false;
+			for (Port port : model.getMap().getPorts()) {
+				if (port.getResource() == null && onPort(model, player, port)) {
+					generic = true;
+				}
+			}
+			assertEquals(generic, derived.hasGenericPort(player));
+			for (ResourceType resource : ResourceType.values()) {
+				boolean matching = false;
+				for (Port port : model.getMap().getPorts()) {
+					if (resource.toString().equals(port.getResource())
+							&& onPort(model, player, port)) {
+						matching = true;
+					}
+				}
+				assertEquals(matching,
+						derived.hasResourcePort(player, resource));
+				assertEquals(matching ? 2 : generic ? 3 : 4,
+						derived.getTradeRatio(player, resource));
+				assertEquals(fresh.getTradeRatio(player, resource),
+						derived.getTradeRatio(player, resource));
+			}
+			assertEquals(fresh.getVictoryPoints(player,
+					model.getTurnTracker()), derived.getVictoryPoints(player,
+					model.getTurnTracker()));
+		}
+	}
+
+	/*
+	 * The player's longest road, by trying every trail from every vertex
+	 */
+	private static int longestTrail(ServerModel model, int player) {
+		List<int[]> roads = new ArrayList<int[]>();
+		for (Road road : model.getMap().getRoads()) {
+			int[] ends = BoardTopology.edgeVertices(BoardTopology.edgeId(road
+					.getLocation()));
+			if (road.getOwner() == player && ends.length == 2) {
+				roads.add(ends);
+			}
+		}
+		Set<Integer> blocked = new HashSet<Integer>();
+		for (VertexObject building : model.getMap().getSettlements()) {
+			if (building.getOwner() != player) {
+				blocked.add(BoardTopology.vertexId(building.getLocation()));
+			}
+		}
+		for (VertexObject building : model.getMap().getCities()) {
+			if (building.getOwner() != player) {
+				blocked.add(BoardTopology.vertexId(building.getLocation()));
+			}
+		}
+		int longest = 0;
+		boolean[] used = new boolean[roads.size()];
+		for (int[] road : roads) {
+			for (int vertex : road) {
+				longest = Math.max(longest,
+						trail(roads, blocked, used, vertex, 0));
+			}
+		}
+		return longest;
+	}
+
+	private static int trail(List<int[]> roads, Set<Integer> blocked,
+			boolean[] used, int vertex, int length) {
+		if (length > 0 && blocked.contains(vertex)) {
+			return length;
+		}
+		int best = length;
+		for (int i = 0; i < roads.size(); i++) {
+			int[] road = roads.get(i);
+			if (!used[i] && (road[0] == vertex || road[1] == vertex)) {
+				used[i] = true;
+				best = Math.max(best, trail(roads, blocked, used,
+						road[0] == vertex ? road[1] : road[0], length + 1));
+				used[i] = false;
+			}
+		}
+		return best;
+	}
+
+	private static boolean onPort(ServerModel model, int player, Port port) {
+		int edge = BoardTopology.edgeId(port.getLocation().getX(), port
+				.getLocation().getY(), port.getDir());
+		for (VertexObject building : model.getMap().getSettlements()) {
+			if (building.getOwner() == player
+					&& touches(edge, building.getLocation())) {
+				return true;
+			}
+		}
+		for (VertexObject building : model.getMap().getCities()) {
+			if (building.getOwner() == player
+					&& touches(edge, building.getLocation())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean touches(int edge, VertexLocation location) {
+		int vertex = BoardTopology.vertexId(location);
+		for (int end : BoardTopology.edgeVertices(edge)) {
+			if (end == vertex) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * Whether no piece touches the hex's corners
+	 */
+	private static boolean isClear(ServerModel model, HexLocation hex) {
+		for (VertexDirection corner : VertexDirection.values()) {
+			int vertex = BoardTopology.vertexId(new VertexLocation(hex, corner));
+			if (vertex < 0 || model.getBoardIndex().buildingOwner(vertex) >= 0) {
+				return false;
+			}
+			for (int edge : BoardTopology.vertexEdges(vertex)) {
+				if (model.getBoardIndex().roadOwner(edge) >= 0) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * One end of the edge the port lies on
+	 */
+	private static VertexLocation portVertex(Port port) {
+		EdgeDirection dir = port.getDir();
+		int edge = BoardTopology.edgeId(port.getLocation().getX(), port
+				.getLocation().getY(), dir);
+		HexLocation hex = new HexLocation(port.getLocation().getX(), port
+				.getLocation().getY());
+		for (VertexDirection corner : VertexDirection.values()) {
+			VertexLocation vertex = new VertexLocation(hex, corner);
+			if (edge >= 0 && touches(edge, vertex)) {
+				return vertex;
+			}
+		}
+		return null;
+	}
+}
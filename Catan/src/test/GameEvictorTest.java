@@ -0,0 +1,141 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import server.facade.FacadeSwitch;
+import server.facade.ServerFacade;
+import server.model.ServerModel;
+import server.persistance.GameEvictor;
+import shared.communication.ChatMessage;
+import shared.utils.Serializer;
+
+public class GameEvictorTest {
+	private File directory;
+	private Map<Integer, ServerModel> others;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("spilled").toFile();
+		FacadeSwitch.setRealServer();
+		// other tests' games would compete for the budget
+		others = new HashMap<Integer, ServerModel>(ServerFacade.getSingleton()
+				.getModelMap());
+		ServerFacade.getSingleton().getModelMap().clear();
+		FacadeSwitch.getSingleton().setFirstGame();
+		FacadeSwitch.getSingleton().setGameID(0);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		ServerFacade.getSingleton().setEvictor(null);
+		ServerFacade.getSingleton().getModelMap().putAll(others);
+		FacadeSwitch.getSingleton().setFirstGame();
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void idleGameIsSpilledAndReadBackOnLookup() throws Exception {
+		GameEvictor evictor = new GameEvictor(directory, 50, 0);
+		ServerFacade.getSingleton().setEvictor(evictor);
+		for (int i = 0; i < 3; i++) {
+			FacadeSwitch.getSingleton().sendChat(
+					new ChatMessage(0, "message " + i));
+		}
+		ServerModel model = FacadeSwitch.getSingleton().getServerModel();
+		String json = Serializer.serializeServerModel(model);
+		int commands = model.getCommands().size();
+
+		Thread.sleep(100);
+		assertEquals(1, evictor.sweep());
+		assertFalse(ServerFacade.getSingleton().getModelMap().containsKey(0));
+		assertTrue(evictor.isSpilled(0));
+
+		ServerModel reloaded = FacadeSwitch.getSingleton().getServerModel();
+		assertEquals(json, Serializer.serializeServerModel(reloaded));
+		assertEquals(commands, reloaded.getCommands().size());
+		assertFalse(evictor.isSpilled(0));
+		assertEquals(1, evictor.getMissCount());
+		assertTrue(evictor.getSlowestReloadMillis() > 0);
+
+		// the game plays on from where it was
+		FacadeSwitch.getSingleton().sendChat(new ChatMessage(1, "back"));
+		assertEquals(commands + 1, FacadeSwitch.getSingleton()
+				.getServerModel().getCommands().size());
+		assertEquals(0, evictor.sweep());
+	}
+
+	@Test
+	public void overBudgetSpillsLeastRecentlyUsedFirst() throws Exception {
+		ServerModel game = ServerFacade.getSingleton().getModelMap().get(0);
+		String json = Serializer.serializeServerModel(game);
+		for (int id = 1; id <= 3; id++) {
+			ServerFacade.getSingleton().getModelMap()
+					.put(id, Serializer.deserializeServerModel(json));
+		}
+		for (int id = 3; id >= 0; id--) {
+			ServerFacade.getSingleton().getGame(id);
+			Thread.sleep(5);
+		}
+		long each = GameEvictor.estimateBytes(game);
+		GameEvictor evictor = new GameEvictor(directory, 0, each * 2);
+		ServerFacade.getSingleton().setEvictor(evictor);
+
+		assertEquals(2, evictor.sweep());
+		assertTrue(evictor.isSpilled(3));
+		assertTrue(evictor.isSpilled(2));
+		assertEquals(2, ServerFacade.getSingleton().getModelMap().size());
+		assertEquals(each
+				+ GameEvictor.estimateBytes(ServerFacade.getSingleton()
+						.getModelMap().get(1)), evictor.getResidentBytes());
+
+		FacadeSwitch.getSingleton().setGameID(3);
+		assertNotNull(FacadeSwitch.getSingleton().getServerModel());
+		FacadeSwitch.getSingleton().setGameID(0);
+		assertEquals(1, evictor.getMissCount());
+		assertEquals(2, evictor.getEvictionCount());
+		assertEquals(1, evictor.getSpilledCount());
+	}
+
+	@Test
+	public void waitingClientKeepsItsGame() throws Exception {
+		GameEvictor evictor = new GameEvictor(directory, 1, 0);
+		ServerFacade.getSingleton().setEvictor(evictor);
+		ServerModel model = ServerFacade.getSingleton().getGame(0);
+		Runnable listener = new Runnable() {
+			@Override
+			public void run() {
+			}
+		};
+		assertTrue(model.addVersionListener(model.getVersion(), listener));
+		Thread.sleep(10);
+		assertEquals(0, evictor.sweep());
+		assertSame(model, ServerFacade.getSingleton().getModelMap().get(0));
+
+		model.removeVersionListener(listener);
+		Thread.sleep(10);
+		assertEquals(1, evictor.sweep());
+	}
+
+	@Test
+	public void lookupsInMemoryCountAsHits() throws Exception {
+		GameEvictor evictor = new GameEvictor(directory, 0, 0);
+		ServerFacade.getSingleton().setEvictor(evictor);
+		FacadeSwitch.getSingleton().getServerModel();
+		FacadeSwitch.getSingleton().getServerModel();
+		assertEquals(2, evictor.getHitCount());
+		assertEquals(0, evictor.getMissCount());
+		assertNull(ServerFacade.getSingleton().getGame(12345));
+	}
+}
@@ -0,0 +1,92 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import server.model.GameList;
+import server.model.ModelSnapshot;
+import shared.communication.GameSummary;
+import shared.communication.PlayerSummary;
+import shared.utils.Serializer;
+
+public class GameListTest {
+	private GameList list;
+	private List<GameSummary> saved;
+
+	@Before
+	public void setUp() {
+		list = GameList.getSingleton();
+		saved = new ArrayList<GameSummary>(list.getGames());
+		for (GameSummary summary : saved) {
+			list.removeGame(summary);
+		}
+	}
+
+	@After
+	public void tearDown() {
+		for (GameSummary summary : new ArrayList<GameSummary>(list.getGames())) {
+			list.removeGame(summary);
+		}
+		list.addGames(saved);
+	}
+
+	@Test
+	public void findsGamesByIDAndTitle() {
+		GameSummary first = summary("first", 100);
+		GameSummary second = summary("second", 101);
+		list.addGame(first);
+		list.addGame(second);
+		assertSame(first, list.getGameByID(100));
+		assertSame(second, list.getGame("second"));
+		assertNull(list.getGame("third"));
+		assertNull(list.getGameByID(102));
+
+		list.removeGame(first);
+		assertNull(list.getGameByID(100));
+		assertNull(list.getGame("first"));
+		assertSame(second, list.getGameByID(101));
+	}
+
+	@Test
+	public void firstOfADuplicateTitleWins() {
+		GameSummary first = summary("same", 100);
+		GameSummary second = summary("same", 101);
+		list.addGame(first);
+		list.addGame(second);
+		assertSame(first, list.getGame("same"));
+
+		list.removeGame(first);
+		assertSame(second, list.getGame("same"));
+	}
+
+	@Test
+	public void encodesOncePerVersion() {
+		list.addGame(summary("first", 100));
+		ModelSnapshot snapshot = list.getSnapshot();
+		assertSame(snapshot, list.getSnapshot());
+		assertEquals(Serializer.serialize(list.getGames().toArray(
+				new GameSummary[0])), new String(snapshot.getJson()));
+
+		int version = list.getVersion();
+		list.getGameByID(100).setTitle("renamed");
+		list.changed();
+		assertTrue(list.getVersion() > version);
+		ModelSnapshot renamed = list.getSnapshot();
+		assertNotSame(snapshot, renamed);
+		assertTrue(new String(renamed.getJson()).contains("renamed"));
+
+		list.addGame(summary("second", 101));
+		assertEquals(2, Serializer.deserializeGameList(
+				new String(list.getSnapshot().getJson())).length);
+	}
+
+	private static GameSummary summary(String title, int id) {
+		return new GameSummary(title, id, new PlayerSummary[4]);
+	}
+}
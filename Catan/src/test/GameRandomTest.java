@@ -0,0 +1,153 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import server.commands.BuyDevCardCommand;
+import server.commands.ICommand;
+import server.commands.ResetGameCommand;
+import server.facade.FacadeSwitch;
+import server.model.ServerModel;
+import shared.communication.UserActionParams;
+import shared.model.Deck;
+import shared.model.DevCardList;
+import shared.model.GameRandom;
+import shared.model.Player;
+import shared.model.ResourceList;
+import shared.utils.Serializer;
+
+public class GameRandomTest {
+
+	@Test
+	public void sameSeedGivesSameNumbers() {
+		GameRandom first = new GameRandom(42);
+		GameRandom second = new GameRandom(42);
+		for (int i = 0; i < 1000; i++) {
+			int bound = i % 25 + 1;
+			int number = first.nextInt(bound);
+			assertEquals(number, second.nextInt(bound));
+			assertTrue(number >= 0 && number < bound);
+		}
+		assertFalse(new GameRandom(42).nextLong() == new GameRandom(43)
+				.nextLong());
+	}
+
+	@Test
+	public void splitStreamsReplayIndependently() {
+		GameRandom root = new GameRandom(7);
+		GameRandom board = root.split();
+		GameRandom play = root.split();
+		long firstPlay = play.nextLong();
+
+		GameRandom again = new GameRandom(7);
+		again.split();
+		GameRandom replayed = again.split();
+		assertEquals(firstPlay, replayed.nextLong());
+		assertFalse(board.getSeed() == play.getSeed());
+
+		play.nextLong();
+		assertEquals(replayed.restart().nextLong(), play.restart().nextLong());
+	}
+
+	@Test
+	public void everyOutcomeIsReachable() {
+		GameRandom random = new GameRandom(1);
+		int[] counts = new int[5];
+		for (int i = 0; i < 5000; i++) {
+			counts[random.nextInt(5)]++;
+		}
+		for (int count : counts) {
+			assertTrue(count > 800 && count < 1200);
+		}
+	}
+
+	@Test
+	public void savedGameKeepsItsSequence() {
+		ServerModel model = new ServerModel();
+		model.getRandom().nextLong();
+		ServerModel loaded = Serializer.deserializeServerModel(Serializer
+				.serializeServerModel(model));
+		assertEquals(model.getRandom().nextLong(), loaded.getRandom()
+				.nextLong());
+	}
+
+	@Test
+	public void drawsAndStealsFollowTheGenerator() {
+		Deck deck = new Deck(2, 5, 14, 2, 2);
+		Deck sameDeck = new Deck(2, 5, 14, 2, 2);
+		Player player = newPlayer();
+		Player samePlayer = newPlayer();
+		GameRandom random = new GameRandom(99);
+		GameRandom sameRandom = new GameRandom(99);
+		for (int i = 0; i < 25; i++) {
+			deck.drawFromDeck(player, random);
+			sameDeck.drawFromDeck(samePlayer, sameRandom);
+		}
+		assertEquals(Serializer.serialize(player),
+				Serializer.serialize(samePlayer));
+		assertEquals(Serializer.serialize(deck),
+				Serializer.serialize(sameDeck));
+
+		ResourceList hand = new ResourceList(3, 1, 4, 1, 5);
+		for (int i = 0; i < 20; i++) {
+			assertEquals(hand.getRandomResourceFromList(random),
+					hand.getRandomResourceFromList(sameRandom));
+		}
+	}
+
+	@Test
+	public void replayedCommandsDrawTheSameCards() throws Exception {
+		FacadeSwitch.setRealServer();
+		FacadeSwitch.getSingleton().setFirstGame();
+		FacadeSwitch.getSingleton().setGameID(0);
+		ServerModel model = FacadeSwitch.getSingleton().getServerModel();
+		model.getTurnTracker().setStatus("Playing");
+		model.getTurnTracker().setCurrentTurn(0);
+		model.getPlayers()[0].setResources(new ResourceList(0, 19, 19, 19, 0));
+		String before = Serializer.serializeServerModel(model);
+
+		List<String> log = new ArrayList<String>();
+		for (int i = 0; i < 15; i++) {
+			ICommand command = new BuyDevCardCommand(new UserActionParams(0));
+			command.execute();
+			log.add(command.toJSONString());
+		}
+		String played = Serializer.serialize(model.getPlayers()[0]);
+
+		FacadeSwitch.getSingleton().getModelMap()
+				.put(0, Serializer.deserializeServerModel(before));
+		for (String line : log) {
+			ICommand.fromJSONString(line).execute();
+		}
+		ServerModel replayed = FacadeSwitch.getSingleton().getServerModel();
+		assertEquals(played,
+				Serializer.serialize(replayed.getPlayers()[0]));
+	}
+
+	@Test
+	public void resetGameStartsItsGeneratorOver() {
+		FacadeSwitch.setRealServer();
+		FacadeSwitch.getSingleton().setFirstGame();
+		FacadeSwitch.getSingleton().setGameID(0);
+		GameRandom random = FacadeSwitch.getSingleton().getServerModel()
+				.getRandom();
+		long first = random.restart().nextLong();
+		random.nextLong();
+		random.nextLong();
+
+		new ResetGameCommand().execute();
+		assertEquals(first, FacadeSwitch.getSingleton().getServerModel()
+				.getRandom().nextLong());
+	}
+
+	private static Player newPlayer() {
+		return new Player(0, 0, 4, 5, "Sam", "red", false, 0,
+				new DevCardList(0, 0, 0, 0, 0),
+				new DevCardList(0, 0, 0, 0, 0), false,
+				new ResourceList(0, 0, 0, 0, 0), 15, 0, 0);
+	}
+}
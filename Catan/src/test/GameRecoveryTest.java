@@ -0,0 +1,111 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import server.facade.FacadeSwitch;
+import server.facade.ServerFacade;
+import server.model.GameList;
+import server.model.RegisteredPlayers;
+import server.model.ServerModel;
+import server.persistance.GameRecovery;
+import server.persistance.TextPersistance;
+import shared.communication.ChatMessage;
+import shared.communication.CreateGameParams;
+import shared.communication.GameSummary;
+import shared.communication.UserCredentials;
+import shared.data.GameInfo;
+import shared.utils.IDGenerator;
+import shared.utils.Serializer;
+
+public class GameRecoveryTest {
+	private File directory;
+	private TextPersistance persistance;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("recovery").toFile();
+		persistance = new TextPersistance(directory.getPath(), 10, 1 << 20);
+		FacadeSwitch.setRealServer();
+		FacadeSwitch.getSingleton().setFirstGame();
+		FacadeSwitch.getSingleton().setGameID(0);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		ServerFacade.getSingleton().setPersistance(null);
+		ServerFacade.getSingleton().setFrequency(0);
+		persistance.close();
+		for (File file : new File(directory, "journal").listFiles()) {
+			file.delete();
+		}
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void restoresSnapshotsAndReplaysTheirTails() throws Exception {
+		ServerFacade.getSingleton().setPersistance(persistance);
+		ServerFacade.getSingleton().setFrequency(5);
+		String name = "recovery " + System.nanoTime();
+		String user = "r" + System.nanoTime() % 100000;
+		FacadeSwitch.getSingleton().Register(
+				new UserCredentials(user, "secret"));
+		GameInfo created = FacadeSwitch.getSingleton().createGame(
+				new CreateGameParams(true, true, true, name));
+		for (int i = 0; i < 12; i++) {
+			FacadeSwitch.getSingleton().sendChat(
+					new ChatMessage(0, "message " + i));
+			ServerFacade.getSingleton().flushPersistance();
+		}
+		assertEquals(2, persistance.getCommands(0).size());
+		String before = Serializer.serializeServerModel(ServerFacade
+				.getSingleton().getModelMap().get(0));
+		String board = Serializer.serialize(ServerFacade.getSingleton()
+				.getModelMap().get(created.getId()).getMap());
+
+		// the server stops; the first game starts over and the created one is
+		// gone
+		ServerFacade.getSingleton().setPersistance(null);
+		GameSummary summary = GameList.getSingleton().getGameByID(
+				created.getId());
+		GameList.getSingleton().removeGame(summary);
+		ServerFacade.getSingleton().getModelMap().remove(created.getId());
+		FacadeSwitch.getSingleton().setFirstGame();
+
+		GameRecovery recovery = new GameRecovery(persistance, 4);
+		recovery.recover();
+
+		assertEquals(0, recovery.getFailedCommandCount());
+		assertTrue(recovery.getCommandCount() > 0);
+		ServerModel first = ServerFacade.getSingleton().getModelMap().get(0);
+		assertEquals(before, Serializer.serializeServerModel(first));
+		ServerModel restored = ServerFacade.getSingleton().getModelMap()
+				.get(created.getId());
+		assertNotNull(restored);
+		assertEquals(board, Serializer.serialize(restored.getMap()));
+		assertEquals(name, GameList.getSingleton().getGameByID(created.getId())
+				.getTitle());
+		assertTrue(RegisteredPlayers.getSingleton().containsKey(user));
+		assertTrue(IDGenerator.generateGameID() > created.getId());
+	}
+
+	@Test
+	public void firstGameDrawsTheSameOnEveryStart() {
+		long draw = ServerFacade.getSingleton().getModelMap().get(0)
+				.getRandom().nextLong();
+
+		// the server restarts with no snapshot of the first game
+		FacadeSwitch.getSingleton().setFirstGame();
+		assertEquals(draw, ServerFacade.getSingleton().getModelMap().get(0)
+				.getRandom().nextLong());
+	}
+}
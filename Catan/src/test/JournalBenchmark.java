@@ -0,0 +1,89 @@
+package test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import server.facade.FacadeSwitch;
+import server.facade.ServerFacade;
+import server.model.ServerModel;
+import server.persistance.IPersistance;
+import server.persistance.TextPersistance;
+import shared.communication.ChatMessage;
+import shared.utils.Serializer;
+
+/**
+ * Measures moves per second through the facade with one thread playing each
+ * of 16 games: without persistance, with the command journal committing in
+ * groups, and with the journal forcing every move to disk before it returns.
+ */
+public class JournalBenchmark {
+	private static final int GAMES = 16;
+	private static final long MILLIS = 3000;
+
+	public static void main(String[] args) throws Exception {
+		ServerModel first = Benchmark.lateGame(0);
+		String json = Serializer.serializeServerModel(first);
+		for (int id = 1; id < GAMES; id++) {
+			FacadeSwitch.getSingleton().getModelMap()
+					.put(id, Serializer.deserializeServerModel(json));
+		}
+		File directory = Files.createTempDirectory("journal-bench").toFile();
+
+		run("warmup", null);
+		run("journal off", null);
+		TextPersistance grouped = new TextPersistance(new File(directory,
+				"grouped").getPath());
+		run("journal, group commit every "
+				+ TextPersistance.DEFAULT_COMMIT_MILLIS + " ms", grouped);
+		System.out.println("  fsyncs: " + grouped.getJournal().getCommitCount());
+		grouped.close();
+		TextPersistance eachMove = new TextPersistance(new File(directory,
+				"each").getPath(), 0, 0);
+		run("journal, fsync every move", eachMove);
+		System.out.println("  fsyncs: "
+				+ eachMove.getJournal().getCommitCount());
+		eachMove.close();
+	}
+
+	private static void run(String name, IPersistance persistance)
+			throws Exception {
+		ServerFacade.getSingleton().setPersistance(persistance);
+		final AtomicLong moves = new AtomicLong();
+		final long end = System.currentTimeMillis() + MILLIS;
+		List<Thread> players = new ArrayList<Thread>();
+		for (int id = 0; id < GAMES; id++) {
+			final int gameID = id;
+			Thread player = new Thread() {
+				@Override
+				public void run() {
+					FacadeSwitch.getSingleton().setGameID(gameID);
+					long count = 0;
+					try {
+						while (System.currentTimeMillis() < end) {
+							FacadeSwitch.getSingleton().sendChat(
+									new ChatMessage((int) (count % 4), "move "
+											+ count));
+							count++;
+						}
+					} catch (Exception e) {
+						e.printStackTrace();
+					}
+					moves.addAndGet(count);
+				}
+			};
+			players.add(player);
+			player.start();
+		}
+		for (Thread player : players) {
+			player.join();
+		}
+		ServerFacade.getSingleton().setPersistance(null);
+		if (!name.equals("warmup")) {
+			System.out.printf("%-40s %10.1f moves/s%n", name, moves.get()
+					/ (MILLIS / 1000.0));
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package test;
+
+import server.model.Bitboard;
+import server.model.ServerModel;
+import server.model.ServerModelController;
+import shared.definitions.ResourceType;
+import shared.locations.BoardTopology;
+import shared.model.Hex;
+import shared.model.ResourceList;
+import shared.model.Road;
+import shared.model.VertexObject;
+
+/**
+ * Finds every legal move of the player whose turn it is: the old way, asking
+ * canBuildRoad, canBuildSettlement, canBuildCity, canMoveRobber and
+ * canMaritimeTrade about each edge, vertex, hex and trade, and with one call
+ * to legalMoves. Reports move lists per second.
+ */
+public class LegalMovesBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		final ServerModel model = Benchmark.lateGame(0);
+		final int player = model.getTurnTracker().getCurrentTurn();
+		model.getTurnTracker().setStatus("Playing");
+		model.getPlayers()[player].setResources(new ResourceList(5, 5, 5, 5,
+				5));
+		final ServerModelController controller = new ServerModelController(
+				model);
+
+		final int[] found = new int[1];
+		Benchmark.measure("a check per location", rounds,
+				new Benchmark.Task() {
+					@Override
+					public void run() {
+						found[0] += everyCheck(model, controller, player);
+					}
+				});
+		Benchmark.measure("legalMoves", rounds, new Benchmark.Task() {
+			@Override
+			public void run() {
+				found[0] += controller.legalMoves(player).getRoads().length;
+			}
+		});
+		// keeps the checks from being optimized away
+		System.out.println(found[0] > 0 ? "" : "no moves found");
+	}
+
+	private static int everyCheck(ServerModel model,
+			ServerModelController controller, int player) {
+		int found = 0;
+		for (int bit = 0; bit < Bitboard.EDGES; bit++) {
+			if (controller.canBuildRoad(player, new Road(player, BoardTopology
+					.edgeLocation(Bitboard.edgeId(bit))), false, false)) {
+				found++;
+			}
+		}
+		for (int bit = 0; bit < Bitboard.VERTICES; bit++) {
+			VertexObject building = new VertexObject(player,
+					BoardTopology.vertexLocation(Bitboard.vertexId(bit)));
+			if (controller.canBuildSettlement(building, false, false)) {
+				found++;
+			}
+			if (controller.canBuildCity(building)) {
+				found++;
+			}
+		}
+		for (Hex hex : model.getMap().getHexes()) {
+			if (controller.canMoveRobber(hex.getLocation())) {
+				found++;
+			}
+		}
+		for (ResourceType resource : ResourceType.values()) {
+			for (int ratio = 2; ratio <= 4; ratio++) {
+				if (controller.canMaritimeTrade(player, resource, ratio)) {
+					found++;
+				}
+			}
+		}
+		return found;
+	}
+}
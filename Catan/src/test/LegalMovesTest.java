@@ -0,0 +1,204 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import server.facade.FacadeSwitch;
+import server.model.Bitboard;
+import server.model.ModelSnapshot;
+import server.model.ServerModel;
+import server.model.ServerModelController;
+import shared.communication.LegalMoves;
+import shared.communication.MaritimeTradeParams;
+import shared.definitions.ResourceType;
+import shared.locations.BoardTopology;
+import shared.locations.EdgeLocation;
+import shared.locations.HexLocation;
+import shared.locations.VertexLocation;
+import shared.model.DevCardList;
+import shared.model.Hex;
+import shared.model.ResourceList;
+import shared.model.Road;
+import shared.model.VertexObject;
+import shared.utils.Serializer;
+
+public class LegalMovesTest {
+	private ServerModel model;
+	private ServerModelController controller;
+	private int player;
+
+	@Before
+	public void setUp() {
+		FacadeSwitch.setRealServer();
+		FacadeSwitch.getSingleton().setFirstGame();
+		FacadeSwitch.getSingleton().setGameID(0);
+		model = FacadeSwitch.getSingleton().getServerModel();
+		controller = new ServerModelController(model);
+		player = model.getTurnTracker().getCurrentTurn();
+	}
+
+	@Test
+	public void matchesTheChecksWhilePlaying() {
+		model.getTurnTracker().setStatus("Playing");
+		model.getPlayers()[player].setResources(new ResourceList(5, 5, 5, 5,
+				5));
+		LegalMoves moves = controller.legalMoves(player);
+		assertTrue(moves.getRoads().length > 0);
+		assertTrue(moves.getCities().length > 0);
+		assertMatchesChecks(moves, false);
+	}
+
+	@Test
+	public void matchesTheChecksInSetup() {
+		model.getTurnTracker().setStatus("FirstRound");
+		model.getPlayers()[player].setResources(new ResourceList(0, 0, 0, 0,
+				0));
+		LegalMoves moves = controller.legalMoves(player);
+		assertTrue(moves.getSettlements().length > 0);
+		assertEquals(0, moves.getCities().length);
+		assertEquals(0, moves.getMaritimeTrades().length);
+		assertMatchesChecks(moves, true);
+	}
+
+	@Test
+	public void nothingWithoutTheCards() {
+		model.getTurnTracker().setStatus("Playing");
+		model.getPlayers()[player].setResources(new ResourceList(0, 0, 0, 0,
+				0));
+		model.getPlayers()[player].setOldDevCards(new DevCardList(0, 0, 0, 0,
+				0));
+		LegalMoves moves = controller.legalMoves(player);
+		assertEquals(0, moves.getRoads().length);
+		assertEquals(0, moves.getSettlements().length);
+		assertEquals(0, moves.getCities().length);
+		assertEquals(0, moves.getRobber().length);
+		assertEquals(0, moves.getMaritimeTrades().length);
+	}
+
+	@Test
+	public void nothingOutOfTurn() {
+		model.getTurnTracker().setStatus("Playing");
+		int other = (player + 1) % 4;
+		model.getPlayers()[other].setResources(new ResourceList(5, 5, 5, 5, 5));
+		LegalMoves moves = controller.legalMoves(other);
+		assertEquals(other, moves.getPlayerIndex());
+		assertEquals(0, moves.getRoads().length);
+		assertEquals(0, moves.getSettlements().length);
+		assertEquals(0, moves.getMaritimeTrades().length);
+		assertEquals(0, controller.legalMoves(-1).getRoads().length);
+		assertEquals(0, controller.legalMoves(9).getRoads().length);
+	}
+
+	@Test
+	public void robberGoesToEveryOtherLandHex() {
+		model.getTurnTracker().setStatus("Robbing");
+		HexLocation[] robber = controller.legalMoves(player).getRobber();
+		Set<HexLocation> expected = new HashSet<HexLocation>();
+		for (Hex hex : model.getMap().getHexes()) {
+			if (controller.canMoveRobber(hex.getLocation())) {
+				expected.add(hex.getLocation());
+			}
+		}
+		assertEquals(expected, new HashSet<HexLocation>(Arrays
+				.asList(robber)));
+		assertFalse(expected.contains(model.getMap().getRobber()));
+
+		model.getTurnTracker().setStatus("Playing");
+		model.getPlayers()[player].setPlayedDevCard(false);
+		model.getPlayers()[player].setOldDevCards(new DevCardList(0, 0, 0, 1,
+				0));
+		assertEquals(robber.length,
+				controller.legalMoves(player).getRobber().length);
+		model.getPlayers()[player].setPlayedDevCard(true);
+		assertEquals(0, controller.legalMoves(player).getRobber().length);
+	}
+
+	@Test
+	public void tradesAtThePlayersBestRatio() {
+		model.getTurnTracker().setStatus("Playing");
+		model.getPlayers()[player].setResources(new ResourceList(4, 0, 0, 0,
+				1));
+		model.setBank(new ResourceList(19, 19, 0, 19, 19));
+		for (MaritimeTradeParams trade : controller.legalMoves(player)
+				.getMaritimeTrades()) {
+			ResourceType input = ResourceType.valueOf(trade.getInputResource()
+					.toUpperCase());
+			ResourceType output = ResourceType.valueOf(trade
+					.getOutputResource().toUpperCase());
+			assertTrue(controller.canMaritimeTrade(player, input,
+					trade.getRatio()));
+			assertNotSame(input, output);
+			assertFalse(output == ResourceType.SHEEP);
+			assertTrue(trade.getRatio() <= 4);
+		}
+		boolean brick = false;
+		for (MaritimeTradeParams trade : controller.legalMoves(player)
+				.getMaritimeTrades()) {
+			brick |= trade.getInputResource().equalsIgnoreCase("brick");
+		}
+		assertTrue(brick);
+	}
+
+	@Test
+	public void snapshotIsFoundOncePerVersion() {
+		model.getTurnTracker().setStatus("Playing");
+		model.getPlayers()[player].setResources(new ResourceList(5, 5, 5, 5,
+				5));
+		ModelSnapshot first = model.getLegalMovesSnapshot(player);
+		assertSame(first, model.getLegalMovesSnapshot(player));
+		assertNotSame(first, model.getLegalMovesSnapshot((player + 1) % 4));
+		LegalMoves sent = (LegalMoves) Serializer.deserialize(new String(
+				first.getJson()), LegalMoves.class);
+		assertEquals(model.getVersion(), sent.getVersion());
+		assertEquals(controller.legalMoves(player).getRoads().length,
+				sent.getRoads().length);
+
+		model.incrementVersion();
+		ModelSnapshot next = model.getLegalMovesSnapshot(player);
+		assertNotSame(first, next);
+		assertEquals(model.getVersion(), next.getVersion());
+	}
+
+	/*
+	 * Asks canBuildRoad, canBuildSettlement and canBuildCity about every land
+	 * edge and vertex and compares the answers with the listed moves
+	 */
+	private void assertMatchesChecks(LegalMoves moves, boolean setup) {
+		Set<Integer> roads = new HashSet<Integer>();
+		for (EdgeLocation edge : moves.getRoads()) {
+			roads.add(BoardTopology.edgeId(edge));
+		}
+		Set<Integer> settlements = new HashSet<Integer>();
+		for (VertexLocation vertex : moves.getSettlements()) {
+			settlements.add(BoardTopology.vertexId(vertex));
+		}
+		Set<Integer> cities = new HashSet<Integer>();
+		for (VertexLocation vertex : moves.getCities()) {
+			cities.add(BoardTopology.vertexId(vertex));
+		}
+		assertEquals(moves.getRoads().length, roads.size());
+		assertEquals(moves.getSettlements().length, settlements.size());
+		for (int bit = 0; bit < Bitboard.EDGES; bit++) {
+			int edge = Bitboard.edgeId(bit);
+			Road road = new Road(player, BoardTopology.edgeLocation(edge));
+			assertEquals(controller.canBuildRoad(player, road, setup, setup),
+					roads.contains(edge));
+		}
+		for (int bit = 0; bit < Bitboard.VERTICES; bit++) {
+			int vertex = Bitboard.vertexId(bit);
+			VertexObject building = new VertexObject(player,
+					BoardTopology.vertexLocation(vertex));
+			assertEquals(
+					controller.canBuildSettlement(building, setup, setup),
+					settlements.contains(vertex));
+			assertEquals(controller.canBuildCity(building),
+					cities.contains(vertex));
+		}
+	}
+}
@@ -0,0 +1,175 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import server.facade.FacadeSwitch;
+import server.httpHandlers.ModelHandler;
+import server.httpHandlers.ModelLongPoll;
+import server.httpHandlers.SendChatHandler;
+import server.main.RequestExecutor;
+import server.model.ServerModel;
+import shared.model.DevCardList;
+import shared.model.ModelPatch;
+import shared.model.Player;
+import shared.model.ResourceList;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Checks that parked /game/model requests do not hold the server's only
+ * worker thread and are answered as soon as a move lands.
+ */
+public class LongPollTest {
+	private static final int GAME_ID = 200000;
+	private static final int POLLERS = 20;
+
+	private HttpServer httpServer;
+	private RequestExecutor serverPool;
+	private int port;
+
+	@Before
+	public void setUp() throws Exception {
+		FacadeSwitch.setRealServer();
+		ServerModel model = new ServerModel();
+		model.setGameID(GAME_ID);
+		Player[] players = new Player[4];
+		for (int i = 0; i < players.length; i++) {
+			players[i] = new Player(i, i, 4, 5, "player" + i, "red", false, 0,
+					new DevCardList(0, 0, 0, 0, 0), new DevCardList(0, 0, 0, 0,
+							0), false, new ResourceList(0, 0, 0, 0, 0), 15, 0,
+					0);
+		}
+		model.setPlayers(players);
+		FacadeSwitch.getSingleton().getModelMap().put(GAME_ID, model);
+
+		// a single worker, so a parked request that held it would stall
+		// everything behind it
+		serverPool = new RequestExecutor(RequestExecutor.Mode.FIXED, 1,
+				POLLERS * 2);
+		httpServer = HttpServer.create(new InetSocketAddress("localhost", 0),
+				POLLERS * 2);
+		httpServer.createContext("/game/model", new ModelHandler());
+		httpServer.createContext("/moves/sendChat", new SendChatHandler());
+		httpServer.setExecutor(serverPool);
+		httpServer.start();
+		port = httpServer.getAddress().getPort();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		httpServer.stop(0);
+		serverPool.shutdown();
+		FacadeSwitch.getSingleton().getModelMap().remove(GAME_ID);
+	}
+
+	@Test
+	public void parkedPollsAnswerWhenVersionAdvances() throws Exception {
+		ExecutorService clients = Executors.newFixedThreadPool(POLLERS);
+		List<Future<String>> polls = new ArrayList<Future<String>>();
+		for (int i = 0; i < POLLERS; i++) {
+			polls.add(clients.submit(new Callable<String>() {
+				@Override
+				public String call() throws IOException {
+					return get("/game/model?version=0&patch=true&wait=20");
+				}
+			}));
+		}
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (ModelLongPoll.getParkedCount() < POLLERS
+				&& System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(POLLERS, ModelLongPoll.getParkedCount());
+
+		long start = System.nanoTime();
+		assertEquals(200, sendChat("hello"));
+		for (Future<String> poll : polls) {
+			String body = poll.get(5, TimeUnit.SECONDS);
+			assertNotNull(ModelPatch.fromJson(body));
+			assertEquals(1, ModelPatch.fromJson(body).getVersion());
+			assertTrue(body.contains("hello"));
+		}
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime()
+				- start);
+		assertTrue("took " + elapsed + " ms", elapsed < 2000);
+		assertEquals(0, ModelLongPoll.getParkedCount());
+		clients.shutdown();
+	}
+
+	@Test
+	public void parkedPollTimesOutWithNoChange() throws Exception {
+		long start = System.nanoTime();
+		String body = get("/game/model?version=0&patch=true&wait=1");
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime()
+				- start);
+		assertEquals("", body);
+		assertTrue("took " + elapsed + " ms", elapsed >= 900);
+	}
+
+	@Test
+	public void badNumbersAreAnswered() throws Exception {
+		assertEquals(400, status("/game/model?version=0&patch=true&wait=abc"));
+		assertEquals(400, status("/game/model?version=x"));
+	}
+
+	private int status(String path) throws IOException {
+		URL url = new URL("http://localhost:" + port + path);
+		HttpURLConnection connection = (HttpURLConnection) url
+				.openConnection();
+		connection.setRequestProperty("Cookie", "catan.game=" + GAME_ID);
+		connection.setReadTimeout(5000);
+		return connection.getResponseCode();
+	}
+
+	private String get(String path) throws IOException {
+		URL url = new URL("http://localhost:" + port + path);
+		HttpURLConnection connection = (HttpURLConnection) url
+				.openConnection();
+		connection.setRequestProperty("Cookie", "catan.game=" + GAME_ID);
+		assertEquals(200, connection.getResponseCode());
+		InputStream in = connection.getInputStream();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			out.write(buffer, 0, read);
+		}
+		in.close();
+		return out.toString("UTF-8");
+	}
+
+	private int sendChat(String message) throws IOException {
+		URL url = new URL("http://localhost:" + port + "/moves/sendChat");
+		HttpURLConnection connection = (HttpURLConnection) url
+				.openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		connection.setRequestProperty("Cookie", "catan.game=" + GAME_ID);
+		OutputStream out = connection.getOutputStream();
+		out.write(("{\"type\":\"sendChat\",\"playerIndex\":0,\"content\":\""
+				+ message + "\"}").getBytes("UTF-8"));
+		out.close();
+		int code = connection.getResponseCode();
+		connection.getInputStream().close();
+		return code;
+	}
+}
@@ -0,0 +1,261 @@
+package test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import server.model.LongestRoad;
+
+/**
+ * Plays the same roads and settlements onto hex boards of growing radius,
+ * four players each growing a road network, and keeps every player's
+ * longest road up to date after each piece: once with LongestRoad, and once
+ * by a depth first search from every vertex of every player's roads, as a
+ * server without it would. Reports microseconds per piece.
+ */
+public class LongestRoadBenchmark {
+	private static final int PLAYERS = 4;
+	private static volatile int sink;
+
+	public static void main(String[] args) throws Exception {
+		int[] radii = { 2, 5, 10, 20 };
+		if (args.length > 0) {
+			radii = new int[args.length];
+			for (int i = 0; i < args.length; i++) {
+				radii[i] = Integer.parseInt(args[i]);
+			}
+		}
+		for (int radius : radii) {
+			run(radius);
+		}
+	}
+
+	private static void run(int radius) throws Exception {
+		final Board board = new Board(radius);
+		final int[] moves = moves(board, new Random(radius));
+		final int pieces = moves.length / 3;
+		int rounds = Math.max(2, 20000 / pieces);
+		System.out.printf("radius %d: %d vertices, %d edges, %d pieces%n",
+				radius, board.vertexCount, board.ends.length / 2, pieces);
+
+		final LongestRoad.Graph graph = new LongestRoad.Graph(
+				board.vertexCount, board.ends);
+		final int[] incremental = new int[PLAYERS];
+		report(pieces, Benchmark.measure("incremental, LongestRoad", rounds,
+				new Benchmark.Task() {
+					@Override
+					public void run() {
+						LongestRoad roads = new LongestRoad(graph, PLAYERS);
+						for (int i = 0; i < moves.length; i += 3) {
+							if (moves[i] == 0) {
+								roads.roadAdded(moves[i + 1], moves[i + 2]);
+							} else {
+								roads.buildingAdded(moves[i + 1], moves[i + 2]);
+							}
+							sink = roads.getLength(moves[i + 2]);
+						}
+						for (int p = 0; p < PLAYERS; p++) {
+							incremental[p] = roads.getLength(p);
+						}
+					}
+				}));
+		final int[] naive = new int[PLAYERS];
+		report(pieces, Benchmark.measure("every vertex, every piece",
+				Math.max(1, rounds / 20), new Benchmark.Task() {
+					@Override
+					public void run() {
+						Naive roads = new Naive(board);
+						for (int i = 0; i < moves.length; i += 3) {
+							if (moves[i] == 0) {
+								roads.edgeOwners[moves[i + 1]] = moves[i + 2];
+							} else {
+								roads.vertexOwners[moves[i + 1]] = moves[i + 2];
+							}
+							for (int p = 0; p < PLAYERS; p++) {
+								naive[p] = roads.longest(p);
+							}
+							sink = naive[moves[i + 2]];
+						}
+					}
+				}));
+		if (!Arrays.equals(incremental, naive)) {
+			throw new AssertionError(Arrays.toString(incremental) + " != "
+					+ Arrays.toString(naive));
+		}
+	}
+
+	private static void report(int pieces, Benchmark.Result result) {
+		System.out.printf("%40s %12.2f us/piece%n", "", result.getMicrosPerOp()
+				/ pieces);
+	}
+
+	/*
+	 * Triples of (0 road or 1 settlement, edge or vertex, player). Each
+	 * player lays about a tenth of the board's edges, mostly extending the
+	 * end of a road, sometimes branching, and every fifth piece is a
+	 * settlement on a vertex one of the roads reaches.
+	 */
+	private static int[] moves(Board board, Random random) {
+		int edgeCount = board.ends.length / 2;
+		int[] edgeOwners = new int[edgeCount];
+		int[] vertexOwners = new int[board.vertexCount];
+		Arrays.fill(edgeOwners, -1);
+		Arrays.fill(vertexOwners, -1);
+		List<List<Integer>> reached = new ArrayList<List<Integer>>();
+		int[] tips = new int[PLAYERS];
+		for (int p = 0; p < PLAYERS; p++) {
+			reached.add(new ArrayList<Integer>());
+			tips[p] = random.nextInt(board.vertexCount);
+			reached.get(p).add(tips[p]);
+		}
+		List<Integer> moves = new ArrayList<Integer>();
+		int roads = edgeCount / 10;
+		for (int step = 0; step < roads * PLAYERS; step++) {
+			int player = step % PLAYERS;
+			if (step % 5 == 4) {
+				List<Integer> options = reached.get(random.nextInt(PLAYERS));
+				int vertex = options.get(random.nextInt(options.size()));
+				if (vertexOwners[vertex] < 0) {
+					vertexOwners[vertex] = player;
+					moves.addAll(Arrays.asList(1, vertex, player));
+				}
+				continue;
+			}
+			int from = random.nextInt(4) == 0 ? reached.get(player).get(
+					random.nextInt(reached.get(player).size())) : tips[player];
+			int edge = -1;
+			for (int e : board.vertexEdges[from]) {
+				if (edgeOwners[e] < 0 && (edge < 0 || random.nextBoolean())) {
+					edge = e;
+				}
+			}
+			if (edge < 0) {
+				tips[player] = reached.get(player).get(
+						random.nextInt(reached.get(player).size()));
+				continue;
+			}
+			edgeOwners[edge] = player;
+			tips[player] = board.ends[2 * edge] == from ? board.ends[2 * edge + 1]
+					: board.ends[2 * edge];
+			reached.get(player).add(tips[player]);
+			moves.addAll(Arrays.asList(0, edge, player));
+		}
+		int[] array = new int[moves.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = moves.get(i);
+		}
+		return array;
+	}
+
+	/*
+	 * A hexagonal board of hexes within the radius of the center, its corners
+	 * found by position so each shared corner and side is counted once
+	 */
+	private static class Board {
+		int vertexCount;
+		int[] ends;
+		int[][] vertexEdges;
+
+		Board(int radius) {
+			HashMap<String, Integer> vertices = new HashMap<String, Integer>();
+			HashMap<String, Integer> edges = new HashMap<String, Integer>();
+			List<Integer> endList = new ArrayList<Integer>();
+			for (int q = -radius; q <= radius; q++) {
+				for (int r = -radius; r <= radius; r++) {
+					if (Math.abs(q + r) > radius) {
+						continue;
+					}
+					double cx = Math.sqrt(3) * (q + r / 2.0);
+					double cy = 1.5 * r;
+					int[] corners = new int[6];
+					for (int k = 0; k < 6; k++) {
+						double angle = Math.PI / 6 + k * Math.PI / 3;
+						String key = Math.round((cx + Math.cos(angle)) * 1000)
+								+ "," + Math.round((cy + Math.sin(angle)) * 1000);
+						Integer id = vertices.get(key);
+						if (id == null) {
+							id = vertices.size();
+							vertices.put(key, id);
+						}
+						corners[k] = id;
+					}
+					for (int k = 0; k < 6; k++) {
+						int a = Math.min(corners[k], corners[(k + 1) % 6]);
+						int b = Math.max(corners[k], corners[(k + 1) % 6]);
+						if (!edges.containsKey(a + "," + b)) {
+							edges.put(a + "," + b, edges.size());
+							endList.add(a);
+							endList.add(b);
+						}
+					}
+				}
+			}
+			vertexCount = vertices.size();
+			ends = new int[endList.size()];
+			int[] degree = new int[vertexCount];
+			for (int i = 0; i < ends.length; i++) {
+				ends[i] = endList.get(i);
+				degree[ends[i]]++;
+			}
+			vertexEdges = new int[vertexCount][];
+			for (int v = 0; v < vertexCount; v++) {
+				vertexEdges[v] = new int[degree[v]];
+				degree[v] = 0;
+			}
+			for (int i = 0; i < ends.length; i++) {
+				vertexEdges[ends[i]][degree[ends[i]]++] = i / 2;
+			}
+		}
+	}
+
+	/*
+	 * Every player's longest road searched from scratch
+	 */
+	private static class Naive {
+		final Board board;
+		final int[] edgeOwners;
+		final int[] vertexOwners;
+		final boolean[] used;
+
+		Naive(Board board) {
+			this.board = board;
+			edgeOwners = new int[board.ends.length / 2];
+			vertexOwners = new int[board.vertexCount];
+			used = new boolean[edgeOwners.length];
+			Arrays.fill(edgeOwners, -1);
+			Arrays.fill(vertexOwners, -1);
+		}
+
+		int longest(int player) {
+			int best = 0;
+			for (int edge = 0; edge < edgeOwners.length; edge++) {
+				if (edgeOwners[edge] == player) {
+					best = Math.max(best, walk(board.ends[2 * edge], player, 0));
+					best = Math.max(best,
+							walk(board.ends[2 * edge + 1], player, 0));
+				}
+			}
+			return best;
+		}
+
+		int walk(int vertex, int player, int length) {
+			if (length > 0 && vertexOwners[vertex] >= 0
+					&& vertexOwners[vertex] != player) {
+				return length;
+			}
+			int best = length;
+			for (int edge : board.vertexEdges[vertex]) {
+				if (edgeOwners[edge] == player && !used[edge]) {
+					used[edge] = true;
+					int next = board.ends[2 * edge] == vertex ? board.ends[2 * edge + 1]
+							: board.ends[2 * edge];
+					best = Math.max(best, walk(next, player, length + 1));
+					used[edge] = false;
+				}
+			}
+			return best;
+		}
+	}
+}
@@ -333,7 +333,8 @@ public class MockServer implements IServer {
 			throws ServerResponseException {
 		MessageLine newMessage = new MessageLine(chatMessage.getContent(),
 				"billy");
-		MessageLine[] oldMessages = clientMockModel.getChat().getLines();
+		MessageLine[] oldMessages = clientMockModel.getChat().getLines()
+				.toArray(new MessageLine[0]);
 		int size = oldMessages.length + 1;
 		MessageLine[] newMessages = new MessageLine[size];
 		System.arraycopy(oldMessages, 0, newMessages, 0, size - 1);
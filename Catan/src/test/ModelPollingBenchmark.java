@@ -0,0 +1,152 @@
+package test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import server.facade.FacadeSwitch;
+import server.facade.ServerFacade;
+import server.httpHandlers.HandlerUtil;
+import server.httpHandlers.ModelHandler;
+import server.main.RequestExecutor;
+import server.model.ServerModel;
+import shared.model.MessageLine;
+import shared.utils.ServerResponseException;
+import client.model.ClientModel;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Measures /game/model requests per second with 1,000 simulated pollers on
+ * one game while a player makes a move every 250 ms. Runs once against a
+ * handler that serializes a ClientModel per request, as ModelHandler used to,
+ * and once against ModelHandler with the per-version snapshot cache.
+ */
+public class ModelPollingBenchmark {
+	private static final int POLLERS = 1000;
+	private static final int POLLS_PER_POLLER = 10;
+	private static final int CLIENT_THREADS = 64;
+	private static final int SERVER_THREADS = 16;
+
+	public static void main(String[] args) throws Exception {
+		// keep the JDK client from capping keep-alive connections at 5
+		System.setProperty("http.maxConnections",
+				String.valueOf(CLIENT_THREADS));
+		final ServerModel model = Benchmark.lateGame(500);
+
+		HttpHandler uncached = new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				FacadeSwitch.getSingleton().setGameID(0);
+				try {
+					ClientModel clientModel = FacadeSwitch.getSingleton()
+							.getCurrentGame(-1);
+					HandlerUtil.sendResponse(exchange, 200, clientModel,
+							ClientModel.class);
+				} catch (ServerResponseException e) {
+					HandlerUtil.sendResponse(exchange, 400, e.getMessage(),
+							String.class);
+				}
+			}
+		};
+
+		// one untimed pass each to warm up
+		run("warmup", uncached, model);
+		run("warmup", new ModelHandler(), model);
+		run("per-request serialization", uncached, model);
+		run("version snapshot cache", new ModelHandler(), model);
+	}
+
+	private static void run(String name, HttpHandler handler,
+			final ServerModel model) throws Exception {
+		RequestExecutor serverPool = new RequestExecutor(
+				RequestExecutor.Mode.FIXED, SERVER_THREADS, POLLERS);
+		HttpServer httpServer = HttpServer.create(new InetSocketAddress(
+				"localhost", 0), POLLERS);
+		httpServer.createContext("/game/model", handler);
+		httpServer.setExecutor(serverPool);
+		httpServer.start();
+		final int port = httpServer.getAddress().getPort();
+
+		final AtomicBoolean polling = new AtomicBoolean(true);
+		Thread mover = new Thread() {
+			@Override
+			public void run() {
+				while (polling.get()) {
+					synchronized (ServerFacade.getGameLock(0)) {
+						model.getChat().addLine(
+								new MessageLine("move", model.getPlayers()[0]
+										.getName()));
+						model.incrementVersion();
+					}
+					try {
+						Thread.sleep(250);
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+			}
+		};
+		mover.start();
+
+		ExecutorService clients = Executors.newFixedThreadPool(CLIENT_THREADS);
+		List<Future<Long>> results = new ArrayList<Future<Long>>();
+		long start = System.nanoTime();
+		for (int poll = 0; poll < POLLS_PER_POLLER; poll++) {
+			for (int poller = 0; poller < POLLERS; poller++) {
+				results.add(clients.submit(new Callable<Long>() {
+					@Override
+					public Long call() throws IOException {
+						return poll(port);
+					}
+				}));
+			}
+		}
+		long bytes = 0;
+		for (Future<Long> result : results) {
+			bytes += result.get();
+		}
+		long elapsed = System.nanoTime() - start;
+		polling.set(false);
+		mover.join();
+		clients.shutdown();
+		httpServer.stop(0);
+		serverPool.shutdown();
+
+		if (!name.equals("warmup")) {
+			double seconds = elapsed / 1e9;
+			System.out.printf("%-30s %8.1f req/s %8.1f MB/s%n", name,
+					results.size() / seconds, bytes / seconds / 1e6);
+		}
+	}
+
+	private static long poll(int port) throws IOException {
+		URL url = new URL("http://localhost:" + port
+				+ "/game/model?version=-1");
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		connection.setRequestProperty("Cookie", "catan.game=0");
+		if (connection.getResponseCode() != 200) {
+			throw new IOException("HTTP " + connection.getResponseCode());
+		}
+		InputStream in = connection.getInputStream();
+		byte[] buffer = new byte[8192];
+		long total = 0;
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			total += read;
+		}
+		in.close();
+		return total;
+	}
+}
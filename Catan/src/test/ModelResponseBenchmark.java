@@ -0,0 +1,69 @@
+package test;
+
+import java.io.OutputStream;
+
+import server.httpHandlers.HandlerUtil;
+import server.httpHandlers.ResponseBuffer;
+import server.model.ServerModel;
+import client.model.ClientModel;
+
+import com.google.gson.Gson;
+
+/**
+ * Compares the old /game/model response path (new Gson per call, whole
+ * String, one write per character) with HandlerUtil's shared Gson writing
+ * into a reused ResponseBuffer.
+ */
+public class ModelResponseBenchmark {
+	private static final int ITERATIONS = 2000;
+
+	public static void main(String[] args) throws Exception {
+		ServerModel model = Benchmark.lateGame(500);
+		final ClientModel clientModel = model.toClientModel();
+		final CountingStream sink = new CountingStream();
+
+		Benchmark.Result before = Benchmark.measure("per-char write, new Gson",
+				ITERATIONS, new Benchmark.Task() {
+					@Override
+					public void run() throws Exception {
+						Gson gson = new Gson();
+						String jsonString = gson.toJson(clientModel);
+						for (int i = 0; i < jsonString.length(); i++) {
+							sink.write(jsonString.charAt(i));
+						}
+					}
+				});
+		long bytesPerResponse = sink.count / (2 * ITERATIONS);
+		sink.count = 0;
+
+		final ResponseBuffer buffer = new ResponseBuffer();
+		Benchmark.Result after = Benchmark.measure("shared Gson, ResponseBuffer",
+				ITERATIONS, new Benchmark.Task() {
+					@Override
+					public void run() throws Exception {
+						buffer.reset();
+						HandlerUtil.writeJson(clientModel, buffer);
+						buffer.writeTo(sink);
+					}
+				});
+
+		System.out.println("response size: " + bytesPerResponse + " bytes");
+		System.out.printf("before: %.1f MB/s, after: %.1f MB/s%n",
+				before.getOpsPerSecond() * bytesPerResponse / 1e6,
+				after.getOpsPerSecond() * bytesPerResponse / 1e6);
+	}
+
+	private static class CountingStream extends OutputStream {
+		long count;
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+	}
+}
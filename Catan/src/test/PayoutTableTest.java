@@ -0,0 +1,253 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import server.facade.FacadeSwitch;
+import server.model.PayoutTable;
+import server.model.ServerModel;
+import shared.definitions.ResourceType;
+import shared.locations.BoardTopology;
+import shared.locations.HexLocation;
+import shared.locations.VertexDirection;
+import shared.locations.VertexLocation;
+import shared.model.Hex;
+import shared.model.Player;
+import shared.model.ResourceList;
+import shared.model.VertexObject;
+
+public class PayoutTableTest {
+	private ServerModel model;
+
+	@Before
+	public void setUp() {
+		FacadeSwitch.setRealServer();
+		FacadeSwitch.getSingleton().setFirstGame();
+		FacadeSwitch.getSingleton().setGameID(0);
+		model = FacadeSwitch.getSingleton().getServerModel();
+	}
+
+	@Test
+	public void matchesTheBoardItWasBuiltFrom() {
+		assertConsistent(model);
+		boolean pays = false;
+		for (int number = 2; number <= 12; number++) {
+			for (int[] owed : model.getPayoutTable().payout(number)) {
+				for (int amount : owed) {
+					pays |= amount > 0;
+				}
+			}
+		}
+		assertTrue(pays);
+		for (int[] owed : model.getPayoutTable().payout(7)) {
+			assertArrayEquals(new int[owed.length], owed);
+		}
+	}
+
+	@Test
+	public void followsBuildingsAndTheRobber() {
+		PayoutTable table = model.getPayoutTable();
+		int step = 0;
+		for (Hex hex : model.getMap().getHexes()) {
+			VertexLocation vertex = new VertexLocation(hex.getLocation(),
+					VertexDirection.values()[step % 6]);
+			if (model.getBoardIndex().buildingOwner(
+					BoardTopology.vertexId(vertex)) >= 0) {
+				continue;
+			}
+			model.addSettlement(new VertexObject(step % 4, vertex));
+			if (step % 3 == 0) {
+				model.addCity(new VertexObject(step % 4, vertex));
+			}
+			model.moveRobber(hex.getLocation());
+			step++;
+			assertSame(table, model.getPayoutTable());
+			assertConsistent(model);
+		}
+		assertTrue(step > 3);
+
+		// a robber moved on the map directly is followed too
+		model.getMap().setRobber(new HexLocation(0, 0));
+		assertConsistent(model);
+	}
+
+	@Test
+	public void buildsAgainWhenPiecesAreReplaced() {
+		model.getPayoutTable();
+		model.getMap().setCities(new VertexObject[0]);
+		assertConsistent(model);
+		model.getMap().setSettlements(new VertexObject[0]);
+		for (int[] owed : model.getPayoutTable().payout(6)) {
+			assertArrayEquals(new int[owed.length], owed);
+		}
+	}
+
+	@Test
+	public void aShortBankPaysOnlyALonePlayer() {
+		int number = -1;
+		int resource = -1;
+		int owedTo = -1;
+		for (int n = 2; n <= 12 && owedTo < 0; n++) {
+			int[][] owed = model.getPayoutTable().payout(n);
+			for (int r = 0; r < ResourceType.values().length; r++) {
+				int players = 0;
+				for (int p = 0; p < owed.length; p++) {
+					if (owed[p][r] > 0) {
+						players++;
+						owedTo = p;
+					}
+				}
+				if (players == 1) {
+					number = n;
+					resource = r;
+					break;
+				}
+				owedTo = -1;
+			}
+		}
+		assertTrue(owedTo >= 0);
+		ResourceType type = ResourceType.values()[resource];
+		int amount = model.getPayoutTable().payout(number)[owedTo][resource];
+
+		emptyHands();
+		setBank(type, amount - 1);
+		model.payOut(number);
+		assertEquals(amount - 1, count(model.getPlayers()[owedTo]
+				.getResources(), type));
+		assertEquals(0, count(model.getBank(), type));
+
+		// two players owed, the bank one short: neither gets any
+		VertexObject rival = rivalBuilding(number, resource, owedTo);
+		if (rival == null) {
+			return;
+		}
+		model.addSettlement(rival);
+		int[][] owed = model.getPayoutTable().payout(number);
+		int total = 0;
+		for (int[] player : owed) {
+			total += player[resource];
+		}
+		emptyHands();
+		setBank(type, total - 1);
+		model.payOut(number);
+		for (Player player : model.getPlayers()) {
+			assertEquals(0, count(player.getResources(), type));
+		}
+		assertEquals(total - 1, count(model.getBank(), type));
+
+		setBank(type, total);
+		model.payOut(number);
+		assertEquals(0, count(model.getBank(), type));
+	}
+
+	/*
+	 * Works out every number's payout the old way, by looking for buildings
+	 * around each of its hexes, and compares it with the table
+	 */
+	private static void assertConsistent(ServerModel model) {
+		for (int number = 2; number <= 12; number++) {
+			int[][] expected = new int[4][ResourceType.values().length];
+			for (Hex hex : model.getMap().getHexes()) {
+				if (hex.getNumber() != number
+						|| hex.getLocation().equals(model.getMap().getRobber())) {
+					continue;
+				}
+				ResourceType resource = null;
+				for (ResourceType type : ResourceType.values()) {
+					if (type.toString().equalsIgnoreCase(hex.getResource())) {
+						resource = type;
+					}
+				}
+				for (VertexDirection corner : VertexDirection.values()) {
+					int vertex = BoardTopology.vertexId(new VertexLocation(hex
+							.getLocation(), corner));
+					for (VertexObject city : model.getMap().getCities()) {
+						if (BoardTopology.vertexId(city.getLocation()) == vertex) {
+							expected[city.getOwner()][resource.ordinal()] += 2;
+						}
+					}
+					for (VertexObject settlement : model.getMap()
+							.getSettlements()) {
+						if (BoardTopology.vertexId(settlement.getLocation()) == vertex) {
+							expected[settlement.getOwner()][resource.ordinal()] += 1;
+						}
+					}
+				}
+			}
+			int[][] actual = model.getPayoutTable().payout(number);
+			for (int player = 0; player < expected.length; player++) {
+				assertArrayEquals("number " + number + ", player " + player,
+						expected[player], actual[player]);
+			}
+		}
+	}
+
+	/*
+	 * A settlement for another player on a free corner of a hex paying the
+	 * number and resource, or null if there is none
+	 */
+	private VertexObject rivalBuilding(int number, int resource, int owedTo) {
+		for (Hex hex : model.getMap().getHexes()) {
+			if (hex.getNumber() != number
+					|| !ResourceType.values()[resource].toString()
+							.equalsIgnoreCase(hex.getResource())
+					|| hex.getLocation().equals(model.getMap().getRobber())) {
+				continue;
+			}
+			for (VertexDirection corner : VertexDirection.values()) {
+				VertexLocation vertex = new VertexLocation(hex.getLocation(),
+						corner);
+				if (model.getBoardIndex().buildingOwner(
+						BoardTopology.vertexId(vertex)) < 0) {
+					return new VertexObject((owedTo + 1) % 4, vertex);
+				}
+			}
+		}
+		return null;
+	}
+
+	private void emptyHands() {
+		for (Player player : model.getPlayers()) {
+			player.setResources(new ResourceList(0, 0, 0, 0, 0));
+		}
+	}
+
+	private void setBank(ResourceType type, int amount) {
+		ResourceList bank = new ResourceList(19, 19, 19, 19, 19);
+		switch (type) {
+		case BRICK:
+			bank.setBrick(amount);
+			break;
+		case ORE:
+			bank.setOre(amount);
+			break;
+		case SHEEP:
+			bank.setSheep(amount);
+			break;
+		case WHEAT:
+			bank.setWheat(amount);
+			break;
+		default:
+			bank.setWood(amount);
+			break;
+		}
+		model.setBank(bank);
+	}
+
+	private static int count(ResourceList resources, ResourceType type) {
+		switch (type) {
+		case BRICK:
+			return resources.getBrick();
+		case ORE:
+			return resources.getOre();
+		case SHEEP:
+			return resources.getSheep();
+		case WHEAT:
+			return resources.getWheat();
+		default:
+			return resources.getWood();
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package test;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import server.commands.SendChatCommand;
+import server.model.ServerModel;
+import server.persistance.GameRecovery;
+import server.persistance.IPersistance;
+import server.persistance.SQLPersistance;
+import server.persistance.TextPersistance;
+import shared.communication.ChatMessage;
+import shared.utils.Serializer;
+
+/**
+ * Stores 10,000 games mid-play, each a snapshot of a game with 100 log and
+ * chat lines plus a tail of 20 commands, then times bringing them all back
+ * as a restarting server would. Run once per plugin, text or sql, so each
+ * recovery starts from an empty server.
+ */
+public class RecoveryBenchmark {
+	private static final int GAMES = 10000;
+	private static final int TAIL = 20;
+
+	public static void main(String[] args) throws Exception {
+		String plugin = args.length > 0 ? args[0] : "text";
+		ServerModel template = Benchmark.lateGame(100);
+		String json = Serializer.serializeServerModel(template);
+		File directory = Files.createTempDirectory("recovery-bench").toFile();
+
+		IPersistance persistance = open(plugin, directory);
+		long start = System.nanoTime();
+		for (int id = 1; id <= GAMES; id++) {
+			ServerModel game = Serializer.deserializeServerModel(json);
+			game.setGameID(id);
+			game.setTitle("game " + id);
+			persistance.startTransaction();
+			persistance.addGame(game);
+			for (int i = 0; i < TAIL; i++) {
+				persistance.addCommand(id, new SendChatCommand(new ChatMessage(
+						i % 4, "move " + i)));
+			}
+			persistance.endTransaction();
+		}
+		System.out.printf("%s: stored %d games with %d commands each in %.1f s%n",
+				plugin, GAMES, TAIL, (System.nanoTime() - start) / 1e9);
+		close(persistance);
+
+		persistance = open(plugin, directory);
+		int threads = Runtime.getRuntime().availableProcessors();
+		GameRecovery recovery = new GameRecovery(persistance, threads);
+		recovery.recover();
+		System.out.printf(
+				"%s: time to ready %d ms for %d games, %d commands replayed (%d failed), %d threads%n",
+				plugin, recovery.getMillis(), recovery.getGameCount(),
+				recovery.getCommandCount(), recovery.getFailedCommandCount(),
+				threads);
+		close(persistance);
+	}
+
+	private static IPersistance open(String plugin, File directory)
+			throws Exception {
+		if (plugin.equals("sql")) {
+			return new SQLPersistance(new File(directory, "catan.sqlite")
+					.getPath());
+		}
+		return new TextPersistance(directory.getPath());
+	}
+
+	private static void close(IPersistance persistance) throws Exception {
+		if (persistance instanceof SQLPersistance) {
+			((SQLPersistance) persistance).close();
+		} else {
+			((TextPersistance) persistance).close();
+		}
+	}
+}
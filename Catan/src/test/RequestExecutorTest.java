@@ -0,0 +1,94 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import server.main.RequestExecutor;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class RequestExecutorTest {
+	private HttpServer httpServer;
+	private RequestExecutor executor;
+	private CountDownLatch started;
+	private CountDownLatch release;
+	private int port;
+
+	@Before
+	public void setUp() throws Exception {
+		started = new CountDownLatch(1);
+		release = new CountDownLatch(1);
+		// one worker, nothing allowed to wait behind it
+		executor = new RequestExecutor(RequestExecutor.Mode.FIXED, 1, 0);
+		httpServer = HttpServer.create(new InetSocketAddress("localhost", 0),
+				10);
+		httpServer.createContext("/slow", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				started.countDown();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				exchange.sendResponseHeaders(200, -1);
+				exchange.close();
+			}
+		}).getFilters().add(new RequestExecutor.OverloadFilter());
+		httpServer.setExecutor(executor);
+		httpServer.start();
+		port = httpServer.getAddress().getPort();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		release.countDown();
+		httpServer.stop(0);
+		executor.shutdown();
+	}
+
+	@Test
+	public void saturatedPoolAnswers503() throws Exception {
+		ExecutorService client = Executors.newSingleThreadExecutor();
+		Future<Integer> slow = client.submit(new Callable<Integer>() {
+			@Override
+			public Integer call() throws Exception {
+				return get("/slow");
+			}
+		});
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+
+		assertEquals(503, get("/slow"));
+		assertEquals(1, executor.getRejectedCount());
+		assertEquals(1, executor.getInFlight());
+
+		release.countDown();
+		assertEquals(200, slow.get().intValue());
+		client.shutdown();
+	}
+
+	private int get(String path) throws IOException {
+		URL url = new URL("http://localhost:" + port + path);
+		HttpURLConnection connection = (HttpURLConnection) url
+				.openConnection();
+		int code = connection.getResponseCode();
+		connection.disconnect();
+		return code;
+	}
+}
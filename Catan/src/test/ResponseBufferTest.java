@@ -0,0 +1,53 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import server.httpHandlers.HandlerUtil;
+import server.httpHandlers.ResponseBuffer;
+import shared.model.MessageLine;
+
+import com.google.gson.Gson;
+
+public class ResponseBufferTest {
+
+	@Test
+	public void encodesLikeStringGetBytes() throws Exception {
+		String text = "plain ascii, café, €5, 🎲 dice";
+		ResponseBuffer buffer = new ResponseBuffer();
+		buffer.write(text);
+		buffer.write(text.toCharArray(), 0, text.length());
+		buffer.flush();
+		assertArrayEquals((text + text).getBytes("UTF-8"),
+				buffer.toByteArray());
+	}
+
+	@Test
+	public void writesSameJsonAsGson() throws Exception {
+		MessageLine line = new MessageLine("Sam's turn – done",
+				"Sam");
+		ResponseBuffer buffer = new ResponseBuffer();
+		HandlerUtil.writeJson(line, buffer);
+		assertArrayEquals(new Gson().toJson(line).getBytes("UTF-8"),
+				buffer.toByteArray());
+
+		// a reset buffer starts over
+		buffer.reset();
+		HandlerUtil.writeJson("Success", buffer);
+		assertEquals("\"Success\"", new String(buffer.toByteArray(), "UTF-8"));
+	}
+
+	@Test
+	public void growsPastInitialSize() throws Exception {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 50000; i++) {
+			builder.append(i % 3 == 0 ? 'é' : 'a');
+		}
+		ResponseBuffer buffer = new ResponseBuffer();
+		buffer.write(builder.toString());
+		buffer.flush();
+		assertArrayEquals(builder.toString().getBytes("UTF-8"),
+				buffer.toByteArray());
+	}
+}
@@ -0,0 +1,79 @@
+package test;
+
+import server.model.ServerModel;
+import server.model.ServerModelController;
+import shared.definitions.ResourceType;
+import shared.locations.VertexDirection;
+import shared.locations.VertexLocation;
+import shared.model.Hex;
+import shared.model.ResourceList;
+import shared.model.VertexObject;
+
+/**
+ * Pays out every dice number from 2 to 12 on a late game board: the old way,
+ * looking for a city or settlement at each corner of every hex showing the
+ * number, and from the game's PayoutTable. Reports rolls per second.
+ */
+public class RollBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		final ServerModel model = Benchmark.lateGame(0);
+		model.setBank(new ResourceList(1 << 30, 1 << 30, 1 << 30, 1 << 30,
+				1 << 30));
+
+		report(Benchmark.measure("every hex, every corner", rounds,
+				new Benchmark.Task() {
+					@Override
+					public void run() {
+						for (int number = 2; number <= 12; number++) {
+							legacyRoll(model, number);
+						}
+					}
+				}));
+		report(Benchmark.measure("PayoutTable", rounds, new Benchmark.Task() {
+			@Override
+			public void run() {
+				for (int number = 2; number <= 12; number++) {
+					model.payOut(number);
+				}
+			}
+		}));
+	}
+
+	private static void report(Benchmark.Result result) {
+		System.out.printf("%40s %12.0f rolls/s%n", "",
+				result.getOpsPerSecond() * 11);
+	}
+
+	/*
+	 * RollNumberCommand's roll before the payout table
+	 */
+	private static void legacyRoll(ServerModel model, int number) {
+		for (Hex hex : model.getMap().getHexes()) {
+			if (hex.getNumber() == number
+					&& !model.getMap().getRobber().equals(hex.getLocation())) {
+				ResourceType resource = ResourceType.valueOf(hex.getResource()
+						.toUpperCase());
+				VertexObject testLocation = new VertexObject(-1,
+						new VertexLocation(hex.getLocation(),
+								VertexDirection.NorthWest));
+				for (VertexDirection corner : VertexDirection.values()) {
+					testLocation.setLocation(new VertexLocation(hex
+							.getLocation(), corner));
+					ServerModelController controller = new ServerModelController(
+							model);
+					int owner = controller.cityOwner(testLocation);
+					if (owner != -1) {
+						model.addResourceFromBank(owner, resource, 2);
+						continue;
+					}
+					owner = controller.settlementOwner(testLocation);
+					if (owner != -1) {
+						model.addResourceFromBank(owner, resource, 1);
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import server.facade.FacadeSwitch;
+import server.facade.ServerFacade;
+import server.model.ServerModel;
+import server.persistance.SQLPersistance;
+import server.persistance.WriteBehindQueue;
+import shared.communication.ChatMessage;
+import shared.utils.Serializer;
+
+/**
+ * Plays 256 games at once, one thread each making a move every 10 ms, first
+ * without persistance and then with every move stored in SQLite. If the
+ * database writer held moves up, the moves per second would fall short of
+ * what was offered, the slow moves would grow towards the commit time and
+ * the queue of unwritten rows would keep growing. The database run
+ * snapshots each game every -Dfrequency=N moves (100 by default, 0 for only
+ * by time) through the facade's write-behind queue, whose depth and flush
+ * times are printed after it.
+ */
+public class SQLPersistanceBenchmark {
+	private static final int GAMES = 256;
+	private static final long MOVE_EVERY_MILLIS = 10;
+	private static final long MILLIS = 5000;
+
+	public static void main(String[] args) throws Exception {
+		ServerModel first = Benchmark.lateGame(0);
+		String json = Serializer.serializeServerModel(first);
+		for (int id = 1; id < GAMES; id++) {
+			FacadeSwitch.getSingleton().getModelMap()
+					.put(id, Serializer.deserializeServerModel(json));
+		}
+		File directory = Files.createTempDirectory("sql-bench").toFile();
+		System.out.printf("%d games, offering %.0f moves/s%n", GAMES, GAMES
+				* 1000.0 / MOVE_EVERY_MILLIS);
+
+		run("warmup", null);
+		run("persistance off", null);
+		SQLPersistance sql = new SQLPersistance(new File(directory,
+				"catan.sqlite").getPath());
+		ServerFacade.getSingleton().setFrequency(Integer.getInteger("frequency", 100));
+		run("sqlite, " + sql.getJournalMode() + " journal, batched", sql);
+		System.out.printf("  %d transactions, %.0f rows each%n",
+				sql.getCommitCount(),
+				sql.getRowsWritten() / (double) sql.getCommitCount());
+		sql.close();
+	}
+
+	private static void run(String name, final SQLPersistance sql)
+			throws Exception {
+		ServerFacade.getSingleton().setPersistance(sql);
+		final long end = System.currentTimeMillis() + MILLIS;
+		final long[][] latencies = new long[GAMES][];
+		List<Thread> players = new ArrayList<Thread>();
+		for (int id = 0; id < GAMES; id++) {
+			final int gameID = id;
+			Thread player = new Thread() {
+				@Override
+				public void run() {
+					FacadeSwitch.getSingleton().setGameID(gameID);
+					long[] times = new long[(int) (MILLIS / MOVE_EVERY_MILLIS) + 1];
+					int count = 0;
+					long next = System.currentTimeMillis();
+					try {
+						while (next < end && count < times.length) {
+							long start = System.nanoTime();
+							FacadeSwitch.getSingleton().sendChat(
+									new ChatMessage(count % 4, "move " + count));
+							times[count++] = System.nanoTime() - start;
+							next += MOVE_EVERY_MILLIS;
+							long wait = next - System.currentTimeMillis();
+							if (wait > 0) {
+								Thread.sleep(wait);
+							}
+						}
+					} catch (Exception e) {
+						e.printStackTrace();
+					}
+					latencies[gameID] = Arrays.copyOf(times, count);
+				}
+			};
+			players.add(player);
+			player.start();
+		}
+		int deepestQueue = 0;
+		while (System.currentTimeMillis() < end) {
+			if (sql != null) {
+				deepestQueue = Math.max(deepestQueue, sql.getQueuedRows());
+			}
+			Thread.sleep(5);
+		}
+		for (Thread player : players) {
+			player.join();
+		}
+		WriteBehindQueue writeBehind = ServerFacade.getSingleton()
+				.getWriteBehind();
+		if (writeBehind != null) {
+			System.out.printf(
+					"  write-behind: deepest %d, waited for room %d, %d flushes avg %.3f ms max %.3f ms, %d snapshots%n",
+					writeBehind.getDeepestQueue(),
+					writeBehind.getWaitedForRoom(),
+					writeBehind.getFlushCount(),
+					writeBehind.getAverageFlushMillis(),
+					writeBehind.getSlowestFlushMillis(),
+					writeBehind.getSnapshotCount());
+		}
+		ServerFacade.getSingleton().setPersistance(null);
+
+		long[] all = new long[0];
+		for (long[] times : latencies) {
+			int from = all.length;
+			all = Arrays.copyOf(all, from + times.length);
+			System.arraycopy(times, 0, all, from, times.length);
+		}
+		Arrays.sort(all);
+		if (!name.equals("warmup")) {
+			System.out.printf(
+					"%-34s %9.1f moves/s  p99 %6.3f ms  max %7.3f ms  deepest queue %d%n",
+					name, all.length / (MILLIS / 1000.0),
+					all[(int) (all.length * 0.99)] / 1e6,
+					all[all.length - 1] / 1e6, deepestQueue);
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import server.commands.SendChatCommand;
+import server.facade.FacadeSwitch;
+import server.facade.ServerFacade;
+import server.model.ServerModel;
+import server.persistance.SQLPersistance;
+import shared.communication.ChatMessage;
+import shared.communication.UserCredentials;
+
+public class SQLPersistanceTest {
+	private File directory;
+	private SQLPersistance persistance;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("sql").toFile();
+		persistance = new SQLPersistance(new File(directory, "catan.sqlite")
+				.getPath(), 60000, 1 << 20);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		ServerFacade.getSingleton().setPersistance(null);
+		ServerFacade.getSingleton().setFrequency(0);
+		persistance.close();
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void storesUsers() {
+		persistance.addPlayer(new UserCredentials("Sam", "sam"));
+		persistance.addPlayer(new UserCredentials("Brooke", "brooke"));
+		List<UserCredentials> users = persistance.getUserDAO().getUsers();
+		assertEquals(2, users.size());
+		persistance.clearUsers();
+		assertTrue(persistance.getUserDAO().getUsers().isEmpty());
+	}
+
+	@Test
+	public void snapshotReplacesCommandsBeforeIt() throws Exception {
+		ServerModel game = new ServerModel();
+		game.setGameID(7);
+		persistance.addGame(game);
+		persistance.addCommand(7, chat("one"));
+		persistance.addCommand(7, chat("two"));
+		persistance.addCommand(8, chat("other game"));
+		game.setVersion(2);
+		persistance.updateGame(game);
+		persistance.addCommand(7, chat("three"));
+
+		List<String> commands = persistance.getCommands(7);
+		assertEquals(1, commands.size());
+		assertTrue(commands.get(0).contains("three"));
+		assertEquals(1, persistance.getCommands(8).size());
+		assertEquals(2, persistance.getGame(7).getVersion());
+		assertNull(persistance.getGame(8));
+
+		// everything queued went out in one transaction
+		assertEquals(1, persistance.getCommitCount());
+		assertEquals(6, persistance.getRowsWritten());
+	}
+
+	@Test
+	public void failedCommitKeepsItsWrites() throws Exception {
+		persistance.addCommand(7, chat("one"));
+		Connection other = DriverManager.getConnection("jdbc:sqlite:"
+				+ new File(directory, "catan.sqlite").getPath());
+		Statement lock = other.createStatement();
+		lock.execute("BEGIN EXCLUSIVE");
+		try {
+			persistance.sync();
+			fail("committed past an exclusive lock");
+		} catch (IllegalStateException e) {
+			// the database was busy
+		} finally {
+			lock.execute("ROLLBACK");
+			lock.close();
+			other.close();
+		}
+		assertEquals(1, persistance.getQueuedRows());
+		persistance.addCommand(7, chat("two"));
+
+		List<String> commands = persistance.getCommands(7);
+		assertEquals(2, commands.size());
+		assertTrue(commands.get(0).contains("one"));
+		assertTrue(commands.get(1).contains("two"));
+		assertEquals(0, persistance.getQueuedRows());
+		assertEquals(2, persistance.getRowsWritten());
+	}
+
+	@Test
+	public void facadeStoresMovesAndSnapshots() throws Exception {
+		FacadeSwitch.setRealServer();
+		FacadeSwitch.getSingleton().setFirstGame();
+		FacadeSwitch.getSingleton().setGameID(0);
+		ServerFacade.getSingleton().setPersistance(persistance);
+		ServerFacade.getSingleton().setFrequency(3);
+
+		for (int i = 0; i < 4; i++) {
+			FacadeSwitch.getSingleton().sendChat(
+					new ChatMessage(0, "message " + i));
+			ServerFacade.getSingleton().flushPersistance();
+		}
+
+		ServerModel saved = persistance.getGame(0);
+		assertNotNull(saved);
+		assertEquals(3, saved.getChat().getLines().size());
+		List<String> tail = persistance.getCommands(0);
+		assertEquals(1, tail.size());
+		assertTrue(tail.get(0).contains("message 3"));
+	}
+
+	private static SendChatCommand chat(String content) {
+		return new SendChatCommand(new ChatMessage(0, content));
+	}
+}
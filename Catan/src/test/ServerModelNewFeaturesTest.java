@@ -2,13 +2,36 @@ package test;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
 import org.junit.Before;
 import org.junit.Test;
 
 import server.commands.ICommand;
 import server.facade.FacadeSwitch;
+import server.model.BoardIndex;
+import server.model.ModelHistory;
+import server.model.ModelSnapshot;
 import server.model.ServerModel;
+import server.model.ServerModelController;
+import shared.locations.BoardTopology;
+import shared.locations.EdgeDirection;
+import shared.locations.EdgeLocation;
+import shared.locations.HexLocation;
+import shared.locations.VertexDirection;
+import shared.locations.VertexLocation;
+import shared.model.MessageLine;
+import shared.model.ModelPatch;
+import shared.model.Road;
+import shared.model.VertexObject;
 import shared.utils.Serializer;
+import client.model.ClientModel;
 
 public class ServerModelNewFeaturesTest {
 	private static String clientModelJson = "{\"deck\":{\"yearOfPlenty\":2,\"monopoly\":2,\"soldier\":14,\"roadBuilding\":2,\"monument\":5},\"map\":{\"hexes\":[{\"location\":{\"x\":0,\"y\":-2}},{\"resource\":\"ore\",\"location\":{\"x\":1,\"y\":-2},\"number\":3},{\"resource\":\"wood\",\"location\":{\"x\":2,\"y\":-2},\"number\":3},{\"resource\":\"wheat\",\"location\":{\"x\":-1,\"y\":-1},\"number\":8},{\"resource\":\"brick\",\"location\":{\"x\":0,\"y\":-1},\"number\":8},{\"resource\":\"sheep\",\"location\":{\"x\":1,\"y\":-1},\"number\":9},{\"resource\":\"wood\",\"location\":{\"x\":2,\"y\":-1},\"number\":11},{\"resource\":\"sheep\",\"location\":{\"x\":-2,\"y\":0},\"number\":10},{\"resource\":\"sheep\",\"location\":{\"x\":-1,\"y\":0},\"number\":12},{\"resource\":\"sheep\",\"location\":{\"x\":0,\"y\":0},\"number\":10},{\"resource\":\"wheat\",\"location\":{\"x\":1,\"y\":0},\"number\":11},{\"resource\":\"brick\",\"location\":{\"x\":2,\"y\":0},\"number\":5},{\"resource\":\"wood\",\"location\":{\"x\":-2,\"y\":1},\"number\":6},{\"resource\":\"brick\",\"location\":{\"x\":-1,\"y\":1},\"number\":4},{\"resource\":\"ore\",\"location\":{\"x\":0,\"y\":1},\"number\":5},{\"resource\":\"wood\",\"location\":{\"x\":1,\"y\":1},\"number\":4},{\"resource\":\"ore\",\"location\":{\"x\":-2,\"y\":2},\"number\":9},{\"resource\":\"wheat\",\"location\":{\"x\":-1,\"y\":2},\"number\":6},{\"resource\":\"wheat\",\"location\":{\"x\":0,\"y\":2},\"number\":2}],\"roads\":[{\"owner\":3,\"location\":{\"direction\":\"S\",\"x\":1,\"y\":0}},{\"owner\":3,\"location\":{\"direction\":\"SE\",\"x\":0,\"y\":1}},{\"owner\":3,\"location\":{\"direction\":\"SW\",\"x\":2,\"y\":0}}],\"cities\":[],\"settlements\":[{\"owner\":3,\"location\":{\"direction\":\"SW\",\"x\":1,\"y\":0}}],\"radius\":3,\"ports\":[{\"ratio\":3,\"direction\":\"S\",\"location\":{\"x\":1,\"y\":-3}},{\"ratio\":3,\"direction\":\"NE\",\"location\":{\"x\":-2,\"y\":3}},{\"ratio\":2,\"resource\":\"sheep\",\"direction\":\"SW\",\"location\":{\"x\":3,\"y\":-3}},{\"ratio\":3,\"direction\":\"NW\",\"location\":{\"x\":2,\"y\":1}},{\"ratio\":3,\"direction\":\"SE\",\"location\":{\"x\":-3,\"y\":0}},{\"ratio\":2,\"resource\":\"wood\",\"direction\":\"S\",\"location\":{\"x\":-1,\"y\":-2}},{\"ratio\":2,\"resource\":\"ore\",\"direction\":\"N\",\"location\":{\"x\":0,\"y\":3}},{\"ratio\":2,\"resource\":\"wheat\",\"direction\":\"NW\",\"location\":{\"x\":3,\"y\":-1}},{\"ratio\":2,\"resource\":\"brick\",\"direction\":\"NE\",\"location\":{\"x\":-3,\"y\":2}}],\"robber\":{\"x\":0,\"y\":-2}},\"players\":[{\"resources\":{\"brick\":0,\"wood\":0,\"sheep\":0,\"wheat\":0,\"ore\":0},\"oldDevCards\":{\"yearOfPlenty\":0,\"monopoly\":0,\"soldier\":0,\"roadBuilding\":0,\"monument\":0},\"newDevCards\":{\"yearOfPlenty\":0,\"monopoly\":0,\"soldier\":0,\"roadBuilding\":0,\"monument\":0},\"roads\":15,\"cities\":4,\"settlements\":5,\"soldiers\":0,\"victoryPoints\":0,\"monuments\":0,\"playedDevCard\":false,\"discarded\":false,\"playerID\":12,\"playerIndex\":0,\"name\":\"string\",\"color\":\"purple\"},{\"resources\":{\"brick\":0,\"wood\":0,\"sheep\":0,\"wheat\":0,\"ore\":0},\"oldDevCards\":{\"yearOfPlenty\":0,\"monopoly\":0,\"soldier\":0,\"roadBuilding\":0,\"monument\":0},\"newDevCards\":{\"yearOfPlenty\":0,\"monopoly\":0,\"soldier\":0,\"roadBuilding\":0,\"monument\":0},\"roads\":15,\"cities\":4,\"settlements\":5,\"soldiers\":0,\"victoryPoints\":0,\"monuments\":0,\"playedDevCard\":false,\"discarded\":false,\"playerID\":13,\"playerIndex\":1,\"name\":\"test1\",\"color\":\"puce\"},{\"resources\":{\"brick\":0,\"wood\":0,\"sheep\":0,\"wheat\":0,\"ore\":0},\"oldDevCards\":{\"yearOfPlenty\":0,\"monopoly\":0,\"soldier\":0,\"roadBuilding\":0,\"monument\":0},\"newDevCards\":{\"yearOfPlenty\":0,\"monopoly\":0,\"soldier\":0,\"roadBuilding\":0,\"monument\":0},\"roads\":15,\"cities\":4,\"settlements\":5,\"soldiers\":0,\"victoryPoints\":0,\"monuments\":0,\"playedDevCard\":false,\"discarded\":false,\"playerID\":14,\"playerIndex\":2,\"name\":\"test2\",\"color\":\"blue\"},{\"resources\":{\"brick\":0,\"wood\":0,\"sheep\":0,\"wheat\":0,\"ore\":0},\"oldDevCards\":{\"yearOfPlenty\":0,\"monopoly\":0,\"soldier\":0,\"roadBuilding\":0,\"monument\":0},\"newDevCards\":{\"yearOfPlenty\":0,\"monopoly\":0,\"soldier\":0,\"roadBuilding\":0,\"monument\":0},\"roads\":12,\"cities\":4,\"settlements\":4,\"soldiers\":0,\"victoryPoints\":1,\"monuments\":0,\"playedDevCard\":false,\"discarded\":false,\"playerID\":15,\"playerIndex\":3,\"name\":\"test3\",\"color\":\"orange\"}],\"log\":{\"lines\":[{\"source\":\"string\",\"message\":\"string built a settlement\"},{\"source\":\"test3\",\"message\":\"test3 built a road\"},{\"source\":\"test3\",\"message\":\"test3 built a road\"},{\"source\":\"test3\",\"message\":\"test3 built a road\"}]},\"chat\":{\"lines\":[]},\"bank\":{\"brick\":24,\"wood\":24,\"sheep\":24,\"wheat\":24,\"ore\":24},\"turnTracker\":{\"status\":\"FirstRound\",\"currentTurn\":0,\"longestRoad\":-1,\"largestArmy\":-1},\"winner\":-1,\"version\":4}";
@@ -43,19 +66,345 @@ public class ServerModelNewFeaturesTest {
 	@Test
 	public void longestRoadTest() {
 		ServerModel model = FacadeSwitch.getSingleton().getServerModel();
-		model.getPlayers()[2].setRoads(10);
+		buildRoad(model, 2, 5);
 		model.reallocateLongestRoad();
 		assertEquals(2, model.getTurnTracker().getLongestRoad());
 
 		// test that road is set appropriately
-		model.getPlayers()[3].setRoads(5);
+		List<Road> longer = buildRoad(model, 3, 10);
 		model.reallocateLongestRoad();
 		assertEquals(3, model.getTurnTracker().getLongestRoad());
 
 		// test that road doesn's change if some equals current holder's length
-		model.getPlayers()[0].setRoads(5);
+		buildRoad(model, 0, 10);
+		model.reallocateLongestRoad();
+		assertEquals(3, model.getTurnTracker().getLongestRoad());
+
+		// test that a settlement cutting the holder's road passes it on
+		cutRoad(model, longer, 5);
+		model.reallocateLongestRoad();
+		assertEquals(5, model.getDerivedState().getRoadLength(3));
+		assertEquals(0, model.getTurnTracker().getLongestRoad());
+	}
+
+	@Test
+	public void longestRoadCutBelowATieGoesToNoOne() {
+		ServerModel model = FacadeSwitch.getSingleton().getServerModel();
+		List<Road> longer = buildRoad(model, 3, 10);
 		model.reallocateLongestRoad();
 		assertEquals(3, model.getTurnTracker().getLongestRoad());
+		buildRoad(model, 0, 7);
+		buildRoad(model, 2, 7);
+		model.reallocateLongestRoad();
+		assertEquals(3, model.getTurnTracker().getLongestRoad());
+
+		cutRoad(model, longer, 5);
+		model.reallocateLongestRoad();
+		assertEquals(-1, model.getTurnTracker().getLongestRoad());
+		assertEquals(model.getDerivedState().getVictoryPoints(3,
+				model.getTurnTracker()), model.getPlayers()[3]
+				.getVictoryPoints());
 	}
 
+	@Test
+	public void longestRoadCutBelowFiveGoesToNoOne() {
+		ServerModel model = FacadeSwitch.getSingleton().getServerModel();
+		List<Road> road = buildRoad(model, 3, 8);
+		model.reallocateLongestRoad();
+		assertEquals(3, model.getTurnTracker().getLongestRoad());
+
+		cutRoad(model, road, 4);
+		model.reallocateLongestRoad();
+		assertEquals(4, model.getDerivedState().getRoadLength(3));
+		assertEquals(-1, model.getTurnTracker().getLongestRoad());
+	}
+
+	/*
+	 * Puts a settlement for player 1 on the vertex between the road's pieces
+	 * at before - 1 and before
+	 */
+	private static void cutRoad(ServerModel model, List<Road> road,
+			int before) {
+		int[] ends = BoardTopology.edgeVertices(BoardTopology.edgeId(road.get(
+				before - 1).getLocation()));
+		int middle = ends[0];
+		for (int edge : BoardTopology.vertexEdges(ends[1])) {
+			if (edge == BoardTopology.edgeId(road.get(before).getLocation())) {
+				middle = ends[1];
+			}
+		}
+		model.addSettlement(new VertexObject(1, vertexLocation(middle)));
+	}
+
+	@Test
+	public void longestRoadIsTheLongestTrail() {
+		ServerModel model = FacadeSwitch.getSingleton().getServerModel();
+		int before = model.getDerivedState().getRoadLength(1);
+		List<Road> road = buildRoad(model, 1, 6);
+		assertEquals(6, model.getDerivedState().getRoadLength(1));
+		assertTrue(model.getPlayers()[1].getNumberRoadsBuilt() <= 6 + before);
+
+		// a branch off the middle adds roads but not length
+		int[] ends = BoardTopology.edgeVertices(BoardTopology.edgeId(road.get(
+				2).getLocation()));
+		for (int vertex : ends) {
+			for (int edge : BoardTopology.vertexEdges(vertex)) {
+				if (model.getBoardIndex().roadOwner(edge) < 0
+						&& BoardTopology.edgeVertices(edge).length == 2) {
+					model.addRoad(new Road(1, edgeLocation(edge)));
+					assertEquals(6, model.getDerivedState().getRoadLength(1));
+					return;
+				}
+			}
+		}
+		fail("no room for a branch");
+	}
+
+	/*
+	 * Adds a road of the given length for the player, on vertices no other
+	 * road or building touches
+	 */
+	private static List<Road> buildRoad(ServerModel model, int player,
+			int length) {
+		BoardIndex index = model.getBoardIndex();
+		for (int start = 0; start < BoardTopology.VERTEX_COUNT; start++) {
+			List<Integer> path = new ArrayList<Integer>();
+			if (extend(index, start, length, path, new HashSet<Integer>())) {
+				List<Road> roads = new ArrayList<Road>();
+				for (int edge : path) {
+					Road road = new Road(player, edgeLocation(edge));
+					model.addRoad(road);
+					roads.add(road);
+				}
+				return roads;
+			}
+		}
+		throw new AssertionError("no room for a road of " + length);
+	}
+
+	private static boolean extend(BoardIndex index, int vertex, int length,
+			List<Integer> path, Set<Integer> visited) {
+		if (!isClear(index, vertex) || !visited.add(vertex)) {
+			return false;
+		}
+		if (path.size() == length) {
+			return true;
+		}
+		for (int edge : BoardTopology.vertexEdges(vertex)) {
+			int[] ends = BoardTopology.edgeVertices(edge);
+			int next = ends[0] == vertex ? ends[1] : ends[0];
+			path.add(edge);
+			if (extend(index, next, length, path, visited)) {
+				return true;
+			}
+			path.remove(path.size() - 1);
+		}
+		visited.remove(vertex);
+		return false;
+	}
+
+	private static boolean isClear(BoardIndex index, int vertex) {
+		if (index.buildingOwner(vertex) >= 0) {
+			return false;
+		}
+		for (int edge : BoardTopology.vertexEdges(vertex)) {
+			if (index.roadOwner(edge) >= 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static EdgeLocation edgeLocation(int id) {
+		for (int x = -BoardTopology.SPAN; x <= BoardTopology.SPAN; x++) {
+			for (int y = -BoardTopology.SPAN; y <= BoardTopology.SPAN; y++) {
+				for (EdgeDirection dir : new EdgeDirection[] {
+						EdgeDirection.NorthWest, EdgeDirection.North,
+						EdgeDirection.NorthEast }) {
+					if (BoardTopology.edgeId(x, y, dir) == id) {
+						return new EdgeLocation(new HexLocation(x, y), dir);
+					}
+				}
+			}
+		}
+		throw new AssertionError("no edge " + id);
+	}
+
+	private static VertexLocation vertexLocation(int id) {
+		for (int x = -BoardTopology.SPAN; x <= BoardTopology.SPAN; x++) {
+			for (int y = -BoardTopology.SPAN; y <= BoardTopology.SPAN; y++) {
+				for (VertexDirection dir : new VertexDirection[] {
+						VertexDirection.NorthWest, VertexDirection.NorthEast }) {
+					if (BoardTopology.vertexId(x, y, dir) == id) {
+						return new VertexLocation(new HexLocation(x, y), dir);
+					}
+				}
+			}
+		}
+		throw new AssertionError("no vertex " + id);
+	}
+
+	@Test
+	public void toClientModelMatchesJsonRoundTrip() {
+		ServerModel model = Serializer.deserializeServerModel(clientModelJson);
+		model.getLog().addLine(new MessageLine("test3 rolled a 6.", "test3"));
+
+		ClientModel roundTrip = Serializer.deserializeClientModel(Serializer
+				.serializeServerModel(model));
+		ClientModel copy = model.toClientModel();
+		assertEquals(Serializer.serialize(roundTrip), Serializer.serialize(copy));
+
+		// later moves on the server must not show through the copy
+		String before = Serializer.serialize(copy);
+		model.getPlayers()[0].getResources().setBrick(3);
+		model.getBank().setBrick(21);
+		model.getTurnTracker().setStatus("Playing");
+		model.getChat().addLine(new MessageLine("hi", "string"));
+		model.addRoad(model.getMap().getRoads().get(0));
+		model.incrementVersion();
+		assertEquals(before, Serializer.serialize(copy));
+	}
+
+	@Test
+	public void snapshotIsReusedUntilVersionChanges() throws Exception {
+		ServerModel model = Serializer.deserializeServerModel(clientModelJson);
+		ModelSnapshot snapshot = model.getSnapshot();
+		assertEquals(4, snapshot.getVersion());
+		assertEquals(Serializer.serialize(model.toClientModel()), new String(
+				snapshot.getJson(), "UTF-8"));
+		assertSame(snapshot, model.getSnapshot());
+
+		GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(
+				snapshot.getGzip()));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			out.write(buffer, 0, read);
+		}
+		assertArrayEquals(snapshot.getJson(), out.toByteArray());
+
+		model.getChat().addLine(new MessageLine("hi", "string"));
+		model.incrementVersion();
+		ModelSnapshot next = model.getSnapshot();
+		assertNotSame(snapshot, next);
+		assertEquals(5, next.getVersion());
+		assertTrue(new String(next.getJson(), "UTF-8").contains("\"hi\""));
+	}
+
+	@Test
+	public void patchBringsClientUpToDate() throws Exception {
+		ServerModel model = Serializer.deserializeServerModel(clientModelJson);
+		ClientModel client = Serializer.deserializeClientModel(new String(
+				model.getSnapshot().getJson(), "UTF-8"));
+
+		model.getChat().addLine(new MessageLine("hi", "string"));
+		model.getPlayers()[1].getResources().setOre(2);
+		model.incrementVersion();
+		VertexObject settlement = model.getMap().getSettlements().get(0);
+		model.addCity(new VertexObject(settlement.getOwner(), settlement
+				.getLocation()));
+		model.addRoad(new Road(0, model.getMap().getRoads().get(0).getLocation()));
+		model.getLog().addLine(new MessageLine("string built a city", "string"));
+		model.incrementVersion();
+
+		String json = new String(model.getPatchSnapshot(4).getJson(), "UTF-8");
+		ModelPatch patch = ModelPatch.fromJson(json);
+		assertNotNull(patch);
+		assertEquals(ModelPatch.TYPE, patch.getType());
+		assertEquals(1, patch.getChat().length);
+		assertNull(patch.getPlayers()[0]);
+		assertNotNull(patch.getPlayers()[1]);
+
+		ClientModel patched = client.applyPatch(patch);
+		assertEquals(Serializer.serialize(model.toClientModel()),
+				Serializer.serialize(patched));
+
+		// a patch for another version is refused
+		assertNull(patched.applyPatch(patch));
+	}
+
+	@Test
+	public void clientTooFarBehindGetsWholeModel() throws Exception {
+		ServerModel model = Serializer.deserializeServerModel(clientModelJson);
+		model.getSnapshot();
+		for (int i = 0; i <= ModelHistory.DEFAULT_CAPACITY; i++) {
+			model.incrementVersion();
+		}
+		String json = new String(model.getPatchSnapshot(4).getJson(), "UTF-8");
+		assertNull(ModelPatch.fromJson(json));
+		assertEquals(model.getVersion(), Serializer.deserializeClientModel(json)
+				.getVersion());
+	}
+
+	@Test
+	public void boardIndexFollowsPieces() throws Exception {
+		ServerModel model = Serializer.deserializeServerModel(clientModelJson);
+		ServerModelController controller = new ServerModelController(model);
+		// the settlement is stored as SW of (1, 0), asked for as NW of (1, 1)
+		VertexObject spot = new VertexObject(3, new VertexLocation(
+				new HexLocation(1, 1), VertexDirection.NorthWest));
+		assertEquals(3, controller.settlementOwner(spot));
+		assertEquals(-1, controller.cityOwner(spot));
+
+		model.addCity(spot);
+		model.addSettlement(new VertexObject(1, new VertexLocation(
+				new HexLocation(-1, 0), VertexDirection.East)));
+		model.addRoad(new Road(1, new EdgeLocation(new HexLocation(0, 0),
+				EdgeDirection.SouthWest)));
+		assertEquals(-1, controller.settlementOwner(spot));
+		assertEquals(3, controller.cityOwner(spot));
+		assertIndexMatches(model.getBoardIndex(), new BoardIndex(model.getMap()));
+
+		// pieces swapped in without the mutators are picked up too
+		model.getMap().setRoads(new Road[0]);
+		assertIndexMatches(model.getBoardIndex(), new BoardIndex(model.getMap()));
+		assertEquals(-1, model.getBoardIndex().roadOwner(
+				BoardTopology.edgeId(1, 0, EdgeDirection.South)));
+	}
+
+	private static void assertIndexMatches(BoardIndex expected,
+			BoardIndex actual) {
+		for (int edge = 0; edge < BoardTopology.EDGE_COUNT; edge++) {
+			assertEquals(expected.roadOwner(edge), actual.roadOwner(edge));
+		}
+		for (int vertex = 0; vertex < BoardTopology.VERTEX_COUNT; vertex++) {
+			assertEquals(expected.settlementOwner(vertex),
+					actual.settlementOwner(vertex));
+			assertEquals(expected.cityOwner(vertex), actual.cityOwner(vertex));
+		}
+	}
+
+	@Test
+	public void locationAliasesAreEqual() {
+		VertexLocation northWest = new VertexLocation(new HexLocation(1, 1),
+				VertexDirection.NorthWest);
+		VertexLocation southWest = new VertexLocation(new HexLocation(1, 0),
+				VertexDirection.SouthWest);
+		VertexLocation east = new VertexLocation(new HexLocation(0, 1),
+				VertexDirection.East);
+		assertEquals(northWest, southWest);
+		assertEquals(northWest, east);
+		assertEquals(northWest.hashCode(), east.hashCode());
+		assertFalse(northWest.equals(new VertexLocation(new HexLocation(1, 1),
+				VertexDirection.NorthEast)));
+
+		EdgeLocation south = new EdgeLocation(new HexLocation(1, 0),
+				EdgeDirection.South);
+		EdgeLocation north = new EdgeLocation(new HexLocation(1, 1),
+				EdgeDirection.North);
+		assertEquals(south, north);
+		assertEquals(south.hashCode(), north.hashCode());
+		assertFalse(south.equals(new EdgeLocation(new HexLocation(1, 0),
+				EdgeDirection.SouthEast)));
+
+		// read straight from JSON, with no conversion pass
+		EdgeLocation parsed = (EdgeLocation) Serializer.deserialize(
+				"{\"direction\":\"S\",\"x\":1,\"y\":0}", EdgeLocation.class);
+		assertEquals(north, parsed);
+		assertEquals(EdgeDirection.South, parsed.getDir());
+		assertEquals(new HexLocation(1, 0), parsed.getHexLoc());
+		assertEquals("{\"direction\":\"S\",\"x\":1,\"y\":0}",
+				Serializer.serialize(south));
+	}
 }
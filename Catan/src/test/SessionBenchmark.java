@@ -0,0 +1,86 @@
+package test;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+
+import server.httpHandlers.HandlerUtil;
+import server.model.SessionTable;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.Headers;
+
+/**
+ * Resolves the player and game of a request from its Cookie header the way
+ * the handlers used to, by decoding the catan.user JSON and the catan.game
+ * cookie, and through the session table.
+ */
+public class SessionBenchmark {
+	private static volatile int sink;
+
+	public static void main(String[] args) throws Exception {
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		for (int i = 0; i < 1000; i++) {
+			SessionTable.getSingleton().open(i);
+		}
+		SessionTable.Session session = SessionTable.getSingleton().open(12);
+		session.joined(3, 1);
+		String user = "catan.user="
+				+ URLEncoder.encode(
+						"{\"name\":\"Sam\",\"password\":\"sam\",\"playerID\":12}",
+						"UTF-8");
+		final Headers headers = new Headers();
+		headers.add("Cookie", user + "; catan.game=3; " + SessionTable.COOKIE
+				+ "=" + session.getToken());
+
+		Benchmark.measure("cookie JSON", iterations, new Benchmark.Task() {
+			@Override
+			public void run() throws Exception {
+				sink = legacyPlayerID(headers) + legacyGameID(headers);
+			}
+		});
+		Benchmark.measure("session table", iterations, new Benchmark.Task() {
+			@Override
+			public void run() throws Exception {
+				SessionTable.Session found = HandlerUtil.getSession(headers);
+				sink = found.getPlayerID() + found.getGameID();
+			}
+		});
+	}
+
+	/*
+	 * What HandlerUtil.getPlayerID did before sessions
+	 */
+	private static int legacyPlayerID(Headers headers) throws Exception {
+		for (String cookie : headers.get("Cookie")) {
+			for (String subCook : cookie.split(";", -1)) {
+				if (subCook.contains("password")) {
+					cookie = subCook;
+					break;
+				}
+			}
+			cookie = URLDecoder.decode(cookie, "UTF-8").replace(
+					"catan.user=", "");
+			JsonObject json = (JsonObject) new JsonParser().parse(cookie);
+			return json.get("playerID").getAsInt();
+		}
+		return -1;
+	}
+
+	/*
+	 * What HandlerUtil.getGameID did before sessions
+	 */
+	private static int legacyGameID(Headers headers) throws Exception {
+		for (String cookie : headers.get("Cookie")) {
+			for (String subCook : cookie.split(";", -1)) {
+				if (subCook.contains("game")) {
+					cookie = subCook;
+					break;
+				}
+			}
+			cookie = URLDecoder.decode(cookie, "UTF-8");
+			return Integer.valueOf(cookie.split("=")[1]);
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,168 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import server.facade.FacadeSwitch;
+import server.httpHandlers.HandlerUtil;
+import server.httpHandlers.JoinGameHandler;
+import server.httpHandlers.LoginHandler;
+import server.model.RegisteredPlayers;
+import server.model.ServerModel;
+import server.model.SessionTable;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpServer;
+
+public class SessionTableTest {
+	private static final int GAME_ID = 200100;
+
+	@Test
+	public void tokensResolveToTheirSession() {
+		SessionTable table = SessionTable.getSingleton();
+		SessionTable.Session first = table.open(7);
+		SessionTable.Session second = table.open(7);
+		assertNotEquals(first.getToken(), second.getToken());
+		assertSame(first, table.get(first.getToken()));
+		assertEquals(7, table.get(second.getToken()).getPlayerID());
+		assertEquals(-1, first.getGameID());
+
+		first.joined(3, 2);
+		assertEquals(3, table.get(first.getToken()).getGameID());
+		assertEquals(2, table.get(first.getToken()).getPlayerIndex());
+
+		table.close(first.getToken());
+		assertNull(table.get(first.getToken()));
+		assertNull(table.get("no such token"));
+		assertNull(table.get(null));
+	}
+
+	@Test
+	public void idleSessionsExpire() throws Exception {
+		SessionTable table = new SessionTable(400, 4);
+		SessionTable.Session idle = table.open(1);
+		SessionTable.Session used = table.open(2);
+		for (int i = 0; i < 5; i++) {
+			Thread.sleep(100);
+			assertSame(used, table.get(used.getToken()));
+		}
+		assertNull(table.get(idle.getToken()));
+		assertSame(used, table.get(used.getToken()));
+		Thread.sleep(500);
+		table.open(3);
+		assertEquals(1, table.size());
+		assertNull(table.get(used.getToken()));
+	}
+
+	@Test
+	public void loggingInAgainEndsTheOldestSession() {
+		SessionTable table = new SessionTable(60000, 2);
+		SessionTable.Session first = table.open(1);
+		SessionTable.Session second = table.open(1);
+		SessionTable.Session other = table.open(2);
+		SessionTable.Session third = table.open(1);
+		assertNull(table.get(first.getToken()));
+		assertSame(second, table.get(second.getToken()));
+		assertSame(third, table.get(third.getToken()));
+		assertSame(other, table.get(other.getToken()));
+		assertEquals(3, table.size());
+
+		table.close(second.getToken());
+		table.open(1);
+		assertSame(third, table.get(third.getToken()));
+		assertEquals(3, table.size());
+	}
+
+	@Test
+	public void findsCookiesByExactName() {
+		Headers headers = new Headers();
+		assertNull(HandlerUtil.getCookie(headers, "catan.game"));
+		headers.add("Cookie",
+				"xcatan.game=9; catan.user=%7B%22game%22%7D; catan.game=4; catan.session=abc");
+		assertEquals("4", HandlerUtil.getCookie(headers, "catan.game"));
+		assertEquals("abc", HandlerUtil.getCookie(headers, "catan.session"));
+		assertNull(HandlerUtil.getCookie(headers, "catan"));
+
+		SessionTable.Session session = SessionTable.getSingleton().open(5);
+		headers = new Headers();
+		headers.add("Cookie", "catan.session=" + session.getToken()
+				+ "; catan.game=1");
+		assertSame(session, HandlerUtil.getSession(headers));
+	}
+
+	@Test
+	public void loginAndJoinFillTheSession() throws Exception {
+		FacadeSwitch.setRealServer();
+		String name = "session" + System.nanoTime() % 100000;
+		RegisteredPlayers.getSingleton().addNewPlayer(name, "secret");
+		FacadeSwitch.getSingleton().getModelMap()
+				.put(GAME_ID, new ServerModel());
+		HttpServer httpServer = HttpServer.create(new InetSocketAddress(
+				"localhost", 0), 0);
+		httpServer.createContext("/user/login", new LoginHandler());
+		httpServer.createContext("/games/join", new JoinGameHandler());
+		httpServer.start();
+		try {
+			String base = "http://localhost"
+					+ ":" + httpServer.getAddress().getPort();
+			HttpURLConnection login = post(base + "/user/login", null,
+					"{\"username\":\"" + name + "\",\"password\":\"secret\"}");
+			assertEquals(200, login.getResponseCode());
+			String token = null;
+			for (Map.Entry<String, List<String>> header : login
+					.getHeaderFields().entrySet()) {
+				if (!"Set-Cookie".equalsIgnoreCase(header.getKey())) {
+					continue;
+				}
+				for (String cookie : header.getValue()) {
+					if (cookie.startsWith("catan.session=")) {
+						token = cookie.substring("catan.session=".length(),
+								cookie.indexOf(';'));
+					}
+				}
+			}
+			assertNotNull(token);
+			SessionTable.Session session = SessionTable.getSingleton().get(
+					token);
+			assertEquals(RegisteredPlayers.getSingleton().getPlayerId(name),
+					session.getPlayerID());
+
+			assertEquals(400, post(base + "/games/join", null,
+					"{\"id\":" + GAME_ID + ",\"color\":\"red\"}")
+					.getResponseCode());
+			assertEquals(200, post(base + "/games/join",
+					"catan.session=" + token,
+					"{\"id\":" + GAME_ID + ",\"color\":\"red\"}")
+					.getResponseCode());
+			assertEquals(GAME_ID, session.getGameID());
+			assertEquals(0, session.getPlayerIndex());
+		} finally {
+			httpServer.stop(0);
+			FacadeSwitch.getSingleton().getModelMap().remove(GAME_ID);
+		}
+	}
+
+	private static HttpURLConnection post(String url, String cookie,
+			String body) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(url)
+				.openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		if (cookie != null) {
+			connection.setRequestProperty("Cookie", cookie);
+		}
+		OutputStream out = connection.getOutputStream();
+		out.write(body.getBytes("UTF-8"));
+		out.close();
+		return connection;
+	}
+}
@@ -0,0 +1,56 @@
+package test;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+
+import server.model.ServerModel;
+import server.model.SnapshotCodec;
+import shared.utils.Serializer;
+
+/**
+ * Saves a game late in play the old way, as a line of JSON, and as a binary
+ * snapshot, then compares the file sizes and how long each takes to load.
+ */
+public class SnapshotCodecBenchmark {
+	public static void main(String[] args) throws Exception {
+		int lines = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+		ServerModel model = Benchmark.lateGame(lines);
+
+		final File json = File.createTempFile("game", ".txt");
+		final File snapshot = File.createTempFile("game", ".snapshot");
+		try {
+			BufferedWriter writer = new BufferedWriter(new FileWriter(json));
+			writer.write(Serializer.serializeServerModel(model));
+			writer.close();
+			SnapshotCodec.write(model, snapshot);
+			System.out.printf(
+					"%d log and chat lines: JSON %d bytes, snapshot %d bytes, %.1fx smaller%n",
+					lines, json.length(), snapshot.length(),
+					(double) json.length() / snapshot.length());
+
+			Benchmark.measure("load JSON", iterations, new Benchmark.Task() {
+				@Override
+				public void run() throws Exception {
+					BufferedReader reader = new BufferedReader(new FileReader(
+							json));
+					Serializer.deserializeServerModel(reader.readLine());
+					reader.close();
+				}
+			});
+			Benchmark.measure("load snapshot", iterations,
+					new Benchmark.Task() {
+						@Override
+						public void run() throws Exception {
+							SnapshotCodec.read(snapshot);
+						}
+					});
+		} finally {
+			json.delete();
+			snapshot.delete();
+		}
+	}
+}
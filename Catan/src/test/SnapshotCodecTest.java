@@ -0,0 +1,121 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import server.commands.LoadGameCommand;
+import server.commands.SaveGameCommand;
+import server.facade.FacadeSwitch;
+import server.model.GameList;
+import server.model.ServerModel;
+import server.model.SnapshotCodec;
+import shared.communication.LoadGameParams;
+import shared.communication.SaveParams;
+import shared.model.MessageLine;
+import shared.model.ResourceList;
+import shared.utils.Serializer;
+
+public class SnapshotCodecTest {
+
+	@Test
+	public void decodedGameSerializesTheSame() throws Exception {
+		ServerModel model = Benchmark.lateGame(30);
+		String json = Serializer.serializeServerModel(model);
+		assertEquals(json, Serializer.serializeServerModel(SnapshotCodec
+				.decode(ByteBuffer.wrap(SnapshotCodec.encode(model)))));
+	}
+
+	@Test
+	public void keepsNullsNegativesAndUnicode() throws Exception {
+		ServerModel model = Serializer.deserializeServerModel(Serializer
+				.serializeServerModel(Benchmark.lateGame(5)));
+		model.getPlayers()[3] = null;
+		model.getPlayers()[1].setResources(new ResourceList(-1, 0, 70000,
+				Integer.MIN_VALUE, Integer.MAX_VALUE));
+		model.setTradeOffer(null);
+		model.setTitle("Spiel für ☃");
+		model.setWinner(-1);
+		model.getChat().addLine(new MessageLine("", null));
+		String json = Serializer.serializeServerModel(model);
+		assertEquals(json, Serializer.serializeServerModel(SnapshotCodec
+				.decode(ByteBuffer.wrap(SnapshotCodec.encode(model)))));
+	}
+
+	@Test
+	public void readsAFileThroughAMappedBuffer() throws Exception {
+		ServerModel model = Benchmark.lateGame(100);
+		File file = File.createTempFile("game", ".snapshot");
+		try {
+			SnapshotCodec.write(model, file);
+			assertTrue(file.length() * 5 < Serializer.serializeServerModel(
+					model).length());
+			assertEquals(Serializer.serializeServerModel(model),
+					Serializer.serializeServerModel(SnapshotCodec.read(file)));
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void skipsSectionsItDoesNotKnow() throws Exception {
+		ServerModel model = Benchmark.lateGame(3);
+		byte[] bytes = SnapshotCodec.encode(model);
+		byte[] extended = Arrays.copyOf(bytes, bytes.length + 5);
+		extended[bytes.length] = 99;
+		extended[bytes.length + 1] = 3;
+		assertEquals(Serializer.serializeServerModel(model),
+				Serializer.serializeServerModel(SnapshotCodec.decode(ByteBuffer
+						.wrap(extended))));
+	}
+
+	@Test
+	public void refusesOtherFilesAndLaterVersions() throws Exception {
+		byte[] bytes = SnapshotCodec.encode(Benchmark.lateGame(3));
+		byte[] later = bytes.clone();
+		later[3] = (byte) (SnapshotCodec.VERSION + 1);
+		assertRefused(later);
+		assertRefused("{\"version\":1}".getBytes("UTF-8"));
+		assertRefused(Arrays.copyOf(bytes, bytes.length / 2));
+	}
+
+	@Test
+	public void savedGameLoadsBack() throws Exception {
+		FacadeSwitch.setRealServer();
+		FacadeSwitch.getSingleton().setFirstGame();
+		FacadeSwitch.getSingleton().setGameID(0);
+		String name = "snapshot test " + System.nanoTime();
+		File file = new File("./saves/" + name + ".snapshot");
+		try {
+			new SaveGameCommand(new SaveParams(0, name)).execute();
+			assertTrue(file.exists());
+			String json = Serializer.serializeServerModel(FacadeSwitch
+					.getSingleton().getModelMap().get(0));
+
+			FacadeSwitch.getSingleton().getModelMap().remove(0);
+			GameList.getSingleton().removeGame(
+					GameList.getSingleton().getGameByID(0));
+			new LoadGameCommand(new LoadGameParams(name)).execute();
+			assertEquals(json, Serializer.serializeServerModel(FacadeSwitch
+					.getSingleton().getModelMap().get(0)));
+			assertNotNull(GameList.getSingleton().getGameByID(0));
+		} finally {
+			file.delete();
+			FacadeSwitch.getSingleton().setFirstGame();
+		}
+	}
+
+	private static void assertRefused(byte[] bytes) {
+		try {
+			SnapshotCodec.decode(ByteBuffer.wrap(bytes));
+			fail("decoded " + bytes.length + " bad bytes");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+}
@@ -8,7 +8,16 @@ public class TestRunner {
 				"test.CanPlayCardTest", "test.MiscClientModelTest",
 				"test.DevCardTest", "test.CommandDevCardTests",
 				"test.CommandOtherMoveTests", "test.CommandBuildingTests",
-				"test.CommandTradeNchatTests" };
+				"test.CommandTradeNchatTests", "test.ConcurrentGamesLoadTest",
+				"test.RequestExecutorTest", "test.ResponseBufferTest",
+				"test.LongPollTest", "test.CommandJournalTest",
+				"test.SQLPersistanceTest", "test.WriteBehindQueueTest",
+				"test.GameRandomTest", "test.GameRecoveryTest",
+				"test.SnapshotCodecTest", "test.GameEvictorTest",
+				"test.GameListTest", "test.SessionTableTest",
+				"test.CommandCodecTest", "test.DerivedStateTest",
+				"test.PayoutTableTest", "test.BitboardTest",
+				"test.LegalMovesTest" };
 		org.junit.runner.JUnitCore.main(testClasses);
 	}
 }
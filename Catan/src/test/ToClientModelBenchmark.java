@@ -0,0 +1,59 @@
+package test;
+
+import server.httpHandlers.HandlerUtil;
+import server.httpHandlers.ResponseBuffer;
+import server.model.ServerModel;
+import shared.utils.Serializer;
+import client.model.ClientModel;
+
+/**
+ * Compares building the /game/model response by round-tripping the
+ * ServerModel through JSON with copying it straight into a ClientModel. Both
+ * runs include writing the response, so the numbers are per request.
+ */
+public class ToClientModelBenchmark {
+	private static final int ITERATIONS = 2000;
+
+	public static void main(String[] args) throws Exception {
+		final ServerModel model = Benchmark.lateGame(500);
+		final ResponseBuffer buffer = new ResponseBuffer();
+
+		Benchmark.Result before = Benchmark.measure("JSON round trip + write",
+				ITERATIONS, new Benchmark.Task() {
+					@Override
+					public void run() throws Exception {
+						ClientModel clientModel = Serializer
+								.deserializeClientModel(Serializer
+										.serializeServerModel(model));
+						buffer.reset();
+						HandlerUtil.writeJson(clientModel, buffer);
+					}
+				});
+		int beforeSize = buffer.size();
+
+		Benchmark.Result after = Benchmark.measure("toClientModel copy + write",
+				ITERATIONS, new Benchmark.Task() {
+					@Override
+					public void run() throws Exception {
+						ClientModel clientModel = model.toClientModel();
+						buffer.reset();
+						HandlerUtil.writeJson(clientModel, buffer);
+					}
+				});
+
+		Benchmark.measure("toClientModel copy only", ITERATIONS,
+				new Benchmark.Task() {
+					@Override
+					public void run() throws Exception {
+						model.toClientModel();
+					}
+				});
+
+		System.out.println("response size: " + beforeSize + " / "
+				+ buffer.size() + " bytes");
+		System.out.printf("speedup: %.1fx, allocation: %.1fx less%n",
+				after.getOpsPerSecond() / before.getOpsPerSecond(),
+				(double) before.getBytesAllocatedPerOp()
+						/ after.getBytesAllocatedPerOp());
+	}
+}
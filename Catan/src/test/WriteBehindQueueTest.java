@@ -0,0 +1,135 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import server.commands.ICommand;
+import server.facade.FacadeSwitch;
+import server.facade.ServerFacade;
+import server.model.ServerModel;
+import server.persistance.TextPersistance;
+import server.persistance.WriteBehindQueue;
+import shared.communication.ChatMessage;
+
+public class WriteBehindQueueTest {
+	private File directory;
+	private TextPersistance persistance;
+	private int chatBefore;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("write-behind").toFile();
+		FacadeSwitch.setRealServer();
+		FacadeSwitch.getSingleton().setFirstGame();
+		FacadeSwitch.getSingleton().setGameID(0);
+		chatBefore = ServerFacade.getSingleton().getModelMap().get(0)
+				.getChat().getLines().size();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		ServerFacade.getSingleton().setPersistance(null);
+		ServerFacade.getSingleton().setFrequency(0);
+		ServerFacade.getSingleton().setWriteBehind(
+				WriteBehindQueue.DEFAULT_CAPACITY,
+				WriteBehindQueue.DEFAULT_FLUSH_MILLIS);
+		if (persistance != null) {
+			persistance.close();
+		}
+		for (File file : new File(directory, "journal").listFiles()) {
+			file.delete();
+		}
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void dirtyGameIsSnapshottedOnceAfterFlushMillis() throws Exception {
+		ServerFacade.getSingleton().setWriteBehind(100, 1000);
+		start(new TextPersistance(directory.getPath(), 10, 1 << 20));
+
+		for (int i = 0; i < 50; i++) {
+			chat("message " + i);
+		}
+		ServerFacade.getSingleton().flushPersistance();
+		WriteBehindQueue queue = ServerFacade.getSingleton().getWriteBehind();
+		assertEquals(0, queue.getSnapshotCount());
+		assertEquals(50, persistance.getCommands(0).size());
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (queue.getSnapshotCount() == 0
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		assertEquals(1, queue.getSnapshotCount());
+		assertTrue(persistance.getCommands(0).isEmpty());
+		assertEquals(chatBefore + 50, persistance.getGame(0).getChat()
+				.getLines().size());
+		assertTrue(queue.getFlushCount() > 0);
+		assertTrue(queue.getSlowestFlushMillis() >= queue
+				.getAverageFlushMillis());
+	}
+
+	@Test
+	public void snapshotAndJournalHoldEachMoveOnce() throws Exception {
+		ServerFacade.getSingleton().setFrequency(3);
+		start(new TextPersistance(directory.getPath(), 10, 1 << 20));
+
+		for (int i = 0; i < 200; i++) {
+			chat("message " + i);
+		}
+		ServerFacade.getSingleton().flushPersistance();
+
+		ServerModel saved = persistance.getGame(0);
+		List<String> tail = persistance.getCommands(0);
+		int savedMoves = saved.getChat().getLines().size() - chatBefore;
+		assertEquals(200, savedMoves + tail.size());
+		for (int i = 0; i < tail.size(); i++) {
+			assertTrue(tail.get(i).contains("message " + (savedMoves + i)));
+		}
+	}
+
+	@Test
+	public void fullQueueMakesMovesWait() throws Exception {
+		ServerFacade.getSingleton().setWriteBehind(2, 60000);
+		start(new TextPersistance(directory.getPath(), 10, 1 << 20) {
+			@Override
+			public void addCommand(int gameID, ICommand command) {
+				try {
+					Thread.sleep(5);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				super.addCommand(gameID, command);
+			}
+		});
+
+		for (int i = 0; i < 20; i++) {
+			chat("message " + i);
+			assertTrue(ServerFacade.getSingleton().getWriteBehind()
+					.getQueueDepth() <= 2);
+		}
+		ServerFacade.getSingleton().flushPersistance();
+		assertTrue(ServerFacade.getSingleton().getWriteBehind()
+				.getWaitedForRoom() > 0);
+		assertEquals(20, persistance.getCommands(0).size());
+	}
+
+	private void start(TextPersistance persistance) {
+		this.persistance = persistance;
+		ServerFacade.getSingleton().setPersistance(persistance);
+	}
+
+	private static void chat(String content) throws Exception {
+		FacadeSwitch.getSingleton().sendChat(new ChatMessage(0, content));
+	}
+}